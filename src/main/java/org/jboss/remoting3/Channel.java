@@ -95,6 +95,16 @@ public interface Channel extends Attachable, HandleableCloseable<Channel>, Confi
      */
     <T> T setOption(Option<T> option, T value) throws IllegalArgumentException;
 
+    /**
+     * Get the number of outbound messages which are currently open on this channel.  This may be used to spread
+     * messages across several channels to the same service.
+     *
+     * @return the number of open outbound messages, or 0 if it is not known
+     */
+    default int getOutboundMessageCount() {
+        return 0;
+    }
+
     /**
      * Close this channel.  No more messages may be sent or received after this method is called.
      *
@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.jboss.remoting3._private.Messages.conn;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.sasl.SaslException;
+
+import org.xnio.IoFuture;
+
+/**
+ * A circuit breaker for the managed connections to a single destination.  When a connection attempt fails, the circuit
+ * opens and further attempts fail immediately with the last failure as their cause.  Once the backoff time elapses, a
+ * single probe attempt is let through; if it succeeds the circuit closes, otherwise it opens again for twice as long
+ * (up to a maximum).  Authentication failures do not indicate an unreachable destination and are ignored.
+ */
+final class CircuitBreaker {
+    static final long MIN_BACKOFF_MILLIS = 1000L;
+    static final long MAX_BACKOFF_MILLIS = 60000L;
+
+    private final ConnectionKey key;
+    private int failures;
+    private long openUntil;
+    private boolean probing;
+    private IOException lastFailure;
+
+    CircuitBreaker(final ConnectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Determine whether a connection attempt may be made now.  If the circuit is open but its backoff time has elapsed,
+     * the caller becomes the probe and must report the attempt through {@link #track(IoFuture)}.
+     *
+     * @return {@code null} if the attempt may proceed, or the exception to fail the attempt with
+     */
+    synchronized IOException checkAttempt() {
+        if (failures == 0) {
+            return null;
+        }
+        final long remaining = openUntil - System.nanoTime();
+        if (remaining <= 0L && ! probing) {
+            probing = true;
+            return null;
+        }
+        final IOException exception = conn.destinationUnavailable(key.getRealUri(), Math.max(0L, TimeUnit.NANOSECONDS.toMillis(remaining)));
+        exception.initCause(lastFailure);
+        return exception;
+    }
+
+    /**
+     * Track the outcome of a connection attempt which was allowed by {@link #checkAttempt()}.
+     *
+     * @param attempt the connection attempt
+     * @param <T> the connection type
+     * @return the attempt
+     */
+    <T> IoFuture<T> track(final IoFuture<T> attempt) {
+        attempt.addNotifier(new IoFuture.HandlingNotifier<T, Void>() {
+            public void handleCancelled(final Void attachment) {
+                synchronized (CircuitBreaker.this) {
+                    probing = false;
+                }
+            }
+
+            public void handleFailed(final IOException exception, final Void attachment) {
+                if (exception instanceof SaslException) {
+                    handleCancelled(attachment);
+                } else {
+                    failed(exception);
+                }
+            }
+
+            public void handleDone(final T result, final Void attachment) {
+                synchronized (CircuitBreaker.this) {
+                    failures = 0;
+                    probing = false;
+                    lastFailure = null;
+                }
+            }
+        }, null);
+        return attempt;
+    }
+
+    private synchronized void failed(final IOException exception) {
+        final int failures = ++ this.failures;
+        final long backoff = failures > 16 ? MAX_BACKOFF_MILLIS : Math.min(MIN_BACKOFF_MILLIS << failures - 1, MAX_BACKOFF_MILLIS);
+        openUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff);
+        probing = false;
+        lastFailure = exception;
+        conn.tracef("Connection attempt %d to %s failed; failing fast for %d ms", Integer.valueOf(failures), key.getRealUri(), Long.valueOf(backoff));
+    }
+
+    synchronized boolean isOpen() {
+        return failures > 0;
+    }
+
+    public synchronized String toString() {
+        final StringBuilder b = new StringBuilder();
+        b.append(key.getRealUri());
+        if (failures == 0) {
+            b.append(" closed");
+        } else {
+            b.append(probing ? " probing" : " open");
+            b.append(" failures=").append(failures);
+            b.append(" retry-in=").append(Math.max(0L, TimeUnit.NANOSECONDS.toMillis(openUntil - System.nanoTime()))).append("ms");
+            if (lastFailure != null) {
+                b.append(" last-failure=").append(lastFailure);
+            }
+        }
+        return b.toString();
+    }
+}
@@ -38,6 +38,9 @@ public final class ConnectionBuilder {
     private int ipTrafficClass = -1;
 
     private int heartbeatInterval = -1;
+    private int poolSize = -1;
+    private long poolGrowthThreshold = -1L;
+    private boolean eagerConnect;
 
     ConnectionBuilder(final URI destination) {
         this.destination = destination;
@@ -72,6 +75,23 @@ public final class ConnectionBuilder {
         return this;
     }
 
+    public ConnectionBuilder setPoolSize(final int poolSize) {
+        Assert.checkMinimumParameter("poolSize", 1, poolSize);
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public ConnectionBuilder setPoolGrowthThreshold(final long poolGrowthThreshold) {
+        Assert.checkMinimumParameter("poolGrowthThreshold", 0L, poolGrowthThreshold);
+        this.poolGrowthThreshold = poolGrowthThreshold;
+        return this;
+    }
+
+    public ConnectionBuilder setEagerConnect(final boolean eagerConnect) {
+        this.eagerConnect = eagerConnect;
+        return this;
+    }
+
     URI getDestination() {
         return destination;
     }
@@ -96,6 +116,18 @@ public final class ConnectionBuilder {
         return heartbeatInterval;
     }
 
+    int getPoolSize() {
+        return poolSize;
+    }
+
+    long getPoolGrowthThreshold() {
+        return poolGrowthThreshold;
+    }
+
+    boolean isEagerConnect() {
+        return eagerConnect;
+    }
+
     boolean isSetTcpKeepAlive() {
         return setTcpKeepAlive;
     }
@@ -62,7 +62,7 @@ class ConnectionImpl extends AbstractHandleableCloseable<Connection> implements
     private final String protocol;
     private final String saslProtocol;
 
-    ConnectionImpl(final EndpointImpl endpoint, final ConnectionHandlerFactory connectionHandlerFactory, final ConnectionProviderContext connectionProviderContext, final URI peerUri, final SaslAuthenticationFactory authenticationFactory, final AuthenticationConfiguration authenticationConfiguration, final String saslProtocol) {
+    ConnectionImpl(final EndpointImpl endpoint, final ConnectionHandlerFactory connectionHandlerFactory, final ConnectionProviderContext connectionProviderContext, final URI peerUri, final SaslAuthenticationFactory authenticationFactory, final AuthenticationConfiguration authenticationConfiguration, final String saslProtocol, final OptionMap optionMap) {
         super(endpoint.getExecutor(), true);
         this.endpoint = endpoint;
         this.peerUri = peerUri;
@@ -71,7 +71,7 @@ class ConnectionImpl extends AbstractHandleableCloseable<Connection> implements
         this.saslProtocol = saslProtocol;
         this.connectionHandler = connectionHandlerFactory.createInstance(endpoint.new LocalConnectionContext(connectionProviderContext, this));
         this.authenticationFactory = authenticationFactory;
-        this.peerIdentityContext = new ConnectionPeerIdentityContext(this, connectionHandler.getOfferedMechanisms(), getConnectionHandler().getPeerSaslServerName(), saslProtocol);
+        this.peerIdentityContext = new ConnectionPeerIdentityContext(this, connectionHandler.getOfferedMechanisms(), getConnectionHandler().getPeerSaslServerName(), saslProtocol, optionMap);
     }
 
     protected void closeAction() throws IOException {
@@ -100,6 +100,10 @@ class ConnectionImpl extends AbstractHandleableCloseable<Connection> implements
         return connectionHandler;
     }
 
+    long getLoad() {
+        return connectionHandler.getLoad();
+    }
+
     @Override
     public SSLSession getSslSession() {
         return connectionHandler.getSslSession();
@@ -28,6 +28,7 @@ import java.util.concurrent.TimeUnit;
 import org.wildfly.common.Assert;
 import org.wildfly.security.auth.client.AuthenticationConfiguration;
 import org.xnio.Cancellable;
+import org.xnio.FailedIoFuture;
 import org.xnio.FutureResult;
 import org.xnio.IoFuture;
 import org.xnio.OptionMap;
@@ -37,12 +38,14 @@ import org.xnio.OptionMap;
  */
 final class ConnectionInfo {
     final OptionMap connectOptions;
+    final CircuitBreaker circuitBreaker;
     State state = new None();
 
     private static final IoFuture<Connection> RETRY = new EmptyIoFuture();
 
-    ConnectionInfo(final OptionMap connectOptions) {
+    ConnectionInfo(final OptionMap connectOptions, final CircuitBreaker circuitBreaker) {
         this.connectOptions = connectOptions;
+        this.circuitBreaker = circuitBreaker;
     }
 
     IoFuture<Connection> getConnection(final EndpointImpl endpoint, ConnectionKey key, AuthenticationConfiguration authenticationConfiguration, boolean doConnect) {
@@ -79,7 +82,12 @@ final class ConnectionInfo {
             synchronized (ConnectionInfo.this) {
                 oldState = state;
                 if (oldState == this) {
-                    final IoFuture<Connection> attempt = endpoint.connect(key.getRealUri(), null, connectOptions, key.getSslContext(), authenticationConfiguration);
+                    final IOException unavailable = circuitBreaker.checkAttempt();
+                    if (unavailable != null) {
+                        // fail fast without touching the destination
+                        return new FailedIoFuture<>(unavailable);
+                    }
+                    final IoFuture<Connection> attempt = circuitBreaker.track(endpoint.connect(key.getRealUri(), null, connectOptions, key.getSslContext(), authenticationConfiguration));
                     final MaybeShared maybeShared = new MaybeShared(authenticationConfiguration, attempt);
                     final FutureResult<Connection> futureResult = new FutureResult<>();
                     splice(futureResult, attempt, authenticationConfiguration);
@@ -271,7 +279,11 @@ final class ConnectionInfo {
             synchronized (ConnectionInfo.this) {
                 oldState = ConnectionInfo.this.state;
                 if (oldState == this) {
-                    final IoFuture<Connection> attempt = endpoint.connect(key.getRealUri(), null, connectOptions, key.getSslContext(), authenticationConfiguration);
+                    final IOException unavailable = circuitBreaker.checkAttempt();
+                    if (unavailable != null) {
+                        return new FailedIoFuture<>(unavailable);
+                    }
+                    final IoFuture<Connection> attempt = circuitBreaker.track(endpoint.connect(key.getRealUri(), null, connectOptions, key.getSslContext(), authenticationConfiguration));
                     Map<AuthenticationConfiguration, FutureResult<Connection>> newConnections = new HashMap<>(connections);
                     final FutureResult<Connection> futureResult = new FutureResult<>();
                     splice(futureResult, attempt, authenticationConfiguration);
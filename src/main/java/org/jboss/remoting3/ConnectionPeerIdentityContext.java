@@ -22,6 +22,8 @@ import static java.security.AccessController.doPrivileged;
 import static org.jboss.remoting3._private.Messages.log;
 
 import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
 import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.util.Collection;
@@ -31,8 +33,8 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.UnaryOperator;
 
 import javax.net.ssl.SSLSession;
@@ -55,6 +57,7 @@ import org.xnio.Cancellable;
 import org.xnio.FinishedIoFuture;
 import org.xnio.FutureResult;
 import org.xnio.IoFuture;
+import org.xnio.OptionMap;
 
 /**
  * A peer identity context for a connection which supports remote authentication-based identity multiplexing.
@@ -73,10 +76,13 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
     private final IntIndexHashMap<Authentication> authMap = new IntIndexHashMap<Authentication>(Authentication::getId);
     private final ConcurrentHashMap<AuthenticationConfiguration, IoFuture<ConnectionPeerIdentity>> futureAuths = new ConcurrentHashMap<>();
     private final UnaryOperator<SaslClientFactory> factoryOperator;
+    private final PeerIdentityCache identityCache;
+    private final Set<IdentityReference> identityReferences = ConcurrentHashMap.newKeySet();
+    private final ReferenceQueue<ConnectionPeerIdentity> releasedIdentities = new ReferenceQueue<>();
 
     private static final AuthenticationContextConfigurationClient CLIENT = doPrivileged((PrivilegedAction<AuthenticationContextConfigurationClient>) AuthenticationContextConfigurationClient::new);
 
-    ConnectionPeerIdentityContext(final ConnectionImpl connection, final Collection<String> offeredMechanisms, final String peerSaslServer, final String saslProtocol) {
+    ConnectionPeerIdentityContext(final ConnectionImpl connection, final Collection<String> offeredMechanisms, final String peerSaslServer, final String saslProtocol, final OptionMap optionMap) {
         this.connection = connection;
         this.offeredMechanisms = offeredMechanisms == null ? Collections.emptySet() : offeredMechanisms;
         connectionIdentity = constructIdentity(conf -> new ConnectionPeerIdentity(conf, connection.getPrincipal(), 0, connection));
@@ -84,13 +90,12 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
         anonymousIdentity = constructIdentity(conf -> new ConnectionPeerIdentity(conf, AnonymousPrincipal.getInstance(), 1, connection));
         anonymousIdentityFuture = new FinishedIoFuture<>(anonymousIdentity);
         this.factoryOperator = d -> new ServerNameSaslClientFactory(new ProtocolSaslClientFactory(d, saslProtocol), peerSaslServer);
+        identityCache = new PeerIdentityCache(optionMap.get(RemotingOptions.PEER_IDENTITY_CACHE_SIZE, RemotingOptions.DEFAULT_PEER_IDENTITY_CACHE_SIZE), optionMap.get(RemotingOptions.PEER_IDENTITY_CACHE_TIMEOUT, RemotingOptions.DEFAULT_PEER_IDENTITY_CACHE_TIMEOUT));
     }
 
-    private static final Object PENDING = new Object();
-    private static final Object CANCELLED = new Object();
-
     public IoFuture<ConnectionPeerIdentity> authenticateAsync(final AuthenticationConfiguration configuration) {
         Assert.checkNotNullParam("configuration", configuration);
+        deleteReleasedIdentities();
         if (configuration.equals(connection.getAuthenticationConfiguration())) {
             return connectionIdentityFuture;
         } else if (CLIENT.getAuthorizationPrincipal(configuration) instanceof AnonymousPrincipal) {
@@ -100,43 +105,16 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
         if (ioFuture != null) {
             return ioFuture;
         }
+        final ConnectionPeerIdentity cachedIdentity = identityCache.get(configuration);
+        if (cachedIdentity != null) {
+            return new FinishedIoFuture<>(cachedIdentity);
+        }
         final FutureResult<ConnectionPeerIdentity> futureResult = new FutureResult<>(connection.getEndpoint().getExecutor());
         ioFuture = futureAuths.putIfAbsent(configuration, futureResult.getIoFuture());
         if (ioFuture != null) {
             return ioFuture;
         }
-        final AtomicReference<Object> statRef = new AtomicReference<>(PENDING);
-        connection.getEndpoint().getExecutor().execute(() -> {
-            Object oldVal;
-            do {
-                oldVal = statRef.get();
-                if (oldVal == CANCELLED) {
-                    return;
-                }
-            } while (! statRef.compareAndSet(PENDING, Thread.currentThread()));
-            try {
-                futureResult.setResult(authenticate(configuration));
-            } catch (AuthenticationException e) {
-                futureResult.setException(e);
-            }
-            statRef.set(null);
-        });
-        futureResult.addCancelHandler(new Cancellable() {
-            public Cancellable cancel() {
-                Object oldVal;
-                do {
-                    oldVal = statRef.get();
-                    if (oldVal == CANCELLED) {
-                        return this;
-                    }
-                    if (oldVal instanceof Thread) {
-                        ((Thread) oldVal).interrupt();
-                        return this;
-                    }
-                } while (! statRef.compareAndSet(PENDING, CANCELLED));
-                return this;
-            }
-        });
+        doAuthenticate(configuration, futureResult);
         return futureResult.getIoFuture();
     }
 
@@ -146,7 +124,7 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
         } else if (CLIENT.getAuthorizationPrincipal(configuration) instanceof AnonymousPrincipal) {
             return anonymousIdentity;
         }
-        return null;
+        return identityCache.get(configuration);
     }
 
     /**
@@ -157,36 +135,7 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
      * @throws AuthenticationException if the authentication attempt failed
      */
     public ConnectionPeerIdentity authenticate(final AuthenticationConfiguration configuration) throws AuthenticationException {
-        if (configuration.equals(connection.getAuthenticationConfiguration())) {
-            return connectionIdentity;
-        } else if (CLIENT.getAuthorizationPrincipal(configuration) instanceof AnonymousPrincipal) {
-            return anonymousIdentity;
-        }
-        IoFuture<ConnectionPeerIdentity> ioFuture = futureAuths.get(configuration);
-        if (ioFuture == null) {
-            FutureResult<ConnectionPeerIdentity> futureResult = new FutureResult<>(connection.getEndpoint().getExecutor());
-            final IoFuture<ConnectionPeerIdentity> appearing = futureAuths.putIfAbsent(configuration, futureResult.getIoFuture());
-            if (appearing != null) {
-                ioFuture = appearing;
-            } else {
-                AtomicReference<Thread> threadRef = new AtomicReference<>(Thread.currentThread());
-                futureResult.addCancelHandler(new Cancellable() {
-                    public Cancellable cancel() {
-                        final Thread thread = threadRef.get();
-                        if (thread != null) {
-                            thread.interrupt();
-                        }
-                        return this;
-                    }
-                });
-                try {
-                    doAuthenticate(configuration, futureResult);
-                } finally {
-                    threadRef.set(null);
-                }
-                ioFuture = futureResult.getIoFuture();
-            }
-        }
+        final IoFuture<ConnectionPeerIdentity> ioFuture = authenticateAsync(configuration);
         try {
             return ioFuture.get();
         } catch (AuthenticationException e) {
@@ -205,186 +154,46 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
             futureAuths.remove(configuration, futureResult.getIoFuture());
             return;
         }
-        final AuthenticationContextConfigurationClient client = CLIENT;
         Authentication authentication;
         final IntIndexHashMap<Authentication> authMap = this.authMap;
         final ThreadLocalRandom random = ThreadLocalRandom.current();
         int id;
         do {
             id = random.nextInt();
-        } while (id == 0 || id == 1 || authMap.containsKey(id) || authMap.putIfAbsent(authentication = new Authentication(id)) != null);
-        final int finalId = id;
-        SaslClient saslClient;
-        boolean intr = Thread.currentThread().isInterrupted();
-        if (intr) {
-            futureResult.setException(log.authenticationInterrupted());
-            authMap.remove(authentication);
-            futureAuths.remove(configuration, futureResult.getIoFuture());
-            return;
-        }
-        try {
-            final Principal principal = client.getPrincipal(configuration);
-            final ConnectionHandler connectionHandler = connection.getConnectionHandler();
-            // try each mech in turn, unless the peer explicitly rejects
-            Set<String> mechanisms = new LinkedHashSet<>(offeredMechanisms);
-            final LinkedHashMap<String, Throwable> triedMechs = new LinkedHashMap<>();
-            while (! mechanisms.isEmpty()) {
-                final SSLSession sslSession = connectionHandler.getSslSession();
-                UnaryOperator<SaslClientFactory> factoryOperator = this.factoryOperator;
-                try {
-                    saslClient = client.createSaslClient(connection.getPeerURI(), configuration, mechanisms, factoryOperator, sslSession);
-                } catch (SaslException e) {
-                    futureResult.setException(log.authenticationNoSaslClient(e));
-                    authMap.remove(authentication);
-                    futureAuths.remove(configuration, futureResult.getIoFuture());
-                    return;
-                }
-                if (saslClient == null) {
-                    // break out to "no mechs left" error
-                    break;
-                }
-                byte[] response;
-                try {
-                    if (saslClient.hasInitialResponse()) {
-                        try {
-                            response = saslClient.evaluateChallenge(NO_BYTES);
-                        } catch (SaslException e) {
-                            log.tracef(e, "Mechanism failed (client): \"%s\"", saslClient.getMechanismName());
-                            mechanisms.remove(saslClient.getMechanismName());
-                            triedMechs.put(saslClient.getMechanismName(), log.authenticationExceptionIo(e));
-                            safeDispose(saslClient);
-                            continue;
-                        }
-                    } else {
-                        response = null;
-                    }
-                    connectionHandler.sendAuthRequest(id, saslClient.getMechanismName(), response);
-                    if (! connectionHandler.isOpen()) {
-                        safeDispose(saslClient);
-                        futureResult.setException(log.authenticationExceptionClosed());
-                        futureAuths.remove(configuration, futureResult.getIoFuture());
-                        return;
-                    }
-                } catch (IOException e) {
-                    authMap.remove(authentication);
-                    safeDispose(saslClient);
-                    futureResult.setException(log.authenticationExceptionIo(e));
-                    futureAuths.remove(configuration, futureResult.getIoFuture());
-                    return;
-                }
-                // the main loop
-                byte[] challenge;
-                int status;
-                for (;;) {
-                    synchronized (authentication) {
-                        status = authentication.getStatus();
-                        while (status == WAITING) {
-                            try {
-                                authentication.wait();
-                            } catch (InterruptedException e) {
-                                intr = true;
-                            }
-                            status = authentication.getStatus();
-                        }
-                        challenge = authentication.getSaslBytes();
-                        authentication.setStatus(WAITING);
-                        authentication.setSaslBytes(null);
-                    }
-                    if (status == CHALLENGE) {
-                        try {
-                            response = saslClient.evaluateChallenge(challenge);
-                        } catch (SaslException e) {
-                            log.tracef(e, "Mechanism failed (client): \"%s\"", saslClient.getMechanismName());
-                            mechanisms.remove(saslClient.getMechanismName());
-                            triedMechs.put(saslClient.getMechanismName(), log.authenticationExceptionIo(e));
-                            safeDispose(saslClient);
-                            break;
-                        }
-                        try {
-                            connectionHandler.sendAuthResponse(id, response);
-                            if (! connectionHandler.isOpen()) {
-                                safeDispose(saslClient);
-                                futureResult.setException(log.authenticationExceptionClosed());
-                                futureAuths.remove(configuration, futureResult.getIoFuture());
-                                return;
-                            }
-                        } catch (IOException e) {
-                            safeDispose(saslClient);
-                            futureResult.setException(log.authenticationExceptionIo(e));
-                            futureAuths.remove(configuration, futureResult.getIoFuture());
-                            return;
-                        }
-                        // retry loop
-                    } else if (status == SUCCESS) {
-                        if (! saslClient.isComplete()) {
-                            try {
-                                response = saslClient.evaluateChallenge(challenge);
-                            } catch (SaslException e) {
-                                log.tracef(e, "Mechanism failed (client, possibly failed to verify server): \"%s\"", saslClient.getMechanismName());
-                                mechanisms.remove(saslClient.getMechanismName());
-                                triedMechs.put(saslClient.getMechanismName(), log.authenticationExceptionIo(e));
-                                safeDispose(saslClient);
-                                break;
-                            }
-                            if (response != null && response.length > 0) {
-                                try {
-                                    connectionHandler.sendAuthDelete(id);
-                                } catch (IOException ignored) {
-                                    log.trace("Send failed", ignored);
-                                }
-                                safeDispose(saslClient);
-                                futureResult.setException(log.authenticationExtraResponse());
-                                futureAuths.remove(configuration, futureResult.getIoFuture());
-                                return;
-                            }
-                        }
-                        final Object principalObj = saslClient.getNegotiatedProperty(WildFlySasl.PRINCIPAL);
-                        safeDispose(saslClient);
-                        // todo: we could use a phantom ref to clean up the ID, but the benefits are dubious
-                        futureResult.setResult(constructIdentity(conf -> {
-                            return new ConnectionPeerIdentity(conf, principalObj instanceof Principal ? (Principal) principalObj : principal, finalId, connection);
-                        }));
-                        return;
-                    } else if (status == REJECT) {
-                        // auth rejected (server)
-                        log.tracef("Mechanism failed (client received authentication rejected): \"%s\"", saslClient.getMechanismName());
-                        mechanisms.remove(saslClient.getMechanismName());
-                        triedMechs.put(saslClient.getMechanismName(), log.serverRejectedAuthentication());
-                        safeDispose(saslClient);
-                        break;
-                    } else if (status == CLOSED) {
-                        safeDispose(saslClient);
-                        futureResult.setException(log.authenticationExceptionClosed());
-                        futureAuths.remove(configuration, futureResult.getIoFuture());
-                        return;
-                    } else if (status == DELETE) {
-                        safeDispose(saslClient);
-                        futureResult.setException(log.serverRejectedAuthentication());
-                        futureAuths.remove(configuration, futureResult.getIoFuture());
-                        return;
-                    } else {
-                        throw Assert.unreachableCode();
-                    }
-                }
-            }
-            // no mechs left to try
-            String triedStr;
-            if (! triedMechs.isEmpty()) {
-                final StringBuilder b = new StringBuilder();
-                triedMechs.forEach((mechanismName, throwable) -> b.append("\n   ").append(mechanismName).append(": ").append(throwable.toString()));
-                triedStr = b.toString();
-            } else {
-                triedStr = "(none)";
+        } while (id == 0 || id == 1 || authMap.containsKey(id) || authMap.putIfAbsent(authentication = new Authentication(id, configuration, futureResult)) != null);
+        futureResult.addCancelHandler(authentication);
+        authentication.execute(authentication::start);
+    }
+
+    /**
+     * Delete the IDs of the established identities which are no longer referenced, so that the peer can discard them.
+     * The peer does not acknowledge the deletion, so the ID is released as soon as the request is sent.
+     */
+    private void deleteReleasedIdentities() {
+        IdentityReference reference;
+        while ((reference = (IdentityReference) releasedIdentities.poll()) != null) {
+            identityReferences.remove(reference);
+            final int id = reference.getId();
+            log.tracef("Deleting unreferenced authentication ID %08x", id);
+            try {
+                connection.getConnectionHandler().sendAuthDelete(id);
+            } catch (IOException e) {
+                log.trace("Send failed", e);
             }
-            futureResult.setException(log.noAuthMechanismsLeft(triedStr));
-            authMap.remove(authentication);
-            futureAuths.remove(configuration, futureResult.getIoFuture());
-            return;
-        } finally {
-            if (intr) Thread.currentThread().interrupt();
+            authMap.removeKey(id);
         }
     }
 
+    /**
+     * Get the number of authentication IDs held on this connection, for exchanges in progress and established
+     * identities.
+     *
+     * @return the number of authentication IDs
+     */
+    int getAuthenticationCount() {
+        return authMap.size();
+    }
+
     private static void safeDispose(final SaslClient saslClient) {
         try {
             saslClient.dispose();
@@ -392,7 +201,6 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
         }
     }
 
-    private static final int WAITING = 0;
     private static final int CHALLENGE = 1;
     private static final int SUCCESS = 2;
     private static final int REJECT = 3;
@@ -402,42 +210,28 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
     void receiveChallenge(final int id, final byte[] challenge) {
         final Authentication authentication = authMap.get(id);
         if (authentication != null) {
-            synchronized (authentication) {
-                authentication.setSaslBytes(challenge);
-                authentication.setStatus(CHALLENGE);
-                authentication.notifyAll();
-            }
+            authentication.receive(CHALLENGE, challenge);
         }
     }
 
     void receiveSuccess(final int id, final byte[] challenge) {
         final Authentication authentication = authMap.get(id);
         if (authentication != null) {
-            synchronized (authentication) {
-                authentication.setSaslBytes(challenge);
-                authentication.setStatus(SUCCESS);
-                authentication.notifyAll();
-            }
+            authentication.receive(SUCCESS, challenge);
         }
     }
 
     void receiveReject(final int id) {
         final Authentication authentication = authMap.get(id);
         if (authentication != null) {
-            synchronized (authentication) {
-                authentication.setStatus(REJECT);
-                authentication.notifyAll();
-            }
+            authentication.receive(REJECT, null);
         }
     }
 
     void receiveDeleteAck(final int id) {
         final Authentication authentication = authMap.removeKey(id);
         if (authentication != null) {
-            synchronized (authentication) {
-                authentication.setStatus(DELETE);
-                authentication.notifyAll();
-            }
+            authentication.receive(DELETE, null);
         }
     }
 
@@ -446,11 +240,10 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
         while (iterator.hasNext()) {
             final Authentication authentication = iterator.next();
             iterator.remove();
-            synchronized (authentication) {
-                authentication.setStatus(CLOSED);
-                authentication.notifyAll();
-            }
+            authentication.receive(CLOSED, null);
         }
+        identityCache.clear();
+        identityReferences.clear();
     }
 
     /**
@@ -476,34 +269,246 @@ public final class ConnectionPeerIdentityContext extends PeerIdentityContext {
         return currentIdentity == null ? anonymousIdentity : currentIdentity;
     }
 
-    static final class Authentication {
+    /**
+     * A single authentication exchange with the peer.  An exchange does not hold a thread while it waits for the peer;
+     * instead each message from the peer is processed by a task on the endpoint executor, so that any number of
+     * exchanges may be in flight on a connection at once.
+     */
+    final class Authentication implements Cancellable {
 
         private final int id;
-        private byte[] saslBytes;
-        private int status;
-
-        Authentication(final int id) {
+        private final AuthenticationConfiguration configuration;
+        private final Set<String> mechanisms = new LinkedHashSet<>(offeredMechanisms);
+        private final LinkedHashMap<String, Throwable> triedMechs = new LinkedHashMap<>();
+
+        // all protected by this
+        private FutureResult<ConnectionPeerIdentity> futureResult;
+        private Principal principal;
+        private SaslClient saslClient;
+        private boolean requested;
+        private boolean done;
+
+        Authentication(final int id, final AuthenticationConfiguration configuration, final FutureResult<ConnectionPeerIdentity> futureResult) {
             this.id = id;
+            this.configuration = configuration;
+            this.futureResult = futureResult;
         }
 
         int getId() {
             return id;
         }
 
-        byte[] getSaslBytes() {
-            return saslBytes;
+        void execute(final Runnable task) {
+            try {
+                connection.getEndpoint().getExecutor().execute(task);
+            } catch (RejectedExecutionException e) {
+                // the endpoint is closing
+                synchronized (this) {
+                    if (! done) failed(log.authenticationExceptionClosed());
+                }
+            }
         }
 
-        void setSaslBytes(final byte[] saslBytes) {
-            this.saslBytes = saslBytes;
+        void receive(final int status, final byte[] saslBytes) {
+            execute(() -> handle(status, saslBytes));
         }
 
-        int getStatus() {
-            return status;
+        synchronized void start() {
+            if (done) {
+                return;
+            }
+            principal = CLIENT.getPrincipal(configuration);
+            nextMechanism();
         }
 
-        void setStatus(final int status) {
-            this.status = status;
+        synchronized void handle(final int status, final byte[] saslBytes) {
+            if (done) {
+                return;
+            }
+            final SaslClient saslClient = this.saslClient;
+            if (status == CHALLENGE) {
+                final byte[] response;
+                try {
+                    response = saslClient.evaluateChallenge(saslBytes);
+                } catch (SaslException e) {
+                    log.tracef(e, "Mechanism failed (client): \"%s\"", saslClient.getMechanismName());
+                    mechanismFailed(log.authenticationExceptionIo(e));
+                    nextMechanism();
+                    return;
+                }
+                final ConnectionHandler connectionHandler = connection.getConnectionHandler();
+                try {
+                    connectionHandler.sendAuthResponse(id, response);
+                } catch (IOException e) {
+                    failed(log.authenticationExceptionIo(e));
+                    return;
+                }
+                if (! connectionHandler.isOpen()) {
+                    failed(log.authenticationExceptionClosed());
+                }
+            } else if (status == SUCCESS) {
+                if (! saslClient.isComplete()) {
+                    final byte[] response;
+                    try {
+                        response = saslClient.evaluateChallenge(saslBytes);
+                    } catch (SaslException e) {
+                        log.tracef(e, "Mechanism failed (client, possibly failed to verify server): \"%s\"", saslClient.getMechanismName());
+                        mechanismFailed(log.authenticationExceptionIo(e));
+                        nextMechanism();
+                        return;
+                    }
+                    if (response != null && response.length > 0) {
+                        try {
+                            connection.getConnectionHandler().sendAuthDelete(id);
+                        } catch (IOException ignored) {
+                            log.trace("Send failed", ignored);
+                        }
+                        failed(log.authenticationExtraResponse());
+                        return;
+                    }
+                }
+                final Object principalObj = saslClient.getNegotiatedProperty(WildFlySasl.PRINCIPAL);
+                safeDispose(saslClient);
+                this.saslClient = null;
+                done = true;
+                final Principal principal = principalObj instanceof Principal ? (Principal) principalObj : this.principal;
+                final ConnectionPeerIdentity identity = constructIdentity(conf -> new ConnectionPeerIdentity(conf, principal, id, connection));
+                // the ID is retained until the identity is no longer referenced, so do not hold on to it from here
+                identityReferences.add(new IdentityReference(identity, id, releasedIdentities));
+                final FutureResult<ConnectionPeerIdentity> futureResult = this.futureResult;
+                this.futureResult = null;
+                // cache before removing, so that there is no window in which the identity cannot be found
+                identityCache.put(configuration, identity);
+                futureAuths.remove(configuration, futureResult.getIoFuture());
+                futureResult.setResult(identity);
+            } else if (status == REJECT) {
+                // auth rejected (server)
+                log.tracef("Mechanism failed (client received authentication rejected): \"%s\"", saslClient.getMechanismName());
+                mechanismFailed(log.serverRejectedAuthentication());
+                nextMechanism();
+            } else if (status == CLOSED) {
+                failed(log.authenticationExceptionClosed());
+            } else if (status == DELETE) {
+                failed(log.serverRejectedAuthentication());
+            } else {
+                throw Assert.unreachableCode();
+            }
+        }
+
+        /**
+         * Send an authentication request for the next mechanism to try, or fail if none are left.
+         */
+        private void nextMechanism() {
+            final ConnectionHandler connectionHandler = connection.getConnectionHandler();
+            // try each mech in turn, unless the peer explicitly rejects
+            while (! mechanisms.isEmpty()) {
+                final SSLSession sslSession = connectionHandler.getSslSession();
+                final SaslClient saslClient;
+                try {
+                    saslClient = CLIENT.createSaslClient(connection.getPeerURI(), configuration, mechanisms, factoryOperator, sslSession);
+                } catch (SaslException e) {
+                    failed(log.authenticationNoSaslClient(e));
+                    return;
+                }
+                if (saslClient == null) {
+                    // break out to "no mechs left" error
+                    break;
+                }
+                this.saslClient = saslClient;
+                final byte[] response;
+                if (saslClient.hasInitialResponse()) {
+                    try {
+                        response = saslClient.evaluateChallenge(NO_BYTES);
+                    } catch (SaslException e) {
+                        log.tracef(e, "Mechanism failed (client): \"%s\"", saslClient.getMechanismName());
+                        mechanismFailed(log.authenticationExceptionIo(e));
+                        continue;
+                    }
+                } else {
+                    response = null;
+                }
+                try {
+                    connectionHandler.sendAuthRequest(id, saslClient.getMechanismName(), response);
+                } catch (IOException e) {
+                    failed(log.authenticationExceptionIo(e));
+                    return;
+                }
+                requested = true;
+                if (! connectionHandler.isOpen()) {
+                    failed(log.authenticationExceptionClosed());
+                }
+                return;
+            }
+            // no mechs left to try
+            String triedStr;
+            if (! triedMechs.isEmpty()) {
+                final StringBuilder b = new StringBuilder();
+                triedMechs.forEach((mechanismName, throwable) -> b.append("\n   ").append(mechanismName).append(": ").append(throwable.toString()));
+                triedStr = b.toString();
+            } else {
+                triedStr = "(none)";
+            }
+            failed(log.noAuthMechanismsLeft(triedStr));
+        }
+
+        private void mechanismFailed(final Throwable cause) {
+            final SaslClient saslClient = this.saslClient;
+            mechanisms.remove(saslClient.getMechanismName());
+            triedMechs.put(saslClient.getMechanismName(), cause);
+            safeDispose(saslClient);
+            this.saslClient = null;
+        }
+
+        private void failed(final AuthenticationException exception) {
+            done = true;
+            final SaslClient saslClient = this.saslClient;
+            if (saslClient != null) {
+                safeDispose(saslClient);
+                this.saslClient = null;
+            }
+            authMap.remove(this);
+            futureAuths.remove(configuration, futureResult.getIoFuture());
+            futureResult.setException(exception);
+        }
+
+        public Cancellable cancel() {
+            final FutureResult<ConnectionPeerIdentity> futureResult;
+            synchronized (this) {
+                futureResult = this.futureResult;
+                if (done) {
+                    return this;
+                }
+                done = true;
+                final SaslClient saslClient = this.saslClient;
+                if (saslClient != null) {
+                    safeDispose(saslClient);
+                    this.saslClient = null;
+                }
+                if (requested) {
+                    try {
+                        connection.getConnectionHandler().sendAuthDelete(id);
+                    } catch (IOException e) {
+                        log.trace("Send failed", e);
+                    }
+                }
+                authMap.remove(this);
+            }
+            futureAuths.remove(configuration, futureResult.getIoFuture());
+            futureResult.setCancelled();
+            return this;
+        }
+    }
+
+    static final class IdentityReference extends PhantomReference<ConnectionPeerIdentity> {
+        private final int id;
+
+        IdentityReference(final ConnectionPeerIdentity referent, final int id, final ReferenceQueue<? super ConnectionPeerIdentity> queue) {
+            super(referent, queue);
+            this.id = id;
+        }
+
+        int getId() {
+            return id;
         }
     }
 }
@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.jboss.remoting3._private.Messages.log;
+
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.xnio.IoFuture;
+import org.xnio.OptionMap;
+
+/**
+ * The managed connections of an endpoint to a single destination.  Each member of the pool tracks its own connection
+ * (or connections, if they cannot be shared between authentication configurations).  Members are connected on demand:
+ * a request is given the least loaded established connection, and if even that connection carries more than the growth
+ * threshold, an idle member is connected in the background so that later requests can use it.
+ */
+final class ConnectionPool {
+    private final ConnectionInfo[] members;
+    private final long growthThreshold;
+    private final CircuitBreaker circuitBreaker;
+
+    ConnectionPool(final ConnectionKey key, final OptionMap connectOptions) {
+        final int size = Math.max(1, connectOptions.get(RemotingOptions.CONNECTION_POOL_SIZE, RemotingOptions.DEFAULT_CONNECTION_POOL_SIZE));
+        growthThreshold = Math.max(0L, connectOptions.get(RemotingOptions.CONNECTION_POOL_GROWTH_THRESHOLD, RemotingOptions.DEFAULT_CONNECTION_POOL_GROWTH_THRESHOLD));
+        circuitBreaker = new CircuitBreaker(key);
+        members = new ConnectionInfo[size];
+        for (int i = 0; i < size; i ++) {
+            members[i] = new ConnectionInfo(connectOptions, circuitBreaker);
+        }
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    IoFuture<Connection> getConnection(final EndpointImpl endpoint, final ConnectionKey key, final AuthenticationConfiguration authenticationConfiguration, final boolean doConnect) {
+        final ConnectionInfo[] members = this.members;
+        if (members.length == 1) {
+            return members[0].getConnection(endpoint, key, authenticationConfiguration, doConnect);
+        }
+        IoFuture<Connection> best = null;
+        long bestLoad = Long.MAX_VALUE;
+        IoFuture<Connection> pending = null;
+        ConnectionInfo idle = null;
+        for (ConnectionInfo member : members) {
+            final IoFuture<Connection> future = member.getConnection(endpoint, key, authenticationConfiguration, false);
+            if (future == null) {
+                if (idle == null) idle = member;
+                continue;
+            }
+            switch (future.getStatus()) {
+                case DONE: {
+                    final long load;
+                    try {
+                        load = getLoad(future.get());
+                    } catch (Exception e) {
+                        // not reachable for a completed future
+                        continue;
+                    }
+                    if (load < bestLoad) {
+                        best = future;
+                        bestLoad = load;
+                    }
+                    break;
+                }
+                case WAITING: {
+                    if (pending == null) pending = future;
+                    break;
+                }
+                default: {
+                    // failed or cancelled; the member will reset itself
+                    break;
+                }
+            }
+        }
+        if (best != null) {
+            if (doConnect && idle != null && pending == null && bestLoad > growthThreshold) {
+                // grow the pool without making this caller wait for the new connection
+                log.tracef("Growing connection pool for %s", key);
+                idle.getConnection(endpoint, key, authenticationConfiguration, true);
+            }
+            return best;
+        }
+        if (pending != null) {
+            return pending;
+        }
+        if (! doConnect) {
+            return null;
+        }
+        return (idle == null ? members[0] : idle).getConnection(endpoint, key, authenticationConfiguration, true);
+    }
+
+    static long getLoad(final Connection connection) {
+        if (connection instanceof ManagedConnection) {
+            return ((ManagedConnection) connection).getLoad();
+        } else if (connection instanceof ConnectionImpl) {
+            return ((ConnectionImpl) connection).getLoad();
+        } else {
+            return 0L;
+        }
+    }
+}
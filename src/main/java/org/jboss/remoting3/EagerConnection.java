@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.jboss.remoting3._private.Messages.log;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.wildfly.security.auth.client.AuthenticationContext;
+import org.xnio.IoFuture;
+
+/**
+ * A managed connection which is established when the endpoint is built rather than on first use, and which is
+ * re-established in the background whenever it is lost, for as long as the endpoint remains open.
+ */
+final class EagerConnection implements Runnable {
+    private static final long MIN_RETRY_MILLIS = 1000L;
+    private static final long MAX_RETRY_MILLIS = 60000L;
+
+    private final EndpointImpl endpoint;
+    private final URI destination;
+    private final AuthenticationContext authenticationContext;
+    private long retryMillis = MIN_RETRY_MILLIS;
+
+    EagerConnection(final EndpointImpl endpoint, final URI destination, final AuthenticationContext authenticationContext) {
+        this.endpoint = endpoint;
+        this.destination = destination;
+        this.authenticationContext = authenticationContext;
+    }
+
+    public void run() {
+        if (! endpoint.isOpen()) {
+            return;
+        }
+        log.tracef("Establishing eager connection to %s", destination);
+        final IoFuture<ConnectionPeerIdentity> future = endpoint.getConnectedIdentity(destination, null, null, authenticationContext);
+        future.addNotifier(new IoFuture.HandlingNotifier<ConnectionPeerIdentity, Void>() {
+            public void handleCancelled(final Void attachment) {
+                scheduleRetry();
+            }
+
+            public void handleFailed(final IOException exception, final Void attachment) {
+                log.debugf(exception, "Failed to establish eager connection to %s", destination);
+                scheduleRetry();
+            }
+
+            public void handleDone(final ConnectionPeerIdentity identity, final Void attachment) {
+                log.tracef("Established eager connection to %s", destination);
+                synchronized (EagerConnection.this) {
+                    retryMillis = MIN_RETRY_MILLIS;
+                }
+                identity.getConnection().addCloseHandler((closed, exception) -> scheduleRetry());
+            }
+        }, null);
+    }
+
+    private void scheduleRetry() {
+        if (! endpoint.isOpen()) {
+            return;
+        }
+        final long delay;
+        synchronized (this) {
+            delay = retryMillis;
+            retryMillis = Math.min(delay << 1, MAX_RETRY_MILLIS);
+        }
+        log.tracef("Re-establishing eager connection to %s in %d ms", destination, Long.valueOf(delay));
+        try {
+            endpoint.getXnioWorker().getIoThread().executeAfter(this, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // the worker is shutting down
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.GeneralSecurityException;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -111,7 +112,7 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
 
     private final ConcurrentMap<String, ProtocolRegistration> connectionProviders = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, RegisteredServiceImpl> registeredServices = new ConcurrentHashMap<>();
-    private final ConcurrentMap<ConnectionKey, ConnectionInfo> managedConnections = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ConnectionKey, ConnectionPool> managedConnections = new ConcurrentHashMap<>();
     private final Map<URI, OptionMap> connectionOptions;
     private final OptionMap defaultConnectionOptionMap;
 
@@ -190,6 +191,23 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
                 public int getConnectionCount() {
                     return connections.size();
                 }
+
+                public String[] getConnectionCircuitStates() {
+                    final ConnectionPool[] connectionPools = managedConnections.values().toArray(new ConnectionPool[0]);
+                    final String[] result = new String[connectionPools.length];
+                    for (int i = 0; i < connectionPools.length; i++) {
+                        result[i] = connectionPools[i].getCircuitBreaker().toString();
+                    }
+                    return result;
+                }
+
+                public int getOpenCircuitCount() {
+                    int count = 0;
+                    for (ConnectionPool connectionPool : managedConnections.values()) {
+                        if (connectionPool.getCircuitBreaker().isOpen()) count++;
+                    }
+                    return count;
+                }
             }, objectName);
         } catch (Exception e) {
             // ignore
@@ -206,8 +224,12 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
         OptionMap defaultConnectionOptionMap = endpointBuilder.getDefaultConnectionOptionMap();
         final List<ConnectionBuilder> connectionBuilders = endpointBuilder.getConnectionBuilders();
         final Map<URI, OptionMap> connectionOptions = new HashMap<>();
+        final List<URI> eagerDestinations = new ArrayList<>();
         if (connectionBuilders != null) for (ConnectionBuilder connectionBuilder : connectionBuilders) {
             final URI destination = connectionBuilder.getDestination();
+            if (connectionBuilder.isEagerConnect()) {
+                eagerDestinations.add(destination);
+            }
             final OptionMap.Builder optionBuilder = OptionMap.builder();
 
             if (connectionBuilder.getHeartbeatInterval() != -1) {
@@ -233,6 +255,16 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
             } else {
                 optionBuilder.set(Options.KEEP_ALIVE, defaultConnectionOptionMap.get(Options.KEEP_ALIVE));
             }
+            if (connectionBuilder.getPoolSize() != -1) {
+                optionBuilder.set(RemotingOptions.CONNECTION_POOL_SIZE, connectionBuilder.getPoolSize());
+            } else if (defaultConnectionOptionMap.contains(RemotingOptions.CONNECTION_POOL_SIZE)) {
+                optionBuilder.set(RemotingOptions.CONNECTION_POOL_SIZE, defaultConnectionOptionMap.get(RemotingOptions.CONNECTION_POOL_SIZE, RemotingOptions.DEFAULT_CONNECTION_POOL_SIZE));
+            }
+            if (connectionBuilder.getPoolGrowthThreshold() != -1L) {
+                optionBuilder.set(RemotingOptions.CONNECTION_POOL_GROWTH_THRESHOLD, connectionBuilder.getPoolGrowthThreshold());
+            } else if (defaultConnectionOptionMap.contains(RemotingOptions.CONNECTION_POOL_GROWTH_THRESHOLD)) {
+                optionBuilder.set(RemotingOptions.CONNECTION_POOL_GROWTH_THRESHOLD, defaultConnectionOptionMap.get(RemotingOptions.CONNECTION_POOL_GROWTH_THRESHOLD, RemotingOptions.DEFAULT_CONNECTION_POOL_GROWTH_THRESHOLD));
+            }
             connectionOptions.put(destination, optionBuilder.getMap());
         }
 
@@ -303,6 +335,13 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
             // old
             endpoint.addConnectionProvider("http-remoting", httpUpgradeConnectionProviderFactory, OptionMap.create(Options.SSL_ENABLED, Boolean.FALSE, Options.SSL_STARTTLS, Boolean.TRUE));
             endpoint.addConnectionProvider("https-remoting", httpUpgradeConnectionProviderFactory, OptionMap.create(Options.SECURE, Boolean.TRUE));
+            if (! eagerDestinations.isEmpty()) {
+                // start all the eager connections in parallel
+                final AuthenticationContext authenticationContext = AuthenticationContext.captureCurrent();
+                for (URI destination : eagerDestinations) {
+                    new EagerConnection(endpoint, destination, authenticationContext).run();
+                }
+            }
             ok = true;
             return endpoint;
         } finally {
@@ -498,14 +537,14 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
         }
 
         final ConnectionKey connectionKey = new ConnectionKey(realDestination, sslContext);
-        ConnectionInfo newConnectionInfo = managedConnections.get(connectionKey);
-        while (newConnectionInfo == null) {
-            final ConnectionInfo appearing = managedConnections.putIfAbsent(connectionKey, newConnectionInfo = new ConnectionInfo(connectionOptions.getOrDefault(realDestination, defaultConnectionOptionMap)));
+        ConnectionPool connectionPool = managedConnections.get(connectionKey);
+        while (connectionPool == null) {
+            final ConnectionPool appearing = managedConnections.putIfAbsent(connectionKey, connectionPool = new ConnectionPool(connectionKey, connectionOptions.getOrDefault(realDestination, defaultConnectionOptionMap)));
             if (appearing != null) {
-                newConnectionInfo = appearing;
+                connectionPool = appearing;
             }
         }
-        final IoFuture<Connection> futureConnection = newConnectionInfo.getConnection(this, connectionKey, authenticationConfiguration, connect);
+        final IoFuture<Connection> futureConnection = connectionPool.getConnection(this, connectionKey, authenticationConfiguration, connect);
         if (futureConnection == null) {
             // no connection currently exists
             return null;
@@ -636,7 +675,7 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
                         }
                         synchronized (connectionLock) {
                             log.logf(getClass().getName(), Logger.Level.TRACE, null, "Registered successful result %s", connHandlerFactory);
-                            final ConnectionImpl connection = new ConnectionImpl(EndpointImpl.this, connHandlerFactory, protocolRegistration.getContext(), destination, null, configuration, protocol);
+                            final ConnectionImpl connection = new ConnectionImpl(EndpointImpl.this, connHandlerFactory, protocolRegistration.getContext(), destination, null, configuration, protocol, connectOptions);
                             connections.add(connection);
                             connection.getConnectionHandler().addCloseHandler(SpiUtils.asyncClosingCloseHandler(connection));
                             connection.addCloseHandler(resourceCloseHandler);
@@ -911,7 +950,7 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
                 }
                 boolean ok = false;
                 try {
-                    final ConnectionImpl connection = new ConnectionImpl(EndpointImpl.this, connectionHandlerFactory, this, null, authenticationFactory, AuthenticationConfiguration.empty(), saslProtocol);
+                    final ConnectionImpl connection = new ConnectionImpl(EndpointImpl.this, connectionHandlerFactory, this, null, authenticationFactory, AuthenticationConfiguration.empty(), saslProtocol, OptionMap.EMPTY);
                     connections.add(connection);
                     connection.getConnectionHandler().addCloseHandler(SpiUtils.asyncClosingCloseHandler(connection));
                     connection.addCloseHandler(connectionCloseHandler);
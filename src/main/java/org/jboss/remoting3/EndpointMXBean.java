@@ -37,4 +37,8 @@ public interface EndpointMXBean {
     String[] getManagedConnectionURIs();
 
     int getConnectionCount();
+
+    String[] getConnectionCircuitStates();
+
+    int getOpenCircuitCount();
 }
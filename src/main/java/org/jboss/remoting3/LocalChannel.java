@@ -19,22 +19,37 @@
 package org.jboss.remoting3;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InterruptedIOException;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
 import org.jboss.remoting3.spi.AbstractHandleableCloseable;
 import org.jboss.remoting3.spi.ConnectionHandlerContext;
-import org.xnio.IoUtils;
+import org.wildfly.common.Assert;
 import org.xnio.Option;
-import org.xnio.streams.Pipe;
+import org.xnio.OptionMap;
 
 /**
+ * An in-VM channel.  The buffers filled by the writer of a message are handed to the reader as they are, without
+ * copying them again; a message stream only waits when the other side has not caught up with it.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class LocalChannel extends AbstractHandleableCloseable<Channel> implements Channel {
+    private static final int DEFAULT_QUEUE_LENGTH = 8;
+
+    private static final Set<Option<?>> SUPPORTED_OPTIONS = Option.setBuilder()
+            .add(RemotingOptions.MAX_INBOUND_MESSAGES)
+            .add(RemotingOptions.SEND_BUFFER_SIZE)
+            .add(RemotingOptions.RECEIVE_WINDOW_SIZE)
+            .create();
+
     private final Attachments attachments = new Attachments();
     private final LocalChannel otherSide;
     private final ConnectionHandlerContext connectionHandlerContext;
@@ -42,27 +57,45 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
     private final Object lock = new Object();
     private final int queueLength;
     private final int bufferSize;
+    private final int window;
 
     private Receiver messageHandler;
 
     private boolean closed;
 
-    LocalChannel(final Executor executor, final LocalChannel otherSide, final ConnectionHandlerContext connectionHandlerContext) {
+    private LocalChannel(final Executor executor, final LocalChannel otherSide, final OptionMap optionMap, final ConnectionHandlerContext connectionHandlerContext) {
         super(executor, true);
         this.otherSide = otherSide;
         this.connectionHandlerContext = connectionHandlerContext;
-        queueLength = 8;
+        queueLength = optionMap.get(RemotingOptions.MAX_INBOUND_MESSAGES, DEFAULT_QUEUE_LENGTH);
         messageQueue = new ArrayDeque<In>(queueLength);
-        bufferSize = 8192;
+        bufferSize = optionMap.get(RemotingOptions.SEND_BUFFER_SIZE, RemotingOptions.DEFAULT_SEND_BUFFER_SIZE);
+        window = optionMap.get(RemotingOptions.RECEIVE_WINDOW_SIZE, RemotingOptions.INCOMING_CHANNEL_DEFAULT_RECEIVE_WINDOW_SIZE);
     }
 
-    LocalChannel(final Executor executor, final ConnectionHandlerContext connectionHandlerContext) {
+    /**
+     * Construct a new instance, along with its other side.
+     *
+     * @param executor the executor for the message handlers of this side
+     * @param optionMap the channel options; {@link RemotingOptions#MAX_INBOUND_MESSAGES} limits the number of queued
+     *      messages, {@link RemotingOptions#SEND_BUFFER_SIZE} is the size of the buffers which are handed over, and
+     *      {@link RemotingOptions#RECEIVE_WINDOW_SIZE} limits the number of bytes of a message which may be handed
+     *      over before they are read
+     * @param connectionHandlerContext the connection handler context
+     * @param otherSideExecutor the executor for the message handlers of the other side
+     * @param otherSideContext the connection handler context of the other side
+     */
+    LocalChannel(final Executor executor, final OptionMap optionMap, final ConnectionHandlerContext connectionHandlerContext, final Executor otherSideExecutor, final ConnectionHandlerContext otherSideContext) {
         super(executor, true);
+        // both sides use the same options, so check them once, before either side is constructed
+        Assert.checkMinimumParameter("SEND_BUFFER_SIZE", 1, optionMap.get(RemotingOptions.SEND_BUFFER_SIZE, RemotingOptions.DEFAULT_SEND_BUFFER_SIZE));
+        Assert.checkMinimumParameter("RECEIVE_WINDOW_SIZE", 1, optionMap.get(RemotingOptions.RECEIVE_WINDOW_SIZE, RemotingOptions.INCOMING_CHANNEL_DEFAULT_RECEIVE_WINDOW_SIZE));
         this.connectionHandlerContext = connectionHandlerContext;
-        otherSide = new LocalChannel(executor, this, connectionHandlerContext);
-        queueLength = 8;
+        otherSide = new LocalChannel(otherSideExecutor, this, optionMap, otherSideContext);
+        queueLength = optionMap.get(RemotingOptions.MAX_INBOUND_MESSAGES, DEFAULT_QUEUE_LENGTH);
         messageQueue = new ArrayDeque<In>(queueLength);
-        bufferSize = 8192;
+        bufferSize = optionMap.get(RemotingOptions.SEND_BUFFER_SIZE, RemotingOptions.DEFAULT_SEND_BUFFER_SIZE);
+        window = optionMap.get(RemotingOptions.RECEIVE_WINDOW_SIZE, RemotingOptions.INCOMING_CHANNEL_DEFAULT_RECEIVE_WINDOW_SIZE);
     }
 
     public MessageOutputStream writeMessage() throws IOException {
@@ -74,7 +107,7 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
                     throw new NotOpenException("Writes have been shut down");
                 }
                 final int size = otherSideQueue.size();
-                if (size == queueLength) {
+                if (size == otherSide.queueLength) {
                     try {
                         otherSide.lock.wait();
                     } catch (InterruptedException e) {
@@ -82,20 +115,19 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
                         throw new InterruptedIOException();
                     }
                 } else {
-                    final Pipe pipe = new Pipe(bufferSize);
-                    In in = new In(pipe.getIn());
+                    In in = new In(otherSide.window);
                     if (size == 0) {
                         final Receiver handler = otherSide.messageHandler;
                         if (handler != null) {
                             otherSide.messageHandler = null;
                             otherSide.lock.notify();
-                            executeMessageTask(handler, in);
-                            return new Out(pipe.getOut(), in);
+                            otherSide.executeMessageTask(handler, in);
+                            return new Out(in, bufferSize);
                         }
                     }
                     otherSideQueue.add(in);
                     otherSide.lock.notify();
-                    return new Out(pipe.getOut(), in);
+                    return new Out(in, bufferSize);
                 }
             }
         }
@@ -108,7 +140,7 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
                 otherSide.closed = true;
                 final Receiver messageHandler = otherSide.messageHandler;
                 if (messageHandler != null && otherSide.messageQueue.isEmpty()) {
-                    executeEndTask(messageHandler);
+                    otherSide.executeEndTask(messageHandler);
                 } else {
                     otherSide.lock.notify();
                 }
@@ -127,6 +159,8 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
             } else {
                 final In in = messageQueue.poll();
                 if (in != null) {
+                    // a slot was freed for a waiting writer
+                    lock.notify();
                     executeMessageTask(handler, in);
                 } else {
                     messageHandler = handler;
@@ -137,11 +171,19 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
     }
 
     public boolean supportsOption(final Option<?> option) {
-        return false;
+        return SUPPORTED_OPTIONS.contains(option);
     }
 
     public <T> T getOption(final Option<T> option) {
-        return null;
+        if (option == RemotingOptions.MAX_INBOUND_MESSAGES) {
+            return option.cast(Integer.valueOf(queueLength));
+        } else if (option == RemotingOptions.SEND_BUFFER_SIZE) {
+            return option.cast(Integer.valueOf(bufferSize));
+        } else if (option == RemotingOptions.RECEIVE_WINDOW_SIZE) {
+            return option.cast(Integer.valueOf(window));
+        } else {
+            return null;
+        }
     }
 
     public <T> T setOption(final Option<T> option, final T value) throws IllegalArgumentException {
@@ -165,11 +207,18 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
     }
 
     protected void closeAction() throws IOException {
+        final Receiver messageHandler;
         synchronized (lock) {
             closed = true;
+            messageHandler = this.messageHandler;
+            this.messageHandler = null;
             lock.notifyAll();
         }
-        otherSide.connectionHandlerContext.remoteClosed();
+        if (messageHandler != null) {
+            executeEndTask(messageHandler);
+        }
+        // a channel is closed on both sides at once
+        otherSide.closeAsync();
         closeComplete();
     }
 
@@ -177,18 +226,48 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
         return otherSide;
     }
 
+    /**
+     * The writing side of a local message.  Each full buffer is handed to the reader, and a new one is allocated in
+     * its place.
+     */
     static final class Out extends MessageOutputStream {
-        private final OutputStream outputStream;
         private final In in;
+        private final int bufferSize;
+        private ByteBuffer buffer;
+        private boolean closed;
 
-        Out(final OutputStream outputStream, final In in) {
-            this.outputStream = outputStream;
+        Out(final In in, final int bufferSize) {
+            Assert.checkMinimumParameter("bufferSize", 1, bufferSize);
             this.in = in;
+            this.bufferSize = bufferSize;
+        }
+
+        private ByteBuffer getBuffer() throws IOException {
+            if (closed) {
+                throw new NotOpenException("Message was closed");
+            }
+            ByteBuffer buffer = this.buffer;
+            if (buffer == null) {
+                buffer = this.buffer = ByteBuffer.allocate(bufferSize);
+            }
+            return buffer;
+        }
+
+        private void handOff() throws IOException {
+            final ByteBuffer buffer = this.buffer;
+            if (buffer != null && buffer.position() > 0) {
+                this.buffer = null;
+                buffer.flip();
+                in.offer(buffer);
+            }
         }
 
         public void flush() throws IOException {
+            if (closed) {
+                return;
+            }
             try {
-                outputStream.flush();
+                handOff();
             } catch (IOException e) {
                 cancel();
                 throw e;
@@ -196,35 +275,71 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
         }
 
         public void close() throws IOException {
+            if (closed) {
+                return;
+            }
             try {
-                outputStream.close();
+                handOff();
             } catch (IOException e) {
                 cancel();
                 throw e;
             }
+            closed = true;
+            in.finish();
         }
 
         public void write(final int b) throws IOException {
             try {
-                outputStream.write(b);
+                final ByteBuffer buffer = getBuffer();
+                buffer.put((byte) b);
+                if (! buffer.hasRemaining()) {
+                    handOff();
+                }
             } catch (IOException e) {
                 cancel();
                 throw e;
             }
         }
 
-        public void write(final byte[] b) throws IOException {
+        public void write(final byte[] b, final int off, final int len) throws IOException {
             try {
-                outputStream.write(b);
+                int pos = off;
+                int rem = len;
+                while (rem > 0) {
+                    final ByteBuffer buffer = getBuffer();
+                    final int cnt = Math.min(rem, buffer.remaining());
+                    buffer.put(b, pos, cnt);
+                    pos += cnt;
+                    rem -= cnt;
+                    if (! buffer.hasRemaining()) {
+                        handOff();
+                    }
+                }
             } catch (IOException e) {
                 cancel();
                 throw e;
             }
         }
 
-        public void write(final byte[] b, final int off, final int len) throws IOException {
+        /**
+         * Write the remaining content of a buffer without copying it.  The buffer content is handed to the reader as it
+         * is, which is why the caller gives up ownership of the buffer.
+         *
+         * @param src the buffer to hand over
+         * @throws IOException if the message was cancelled or closed, or the write was interrupted
+         */
+        public void writeBuffer(final ByteBuffer src) throws IOException {
             try {
-                outputStream.write(b, off, len);
+                if (closed) {
+                    throw new NotOpenException("Message was closed");
+                }
+                if (src.hasRemaining()) {
+                    // keep the content in order
+                    handOff();
+                    final ByteBuffer buffer = src.slice();
+                    src.position(src.limit());
+                    in.offer(buffer);
+                }
             } catch (IOException e) {
                 cancel();
                 throw e;
@@ -232,79 +347,207 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
         }
 
         public Out cancel() {
+            closed = true;
+            buffer = null;
             in.doCancel();
-            IoUtils.safeClose(outputStream);
             return this;
         }
     }
 
+    /**
+     * The reading side of a local message.  The buffers are passed from the writer through a non-blocking queue; each
+     * side parks only when it has to wait for the other, and the other side unparks it after changing the queue.
+     */
     static final class In extends MessageInputStream {
-        private final InputStream inputStream;
+        private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+        /** The number of bytes which were handed over but not yet taken by the reader. */
+        private final AtomicLong queuedBytes = new AtomicLong();
+        private final int window;
+        private volatile boolean finished;
         private volatile boolean cancelled;
+        private volatile boolean closed;
+        private volatile Thread waitingReader;
+        private volatile Thread waitingWriter;
+        // reader only
+        private ByteBuffer current;
+
+        In(final int window) {
+            // a window without room for a single byte would never let a buffer through
+            Assert.checkMinimumParameter("window", 1, window);
+            this.window = window;
+        }
 
-        In(final InputStream inputStream) {
-            this.inputStream = inputStream;
+        /**
+         * Hand a buffer to the reader, waiting until the window has room for it.  A buffer which is larger than the
+         * window is handed over in parts.
+         *
+         * @param buffer the buffer
+         * @throws IOException if the message was cancelled or the wait was interrupted
+         */
+        void offer(final ByteBuffer buffer) throws IOException {
+            while (buffer.remaining() > window) {
+                final ByteBuffer part = buffer.duplicate();
+                part.limit(part.position() + window);
+                offerPart(part.slice());
+                buffer.position(buffer.position() + window);
+            }
+            offerPart(buffer);
         }
 
-        public InputStream getInputStream() throws IOException {
-            return inputStream;
+        private void offerPart(final ByteBuffer buffer) throws IOException {
+            // only the writer adds to the queued bytes, so the room can only grow while it waits
+            final long size = buffer.remaining();
+            for (;;) {
+                if (cancelled) {
+                    throw new MessageCancelledException();
+                }
+                if (closed) {
+                    // nobody is going to read it
+                    return;
+                }
+                if (queuedBytes.get() + size <= window) {
+                    break;
+                }
+                waitingWriter = Thread.currentThread();
+                if (queuedBytes.get() + size > window && ! closed && ! cancelled) {
+                    LockSupport.park(this);
+                }
+                waitingWriter = null;
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            queuedBytes.addAndGet(size);
+            buffers.offer(buffer);
+            LockSupport.unpark(waitingReader);
         }
 
-        synchronized void doCancel() {
-            cancelled = true;
+        void finish() {
+            finished = true;
+            LockSupport.unpark(waitingReader);
         }
 
-        public synchronized boolean wasCancelled() {
-            return cancelled;
+        void doCancel() {
+            cancelled = true;
+            LockSupport.unpark(waitingReader);
         }
 
-        public int read() throws IOException {
-            checkCancel();
-            return inputStream.read();
+        public boolean wasCancelled() {
+            return cancelled;
         }
 
-        private synchronized void checkCancel() throws MessageCancelledException {
+        private void checkCancel() throws MessageCancelledException {
             if (cancelled) {
                 throw new MessageCancelledException();
             }
         }
 
-        public int read(final byte[] b) throws IOException {
-            checkCancel();
-            return inputStream.read(b);
+        private ByteBuffer take() {
+            final ByteBuffer buffer = buffers.poll();
+            if (buffer != null) {
+                queuedBytes.addAndGet(- buffer.remaining());
+                LockSupport.unpark(waitingWriter);
+            }
+            return buffer;
         }
 
-        public int read(final byte[] b, final int off, final int len) throws IOException {
-            checkCancel();
-            return inputStream.read(b, off, len);
+        /**
+         * Get the buffer to read from next, waiting for the writer if necessary.
+         *
+         * @return the buffer, or {@code null} at the end of the message
+         * @throws IOException if the message was cancelled or the wait was interrupted
+         */
+        private ByteBuffer next() throws IOException {
+            final ByteBuffer current = this.current;
+            if (current != null && current.hasRemaining()) {
+                return current;
+            }
+            this.current = null;
+            for (;;) {
+                checkCancel();
+                ByteBuffer buffer = take();
+                if (buffer == null && finished) {
+                    // the last buffer is offered before the message is finished
+                    buffer = take();
+                    if (buffer == null) {
+                        return null;
+                    }
+                }
+                if (buffer != null) {
+                    return this.current = buffer;
+                }
+                waitingReader = Thread.currentThread();
+                if (buffers.isEmpty() && ! finished && ! cancelled) {
+                    LockSupport.park(this);
+                }
+                waitingReader = null;
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
         }
 
-        public long skip(final long n) throws IOException {
-            checkCancel();
-            return inputStream.skip(n);
+        /**
+         * Take the next buffer of the message without copying it, waiting for the writer if necessary.  The returned
+         * buffer is one which the writer handed over, so it may share its content with a buffer the writer passed to
+         * {@link Out#writeBuffer(ByteBuffer)}.
+         *
+         * @return the buffer, or {@code null} at the end of the message
+         * @throws IOException if the message was cancelled or the wait was interrupted
+         */
+        public ByteBuffer readBuffer() throws IOException {
+            final ByteBuffer buffer = next();
+            current = null;
+            return buffer;
         }
 
-        public int available() throws IOException {
-            checkCancel();
-            return inputStream.available();
+        public int read() throws IOException {
+            final ByteBuffer buffer = next();
+            return buffer == null ? -1 : buffer.get() & 0xff;
         }
 
-        public void close() throws IOException {
-            checkCancel();
-            inputStream.close();
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            final ByteBuffer buffer = next();
+            if (buffer == null) {
+                return -1;
+            }
+            final int cnt = Math.min(len, buffer.remaining());
+            buffer.get(b, off, cnt);
+            return cnt;
         }
 
-        public void mark(final int readlimit) {
-            inputStream.mark(readlimit);
+        public long skip(final long n) throws IOException {
+            if (n <= 0L) {
+                return 0L;
+            }
+            final ByteBuffer buffer = next();
+            if (buffer == null) {
+                return 0L;
+            }
+            final int cnt = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + cnt);
+            return cnt;
         }
 
-        public void reset() throws IOException {
+        public int available() throws IOException {
             checkCancel();
-            inputStream.reset();
+            final ByteBuffer current = this.current;
+            return current == null ? 0 : current.remaining();
         }
 
-        public boolean markSupported() {
-            return inputStream.markSupported();
+        public void close() throws IOException {
+            checkCancel();
+            if (! closed) {
+                closed = true;
+                current = null;
+                buffers.clear();
+                LockSupport.unpark(waitingWriter);
+            }
         }
     }
 }
@@ -0,0 +1,226 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.net.ssl.SSLSession;
+
+import org.jboss.remoting3.spi.AbstractHandleableCloseable;
+import org.jboss.remoting3.spi.ConnectionHandler;
+import org.jboss.remoting3.spi.ConnectionHandlerContext;
+import org.jboss.remoting3.spi.RegisteredService;
+import org.jboss.remoting3.spi.SpiUtils;
+import org.wildfly.security.auth.principal.AnonymousPrincipal;
+import org.wildfly.security.auth.server.SecurityIdentity;
+import org.xnio.Cancellable;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+import org.xnio.Result;
+
+/**
+ * One side of a local connection.  Opening a channel creates a pair of {@link LocalChannel}s, one for each side, and
+ * passes the other side's channel to the open listener of the service registered with the peer endpoint.
+ */
+final class LocalConnectionHandler extends AbstractHandleableCloseable<ConnectionHandler> implements ConnectionHandler {
+    private final ConnectionHandlerContext context;
+    private final Set<LocalChannel> channels = new HashSet<>();
+    private volatile LocalConnectionHandler peer;
+
+    // protected by channels
+    private boolean closed;
+
+    LocalConnectionHandler(final ConnectionHandlerContext context) {
+        super(context.getConnectionProviderContext().getExecutor());
+        this.context = context;
+    }
+
+    public Cancellable open(final String serviceType, final Result<Channel> result, final OptionMap optionMap) {
+        final LocalConnectionHandler peer = this.peer;
+        if (peer == null || ! isOpen()) {
+            result.setException(new NotOpenException("Connection is not open"));
+            return IoUtils.nullCancellable();
+        }
+        final RegisteredService registeredService = peer.context.getRegisteredService(serviceType);
+        if (registeredService == null) {
+            result.setException(new ServiceOpenException("Unknown service name " + serviceType));
+            return IoUtils.nullCancellable();
+        }
+        if (! registeredService.validateService(peer.context.getConnection())) {
+            result.setException(new ServiceOpenException("Service refused"));
+            return IoUtils.nullCancellable();
+        }
+        final LocalChannel channel = new LocalChannel(getExecutor(), optionMap, context, peer.getExecutor(), peer.context);
+        final LocalChannel otherSide = channel.getOtherSide();
+        if (! addChannel(channel) || ! peer.addChannel(otherSide)) {
+            // closes both sides
+            channel.closeAsync();
+            result.setException(new NotOpenException("Connection is not open"));
+            return IoUtils.nullCancellable();
+        }
+        peer.getExecutor().execute(SpiUtils.getServiceOpenTask(otherSide, registeredService.getOpenListener()));
+        result.setResult(channel);
+        return IoUtils.nullCancellable();
+    }
+
+    private boolean addChannel(final LocalChannel channel) {
+        synchronized (channels) {
+            if (closed) {
+                return false;
+            }
+            channels.add(channel);
+        }
+        channel.addCloseHandler((closed, exception) -> {
+            synchronized (channels) {
+                channels.remove(channel);
+            }
+        });
+        return true;
+    }
+
+    public SSLSession getSslSession() {
+        return null;
+    }
+
+    private static String getEndpointName(final LocalConnectionHandler handler) {
+        return handler == null ? null : handler.context.getConnectionProviderContext().getEndpoint().getName();
+    }
+
+    public String getRemoteEndpointName() {
+        return getEndpointName(peer);
+    }
+
+    public SocketAddress getLocalAddress() {
+        return null;
+    }
+
+    public SocketAddress getPeerAddress() {
+        return null;
+    }
+
+    public String getPeerSaslServerName() {
+        return getEndpointName(peer);
+    }
+
+    public String getLocalSaslServerName() {
+        return getEndpointName(this);
+    }
+
+    public SecurityIdentity getLocalIdentity() {
+        // local connections are not authenticated
+        return null;
+    }
+
+    public boolean supportsRemoteAuth() {
+        return false;
+    }
+
+    public Set<String> getOfferedMechanisms() {
+        return Collections.emptySet();
+    }
+
+    public Principal getPrincipal() {
+        return AnonymousPrincipal.getInstance();
+    }
+
+    private ConnectionHandlerContext getPeerContext() throws IOException {
+        final LocalConnectionHandler peer = this.peer;
+        if (peer == null) {
+            throw new NotOpenException("Connection is not open");
+        }
+        return peer.context;
+    }
+
+    public void sendAuthRequest(final int id, final String mechName, final byte[] initialResponse) throws IOException {
+        getPeerContext().receiveAuthRequest(id, mechName, initialResponse);
+    }
+
+    public void sendAuthChallenge(final int id, final byte[] challenge) throws IOException {
+        getPeerContext().receiveAuthChallenge(id, challenge);
+    }
+
+    public void sendAuthResponse(final int id, final byte[] response) throws IOException {
+        getPeerContext().receiveAuthResponse(id, response);
+    }
+
+    public void sendAuthSuccess(final int id, final byte[] challenge) throws IOException {
+        getPeerContext().receiveAuthSuccess(id, challenge);
+    }
+
+    public void sendAuthReject(final int id) throws IOException {
+        getPeerContext().receiveAuthReject(id);
+    }
+
+    public void sendAuthDelete(final int id) throws IOException {
+        getPeerContext().receiveAuthDelete(id);
+    }
+
+    public void sendAuthDeleteAck(final int id) throws IOException {
+        getPeerContext().receiveAuthDeleteAck(id);
+    }
+
+    protected void closeAction() throws IOException {
+        final ArrayList<LocalChannel> channels;
+        synchronized (this.channels) {
+            closed = true;
+            channels = new ArrayList<>(this.channels);
+            this.channels.clear();
+        }
+        for (LocalChannel channel : channels) {
+            channel.closeAsync();
+        }
+        final LocalConnectionHandler peer = this.peer;
+        if (peer != null) {
+            peer.context.remoteClosed();
+        }
+        closeComplete();
+    }
+
+    public String toString() {
+        return String.format("local connection handler for %s", context.getConnection());
+    }
+
+    /**
+     * The two sides of a local connection, which are linked once both connections have been created.
+     */
+    static final class Pair {
+        private LocalConnectionHandler server;
+
+        synchronized ConnectionHandler createServerHandler(final ConnectionHandlerContext context) {
+            return server = new LocalConnectionHandler(context);
+        }
+
+        synchronized ConnectionHandler createClientHandler(final ConnectionHandlerContext context) {
+            final LocalConnectionHandler client = new LocalConnectionHandler(context);
+            client.peer = server;
+            server.peer = client;
+            return client;
+        }
+
+        synchronized void closeServerHandler() {
+            server.closeAsync();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.jboss.remoting3._private.Messages.conn;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.UnaryOperator;
+
+import javax.net.ssl.SSLContext;
+import javax.security.sasl.SaslClientFactory;
+
+import org.jboss.remoting3.spi.AbstractHandleableCloseable;
+import org.jboss.remoting3.spi.ConnectionHandlerFactory;
+import org.jboss.remoting3.spi.ConnectionProvider;
+import org.jboss.remoting3.spi.ConnectionProviderContext;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.xnio.Cancellable;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+import org.xnio.Result;
+
+/**
+ * The connection provider for the {@code local} protocol.  Each provider of a named endpoint is reachable by that
+ * name from the local providers of the other endpoints (and of the same endpoint) in the JVM.
+ */
+final class LocalConnectionProvider extends AbstractHandleableCloseable<ConnectionProvider> implements ConnectionProvider {
+    private static final ConcurrentHashMap<String, LocalConnectionProvider> PROVIDERS = new ConcurrentHashMap<>();
+
+    private final ConnectionProviderContext context;
+    private final String name;
+
+    LocalConnectionProvider(final ConnectionProviderContext context) throws IOException {
+        super(context.getExecutor());
+        this.context = context;
+        name = context.getEndpoint().getName();
+        if (name != null && PROVIDERS.putIfAbsent(name, this) != null) {
+            throw new IOException("A local connection provider is already registered for endpoint name \"" + name + "\"");
+        }
+    }
+
+    static String getEndpointName(final URI destination) {
+        return destination.isOpaque() ? destination.getSchemeSpecificPart() : destination.getHost();
+    }
+
+    public Cancellable connect(final URI destination, final SocketAddress bindAddress, final OptionMap connectOptions, final Result<ConnectionHandlerFactory> result, final AuthenticationConfiguration authenticationConfiguration, final SSLContext sslContext, final UnaryOperator<SaslClientFactory> saslClientFactoryOperator, final Collection<String> serverMechs) {
+        if (! isOpen()) {
+            throw new IllegalStateException("Connection provider is closed");
+        }
+        final String endpointName = getEndpointName(destination);
+        final LocalConnectionProvider target = endpointName == null ? null : PROVIDERS.get(endpointName);
+        if (target == null) {
+            result.setException(new IOException("No local endpoint named \"" + endpointName + "\" accepts connections"));
+            return IoUtils.nullCancellable();
+        }
+        try {
+            // accept on another thread, so that the locks of the two endpoints are never held together
+            target.context.getExecutor().execute(() -> target.accept(this, result));
+        } catch (RejectedExecutionException e) {
+            result.setException(new IOException("Local endpoint \"" + endpointName + "\" is not accepting connections", e));
+        }
+        return IoUtils.nullCancellable();
+    }
+
+    void accept(final LocalConnectionProvider client, final Result<ConnectionHandlerFactory> result) {
+        final LocalConnectionHandler.Pair pair = new LocalConnectionHandler.Pair();
+        try {
+            if (! isOpen()) {
+                throw new IOException("Local endpoint \"" + name + "\" is closed");
+            }
+            context.accept(pair::createServerHandler, null);
+        } catch (IOException | IllegalStateException e) {
+            result.setException(e instanceof IOException ? (IOException) e : new IOException(e));
+            return;
+        }
+        conn.tracef("Accepted local connection to endpoint \"%s\"", name);
+        if (! result.setResult(pair::createClientHandler)) {
+            // cancelled in the meantime
+            pair.closeServerHandler();
+        }
+    }
+
+    protected void closeAction() throws IOException {
+        if (name != null) {
+            PROVIDERS.remove(name, this);
+        }
+        closeComplete();
+    }
+
+    public Object getProviderInterface() {
+        return NO_PROVIDER_INTERFACES;
+    }
+
+    public String toString() {
+        return String.format("local connection provider for %s", context.getEndpoint());
+    }
+}
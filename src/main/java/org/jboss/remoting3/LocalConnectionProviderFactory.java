@@ -0,0 +1,45 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import java.io.IOException;
+
+import org.jboss.remoting3.spi.ConnectionProvider;
+import org.jboss.remoting3.spi.ConnectionProviderContext;
+import org.jboss.remoting3.spi.ConnectionProviderFactory;
+import org.xnio.OptionMap;
+
+/**
+ * A {@link ConnectionProviderFactory} for the {@code local} protocol, which connects endpoints in the same JVM through
+ * in-memory channels.  A URI of the form {@code local:<endpoint name>} connects to the named endpoint, which must also
+ * have a provider of this type registered.  Registering the provider makes the endpoint reachable from any code in the
+ * JVM; local connections are not authenticated.
+ */
+public final class LocalConnectionProviderFactory implements ConnectionProviderFactory {
+    /**
+     * Construct a new instance.
+     */
+    public LocalConnectionProviderFactory() {
+    }
+
+    /** {@inheritDoc} */
+    public ConnectionProvider createInstance(final ConnectionProviderContext context, final OptionMap optionMap, final String protocolName) throws IOException {
+        return new LocalConnectionProvider(context);
+    }
+}
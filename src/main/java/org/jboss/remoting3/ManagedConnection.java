@@ -49,6 +49,10 @@ final class ManagedConnection implements Connection {
         delegate.addCloseHandler((c, e) -> connectionInfo.connectionClosed(authConfig, futureResult));
     }
 
+    long getLoad() {
+        return ConnectionPool.getLoad(delegate);
+    }
+
     public SocketAddress getLocalAddress() {
         return delegate.getLocalAddress();
     }
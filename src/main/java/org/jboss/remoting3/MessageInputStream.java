@@ -22,6 +22,7 @@ import java.io.DataInput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 
 import org.jboss.remoting3.util.StreamUtils;
 import org.wildfly.common.Assert;
@@ -33,6 +34,19 @@ import org.wildfly.common.Assert;
  */
 public abstract class MessageInputStream extends InputStream implements DataInput {
 
+    /**
+     * Read the next part of the message into a buffer which belongs to the caller.  A stream may return a buffer which
+     * it received as it is, without copying it.  This implementation reads up to 8192 bytes into a new buffer.
+     *
+     * @return the buffer, or {@code null} at the end of the message
+     * @throws IOException if an error occurs while reading the message
+     */
+    public ByteBuffer readBuffer() throws IOException {
+        final byte[] bytes = new byte[8192];
+        final int res = read(bytes);
+        return res == -1 ? null : ByteBuffer.wrap(bytes, 0, res);
+    }
+
     public void readFully(final byte[] b) throws IOException {
         StreamUtils.readFully(this, b);
     }
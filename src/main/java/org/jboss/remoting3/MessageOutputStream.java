@@ -22,6 +22,7 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 
 import org.xnio.Cancellable;
 
@@ -55,6 +56,28 @@ public abstract class MessageOutputStream extends OutputStream implements DataOu
      */
     public abstract MessageOutputStream cancel();
 
+    /**
+     * Write the remaining content of a buffer, and give up ownership of it.  A stream may pass the buffer on as it is
+     * instead of copying its content, so the caller must not use or modify the buffer after this method is called.  The
+     * buffer position is moved to its limit.  This implementation copies the content.
+     *
+     * @param src the buffer to write, whose ownership passes to this stream
+     * @throws IOException if an error occurs while writing the buffer
+     */
+    public void writeBuffer(final ByteBuffer src) throws IOException {
+        if (src.hasArray()) {
+            write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+            src.position(src.limit());
+        } else {
+            final byte[] bytes = new byte[Math.min(src.remaining(), 8192)];
+            while (src.hasRemaining()) {
+                final int cnt = Math.min(src.remaining(), bytes.length);
+                src.get(bytes, 0, cnt);
+                write(bytes, 0, cnt);
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     public void writeBoolean(final boolean v) throws IOException {
         write(v ? 1 : 0);
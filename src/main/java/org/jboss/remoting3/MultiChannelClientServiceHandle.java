@@ -0,0 +1,261 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.jboss.remoting3._private.Messages.log;
+import static org.xnio.IoUtils.safeClose;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.wildfly.common.Assert;
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.OptionMap;
+
+/**
+ * A handle for helping service protocol providers to create and maintain several channels per connection.  Like
+ * {@link ClientServiceHandle}, the service is constructed once per channel; however, when every open channel of a
+ * connection is at least half way to its outbound message limit, another channel is opened in the background, up to
+ * the configured maximum.  Each request is given the service of the channel with the fewest open outbound messages,
+ * and additional channels are closed again once they have been idle for a while.
+ */
+public final class MultiChannelClientServiceHandle<T> {
+    private static final long DEFAULT_IDLE_SECONDS = 30L;
+
+    private final Attachments.Key<Members> key;
+    private final String serviceName;
+    private final Function<Channel, IoFuture<T>> constructor;
+    private final int maxChannels;
+    private final long idleNanos;
+
+    /**
+     * Construct a new instance.  Only one instance should be constructed per service; instances may be safely
+     * cached in {@code static} fields.
+     *
+     * @param serviceName the service name (may not be {@code null})
+     * @param constructor the service future construction operation
+     * @param maxChannels the maximum number of channels to open per connection (must be at least 1)
+     */
+    public MultiChannelClientServiceHandle(final String serviceName, final Function<Channel, IoFuture<T>> constructor, final int maxChannels) {
+        this(serviceName, constructor, maxChannels, DEFAULT_IDLE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Construct a new instance.  Only one instance should be constructed per service; instances may be safely
+     * cached in {@code static} fields.
+     *
+     * @param serviceName the service name (may not be {@code null})
+     * @param constructor the service future construction operation
+     * @param maxChannels the maximum number of channels to open per connection (must be at least 1)
+     * @param idleTimeout the time after which an additional channel without open outbound messages is closed
+     * @param idleTimeoutUnit the unit of the idle timeout (may not be {@code null})
+     */
+    @SuppressWarnings("unchecked")
+    public MultiChannelClientServiceHandle(final String serviceName, final Function<Channel, IoFuture<T>> constructor, final int maxChannels, final long idleTimeout, final TimeUnit idleTimeoutUnit) {
+        Assert.checkNotNullParam("serviceName", serviceName);
+        Assert.checkMinimumParameter("maxChannels", 1, maxChannels);
+        Assert.checkMinimumParameter("idleTimeout", 0L, idleTimeout);
+        Assert.checkNotNullParam("idleTimeoutUnit", idleTimeoutUnit);
+        key = (Attachments.Key<Members>) (Object) new Attachments.Key<>(Members.class);
+        this.serviceName = serviceName;
+        this.constructor = constructor;
+        this.maxChannels = maxChannels;
+        idleNanos = idleTimeoutUnit.toNanos(idleTimeout);
+    }
+
+    /**
+     * Get or establish the least loaded future client service for the given connection.
+     *
+     * @param connection the connection
+     * @param optionMap the service options
+     * @return the future service instance
+     */
+    public IoFuture<T> getClientService(final Connection connection, final OptionMap optionMap) {
+        final Attachments attachments = connection.getAttachments();
+        Members members = attachments.getAttachment(key);
+        if (members == null) {
+            final Members newMembers = new Members();
+            members = attachments.attachIfAbsent(key, newMembers);
+            if (members == null) {
+                members = newMembers;
+            }
+        }
+        return members.getClientService(connection, optionMap);
+    }
+
+    /**
+     * Close all of the channels of this handle on the given connection.
+     *
+     * @param connection the connection
+     */
+    public void closeChannels(final Connection connection) {
+        final Members members = connection.getAttachments().removeAttachment(key);
+        if (members != null) {
+            members.closeAll();
+        }
+    }
+
+    static boolean isBusy(final Channel channel, final int load) {
+        final Integer max = channel.getOption(RemotingOptions.MAX_OUTBOUND_MESSAGES);
+        return max == null ? load > 0 : load * 2 >= max.intValue();
+    }
+
+    final class Member {
+        private final IoFuture<T> future;
+        private volatile Channel channel;
+        /** The start of the idle period, or 0 if the channel is in use; handing the channel out restarts the period. */
+        private long idleSince;
+
+        Member(final IoFuture<T> future) {
+            this.future = future;
+        }
+    }
+
+    final class Members {
+        private final ArrayList<Member> list = new ArrayList<>();
+
+        synchronized IoFuture<T> getClientService(final Connection connection, final OptionMap optionMap) {
+            final long now = System.nanoTime();
+            Member best = null;
+            int bestLoad = Integer.MAX_VALUE;
+            Member pending = null;
+            for (int i = 0; i < list.size(); i ++) {
+                final Member member = list.get(i);
+                switch (member.future.getStatus()) {
+                    case DONE: {
+                        final Channel channel = member.channel;
+                        final int load = channel.getOutboundMessageCount();
+                        if (load > 0) {
+                            member.idleSince = 0L;
+                        } else if (member.idleSince == 0L) {
+                            member.idleSince = now;
+                        } else if (i > 0 && now - member.idleSince > idleNanos) {
+                            // the extra channel is no longer needed
+                            log.tracef("MultiChannelClientServiceHandle %s ('%s') retiring idle channel %s", MultiChannelClientServiceHandle.this, serviceName, channel);
+                            list.remove(i --);
+                            safeClose(channel);
+                            break;
+                        }
+                        // on equal load, prefer the earlier channels so that the later ones may become idle
+                        if (load < bestLoad) {
+                            best = member;
+                            bestLoad = load;
+                        }
+                        break;
+                    }
+                    case WAITING: {
+                        if (pending == null) pending = member;
+                        break;
+                    }
+                    default: {
+                        // failed or cancelled; it removes itself
+                        break;
+                    }
+                }
+            }
+            if (best != null) {
+                if (pending == null && list.size() < maxChannels && isBusy(best.channel, bestLoad)) {
+                    // grow without making this caller wait for the new channel
+                    log.tracef("MultiChannelClientServiceHandle %s ('%s') opening additional channel at connection %s", MultiChannelClientServiceHandle.this, serviceName, connection);
+                    open(connection, optionMap);
+                }
+                // the caller may not have opened a message yet, so the channel must not be retired under it
+                if (best.idleSince != 0L) {
+                    best.idleSince = now;
+                }
+                return best.future;
+            }
+            if (pending != null) {
+                return pending.future;
+            }
+            return open(connection, optionMap).future;
+        }
+
+        private Member open(final Connection connection, final OptionMap optionMap) {
+            final FutureResult<T> futureResult = new FutureResult<>(connection.getEndpoint().getXnioWorker());
+            final Member member = new Member(futureResult.getIoFuture());
+            list.add(member);
+
+            log.tracef("MultiChannelClientServiceHandle %s ('%s') constructing future service at connection %s", MultiChannelClientServiceHandle.this, serviceName, connection);
+            final IoFuture<Channel> futureChannel = connection.openChannel(serviceName, optionMap);
+            futureChannel.addNotifier(new IoFuture.HandlingNotifier<Channel, FutureResult<T>>() {
+                public void handleCancelled(final FutureResult<T> futureResult) {
+                    futureResult.setCancelled();
+                    remove(member);
+                }
+
+                public void handleFailed(final IOException exception, final FutureResult<T> futureResult) {
+                    futureResult.setException(exception);
+                    remove(member);
+                }
+
+                public void handleDone(final Channel channel, final FutureResult<T> futureResult) {
+                    member.channel = channel;
+                    final IoFuture<T> nextFuture = constructor.apply(channel);
+                    nextFuture.addNotifier(new IoFuture.HandlingNotifier<T, FutureResult<T>>() {
+                        public void handleCancelled(final FutureResult<T> futureResult) {
+                            safeClose(channel);
+                            futureResult.setCancelled();
+                            remove(member);
+                        }
+
+                        public void handleFailed(final IOException exception, final FutureResult<T> futureResult) {
+                            safeClose(channel);
+                            futureResult.setException(exception);
+                            log.tracef("MultiChannelClientServiceHandle %s ('%s') failed service at connection %s", MultiChannelClientServiceHandle.this, serviceName, connection);
+                            remove(member);
+                        }
+
+                        public void handleDone(final T result, final FutureResult<T> futureResult) {
+                            futureResult.setResult(result);
+                            // Remove on close
+                            channel.addCloseHandler((closed, exception) -> {
+                                log.tracef("MultiChannelClientServiceHandle %s ('%s') closing service at connection %s", MultiChannelClientServiceHandle.this, serviceName, connection);
+                                remove(member);
+                            });
+                        }
+                    }, futureResult);
+                    // make sure cancel requests now pass up to the service future
+                    futureResult.addCancelHandler(nextFuture);
+                }
+            }, futureResult);
+            // make sure cancel requests pass up to the channel open request
+            futureResult.addCancelHandler(futureChannel);
+            return member;
+        }
+
+        synchronized void remove(final Member member) {
+            list.remove(member);
+        }
+
+        void closeAll() {
+            final ArrayList<Member> members;
+            synchronized (this) {
+                members = new ArrayList<>(list);
+                list.clear();
+            }
+            for (Member member : members) {
+                safeClose(member.channel);
+            }
+        }
+    }
+}
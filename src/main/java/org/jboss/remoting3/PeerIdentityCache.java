@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+
+/**
+ * A cache of the peer identities established on a connection, keyed by the authentication configuration which
+ * established them.  The cache holds up to a maximum number of identities, evicting the least recently used, and each
+ * identity is retained for a limited time, after which its configuration is authenticated again.  The cache only
+ * affects lookups: the connection keeps the ID of an identity which leaves it until the identity is no longer referenced.
+ */
+final class PeerIdentityCache {
+    private final int maxSize;
+    private final long timeoutNanos;
+    private final LinkedHashMap<AuthenticationConfiguration, Entry> entries;
+
+    PeerIdentityCache(final int maxSize, final long timeoutSeconds) {
+        this.maxSize = maxSize;
+        timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        entries = new LinkedHashMap<AuthenticationConfiguration, Entry>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(final Map.Entry<AuthenticationConfiguration, Entry> eldest) {
+                return size() > PeerIdentityCache.this.maxSize;
+            }
+        };
+    }
+
+    ConnectionPeerIdentity get(final AuthenticationConfiguration configuration) {
+        if (maxSize == 0) {
+            return null;
+        }
+        synchronized (entries) {
+            final Entry entry = entries.get(configuration);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expires > 0L) {
+                entries.remove(configuration);
+                return null;
+            }
+            return entry.identity;
+        }
+    }
+
+    void put(final AuthenticationConfiguration configuration, final ConnectionPeerIdentity identity) {
+        if (maxSize == 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(configuration, new Entry(identity, System.nanoTime() + timeoutNanos));
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    static final class Entry {
+        final ConnectionPeerIdentity identity;
+        final long expires;
+
+        Entry(final ConnectionPeerIdentity identity, final long expires) {
+            this.identity = identity;
+            this.expires = expires;
+        }
+    }
+}
@@ -329,4 +329,206 @@ public final class RemotingOptions {
      * The default value for message ack timeout configuration
      */
     public static final int DEFAULT_MESSAGE_ACK_TIMEOUT = 300000;
+
+    /**
+     * The maximum amount of direct memory, in bytes, which the connections of an endpoint may hold in buffers.  Once
+     * this limit is reached, connections stop reading and writers wait for buffers to be released.  The first remote
+     * connection provider of an endpoint establishes the limit for the whole endpoint.
+     */
+    public static final Option<Long> MAX_DIRECT_BUFFER_MEMORY = Option.simple(RemotingOptions.class, "MAX_DIRECT_BUFFER_MEMORY", Long.class);
+
+    /**
+     * The default maximum direct buffer memory, which is unlimited.  This default may be overridden using the
+     * {@code jboss.remoting.max-direct-buffer-memory} system property.
+     */
+    public static final long DEFAULT_MAX_DIRECT_BUFFER_MEMORY = Long.MAX_VALUE;
+
+    /**
+     * The maximum number of bytes of received message data which a connection may hold before it is consumed.  Once
+     * this limit is exceeded, the connection stops reading until the consumers have drained it to half of the limit.
+     */
+    public static final Option<Long> MAX_INBOUND_MEMORY = Option.simple(RemotingOptions.class, "MAX_INBOUND_MEMORY", Long.class);
+
+    /**
+     * The default maximum inbound memory per connection, which is unlimited.
+     */
+    public static final long DEFAULT_MAX_INBOUND_MEMORY = Long.MAX_VALUE;
+
+    /**
+     * The maximum number of frames which a connection processes per read event before yielding the I/O thread to
+     * other connections.
+     */
+    public static final Option<Integer> READ_EVENT_FRAME_BUDGET = Option.simple(RemotingOptions.class, "READ_EVENT_FRAME_BUDGET", Integer.class);
+
+    /**
+     * The default read event frame budget.
+     */
+    public static final int DEFAULT_READ_EVENT_FRAME_BUDGET = 64;
+
+    /**
+     * The maximum number of frame bytes which a connection processes per read event before yielding the I/O thread to
+     * other connections.
+     */
+    public static final Option<Integer> READ_EVENT_BYTE_BUDGET = Option.simple(RemotingOptions.class, "READ_EVENT_BYTE_BUDGET", Integer.class);
+
+    /**
+     * The default read event byte budget.
+     */
+    public static final int DEFAULT_READ_EVENT_BYTE_BUDGET = 0x100000;
+
+    /**
+     * The number of connections which an endpoint maintains to each managed destination.  Connections are opened on
+     * demand, and each request for a connection is given the least loaded one.
+     */
+    public static final Option<Integer> CONNECTION_POOL_SIZE = Option.simple(RemotingOptions.class, "CONNECTION_POOL_SIZE", Integer.class);
+
+    /**
+     * The default connection pool size.
+     */
+    public static final int DEFAULT_CONNECTION_POOL_SIZE = 1;
+
+    /**
+     * The load, in bytes waiting to be written or in flight, which the least loaded connection of a managed destination
+     * must exceed before another connection is opened to that destination.  Only applies when the connection pool size
+     * is greater than one.
+     */
+    public static final Option<Long> CONNECTION_POOL_GROWTH_THRESHOLD = Option.simple(RemotingOptions.class, "CONNECTION_POOL_GROWTH_THRESHOLD", Long.class);
+
+    /**
+     * The default connection pool growth threshold.
+     */
+    public static final long DEFAULT_CONNECTION_POOL_GROWTH_THRESHOLD = 0x10000L;
+
+    /**
+     * The maximum number of destinations for which a connection provider retains the most recently negotiated TLS
+     * session, so that new connections to them can resume it.  A value of zero disables the cache.
+     */
+    public static final Option<Integer> TLS_SESSION_CACHE_SIZE = Option.simple(RemotingOptions.class, "TLS_SESSION_CACHE_SIZE", Integer.class);
+
+    /**
+     * The default TLS session cache size.
+     */
+    public static final int DEFAULT_TLS_SESSION_CACHE_SIZE = 256;
+
+    /**
+     * The time, in seconds, for which a cached TLS session is retained.
+     */
+    public static final Option<Integer> TLS_SESSION_CACHE_TIMEOUT = Option.simple(RemotingOptions.class, "TLS_SESSION_CACHE_TIMEOUT", Integer.class);
+
+    /**
+     * The default TLS session cache timeout (one hour).
+     */
+    public static final int DEFAULT_TLS_SESSION_CACHE_TIMEOUT = 3600;
+
+    /**
+     * Specify whether a client may pipeline its connection handshake.  Once a server has shown that it accepts
+     * pipelined handshakes, later connections to it send their capabilities and initial authentication request
+     * immediately instead of waiting for the greeting and capabilities of the server, saving round trips.  On a
+     * server, specify whether to offer pipelining to clients.
+     */
+    public static final Option<Boolean> HANDSHAKE_PIPELINING = Option.simple(RemotingOptions.class, "HANDSHAKE_PIPELINING", Boolean.class);
+
+    /**
+     * The default handshake pipelining setting.
+     */
+    public static final boolean DEFAULT_HANDSHAKE_PIPELINING = true;
+
+    /**
+     * Specify whether an outbound channel is opened optimistically.  An optimistic channel is usable as soon as the
+     * open request is sent: its messages follow the request with conservative provisional transmit window and
+     * concurrent message limits, which are replaced by the agreed limits once the peer acknowledges the request.  If the
+     * peer refuses the service, the channel is closed with a {@link ServiceOpenException} and its messages are cancelled.
+     */
+    public static final Option<Boolean> OPTIMISTIC_CHANNEL_OPEN = Option.simple(RemotingOptions.class, "OPTIMISTIC_CHANNEL_OPEN", Boolean.class);
+
+    /**
+     * The default optimistic channel open setting.
+     */
+    public static final boolean DEFAULT_OPTIMISTIC_CHANNEL_OPEN = false;
+
+    /**
+     * The time, in milliseconds, that a connection attempt to one of the addresses of a host is given before an attempt
+     * to its next address is started in parallel.  The first connection to be established is used.  A value of zero or
+     * less disables parallel connection attempts, so that only the first address of the host is used.
+     */
+    public static final Option<Integer> CONNECTION_ATTEMPT_DELAY = Option.simple(RemotingOptions.class, "CONNECTION_ATTEMPT_DELAY", Integer.class);
+
+    /**
+     * The default connection attempt delay, as recommended by RFC 8305.
+     */
+    public static final int DEFAULT_CONNECTION_ATTEMPT_DELAY = 250;
+
+    /**
+     * The maximum number of peer identities which a connection retains after they are established by remote
+     * authentication, so that repeated authentications with the same configuration reuse them.  A value of zero
+     * disables the cache, so that each authentication request which does not join one already in progress performs a
+     * new authentication exchange.  An identity which leaves the cache remains usable for as long as it is referenced;
+     * once it is no longer referenced, its ID is deleted on the peer.
+     */
+    public static final Option<Integer> PEER_IDENTITY_CACHE_SIZE = Option.simple(RemotingOptions.class, "PEER_IDENTITY_CACHE_SIZE", Integer.class);
+
+    /**
+     * The default peer identity cache size.
+     */
+    public static final int DEFAULT_PEER_IDENTITY_CACHE_SIZE = 1024;
+
+    /**
+     * The time, in seconds, for which an established peer identity is retained by a connection.
+     */
+    public static final Option<Integer> PEER_IDENTITY_CACHE_TIMEOUT = Option.simple(RemotingOptions.class, "PEER_IDENTITY_CACHE_TIMEOUT", Integer.class);
+
+    /**
+     * The default peer identity cache timeout (one hour).
+     */
+    public static final int DEFAULT_PEER_IDENTITY_CACHE_TIMEOUT = 3600;
+
+    /**
+     * The names of the message compression codecs which a channel may use, in order of preference.  When opening a
+     * channel, the codecs are offered to the peer, which selects the first one which is also configured on the service.
+     * The {@code deflate} codec is always available; further codecs are provided by
+     * {@link org.jboss.remoting3.spi.CompressionCodecFactory} implementations.  Channels which are opened
+     * optimistically do not use compression.
+     */
+    public static final Option<Sequence<String>> COMPRESSION_CODECS = Option.sequence(RemotingOptions.class, "COMPRESSION_CODECS", String.class);
+
+    /**
+     * The size, in bytes, above which the messages of a channel which uses compression are compressed.
+     */
+    public static final Option<Integer> COMPRESSION_THRESHOLD = Option.simple(RemotingOptions.class, "COMPRESSION_THRESHOLD", Integer.class);
+
+    /**
+     * The default compression threshold.
+     */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    /**
+     * The largest message data frame, in bytes, which a channel may send and receive.  When both peers of a channel
+     * configure a size which is larger than the connection buffer size, message data is sent in frames of up to the
+     * smaller of the two sizes (but at most 1 MB), which reduces the per-frame overhead of bulk transfers.  Frames are
+     * additionally limited by the channel transmit window.  Channels which are opened optimistically use regular frames.
+     */
+    public static final Option<Integer> MAX_FRAME_SIZE = Option.simple(RemotingOptions.class, "MAX_FRAME_SIZE", Integer.class);
+
+    /**
+     * Register an MBean for each connection, which reports the traffic counts of the connection and of its channels.
+     * The counts of all connections are always reported by the connection provider MBean.
+     */
+    public static final Option<Boolean> CONNECTION_MBEANS = Option.simple(RemotingOptions.class, "CONNECTION_MBEANS", Boolean.class);
+
+    /**
+     * The default for connection MBean registration.
+     */
+    public static final boolean DEFAULT_CONNECTION_MBEANS = false;
+
+    /**
+     * Measure the latency of channel opens, connection establishment, transmit window waits and message
+     * acknowledgements, and report their percentiles through the connection provider MBean.  Latency is also measured
+     * whenever a {@link org.jboss.remoting3.spi.LatencyListener} is installed.
+     */
+    public static final Option<Boolean> LATENCY_HISTOGRAMS = Option.simple(RemotingOptions.class, "LATENCY_HISTOGRAMS", Boolean.class);
+
+    /**
+     * The default for latency measurement.
+     */
+    public static final boolean DEFAULT_LATENCY_HISTOGRAMS = false;
 }
@@ -308,6 +308,8 @@ final class RemotingXmlParser {
         boolean setTcpKeepAlive = false;
         boolean tcpKeepAlive = false;
         int heartbeatInterval = -1;
+        int poolSize = -1;
+        boolean warm = false;
         for (int i = 0; i < attributeCount; i++) {
             checkAttributeNamespace(reader, i);
             switch (reader.getAttributeLocalName(i)) {
@@ -336,6 +338,14 @@ final class RemotingXmlParser {
                     heartbeatInterval = reader.getIntAttributeValueResolved(i, 0, Integer.MAX_VALUE);
                     break;
                 }
+                case "pool-size": {
+                    poolSize = reader.getIntAttributeValueResolved(i, 1, Integer.MAX_VALUE);
+                    break;
+                }
+                case "warm": {
+                    warm = reader.getBooleanAttributeValueResolved(i);
+                    break;
+                }
                 default: {
                     throw reader.unexpectedAttribute(i);
                 }
@@ -360,6 +370,12 @@ final class RemotingXmlParser {
         if (heartbeatInterval != -1) {
             connectionBuilder.setHeartbeatInterval(heartbeatInterval);
         }
+        if (poolSize != -1) {
+            connectionBuilder.setPoolSize(poolSize);
+        }
+        if (warm) {
+            connectionBuilder.setEagerConnect(true);
+        }
         if (reader.nextTag() != END_ELEMENT) {
             throw reader.unexpectedContent();
         }
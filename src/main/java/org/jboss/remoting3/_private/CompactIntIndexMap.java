@@ -0,0 +1,423 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3._private;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Concurrent integer-indexed map which is optimized for holding few entries.  An empty map holds no table at all, and
+ * a map with a single entry holds it inline.  Once a second entry is added, a small hash table is allocated which grows
+ * on demand and shrinks again (eventually back to the inline or empty representation) as entries are removed.
+ * <p>
+ * Reads are lock-free; updates are serialized on the map instance.
+ *
+ * @param <V> the value type
+ */
+public final class CompactIntIndexMap<V> extends AbstractCollection<V> implements IntIndexMap<V> {
+    private static final int MINIMUM_CAPACITY = 4;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final ToIntFunction<? super V> indexer;
+    private final Equaller<? super V> ve;
+
+    /** Either {@code null} (empty), the single inline value, or a {@link Table}. */
+    private volatile Object state;
+    private volatile int size;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param indexer the key indexer
+     * @param valueEqualler the value equaller
+     */
+    public CompactIntIndexMap(ToIntFunction<? super V> indexer, Equaller<? super V> valueEqualler) {
+        if (valueEqualler == null) {
+            throw new IllegalArgumentException("valueEqualler is null");
+        }
+        this.indexer = indexer;
+        ve = valueEqualler;
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param indexer the key indexer
+     */
+    public CompactIntIndexMap(ToIntFunction<? super V> indexer) {
+        this(indexer, Equaller.DEFAULT);
+    }
+
+    public boolean containsKey(final int index) {
+        return get(index) != null;
+    }
+
+    public V get(final int index) {
+        final Object state = this.state;
+        if (state == null) {
+            return null;
+        } else if (state instanceof Table) {
+            final AtomicReferenceArray<Object[]> rows = CompactIntIndexMap.<V>castTable(state).rows;
+            final Object[] row = rows.get(index & rows.length() - 1);
+            if (row != null) for (Object item : row) {
+                final V value = cast(item);
+                if (index == indexer.applyAsInt(value)) {
+                    return value;
+                }
+            }
+            return null;
+        } else {
+            final V item = cast(state);
+            return index == indexer.applyAsInt(item) ? item : null;
+        }
+    }
+
+    public V put(final V value) {
+        return doPut(value, false);
+    }
+
+    public V putIfAbsent(final V value) {
+        return doPut(value, true);
+    }
+
+    public V computeIfAbsent(final int index, final IntFunction<V> producer) {
+        final V existing = get(index);
+        if (existing != null) {
+            return existing;
+        }
+        final V newVal = producer.apply(index);
+        final V result = doPut(newVal, true);
+        return result == null ? newVal : result;
+    }
+
+    public boolean add(final V v) {
+        return doPut(v, true) == null;
+    }
+
+    public synchronized V removeKey(final int index) {
+        final Object state = this.state;
+        if (state == null) {
+            return null;
+        } else if (state instanceof Table) {
+            return removeFromTable(castTable(state), index, null);
+        } else {
+            final V item = cast(state);
+            if (index == indexer.applyAsInt(item)) {
+                this.state = null;
+                size = 0;
+                return item;
+            }
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized boolean remove(final Object o) {
+        final V value = (V) o;
+        final int index = indexer.applyAsInt(value);
+        final Object state = this.state;
+        if (state == null) {
+            return false;
+        } else if (state instanceof Table) {
+            return removeFromTable(castTable(state), index, value) != null;
+        } else {
+            if (ve.equals(value, cast(state))) {
+                this.state = null;
+                size = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public synchronized V replace(final V value) {
+        final V existing = get(indexer.applyAsInt(value));
+        if (existing != null) {
+            doPut(value, false);
+        }
+        return existing;
+    }
+
+    public synchronized boolean replace(final V oldValue, final V newValue) {
+        final int index = indexer.applyAsInt(oldValue);
+        if (index != indexer.applyAsInt(newValue)) {
+            throw new IllegalArgumentException("Can only replace with value which has the same key");
+        }
+        if (ve.equals(oldValue, get(index))) {
+            doPut(newValue, false);
+            return true;
+        }
+        return false;
+    }
+
+    public int applyAsInt(final V argument) {
+        return indexer.applyAsInt(argument);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public boolean contains(final Object o) {
+        return ve.equals((V) o, get(indexer.applyAsInt((V) o)));
+    }
+
+    public synchronized void clear() {
+        state = null;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the capacity of the current table.  A map which is empty or which holds a single inline entry does not have a
+     * table, and thus has a capacity of zero.
+     *
+     * @return the current table capacity
+     */
+    public int capacity() {
+        final Object state = this.state;
+        return state instanceof Table ? CompactIntIndexMap.<V>castTable(state).rows.length() : 0;
+    }
+
+    public Iterator<V> iterator() {
+        final Object state = this.state;
+        if (state == null) {
+            return Collections.emptyIterator();
+        } else if (state instanceof Table) {
+            return new TableIterator(CompactIntIndexMap.<V>castTable(state));
+        } else {
+            return new TableIterator(CompactIntIndexMap.<V>cast(state));
+        }
+    }
+
+    private synchronized V doPut(final V value, final boolean ifAbsent) {
+        final int index = indexer.applyAsInt(value);
+        final Object state = this.state;
+        if (state == null) {
+            this.state = value;
+            size = 1;
+            return null;
+        }
+        if (! (state instanceof Table)) {
+            final V existing = cast(state);
+            if (index == indexer.applyAsInt(existing)) {
+                if (! ifAbsent) {
+                    this.state = value;
+                }
+                return existing;
+            }
+            final Table<V> table = new Table<>(MINIMUM_CAPACITY);
+            table.insert(existing, indexer);
+            table.insert(value, indexer);
+            this.state = table;
+            size = 2;
+            return null;
+        }
+        final Table<V> table = castTable(state);
+        final AtomicReferenceArray<Object[]> rows = table.rows;
+        final int idx = index & rows.length() - 1;
+        final Object[] row = rows.get(idx);
+        if (row != null) for (int i = 0; i < row.length; i ++) {
+            final V existing = cast(row[i]);
+            if (index == indexer.applyAsInt(existing)) {
+                if (! ifAbsent) {
+                    final Object[] newRow = row.clone();
+                    newRow[i] = value;
+                    rows.set(idx, newRow);
+                }
+                return existing;
+            }
+        }
+        final int newSize = size + 1;
+        final int capacity = rows.length();
+        if (newSize > capacity >> 1 && capacity < MAXIMUM_CAPACITY) {
+            final Table<V> newTable = rehash(table, capacity << 1);
+            newTable.insert(value, indexer);
+            this.state = newTable;
+        } else {
+            rows.set(idx, addItem(row, value));
+        }
+        size = newSize;
+        return null;
+    }
+
+    /**
+     * Remove the entry with the given index from the table, optionally only if it matches the given value.  Must be
+     * called under the map lock.
+     */
+    private V removeFromTable(final Table<V> table, final int index, final V value) {
+        final AtomicReferenceArray<Object[]> rows = table.rows;
+        final int idx = index & rows.length() - 1;
+        final Object[] row = rows.get(idx);
+        if (row != null) for (int i = 0; i < row.length; i ++) {
+            final V existing = cast(row[i]);
+            if (index == indexer.applyAsInt(existing)) {
+                if (value != null && ! ve.equals(value, existing)) {
+                    return null;
+                }
+                rows.set(idx, removeItem(row, i));
+                final int newSize = size - 1;
+                final int capacity = rows.length();
+                if (newSize == 1) {
+                    // fall back to the inline representation
+                    state = table.first();
+                } else if (newSize < capacity >> 3 && capacity > MINIMUM_CAPACITY) {
+                    state = rehash(table, capacityFor(newSize) << 1);
+                }
+                size = newSize;
+                return existing;
+            }
+        }
+        return null;
+    }
+
+    private Table<V> rehash(final Table<V> table, final int newCapacity) {
+        final Table<V> newTable = new Table<>(newCapacity);
+        final AtomicReferenceArray<Object[]> rows = table.rows;
+        for (int i = 0; i < rows.length(); i ++) {
+            final Object[] row = rows.get(i);
+            if (row != null) for (Object item : row) {
+                newTable.insert(cast(item), indexer);
+            }
+        }
+        return newTable;
+    }
+
+    private static int capacityFor(final int size) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity >> 1 < size && capacity < MAXIMUM_CAPACITY) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static Object[] addItem(final Object[] row, final Object newItem) {
+        if (row == null) {
+            return new Object[] { newItem };
+        } else {
+            final int length = row.length;
+            final Object[] newRow = Arrays.copyOf(row, length + 1);
+            newRow[length] = newItem;
+            return newRow;
+        }
+    }
+
+    private static Object[] removeItem(final Object[] row, final int idx) {
+        final int len = row.length;
+        if (len == 1) {
+            return null;
+        }
+        final Object[] newRow = new Object[len - 1];
+        System.arraycopy(row, 0, newRow, 0, idx);
+        System.arraycopy(row, idx + 1, newRow, idx, len - 1 - idx);
+        return newRow;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object item) {
+        return (V) item;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Table<V> castTable(Object state) {
+        return (Table<V>) state;
+    }
+
+    final class TableIterator implements Iterator<V> {
+        private final AtomicReferenceArray<Object[]> rows;
+        private Object[] row;
+        private int rowIdx;
+        private int idx;
+        private V next;
+        private V last;
+
+        TableIterator(final Table<V> table) {
+            rows = table.rows;
+        }
+
+        TableIterator(final V item) {
+            rows = null;
+            row = new Object[] { item };
+        }
+
+        public boolean hasNext() {
+            while (next == null) {
+                final Object[] row = this.row;
+                if (row != null && idx < row.length) {
+                    next = cast(row[idx++]);
+                    return true;
+                }
+                final AtomicReferenceArray<Object[]> rows = this.rows;
+                if (rows == null || rowIdx == rows.length()) {
+                    return false;
+                }
+                this.row = rows.get(rowIdx++);
+                idx = 0;
+            }
+            return true;
+        }
+
+        public V next() {
+            if (hasNext()) try {
+                return last = next;
+            } finally {
+                next = null;
+            }
+            throw new NoSuchElementException();
+        }
+
+        public void remove() {
+            final V last = this.last;
+            if (last == null) {
+                throw new IllegalStateException("next() not yet called");
+            }
+            this.last = null;
+            CompactIntIndexMap.this.remove(last);
+        }
+    }
+
+    static final class Table<V> {
+        final AtomicReferenceArray<Object[]> rows;
+
+        Table(final int capacity) {
+            rows = new AtomicReferenceArray<>(capacity);
+        }
+
+        void insert(final V item, final ToIntFunction<? super V> indexer) {
+            final int idx = indexer.applyAsInt(item) & rows.length() - 1;
+            rows.lazySet(idx, addItem(rows.get(idx), item));
+        }
+
+        V first() {
+            for (int i = 0; i < rows.length(); i ++) {
+                final Object[] row = rows.get(i);
+                if (row != null) {
+                    return cast(row[0]);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.jboss.remoting3._private;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.SocketAddress;
+import java.net.URI;
 
 import org.jboss.logging.annotations.Cause;
 import org.jboss.logging.annotations.LogMessage;
@@ -98,6 +99,9 @@ public interface Messages extends BasicLogger {
     @Message(id = 212, value = "Failed to configure SSL context")
     IOException failedToConfigureSslContext(@Cause Throwable cause);
 
+    @Message(id = 213, value = "Destination %s is unavailable; the next connection attempt is allowed in %d ms")
+    IOException destinationUnavailable(URI destination, long millis);
+
     // non i18n
 
     @LogMessage(level = TRACE)
@@ -0,0 +1,287 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.remoting3.remote;
+
+import static org.xnio.IoUtils.safeClose;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.MessageOutputStream;
+import org.jboss.remoting3.spi.CompressionCodec;
+
+/**
+ * The message compression of a channel.  When a channel uses compression, each of its messages begins with a header
+ * byte which tells whether the rest of the message is compressed.  A message is compressed once more than the threshold
+ * number of bytes are written to it; smaller messages, and messages which are flushed before reaching the threshold,
+ * are sent as they are.
+ */
+final class ChannelCompression {
+    private static final int STORED = 0;
+    private static final int COMPRESSED = 1;
+
+    private final String name;
+    private final CompressionCodec codec;
+    private final int threshold;
+    private final RemoteConnectionProvider provider;
+
+    ChannelCompression(final String name, final CompressionCodec codec, final int threshold, final RemoteConnectionProvider provider) {
+        this.name = name;
+        this.codec = codec;
+        this.threshold = Math.max(0, threshold);
+        this.provider = provider;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void close() {
+        codec.close();
+    }
+
+    MessageOutputStream wrap(final MessageOutputStream message) {
+        return new CompressingOutputStream(message);
+    }
+
+    MessageInputStream wrap(final MessageInputStream message, final long maxMessageSize) {
+        return new DecompressingInputStream(message, maxMessageSize);
+    }
+
+    final class CompressingOutputStream extends MessageOutputStream {
+        private final MessageOutputStream message;
+        private byte[] pending;
+        private int pendingLength;
+        private OutputStream compressor;
+        private boolean stored;
+        private boolean done;
+
+        CompressingOutputStream(final MessageOutputStream message) {
+            this.message = message;
+            pending = new byte[threshold];
+        }
+
+        public void write(final int b) throws IOException {
+            if (done) {
+                throw new IOException("Message stream is closed");
+            }
+            if (stored) {
+                message.write(b);
+            } else if (compressor != null) {
+                final long start = System.nanoTime();
+                compressor.write(b);
+                provider.compressed(1L, System.nanoTime() - start);
+            } else if (pendingLength < threshold) {
+                pending[pendingLength ++] = (byte) b;
+            } else {
+                final long start = System.nanoTime();
+                final int pendingLength = startCompression();
+                compressor.write(b);
+                provider.compressed(pendingLength + 1, System.nanoTime() - start);
+            }
+        }
+
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (done) {
+                throw new IOException("Message stream is closed");
+            }
+            if (stored) {
+                message.write(b, off, len);
+            } else if (compressor != null) {
+                final long start = System.nanoTime();
+                compressor.write(b, off, len);
+                provider.compressed(len, System.nanoTime() - start);
+            } else if (pendingLength + len <= threshold) {
+                System.arraycopy(b, off, pending, pendingLength, len);
+                pendingLength += len;
+            } else {
+                final long start = System.nanoTime();
+                final int pendingLength = startCompression();
+                compressor.write(b, off, len);
+                provider.compressed(pendingLength + len, System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Start compressing the message, and pass the pending data to the compressor.
+         *
+         * @return the number of pending bytes
+         * @throws IOException if writing the header or the pending data fails
+         */
+        private int startCompression() throws IOException {
+            message.write(COMPRESSED);
+            final OutputStream compressor = codec.compress(new CountingOutputStream(message));
+            this.compressor = compressor;
+            final int pendingLength = this.pendingLength;
+            final byte[] pending = this.pending;
+            this.pending = null;
+            compressor.write(pending, 0, pendingLength);
+            return pendingLength;
+        }
+
+        private void writeStored() throws IOException {
+            stored = true;
+            message.write(STORED);
+            message.write(pending, 0, pendingLength);
+            pending = null;
+        }
+
+        public void flush() throws IOException {
+            if (compressor != null) {
+                final long start = System.nanoTime();
+                compressor.flush();
+                provider.compressed(0L, System.nanoTime() - start);
+            } else {
+                if (! stored) {
+                    // the data must be sent now, so the message can no longer be compressed
+                    writeStored();
+                }
+                message.flush();
+            }
+        }
+
+        public void close() throws IOException {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (compressor != null) {
+                final long start = System.nanoTime();
+                compressor.close();
+                provider.compressed(0L, System.nanoTime() - start);
+            } else {
+                if (! stored) {
+                    writeStored();
+                }
+                message.close();
+            }
+        }
+
+        public MessageOutputStream cancel() {
+            done = true;
+            message.cancel();
+            // release the codec state; the message discards any further data
+            safeClose(compressor);
+            return this;
+        }
+
+        public String toString() {
+            return message.toString();
+        }
+    }
+
+    final class CountingOutputStream extends OutputStream {
+        private final MessageOutputStream message;
+
+        CountingOutputStream(final MessageOutputStream message) {
+            this.message = message;
+        }
+
+        public void write(final int b) throws IOException {
+            message.write(b);
+            provider.compressedOutput(1);
+        }
+
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            message.write(b, off, len);
+            provider.compressedOutput(len);
+        }
+
+        public void flush() throws IOException {
+            message.flush();
+        }
+
+        public void close() throws IOException {
+            message.close();
+        }
+    }
+
+    final class DecompressingInputStream extends MessageInputStream {
+        private final MessageInputStream message;
+        private long remaining;
+        private InputStream stream;
+
+        DecompressingInputStream(final MessageInputStream message, final long maxMessageSize) {
+            this.message = message;
+            remaining = maxMessageSize;
+        }
+
+        private InputStream getStream() throws IOException {
+            InputStream stream = this.stream;
+            if (stream == null) {
+                final int header = message.read();
+                if (header == STORED || header == -1) {
+                    stream = message;
+                } else if (header == COMPRESSED) {
+                    stream = codec.decompress(message);
+                } else {
+                    throw new IOException("Invalid message compression header " + header);
+                }
+                this.stream = stream;
+            }
+            return stream;
+        }
+
+        public int read() throws IOException {
+            final InputStream stream = getStream();
+            if (stream == message) {
+                return message.read();
+            }
+            final long start = System.nanoTime();
+            final int res = stream.read();
+            provider.decompressed(System.nanoTime() - start);
+            if (res != -1 && -- remaining < 0) {
+                safeClose(stream);
+                throw new IOException("Maximum inbound message size exceeded after decompression");
+            }
+            return res;
+        }
+
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final InputStream stream = getStream();
+            if (stream == message) {
+                return message.read(b, off, len);
+            }
+            final long start = System.nanoTime();
+            final int res = stream.read(b, off, len);
+            provider.decompressed(System.nanoTime() - start);
+            if (res > 0 && (remaining -= res) < 0) {
+                // the inflated data exceeds the message size limit
+                safeClose(stream);
+                throw new IOException("Maximum inbound message size exceeded after decompression");
+            }
+            return res;
+        }
+
+        public int available() throws IOException {
+            final InputStream stream = this.stream;
+            return stream == null ? 0 : stream.available();
+        }
+
+        public void close() throws IOException {
+            final InputStream stream = this.stream;
+            if (stream == null) {
+                message.close();
+            } else {
+                stream.close();
+            }
+        }
+    }
+}
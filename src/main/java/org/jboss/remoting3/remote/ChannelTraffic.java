@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+/**
+ * A snapshot of the traffic of one channel of a connection.  The byte and frame counts are those of message data; the
+ * message counts are those of completely sent and received messages.
+ */
+public final class ChannelTraffic {
+    private final int channelId;
+    private final int outboundMessageCount;
+    private final long bytesReceived;
+    private final long bytesSent;
+    private final long framesReceived;
+    private final long framesSent;
+    private final long messagesReceived;
+    private final long messagesSent;
+    private final long windowStallCount;
+
+    ChannelTraffic(final int channelId, final int outboundMessageCount, final TrafficCounters counters) {
+        this.channelId = channelId;
+        this.outboundMessageCount = outboundMessageCount;
+        bytesReceived = counters.getBytesReceived();
+        bytesSent = counters.getBytesSent();
+        framesReceived = counters.getFramesReceived();
+        framesSent = counters.getFramesSent();
+        messagesReceived = counters.getMessagesReceived();
+        messagesSent = counters.getMessagesSent();
+        windowStallCount = counters.getWindowStallCount();
+    }
+
+    public int getChannelId() {
+        return channelId;
+    }
+
+    public int getOutboundMessageCount() {
+        return outboundMessageCount;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getFramesReceived() {
+        return framesReceived;
+    }
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    public long getMessagesReceived() {
+        return messagesReceived;
+    }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getWindowStallCount() {
+        return windowStallCount;
+    }
+}
@@ -39,6 +39,7 @@ import org.jboss.remoting3.RemotingOptions;
 import org.jboss.remoting3.Version;
 import org.jboss.remoting3.spi.ConnectionHandlerFactory;
 import org.jboss.remoting3.spi.ConnectionProviderContext;
+import org.jboss.remoting3.spi.LatencyListener;
 import org.wildfly.security.auth.client.AuthenticationConfiguration;
 import org.wildfly.security.auth.client.AuthenticationContextConfigurationClient;
 import org.wildfly.security.auth.principal.AnonymousPrincipal;
@@ -48,8 +49,8 @@ import org.xnio.Buffers;
 import org.xnio.ChannelListener;
 import org.xnio.OptionMap;
 import org.xnio.Options;
-import org.xnio.Pooled;
 import org.xnio.Sequence;
+import org.xnio.channels.Channels;
 import org.xnio.channels.SslChannel;
 import org.xnio.conduits.ConduitStreamSourceChannel;
 import org.xnio.sasl.SaslWrapper;
@@ -78,9 +79,10 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
     private final Map<String, Throwable> failedMechs = new LinkedHashMap<>();
     private final Set<String> allowedMechs;
     private final Set<String> disallowedMechs;
+    private final long startTime;
     static final AuthenticationContextConfigurationClient AUTH_CONFIGURATION_CLIENT = doPrivileged(AuthenticationContextConfigurationClient.ACTION);
 
-    ClientConnectionOpenListener(final URI uri, final RemoteConnection connection, final ConnectionProviderContext connectionProviderContext, final AuthenticationConfiguration configuration, final UnaryOperator<SaslClientFactory> saslClientFactoryOperator, final Collection<String> serverMechs, final OptionMap optionMap) {
+    ClientConnectionOpenListener(final URI uri, final RemoteConnection connection, final ConnectionProviderContext connectionProviderContext, final AuthenticationConfiguration configuration, final UnaryOperator<SaslClientFactory> saslClientFactoryOperator, final Collection<String> serverMechs, final OptionMap optionMap, final long startTime) {
         this.uri = uri;
         this.connection = connection;
         this.connectionProviderContext = connectionProviderContext;
@@ -88,6 +90,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
         this.saslClientFactoryOperator = saslClientFactoryOperator;
         this.serverMechs = serverMechs;
         this.optionMap = optionMap;
+        this.startTime = startTime;
         final Sequence<String> allowedMechs = optionMap.get(Options.SASL_MECHANISMS);
         final Sequence<String> disallowedMechs = optionMap.get(Options.SASL_DISALLOWED_MECHANISMS);
         this.allowedMechs = allowedMechs == null ? null : new HashSet<String>(allowedMechs);
@@ -95,7 +98,59 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
     }
 
     public void handleEvent(final ConduitStreamSourceChannel channel) {
-        connection.setReadListener(new Greeting(), true);
+        final HandshakeCache.Hint hint = canPipeline() ? connection.getRemoteConnectionProvider().getHandshakeCache().get(uri, configuration) : null;
+        if (hint == null) {
+            connection.setReadListener(new Greeting(false, null), true);
+            return;
+        }
+        // the server accepted a pipelined handshake before, so do not wait for its greeting
+        client.tracef("Client pipelining handshake with %s", uri);
+        final PipelinedAuthentication pipelinedAuthentication = createPipelinedAuthentication(hint);
+        sendCapRequest(new Greeting(true, pipelinedAuthentication));
+        if (pipelinedAuthentication != null) {
+            connection.getExecutor().execute(pipelinedAuthentication);
+        }
+    }
+
+    private boolean canPipeline() {
+        if (! optionMap.get(RemotingOptions.HANDSHAKE_PIPELINING, RemotingOptions.DEFAULT_HANDSHAKE_PIPELINING)) {
+            return false;
+        }
+        // a STARTTLS exchange must complete before anything else is sent
+        return ! (connection.getConnection() instanceof SslConnection) || ! optionMap.get(Options.SSL_STARTTLS, true) || isSecure();
+    }
+
+    private boolean isSecure() {
+        final SslChannel sslChannel = connection.getSslChannel();
+        return sslChannel != null && Channels.getOption(sslChannel, Options.SECURE, false);
+    }
+
+    private PipelinedAuthentication createPipelinedAuthentication(final HandshakeCache.Hint hint) {
+        final String mechanismName = hint.getMechanismName();
+        if (isSecure() || disallowedMechs.contains(mechanismName) || allowedMechs != null && ! allowedMechs.contains(mechanismName)) {
+            // the mechanism may depend on a TLS session which is not yet established, or is no longer allowed
+            return null;
+        }
+        final String serverName = hint.getServerName();
+        UnaryOperator<SaslClientFactory> factoryOperator = factory -> new ServerNameSaslClientFactory(factory, serverName);
+        factoryOperator = and(saslClientFactoryOperator, factoryOperator);
+        final SaslClient saslClient;
+        try {
+            saslClient = AUTH_CONFIGURATION_CLIENT.createSaslClient(uri, configuration, Collections.singleton(mechanismName), factoryOperator, null);
+        } catch (Throwable e) {
+            client.tracef("Client cannot pipeline authentication using mechanism %s: %s", mechanismName, e);
+            return null;
+        }
+        return saslClient == null ? null : new PipelinedAuthentication(saslClient, serverName);
+    }
+
+    void rememberHandshake(final String serverName, final String mechanismName, final boolean pipeline) {
+        final HandshakeCache handshakeCache = connection.getRemoteConnectionProvider().getHandshakeCache();
+        if (pipeline) {
+            handshakeCache.put(uri, configuration, serverName, mechanismName);
+        } else {
+            handshakeCache.remove(uri, configuration);
+        }
     }
 
     SaslException allMechanismsFailed() {
@@ -114,9 +169,13 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
     }
 
     void sendCapRequest(final String remoteServerName) {
+        sendCapRequest(new Capabilities(remoteServerName, uri, null));
+    }
+
+    void sendCapRequest(final ChannelListener<ConduitStreamSourceChannel> nextListener) {
         client.trace("Client sending capabilities request");
         // Prepare the request message body
-        final Pooled<ByteBuffer> pooledSendBuffer = connection.allocate();
+        final Frame pooledSendBuffer = connection.allocate();
         boolean ok = false;
         try {
             final ByteBuffer sendBuffer = pooledSendBuffer.getResource();
@@ -133,6 +192,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
             ProtocolUtils.writeInt(sendBuffer, Protocol.CAP_CHANNELS_IN, maxInboundChannels);
             ProtocolUtils.writeInt(sendBuffer, Protocol.CAP_CHANNELS_OUT, maxOutboundChannels);
             ProtocolUtils.writeEmpty(sendBuffer, Protocol.CAP_AUTHENTICATION);
+            ProtocolUtils.writeEmpty(sendBuffer, Protocol.CAP_BUNDLE);
             final Collection<String> serverMechs = this.serverMechs;
             if (serverMechs != null) {
                 for (String name : serverMechs) {
@@ -140,7 +200,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                 }
             }
             sendBuffer.flip();
-            connection.setReadListener(new Capabilities(remoteServerName, uri, maxInboundChannels, maxOutboundChannels), true);
+            connection.setReadListener(nextListener, true);
             connection.send(pooledSendBuffer);
             ok = true;
             // all set
@@ -152,6 +212,53 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
         }
     }
 
+    void sendAuthRequest(final int version, final String mechanismName, final byte[] response, final Authentication authentication) {
+        // Prepare the request message body
+        final Frame pooledSendBuffer = connection.allocate();
+        boolean ok = false;
+        try {
+            final ByteBuffer sendBuffer = pooledSendBuffer.getResource();
+            sendBuffer.put(Protocol.AUTH_REQUEST);
+            if (version < 1) {
+                sendBuffer.put(mechanismName.getBytes(StandardCharsets.UTF_8));
+            } else {
+                ProtocolUtils.writeString(sendBuffer, mechanismName);
+                if (response != null) {
+                    // REM3-370: if message does not fit the buffer
+                    if (sendBuffer.remaining() < response.length) {
+                        final ByteBuffer newSendBuffer = ByteBuffer.allocate(sendBuffer.position() + response.length);
+                        sendBuffer.flip();
+                        newSendBuffer.put(sendBuffer);
+                        pooledSendBuffer.free(); // free sendBuffer to prevent a leak
+                        newSendBuffer.put(response);
+                        newSendBuffer.flip();
+                        if (authentication != null) {
+                            connection.setReadListener(authentication, true);
+                        }
+                        // new send buffer is not actually a pooled buffer, so wrap it in an unpooled frame
+                        // and leave it for garbage collection after being sent
+                        connection.send(Frame.wrap(connection, newSendBuffer, false));
+                        ok = true;
+                        return;
+                    } else {
+                        // else: just write the message in the buffer as usual
+                        sendBuffer.put(response);
+                    }
+                }
+            }
+
+            sendBuffer.flip();
+            if (authentication != null) {
+                connection.setReadListener(authentication, true);
+            }
+            connection.send(pooledSendBuffer);
+            ok = true;
+            return;
+        } finally {
+            if (! ok) pooledSendBuffer.free();
+        }
+    }
+
     private void saslDispose(final SaslClient saslClient) {
         if (saslClient != null) {
             try {
@@ -164,8 +271,16 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
 
     final class Greeting implements ChannelListener<ConduitStreamSourceChannel> {
 
+        private final boolean capabilitiesSent;
+        private final PipelinedAuthentication pipelinedAuthentication;
+
+        Greeting(final boolean capabilitiesSent, final PipelinedAuthentication pipelinedAuthentication) {
+            this.capabilitiesSent = capabilitiesSent;
+            this.pipelinedAuthentication = pipelinedAuthentication;
+        }
+
         public void handleEvent(final ConduitStreamSourceChannel channel) {
-            final Pooled<ByteBuffer> message;
+            final Frame message;
             try {
                 message = connection.getMessageReader().getMessage();
             } catch (IOException e) {
@@ -222,7 +337,16 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                             // they didn't give their name; guess it from the IP
                             remoteServerName = InetUtils.determineServerName(connection.getPeerAddress().getHostName());
                         }
-                        sendCapRequest(remoteServerName);
+                        if (capabilitiesSent) {
+                            if (pipelinedAuthentication != null && ! remoteServerName.equals(pipelinedAuthentication.serverName)) {
+                                // the pipelined request will likely be rejected, after which the handshake is retried in full
+                                client.tracef("Client pipelined authentication for server name %s, but server is %s", pipelinedAuthentication.serverName, remoteServerName);
+                                rememberHandshake(null, null, false);
+                            }
+                            connection.setReadListener(new Capabilities(remoteServerName, uri, pipelinedAuthentication), true);
+                        } else {
+                            sendCapRequest(remoteServerName);
+                        }
                         return;
                     }
                     default: {
@@ -245,18 +369,18 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
 
         private final String remoteServerName;
         private final URI uri;
-        private int maxInboundChannels;
-        private int maxOutboundChannels;
+        private final PipelinedAuthentication pipelinedAuthentication;
+        private int maxInboundChannels = optionMap.get(RemotingOptions.MAX_INBOUND_CHANNELS, RemotingOptions.DEFAULT_MAX_INBOUND_CHANNELS);
+        private int maxOutboundChannels = optionMap.get(RemotingOptions.MAX_OUTBOUND_CHANNELS, RemotingOptions.DEFAULT_MAX_OUTBOUND_CHANNELS);
 
-        Capabilities(final String remoteServerName, final URI uri, final int maxInboundChannels, final int maxOutboundChannels) {
+        Capabilities(final String remoteServerName, final URI uri, final PipelinedAuthentication pipelinedAuthentication) {
             this.remoteServerName = remoteServerName;
             this.uri = uri;
-            this.maxInboundChannels = maxInboundChannels;
-            this.maxOutboundChannels = maxOutboundChannels;
+            this.pipelinedAuthentication = pipelinedAuthentication;
         }
 
         public void handleEvent(final ConduitStreamSourceChannel channel) {
-            final Pooled<ByteBuffer> message;
+            final Frame message;
             try {
                 message = connection.getMessageReader().getMessage();
             } catch (IOException e) {
@@ -301,6 +425,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                         int version = Protocol.VERSION;
                         int behavior = Protocol.BH_FAULTY_MSG_SIZE;
                         boolean authCap = false;
+                        boolean pipeline = false;
                         while (receiveBuffer.hasRemaining()) {
                             final byte type = receiveBuffer.get();
                             final int len = receiveBuffer.get() & 0xff;
@@ -309,6 +434,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                                 case Protocol.CAP_VERSION: {
                                     version = data.get() & 0xff;
                                     client.tracef("Client received capability: version %d", Integer.valueOf(version & 0xff));
+                                    connection.setProtocolVersion(version);
                                     break;
                                 }
                                 case Protocol.CAP_SASL_MECH: {
@@ -365,6 +491,16 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                                     client.trace("Client received capability: authentication service");
                                     break;
                                 }
+                                case Protocol.CAP_PIPELINE: {
+                                    pipeline = true;
+                                    client.trace("Client received capability: pipelined handshake");
+                                    break;
+                                }
+                                case Protocol.CAP_BUNDLE: {
+                                    connection.setBundleFrames(true);
+                                    client.trace("Client received capability: frame bundling");
+                                    break;
+                                }
                                 default: {
                                     client.tracef("Client received unknown capability %02x", Integer.valueOf(type & 0xff));
                                     // unknown, skip it for forward compatibility.
@@ -376,7 +512,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                             // only initiate starttls if not forbidden by config and possible on the connection
                             if (optionMap.get(Options.SSL_STARTTLS, true) && connection.getConnection() instanceof SslConnection) {
                                 // Prepare the request message body
-                                final Pooled<ByteBuffer> pooledSendBuffer = connection.allocate();
+                                final Frame pooledSendBuffer = connection.allocate();
                                 boolean ok = false;
                                 try {
                                     final ByteBuffer sendBuffer = pooledSendBuffer.getResource();
@@ -393,6 +529,12 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                             }
                         }
 
+                        if (pipelinedAuthentication != null) {
+                            // our authentication request is already on its way
+                            pipelinedAuthentication.proceed(new Authentication(pipelinedAuthentication.saslClient, remoteServerName, remoteEndpointName, behavior, maxInboundChannels, maxOutboundChannels, authCap, offeredMechs, pipeline, true));
+                            return;
+                        }
+
                         if (serverSaslMechs.isEmpty()) {
                             if (failedMechs.isEmpty()) {
                                 connection.handleException(new SaslException("Authentication failed: the server presented no authentication mechanisms"));
@@ -452,7 +594,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                         connection.getMessageReader().suspendReads();
                         final int negotiatedVersion = version;
                         final SaslClient usedSaslClient = saslClient;
-                        final Authentication authentication = new Authentication(usedSaslClient, remoteServerName, remoteEndpointName, behavior, maxInboundChannels, maxOutboundChannels, authCap, offeredMechs);
+                        final Authentication authentication = new Authentication(usedSaslClient, remoteServerName, remoteEndpointName, behavior, maxInboundChannels, maxOutboundChannels, authCap, offeredMechs, pipeline, false);
                         connection.getExecutor().execute(() -> {
                             final byte[] response;
                             try {
@@ -464,54 +606,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                                 sendCapRequest(remoteServerName);
                                 return;
                             }
-                            // Prepare the request message body
-                            final Pooled<ByteBuffer> pooledSendBuffer = connection.allocate();
-                            boolean ok = false;
-                            try {
-                                final ByteBuffer sendBuffer = pooledSendBuffer.getResource();
-                                sendBuffer.put(Protocol.AUTH_REQUEST);
-                                if (negotiatedVersion < 1) {
-                                    sendBuffer.put(mechanismName.getBytes(StandardCharsets.UTF_8));
-                                } else {
-                                    ProtocolUtils.writeString(sendBuffer, mechanismName);
-                                    if (response != null) {
-                                        // REM3-370: if message does not fit the buffer
-                                        if (sendBuffer.remaining() < response.length) {
-                                            final ByteBuffer newSendBuffer = ByteBuffer.allocate(sendBuffer.position() + response.length);
-                                            sendBuffer.flip();
-                                            newSendBuffer.put(sendBuffer);
-                                            pooledSendBuffer.free(); // free sendBuffer to prevent a leak
-                                            newSendBuffer.put(response);
-                                            newSendBuffer.flip();
-                                            connection.setReadListener(authentication, true);
-                                            // new send buffer is not actually a pooled buffer, mock up a pooled buffer
-                                            // and leave it for garbage collection after being sent
-                                            connection.send(new Pooled<ByteBuffer>() {
-                                                public void discard() {}
-                                                public void free(){}
-                                                public void close() {}
-
-                                                public ByteBuffer getResource() throws IllegalStateException {
-                                                    return newSendBuffer;
-                                                }
-                                            });
-                                            ok = true;
-                                            return;
-                                        } else {
-                                            // else: just write the message in the buffer as usual
-                                            sendBuffer.put(response);
-                                        }
-                                    }
-                                }
-
-                                sendBuffer.flip();
-                                connection.setReadListener(authentication, true);
-                                connection.send(pooledSendBuffer);
-                                ok = true;
-                                return;
-                            } finally {
-                                if (! ok) pooledSendBuffer.free();
-                            }
+                            sendAuthRequest(negotiatedVersion, mechanismName, response, authentication);
                         });
                         return;
                     }
@@ -539,7 +634,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
         }
 
         public void handleEvent(final ConduitStreamSourceChannel channel) {
-            final Pooled<ByteBuffer> message;
+            final Frame message;
             try {
                 message = connection.getMessageReader().getMessage();
             } catch (IOException e) {
@@ -599,6 +694,72 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
         }
     }
 
+    /**
+     * An authentication request sent together with the capabilities request, using the mechanism and server name of the
+     * previous handshake with the destination.  It proceeds once both the request has been sent and the capabilities
+     * of the server have been received, or falls back to a full handshake if the request could not be sent.
+     */
+    final class PipelinedAuthentication implements Runnable {
+        private static final int PENDING = 0;
+        private static final int SENT = 1;
+        private static final int FAILED = 2;
+
+        final SaslClient saslClient;
+        final String serverName;
+        private int state = PENDING;
+        private Authentication authentication;
+
+        PipelinedAuthentication(final SaslClient saslClient, final String serverName) {
+            this.saslClient = saslClient;
+            this.serverName = serverName;
+        }
+
+        public void run() {
+            final String mechanismName = saslClient.getMechanismName();
+            boolean sent = false;
+            try {
+                final byte[] response = saslClient.hasInitialResponse() ? saslClient.evaluateChallenge(EMPTY_BYTES) : null;
+                client.tracef("Client sending pipelined authentication request using mechanism %s", mechanismName);
+                sendAuthRequest(Protocol.VERSION, mechanismName, response, null);
+                sent = true;
+            } catch (Throwable e) {
+                client.tracef("Client pipelined authentication failed: %s", e);
+            }
+            final Authentication authentication;
+            synchronized (this) {
+                state = sent ? SENT : FAILED;
+                authentication = this.authentication;
+            }
+            if (authentication != null) {
+                proceed(authentication, sent);
+            }
+        }
+
+        void proceed(final Authentication authentication) {
+            final boolean sent;
+            synchronized (this) {
+                if (state == PENDING) {
+                    // wait for the request to be sent before reading the outcome
+                    connection.getMessageReader().suspendReads();
+                    this.authentication = authentication;
+                    return;
+                }
+                sent = state == SENT;
+            }
+            proceed(authentication, sent);
+        }
+
+        private void proceed(final Authentication authentication, final boolean sent) {
+            if (sent) {
+                connection.setReadListener(authentication, true);
+            } else {
+                saslDispose(saslClient);
+                rememberHandshake(null, null, false);
+                sendCapRequest(authentication.serverName);
+            }
+        }
+    }
+
     final class Authentication implements ChannelListener<ConduitStreamSourceChannel> {
 
         private final SaslClient saslClient;
@@ -609,8 +770,10 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
         private final int maxOutboundChannels;
         private final boolean authCap;
         private final Set<String> offeredMechanisms;
+        private final boolean pipeline;
+        private final boolean pipelined;
 
-        Authentication(final SaslClient saslClient, final String serverName, final String endpointName, final int behavior, final int maxInboundChannels, final int maxOutboundChannels, final boolean authCap, final Set<String> offeredMechanisms) {
+        Authentication(final SaslClient saslClient, final String serverName, final String endpointName, final int behavior, final int maxInboundChannels, final int maxOutboundChannels, final boolean authCap, final Set<String> offeredMechanisms, final boolean pipeline, final boolean pipelined) {
             this.saslClient = saslClient;
             this.serverName = serverName;
             this.behavior = behavior;
@@ -619,10 +782,22 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
             this.maxOutboundChannels = maxOutboundChannels;
             this.authCap = authCap;
             this.offeredMechanisms = offeredMechanisms;
+            this.pipeline = pipeline;
+            this.pipelined = pipelined;
+        }
+
+        void mechanismFailed(final String mechanismName, final Throwable cause) {
+            if (pipelined) {
+                // the server may have changed since its handshake was remembered; retry with a full handshake
+                client.debugf("Client pipelined authentication failed for mechanism %s: %s", mechanismName, cause);
+                rememberHandshake(null, null, false);
+            } else {
+                failedMechs.put(mechanismName, cause);
+            }
         }
 
         public void handleEvent(final ConduitStreamSourceChannel channel) {
-            final Pooled<ByteBuffer> message;
+            final Frame message;
             final MessageReader messageReader = connection.getMessageReader();
             try {
                 message = messageReader.getMessage();
@@ -675,13 +850,13 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                                 } catch (Throwable e) {
                                     final String mechanismName = saslClient.getMechanismName();
                                     client.debugf("Client authentication failed for mechanism %s: %s", mechanismName, e);
-                                    failedMechs.put(mechanismName, e);
+                                    mechanismFailed(mechanismName, e);
                                     saslDispose(saslClient);
                                     sendCapRequest(serverName);
                                     return;
                                 }
                                 client.trace("Client sending authentication response");
-                                final Pooled<ByteBuffer> pooled = connection.allocate();
+                                final Frame pooled = connection.allocate();
                                 boolean ok = false;
                                 try {
                                     final ByteBuffer sendBuffer = pooled.getResource();
@@ -724,7 +899,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                                 } catch (Throwable e) {
                                     final String mechanismName = saslClient.getMechanismName();
                                     client.debugf("Client authentication failed for mechanism %s: %s", mechanismName, e);
-                                    failedMechs.put(mechanismName, e);
+                                    mechanismFailed(mechanismName, e);
                                     saslDispose(saslClient);
                                     sendCapRequest(serverName);
                                     return;
@@ -734,6 +909,11 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                                     connection.setSaslWrapper(SaslWrapper.create(saslClient));
                                 }
                                 final Object principalObj = saslClient.getNegotiatedProperty(WildFlySasl.PRINCIPAL);
+                                rememberHandshake(serverName, saslClient.getMechanismName(), pipeline);
+                                final LatencyMetrics latency = connection.getRemoteConnectionProvider().getLatency();
+                                if (latency != null) {
+                                    latency.recordSince(LatencyListener.Interval.CONNECT, startTime);
+                                }
                                 // auth complete.
                                 final ConnectionHandlerFactory connectionHandlerFactory = connectionContext -> {
 
@@ -742,6 +922,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                                     final RemoteConnectionHandler connectionHandler = new RemoteConnectionHandler(connectionContext, connection, maxInboundChannels, maxOutboundChannels, principalObj instanceof Principal ? (Principal) principalObj : AnonymousPrincipal.getInstance(), remoteEndpointName, behavior, authCap, offeredMechanisms, serverName, hostName);
                                     connection.setReadListener(new RemoteReadListener(connectionHandler, connection), false);
                                     connection.getRemoteConnectionProvider().addConnectionHandler(connectionHandler);
+                                    connection.authenticationComplete();
                                     return connectionHandler;
                                 };
                                 connection.getResult().setResult(connectionHandlerFactory);
@@ -757,7 +938,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                     case Protocol.AUTH_REJECTED: {
                         final String mechanismName = saslClient.getMechanismName();
                         client.debugf("Client received authentication rejected for mechanism %s", mechanismName);
-                        failedMechs.put(mechanismName, new SaslException(mechanismName + ": Server rejected authentication"));
+                        mechanismFailed(mechanismName, new SaslException(mechanismName + ": Server rejected authentication"));
                         saslDispose(saslClient);
                         sendCapRequest(serverName);
                         return;
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.remoting3.remote;
+
+import static org.jboss.remoting3._private.Messages.log;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.jboss.remoting3.spi.CompressionCodecFactory;
+import org.xnio.Sequence;
+
+/**
+ * The registry of the message compression codecs which are available for channels.
+ */
+final class CompressionCodecs {
+    private static final Map<String, CompressionCodecFactory> FACTORIES;
+
+    static {
+        final LinkedHashMap<String, CompressionCodecFactory> factories = new LinkedHashMap<>();
+        factories.put(DeflateCompressionCodec.NAME, DeflateCompressionCodec.FACTORY);
+        final Iterator<CompressionCodecFactory> iterator = ServiceLoader.load(CompressionCodecFactory.class, CompressionCodecs.class.getClassLoader()).iterator();
+        for (;;) try {
+            if (! iterator.hasNext()) break;
+            final CompressionCodecFactory factory = iterator.next();
+            factories.putIfAbsent(factory.getName(), factory);
+        } catch (ServiceConfigurationError e) {
+            log.trace("Failed to load a compression codec", e);
+        }
+        FACTORIES = factories;
+    }
+
+    private CompressionCodecs() {
+    }
+
+    static CompressionCodecFactory getFactory(final String name) {
+        return FACTORIES.get(name);
+    }
+
+    /**
+     * Get the list of codecs to offer to the peer.
+     *
+     * @param configured the configured codec names in order of preference, or {@code null} for none
+     * @return the comma-separated names of the configured codecs which are available, or {@code null} if there are none
+     */
+    static String getOffer(final Sequence<String> configured) {
+        if (configured == null) {
+            return null;
+        }
+        final StringBuilder b = new StringBuilder();
+        for (String name : configured) {
+            if (FACTORIES.containsKey(name) && b.length() + name.length() < 255) {
+                if (b.length() > 0) b.append(',');
+                b.append(name);
+            }
+        }
+        return b.length() == 0 ? null : b.toString();
+    }
+
+    /**
+     * Select the codec for a channel.
+     *
+     * @param offer the comma-separated codec names offered by the peer in order of preference, or {@code null} for none
+     * @param configured the configured codec names, or {@code null} for none
+     * @return the name of the first offered codec which is also configured and available, or {@code null} if there is none
+     */
+    static String select(final String offer, final Sequence<String> configured) {
+        if (offer == null || configured == null) {
+            return null;
+        }
+        for (String name : offer.split(",")) {
+            if (configured.contains(name) && FACTORIES.containsKey(name)) {
+                return name;
+            }
+        }
+        return null;
+    }
+}
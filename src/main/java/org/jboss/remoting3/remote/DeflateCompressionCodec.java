@@ -0,0 +1,161 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.remoting3.remote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.jboss.remoting3.spi.CompressionCodec;
+import org.jboss.remoting3.spi.CompressionCodecFactory;
+
+/**
+ * The built-in {@code deflate} compression codec.  Each channel keeps the deflaters and inflaters of its finished
+ * messages for reuse by its later messages, which saves allocating their native state and buffers per message.  The
+ * native state is released when the channel closes.
+ */
+final class DeflateCompressionCodec implements CompressionCodec {
+    static final String NAME = "deflate";
+
+    static final CompressionCodecFactory FACTORY = new CompressionCodecFactory() {
+        public String getName() {
+            return NAME;
+        }
+
+        public CompressionCodec createCodec() {
+            return new DeflateCompressionCodec();
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED = 8;
+
+    private final ArrayDeque<Deflater> deflaters = new ArrayDeque<>();
+    private final ArrayDeque<Inflater> inflaters = new ArrayDeque<>();
+    private volatile boolean closed;
+
+    public OutputStream compress(final OutputStream target) throws IOException {
+        final Deflater deflater = getDeflater();
+        // sync flush, so that flushing the message sends everything written so far
+        return new DeflaterOutputStream(target, deflater, BUFFER_SIZE, true) {
+            private boolean closed;
+
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    release(deflater);
+                }
+            }
+        };
+    }
+
+    public InputStream decompress(final InputStream source) throws IOException {
+        final Inflater inflater = getInflater();
+        return new InflaterInputStream(source, inflater, BUFFER_SIZE) {
+            private boolean closed;
+
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    release(inflater);
+                }
+            }
+        };
+    }
+
+    private Deflater getDeflater() {
+        synchronized (deflaters) {
+            final Deflater deflater = deflaters.poll();
+            if (deflater != null) {
+                return deflater;
+            }
+        }
+        return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    private void release(final Deflater deflater) {
+        deflater.reset();
+        synchronized (deflaters) {
+            if (! closed && deflaters.size() < MAX_POOLED) {
+                deflaters.add(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    private Inflater getInflater() {
+        synchronized (inflaters) {
+            final Inflater inflater = inflaters.poll();
+            if (inflater != null) {
+                return inflater;
+            }
+        }
+        return new Inflater(true);
+    }
+
+    private void release(final Inflater inflater) {
+        inflater.reset();
+        synchronized (inflaters) {
+            if (! closed && inflaters.size() < MAX_POOLED) {
+                inflaters.add(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    public void close() {
+        closed = true;
+        synchronized (deflaters) {
+            Deflater deflater;
+            while ((deflater = deflaters.poll()) != null) {
+                deflater.end();
+            }
+        }
+        synchronized (inflaters) {
+            Inflater inflater;
+            while ((inflater = inflaters.poll()) != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    int getPooledCount() {
+        synchronized (deflaters) {
+            synchronized (inflaters) {
+                return deflaters.size() + inflaters.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,513 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.jboss.remoting3._private.Messages.log;
+
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jboss.remoting3.Attachments;
+import org.jboss.remoting3.Endpoint;
+import org.jboss.remoting3.RemotingOptions;
+import org.xnio.ByteBufferPool;
+import org.xnio.OptionMap;
+import org.xnio.XnioIoThread;
+
+/**
+ * The pool of direct frame buffers shared by all the remote connections of an endpoint.  The total amount of direct
+ * memory held by the pool (whether in use or cached) is limited by {@link RemotingOptions#MAX_DIRECT_BUFFER_MEMORY}.
+ * When the limit is reached, readers are suspended until memory is released, and writers park for a bounded time
+ * before falling back to heap buffers.
+ * <p>
+ * Released buffers are cached per I/O thread and in a shared cache.  Buffers in a thread cache count against the limit
+ * but can only be reused by their thread, so whenever a reader or writer has to wait for memory, the thread caches are
+ * flushed to the shared cache by their owning threads.  When the endpoint closes, the caches are emptied.
+ */
+final class EndpointBufferPool {
+    static final int BUFFER_SIZE = ByteBufferPool.MEDIUM_SIZE;
+
+    private static final Attachments.Key<EndpointBufferPool> KEY = new Attachments.Key<>(EndpointBufferPool.class);
+
+    private static final long DEFAULT_MAX_DIRECT_MEMORY;
+    private static final boolean USE_CACHING;
+
+    static {
+        long maxDirectMemory = RemotingOptions.DEFAULT_MAX_DIRECT_BUFFER_MEMORY;
+        try {
+            maxDirectMemory = Long.parseLong(System.getProperty("jboss.remoting.max-direct-buffer-memory", Long.toString(maxDirectMemory)));
+        } catch (Throwable ignored) {}
+        DEFAULT_MAX_DIRECT_MEMORY = maxDirectMemory;
+        USE_CACHING = RemoteConnectionProvider.USE_POOLING;
+    }
+
+    private static final int THREAD_CACHE_SIZE = 16;
+    private static final int SHARED_CACHE_SIZE = 256;
+    private static final long MAX_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long maxDirectMemory;
+    private final AtomicLong directMemory = new AtomicLong();
+    private final ThreadLocal<ThreadCache> threadCache = new ThreadLocal<>();
+    private final ConcurrentLinkedQueue<ThreadCache> threadCaches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger threadCachedCount = new AtomicInteger();
+    private final ConcurrentLinkedQueue<ByteBuffer> sharedCache = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger sharedCacheSize = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Runnable> memoryWaiters = new ConcurrentLinkedQueue<>();
+    private final Object parkLock = new Object();
+    private volatile int parkedWriters;
+    private volatile boolean closed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder parks = new LongAdder();
+    private final LongAdder suspendedReads = new LongAdder();
+
+    EndpointBufferPool(final long maxDirectMemory) {
+        this.maxDirectMemory = maxDirectMemory;
+    }
+
+    /**
+     * Get the buffer pool of the given endpoint, creating it if necessary.
+     *
+     * @param endpoint the endpoint
+     * @param optionMap the option map of the connection provider which is requesting the pool
+     * @return the endpoint's buffer pool
+     */
+    static EndpointBufferPool forEndpoint(final Endpoint endpoint, final OptionMap optionMap) {
+        final Attachments attachments = endpoint.getAttachments();
+        EndpointBufferPool pool = attachments.getAttachment(KEY);
+        if (pool == null) {
+            final EndpointBufferPool newPool = new EndpointBufferPool(optionMap.get(RemotingOptions.MAX_DIRECT_BUFFER_MEMORY, DEFAULT_MAX_DIRECT_MEMORY));
+            pool = attachments.attachIfAbsent(KEY, newPool);
+            if (pool == null) {
+                pool = newPool;
+                newPool.registerMBean(endpoint);
+                endpoint.addCloseHandler((closed, exception) -> newPool.close());
+            }
+        }
+        return pool;
+    }
+
+    private void registerMBean(final Endpoint endpoint) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final String endpointName = endpoint.getName();
+            final String name = endpointName == null ? "Remoting (anonymous)" : "Remoting-" + endpointName;
+            final ObjectName objectName = new ObjectName("jboss.remoting.buffer-pool", "name", name + "-" + hashCode());
+            server.registerMBean(new EndpointBufferPoolMXBean() {
+                public long getMaxDirectMemory() {
+                    return maxDirectMemory;
+                }
+
+                public long getDirectMemoryUsed() {
+                    return EndpointBufferPool.this.getDirectMemoryUsed();
+                }
+
+                public int getBufferSize() {
+                    return BUFFER_SIZE;
+                }
+
+                public long getHitCount() {
+                    return EndpointBufferPool.this.getHitCount();
+                }
+
+                public long getMissCount() {
+                    return EndpointBufferPool.this.getMissCount();
+                }
+
+                public long getExhaustedCount() {
+                    return EndpointBufferPool.this.getExhaustedCount();
+                }
+
+                public long getParkedWriterCount() {
+                    return parks.sum();
+                }
+
+                public long getSuspendedReadCount() {
+                    return suspendedReads.sum();
+                }
+            }, objectName);
+            endpoint.addCloseHandler((closed, exception) -> {
+                try {
+                    server.unregisterMBean(objectName);
+                } catch (Throwable ignored) {
+                }
+            });
+        } catch (Exception e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Allocate a buffer without waiting.  If the direct memory limit is reached, a heap buffer is returned instead.
+     *
+     * @return the buffer (not {@code null})
+     */
+    ByteBuffer allocate() {
+        final ByteBuffer buffer = allocateDirect();
+        return buffer == null ? ByteBufferPool.MEDIUM_HEAP.allocate() : buffer;
+    }
+
+    /**
+     * Allocate a direct buffer if the memory limit allows it.
+     *
+     * @return the buffer, or {@code null} if the pool is exhausted
+     */
+    ByteBuffer allocateDirect() {
+        ByteBuffer buffer = pollCache();
+        if (buffer != null) {
+            hits.increment();
+            return buffer;
+        }
+        misses.increment();
+        long used;
+        do {
+            used = directMemory.get();
+            if (used > maxDirectMemory - BUFFER_SIZE) {
+                exhausted.increment();
+                return null;
+            }
+        } while (! directMemory.compareAndSet(used, used + BUFFER_SIZE));
+        return ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Allocate a direct buffer of the given size for a jumbo frame if the memory limit allows it.  Such buffers are
+     * released rather than cached when they are freed.
+     *
+     * @param size the buffer size
+     * @return the buffer, or {@code null} if the pool is exhausted
+     */
+    ByteBuffer allocateLarge(final int size) {
+        long used;
+        do {
+            used = directMemory.get();
+            if (used > maxDirectMemory - size) {
+                exhausted.increment();
+                return null;
+            }
+        } while (! directMemory.compareAndSet(used, used + size));
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    /**
+     * Fill the given array with direct buffers, starting at the given offset, for as long as the memory limit allows.
+     *
+     * @param array the array to fill
+     * @param offset the first array index to fill
+     * @return the number of buffers allocated
+     */
+    int allocateDirect(final ByteBuffer[] array, final int offset) {
+        int i = offset;
+        ByteBuffer buffer;
+        while (i < array.length && (buffer = allocateDirect()) != null) {
+            array[i ++] = buffer;
+        }
+        return i - offset;
+    }
+
+    /**
+     * Allocate a buffer for an outbound frame.  If the direct memory limit is reached and the caller is not an I/O
+     * thread, the caller parks until a buffer is released; if none is released in time, or if the caller is an I/O
+     * thread (which may never block), a heap buffer is returned instead.
+     *
+     * @return the buffer (not {@code null})
+     * @throws InterruptedIOException if the caller was interrupted while waiting for a buffer
+     */
+    ByteBuffer allocateForWrite() throws InterruptedIOException {
+        ByteBuffer buffer = allocateDirect();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (! (Thread.currentThread() instanceof XnioIoThread)) {
+            parks.increment();
+            final long start = System.nanoTime();
+            long remaining = MAX_PARK_NANOS;
+            synchronized (parkLock) {
+                parkedWriters ++;
+                try {
+                    requestFlush();
+                    // retry once registered, since a buffer may have been released before the writer was counted
+                    while ((buffer = allocateDirect()) == null && remaining > 0L) {
+                        try {
+                            TimeUnit.NANOSECONDS.timedWait(parkLock, remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while waiting for a buffer");
+                        }
+                        remaining = MAX_PARK_NANOS - (System.nanoTime() - start);
+                    }
+                    if (buffer != null) {
+                        return buffer;
+                    }
+                } finally {
+                    parkedWriters --;
+                }
+            }
+            log.tracef("Timed out waiting for a direct buffer from %s; falling back to heap", this);
+        }
+        return ByteBufferPool.MEDIUM_HEAP.allocate();
+    }
+
+    /**
+     * Run the given task once memory has been released to this pool.  Used to resume suspended reads.
+     *
+     * @param task the task to run
+     */
+    void awaitMemory(final Runnable task) {
+        suspendedReads.increment();
+        memoryWaiters.add(task);
+        // memory may have been released before the task was registered
+        if (directMemory.get() <= maxDirectMemory - BUFFER_SIZE || sharedCacheSize.get() > 0) {
+            runMemoryWaiters();
+        } else {
+            // the memory may be sitting in the caches of other I/O threads
+            requestFlush();
+        }
+    }
+
+    /**
+     * Release a buffer which was allocated from this pool.
+     *
+     * @param buffer the buffer to release
+     */
+    void free(final ByteBuffer buffer) {
+        if (! buffer.isDirect()) {
+            // heap fallback buffer
+            ByteBufferPool.free(buffer);
+            return;
+        }
+        buffer.clear();
+        ThreadCache cache = null;
+        if (! USE_CACHING || closed || buffer.capacity() != BUFFER_SIZE) {
+            // jumbo frame buffers are never cached
+            release(buffer);
+        } else {
+            final Thread current = Thread.currentThread();
+            if (current instanceof XnioIoThread) {
+                cache = getThreadCache((XnioIoThread) current);
+                if (! cache.offer(buffer)) {
+                    cache = null;
+                    publish(buffer);
+                }
+            } else {
+                publish(buffer);
+            }
+        }
+        // check for waiters only after publishing the buffer: a waiter which registers concurrently either is seen
+        // here or sees the buffer itself
+        if (parkedWriters > 0 || ! memoryWaiters.isEmpty()) {
+            if (cache != null) {
+                // move the buffer where the waiters can pick it up
+                cache.flush();
+            }
+            memoryReleased();
+        }
+    }
+
+    /**
+     * Empty the caches and stop caching released buffers.  Called when the endpoint closes; buffers which are still in
+     * use are released when they are freed.
+     */
+    void close() {
+        closed = true;
+        drainSharedCache();
+        for (ThreadCache cache : threadCaches) {
+            cache.schedule();
+        }
+    }
+
+    private ThreadCache getThreadCache(final XnioIoThread thread) {
+        ThreadCache cache = threadCache.get();
+        if (cache == null) {
+            cache = new ThreadCache(thread);
+            threadCache.set(cache);
+            threadCaches.add(cache);
+        }
+        return cache;
+    }
+
+    private void publish(final ByteBuffer buffer) {
+        if (sharedCacheSize.incrementAndGet() <= SHARED_CACHE_SIZE) {
+            sharedCache.add(buffer);
+            if (closed) {
+                // the pool was closed concurrently, possibly after the cache was drained
+                drainSharedCache();
+            }
+        } else {
+            sharedCacheSize.decrementAndGet();
+            release(buffer);
+        }
+    }
+
+    private void release(final ByteBuffer buffer) {
+        directMemory.addAndGet(- buffer.capacity());
+    }
+
+    private void drainSharedCache() {
+        ByteBuffer buffer;
+        while ((buffer = sharedCache.poll()) != null) {
+            sharedCacheSize.decrementAndGet();
+            release(buffer);
+        }
+    }
+
+    private void requestFlush() {
+        if (threadCachedCount.get() > 0) {
+            for (ThreadCache cache : threadCaches) {
+                cache.schedule();
+            }
+        }
+    }
+
+    private void memoryReleased() {
+        if (parkedWriters > 0) {
+            synchronized (parkLock) {
+                parkLock.notifyAll();
+            }
+        }
+        runMemoryWaiters();
+    }
+
+    private ByteBuffer pollCache() {
+        if (! USE_CACHING) {
+            return null;
+        }
+        if (Thread.currentThread() instanceof XnioIoThread) {
+            final ThreadCache cache = threadCache.get();
+            final ByteBuffer buffer = cache == null ? null : cache.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        final ByteBuffer buffer = sharedCache.poll();
+        if (buffer != null) {
+            sharedCacheSize.decrementAndGet();
+        }
+        return buffer;
+    }
+
+    private void runMemoryWaiters() {
+        Runnable task;
+        while ((task = memoryWaiters.poll()) != null) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.tracef(t, "Memory waiter task failed");
+            }
+        }
+    }
+
+    long getDirectMemoryUsed() {
+        return directMemory.get();
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    long getExhaustedCount() {
+        return exhausted.sum();
+    }
+
+    int getThreadCachedCount() {
+        return threadCachedCount.get();
+    }
+
+    public String toString() {
+        return String.format("Buffer pool %08x (%d of %d bytes used)", Integer.valueOf(hashCode()), Long.valueOf(directMemory.get()), Long.valueOf(maxDirectMemory));
+    }
+
+    /**
+     * The buffers cached by one I/O thread.  The cache is only accessed by its thread; other threads ask for it to be
+     * flushed by scheduling it on that thread.
+     */
+    private final class ThreadCache implements Runnable {
+        private final XnioIoThread thread;
+        private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>(THREAD_CACHE_SIZE);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        ThreadCache(final XnioIoThread thread) {
+            this.thread = thread;
+        }
+
+        boolean offer(final ByteBuffer buffer) {
+            if (buffers.size() < THREAD_CACHE_SIZE) {
+                buffers.push(buffer);
+                threadCachedCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        ByteBuffer poll() {
+            final ByteBuffer buffer = buffers.poll();
+            if (buffer != null) {
+                threadCachedCount.decrementAndGet();
+            }
+            return buffer;
+        }
+
+        void flush() {
+            ByteBuffer buffer;
+            while ((buffer = poll()) != null) {
+                if (closed) {
+                    release(buffer);
+                } else {
+                    publish(buffer);
+                }
+            }
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    thread.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // the thread is shutting down, and its cached buffers go with it
+                    scheduled.set(false);
+                    threadCaches.remove(this);
+                }
+            }
+        }
+
+        public void run() {
+            scheduled.set(false);
+            flush();
+            memoryReleased();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.xnio.ByteBufferPool;
+import org.xnio.Pooled;
+import org.xnio.XnioIoThread;
+
+/**
+ * A single protocol frame, consisting of the frame buffer, the frame type (once known), and the owning connection.
+ * <p>
+ * Frame handles are cached per I/O thread.  A handle is returned to the cache of the calling I/O thread by
+ * {@link #recycle()}, which may only be called by the last holder of the frame (i.e. the write listener once the frame
+ * is written, or the read listener once the frame is consumed).  A plain {@link #free()} releases the buffer but leaves
+ * the handle to the garbage collector, so that frames which escape to user code are never reused behind its back.
+ */
+final class Frame implements Pooled<ByteBuffer> {
+    static final byte NO_TYPE = -1;
+
+    private static final int MAX_CACHED = 128;
+
+    private static final ThreadLocal<Cache> CACHE = ThreadLocal.withInitial(Cache::new);
+
+    private static final AtomicIntegerFieldUpdater<Frame> slicesUpdater = AtomicIntegerFieldUpdater.newUpdater(Frame.class, "slices");
+
+    /** The buffer is returned to its endpoint pool (or the global buffer pool) when freed. */
+    private static final int FLAG_POOLED = 1 << 0;
+    /** The frame is a shared marker which is never freed or recycled. */
+    private static final int FLAG_SENTINEL = 1 << 1;
+    /** The frame uses the compact frame format. */
+    private static final int FLAG_COMPACT = 1 << 2;
+    /** The frame is a bundle which is still being filled, and whose buffer is not yet flipped. */
+    private static final int FLAG_OPEN_BUNDLE = 1 << 3;
+
+    private volatile ByteBuffer buffer;
+    private EndpointBufferPool pool;
+    private RemoteConnection owner;
+    private byte type = NO_TYPE;
+    private int flags;
+    private Frame next;
+    private RemoteReadListener inboundAccount;
+    private int inboundBytes;
+    /** The frame whose buffer this frame's buffer is a slice of. */
+    private Frame parent;
+    /** The number of holders of this frame's buffer while it is sliced; the buffer is freed when it drops to zero. */
+    private volatile int slices;
+
+    private Frame() {
+    }
+
+    /**
+     * Allocate a frame with a buffer from the owning connection's buffer pool, without waiting.
+     *
+     * @param owner the owning connection
+     * @return the frame
+     */
+    static Frame allocate(RemoteConnection owner) {
+        final EndpointBufferPool pool = owner.getBufferPool();
+        return obtain(owner, pool.allocate(), pool, FLAG_POOLED);
+    }
+
+    /**
+     * Allocate a frame with a buffer from the owning connection's buffer pool, waiting for memory to be released if
+     * the pool is exhausted.
+     *
+     * @param owner the owning connection
+     * @return the frame
+     * @throws InterruptedIOException if the caller was interrupted while waiting
+     */
+    static Frame allocateForWrite(RemoteConnection owner) throws InterruptedIOException {
+        final EndpointBufferPool pool = owner.getBufferPool();
+        return obtain(owner, pool.allocateForWrite(), pool, FLAG_POOLED);
+    }
+
+    /**
+     * Allocate a frame with a direct buffer of the given size from the owning connection's buffer pool, without
+     * waiting.
+     *
+     * @param owner the owning connection
+     * @param size the buffer size
+     * @return the frame, or {@code null} if the pool does not have the memory for the buffer
+     */
+    static Frame allocateLarge(RemoteConnection owner, int size) {
+        final EndpointBufferPool pool = owner.getBufferPool();
+        final ByteBuffer buffer = pool.allocateLarge(size);
+        return buffer == null ? null : obtain(owner, buffer, pool, FLAG_POOLED);
+    }
+
+    /**
+     * Wrap an existing buffer in a frame.
+     *
+     * @param owner the owning connection
+     * @param buffer the buffer
+     * @param pooled {@code true} if the buffer came from the global buffer pool and should be returned to it when freed,
+     *     {@code false} to leave it to the garbage collector
+     * @return the frame
+     */
+    static Frame wrap(RemoteConnection owner, ByteBuffer buffer, boolean pooled) {
+        return obtain(owner, buffer, null, pooled ? FLAG_POOLED : 0);
+    }
+
+    /**
+     * Create a frame whose buffer is a slice of the buffer of the given frame.  The given frame must be
+     * {@linkplain #retain() retained} by the caller, and its buffer is freed once the caller and every slice have
+     * released it.
+     *
+     * @param parent the frame to slice
+     * @param offset the offset of the slice in the parent buffer
+     * @param length the length of the slice
+     * @return the frame
+     */
+    static Frame slice(Frame parent, int offset, int length) {
+        final ByteBuffer duplicate = parent.getResource().duplicate();
+        duplicate.limit(offset + length);
+        duplicate.position(offset);
+        parent.retain();
+        final Frame frame = obtain(parent.owner, duplicate.slice(), null, 0);
+        frame.parent = parent;
+        if (parent.isCompact()) {
+            frame.setCompact();
+        }
+        return frame;
+    }
+
+    /**
+     * Create a new sentinel frame, which carries an empty buffer and which is never freed.
+     *
+     * @return the sentinel frame
+     */
+    static Frame sentinel() {
+        final Frame frame = new Frame();
+        frame.buffer = ByteBuffer.allocate(0);
+        frame.flags = FLAG_SENTINEL;
+        return frame;
+    }
+
+    private static Frame obtain(final RemoteConnection owner, final ByteBuffer buffer, final EndpointBufferPool pool, final int flags) {
+        Frame frame = null;
+        if (Thread.currentThread() instanceof XnioIoThread) {
+            frame = CACHE.get().poll();
+        }
+        if (frame == null) {
+            frame = new Frame();
+        }
+        frame.owner = owner;
+        frame.pool = pool;
+        frame.type = NO_TYPE;
+        frame.flags = flags;
+        frame.buffer = buffer;
+        frame.inboundAccount = null;
+        frame.parent = null;
+        frame.slices = 0;
+        return frame;
+    }
+
+    public ByteBuffer getResource() throws IllegalStateException {
+        final ByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            throw new IllegalStateException();
+        }
+        return buffer;
+    }
+
+    public void free() {
+        final ByteBuffer buffer = this.buffer;
+        if (buffer == null || (flags & FLAG_SENTINEL) != 0) {
+            return;
+        }
+        this.buffer = null;
+        releaseInbound();
+        final Frame parent = this.parent;
+        if (parent != null) {
+            this.parent = null;
+            parent.release();
+        } else if ((flags & FLAG_POOLED) != 0) {
+            final EndpointBufferPool pool = this.pool;
+            if (pool != null) {
+                pool.free(buffer);
+            } else {
+                ByteBufferPool.free(buffer);
+            }
+        }
+    }
+
+    public void discard() {
+        if ((flags & FLAG_SENTINEL) == 0 && buffer != null) {
+            buffer = null;
+            releaseInbound();
+            final Frame parent = this.parent;
+            if (parent != null) {
+                this.parent = null;
+                parent.release();
+            }
+        }
+    }
+
+    /**
+     * Hold this frame's buffer for slicing.  The holder releases it with {@link #release()}; the frame must not be
+     * freed or recycled in any other way once it is retained.
+     */
+    void retain() {
+        slicesUpdater.incrementAndGet(this);
+    }
+
+    /**
+     * Release a hold on this frame's buffer, freeing it if it was the last one.
+     */
+    void release() {
+        if (slicesUpdater.decrementAndGet(this) == 0) {
+            free();
+        }
+    }
+
+    public void close() {
+        free();
+    }
+
+    /**
+     * Free this frame and return the handle to the cache of the calling I/O thread.  The caller must be the last holder
+     * of the frame.
+     */
+    void recycle() {
+        if ((flags & FLAG_SENTINEL) != 0) {
+            return;
+        }
+        free();
+        owner = null;
+        pool = null;
+        if (Thread.currentThread() instanceof XnioIoThread) {
+            CACHE.get().offer(this);
+        }
+    }
+
+    /**
+     * Charge the remaining bytes of this frame to the given read listener's inbound memory account.  The charge is
+     * released when the frame is freed, whether it was consumed or discarded.
+     *
+     * @param account the read listener to charge
+     */
+    void chargeInbound(final RemoteReadListener account) {
+        final int bytes = getResource().remaining();
+        inboundBytes = bytes;
+        inboundAccount = account;
+        account.inboundReceived(bytes);
+    }
+
+    private void releaseInbound() {
+        final RemoteReadListener account = inboundAccount;
+        if (account != null) {
+            inboundAccount = null;
+            account.inboundReleased(inboundBytes);
+        }
+    }
+
+    boolean isSentinel() {
+        return (flags & FLAG_SENTINEL) != 0;
+    }
+
+    boolean isCompact() {
+        return (flags & FLAG_COMPACT) != 0;
+    }
+
+    void setCompact() {
+        flags |= FLAG_COMPACT;
+    }
+
+    boolean isOpenBundle() {
+        return (flags & FLAG_OPEN_BUNDLE) != 0;
+    }
+
+    void setOpenBundle(final boolean open) {
+        if (open) {
+            flags |= FLAG_OPEN_BUNDLE;
+        } else {
+            flags &= ~FLAG_OPEN_BUNDLE;
+        }
+    }
+
+    RemoteConnection getOwner() {
+        return owner;
+    }
+
+    byte getType() {
+        return type;
+    }
+
+    void setType(final byte type) {
+        this.type = type;
+    }
+
+    public String toString() {
+        return String.format("Frame %08x type %02x of %s (%s)", Integer.valueOf(hashCode()), Integer.valueOf(type & 0xff), owner, buffer);
+    }
+
+    static final class Cache {
+        private Frame head;
+        private int size;
+
+        Frame poll() {
+            final Frame frame = head;
+            if (frame != null) {
+                head = frame.next;
+                frame.next = null;
+                size --;
+            }
+            return frame;
+        }
+
+        void offer(final Frame frame) {
+            if (size < MAX_CACHED) {
+                frame.next = head;
+                head = frame;
+                size ++;
+            }
+        }
+    }
+}
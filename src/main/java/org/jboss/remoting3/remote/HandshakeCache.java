@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+
+/**
+ * The outcome of the most recent successful handshake with each destination whose server accepts pipelined handshakes.
+ * A later connection to the same destination with the same authentication configuration uses it to send its
+ * capabilities and initial authentication request before receiving anything from the server.
+ */
+final class HandshakeCache {
+    private final int maxSize;
+    private final LinkedHashMap<Key, Hint> entries;
+
+    HandshakeCache(final int maxSize) {
+        this.maxSize = maxSize;
+        entries = new LinkedHashMap<Key, Hint>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(final Map.Entry<Key, Hint> eldest) {
+                return size() > HandshakeCache.this.maxSize;
+            }
+        };
+    }
+
+    Hint get(final URI destination, final AuthenticationConfiguration configuration) {
+        synchronized (entries) {
+            return entries.get(new Key(destination, configuration));
+        }
+    }
+
+    void put(final URI destination, final AuthenticationConfiguration configuration, final String serverName, final String mechanismName) {
+        synchronized (entries) {
+            entries.put(new Key(destination, configuration), new Hint(serverName, mechanismName));
+        }
+    }
+
+    void remove(final URI destination, final AuthenticationConfiguration configuration) {
+        synchronized (entries) {
+            entries.remove(new Key(destination, configuration));
+        }
+    }
+
+    static final class Hint {
+        private final String serverName;
+        private final String mechanismName;
+
+        Hint(final String serverName, final String mechanismName) {
+            this.serverName = serverName;
+            this.mechanismName = mechanismName;
+        }
+
+        String getServerName() {
+            return serverName;
+        }
+
+        String getMechanismName() {
+            return mechanismName;
+        }
+    }
+
+    static final class Key {
+        private final URI destination;
+        private final AuthenticationConfiguration configuration;
+        private final int hashCode;
+
+        Key(final URI destination, final AuthenticationConfiguration configuration) {
+            this.destination = destination;
+            this.configuration = configuration;
+            hashCode = Objects.hash(destination, configuration);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && equals((Key) obj);
+        }
+
+        boolean equals(final Key other) {
+            return this == other || other != null
+                && hashCode == other.hashCode
+                && Objects.equals(destination, other.destination)
+                && Objects.equals(configuration, other.configuration);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.xnio.XnioExecutor;
+import org.xnio.XnioIoThread;
+
+/**
+ * A hashed timer wheel which drives the heartbeats of all of the connections of one I/O thread.  Rather than each
+ * connection scheduling its own task, the wheel runs a single task per tick, which also refreshes a coarse clock that
+ * connections use to record the time of their last activity.  A heartbeat deadline is not moved when a connection
+ * sends something; instead, when the deadline is reached, the wheel checks the last activity of the connection and
+ * either sends a heartbeat or moves the deadline to one interval after that activity.
+ * <p>
+ * The wheel is only modified from its I/O thread.  Keys may be removed from any thread; removed entries are dropped
+ * the next time that their slot is processed.
+ */
+final class HeartbeatWheel implements Runnable {
+    static final int TICK_MILLIS = 100;
+    private static final int SLOTS = 1024;
+
+    private final XnioIoThread ioThread;
+    private final ArrayList<Entry>[] slots;
+    private volatile long currentTime;
+
+    // all accessed only from the I/O thread
+    private ArrayList<Entry> spare = new ArrayList<>();
+    private long tick;
+    private int size;
+    private boolean running;
+
+    @SuppressWarnings("unchecked")
+    HeartbeatWheel(final XnioIoThread ioThread) {
+        this.ioThread = ioThread;
+        slots = new ArrayList[SLOTS];
+        for (int i = 0; i < SLOTS; i ++) {
+            slots[i] = new ArrayList<>();
+        }
+        currentTime = clock();
+    }
+
+    private static long clock() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Get the coarse current time, in milliseconds.  The time is only meaningful relative to other times from this
+     * wheel, and is accurate to within one tick while the wheel is running.
+     *
+     * @return the coarse current time
+     */
+    long getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * Start the heartbeat of a connection.  Must be called from the I/O thread of the wheel.
+     *
+     * @param connection the connection
+     * @param interval the heartbeat interval, in milliseconds
+     * @return the key which stops the heartbeat when removed
+     */
+    XnioExecutor.Key schedule(final RemoteConnection connection, final int interval) {
+        assert ioThread == Thread.currentThread();
+        if (! running) {
+            final long now = clock();
+            currentTime = now;
+            tick = now / TICK_MILLIS;
+            try {
+                ioThread.executeAfter(this, TICK_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // the worker is shutting down
+                return XnioExecutor.Key.IMMEDIATE;
+            }
+            running = true;
+        }
+        final Entry entry = new Entry(connection, interval);
+        insert(entry, currentTime + interval);
+        size ++;
+        return entry;
+    }
+
+    private void insert(final Entry entry, final long deadline) {
+        entry.deadline = deadline;
+        // round up so that an entry is never processed before its deadline
+        final long entryTick = (deadline + TICK_MILLIS - 1) / TICK_MILLIS;
+        slots[(int) entryTick & SLOTS - 1].add(entry);
+    }
+
+    public void run() {
+        final long now = clock();
+        currentTime = now;
+        final long target = now / TICK_MILLIS;
+        // if the thread fell far behind, one revolution covers every slot
+        long t = Math.max(tick, target - SLOTS);
+        while (t < target) {
+            process((int) ++ t & SLOTS - 1, now);
+        }
+        tick = target;
+        if (size == 0) {
+            running = false;
+            return;
+        }
+        try {
+            ioThread.executeAfter(this, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the worker is shutting down
+            running = false;
+        }
+    }
+
+    private void process(final int index, final long now) {
+        final ArrayList<Entry> list = slots[index];
+        if (list.isEmpty()) {
+            return;
+        }
+        // entries may be inserted back into this slot
+        slots[index] = spare;
+        for (Entry entry : list) {
+            if (entry.removed) {
+                size --;
+            } else if (entry.deadline > now) {
+                // due in a later revolution
+                insert(entry, entry.deadline);
+            } else {
+                final long next = entry.connection.getWriteListener().getLastActivity() + entry.interval;
+                if (next > now) {
+                    insert(entry, next);
+                } else {
+                    entry.connection.sendAlive();
+                    insert(entry, now + entry.interval);
+                }
+            }
+        }
+        list.clear();
+        spare = list;
+    }
+
+    static final class Entry implements XnioExecutor.Key {
+        private final RemoteConnection connection;
+        private final int interval;
+        private long deadline;
+        private volatile boolean removed;
+
+        Entry(final RemoteConnection connection, final int interval) {
+            this.connection = connection;
+            this.interval = interval;
+        }
+
+        public boolean remove() {
+            final boolean removed = this.removed;
+            this.removed = true;
+            return ! removed;
+        }
+    }
+}
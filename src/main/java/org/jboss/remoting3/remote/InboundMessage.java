@@ -95,7 +95,7 @@ final class InboundMessage {
             // so this behavior is better than the alternative.
             return;
         }
-        Pooled<ByteBuffer> pooled = allocate(Protocol.MESSAGE_CLOSE);
+        Frame pooled = allocate(Protocol.MESSAGE_CLOSE);
         boolean ok = false;
         try {
             ByteBuffer buffer = pooled.getResource();
@@ -115,10 +115,10 @@ final class InboundMessage {
             return;
         }
         final boolean badMsgSize = channel.getConnectionHandler().isFaultyMessageSize();
-        int consumed = acked.getResource().position();
-        if (! badMsgSize) consumed -= 8; // position minus header length (not including framing size)
+        int consumed = acked.getResource().position() - getHeaderSize(acked); // position minus header length (not including framing size)
+        if (badMsgSize) consumed += 8;
         inboundWindow += consumed;
-        Pooled<ByteBuffer> pooled = allocate(Protocol.MESSAGE_WINDOW_OPEN);
+        Frame pooled = allocate(Protocol.MESSAGE_WINDOW_OPEN);
         boolean ok = false;
         try {
             ByteBuffer buffer = pooled.getResource();
@@ -180,8 +180,16 @@ final class InboundMessage {
         }
     };
 
-    Pooled<ByteBuffer> allocate(byte protoId) {
-        Pooled<ByteBuffer> pooled = channel.allocate(protoId);
+    private int getHeaderSize(final Pooled<ByteBuffer> pooled) {
+        if (pooled instanceof Frame && ((Frame) pooled).isCompact()) {
+            // type, channel index, message ID, flags
+            return 4 + ProtocolUtils.varIntLength(Integer.rotateLeft(channel.getChannelId() ^ 0x80000000, 1));
+        }
+        return 8;
+    }
+
+    Frame allocate(byte protoId) {
+        Frame pooled = channel.allocate(protoId);
         ByteBuffer buffer = pooled.getResource();
         buffer.putShort(messageId);
         return pooled;
@@ -198,6 +206,7 @@ final class InboundMessage {
                     channel.getRemoteConnection().handleException(new IOException("Input overrun"));
                     return;
                 }
+                channel.countDataReceived(bufRemaining);
                 if (log.isTraceEnabled()) {
                     log.tracef("Received message (chan %08x msg %04x) (%d-%d=%d remaining)", Integer.valueOf(channel.getChannelId()), Short.valueOf(messageId), Integer.valueOf(inboundWindow + bufRemaining), Integer.valueOf(bufRemaining), Integer.valueOf(inboundWindow));
                 }
@@ -229,6 +238,9 @@ final class InboundMessage {
                 }
                 if (eof) {
                     eofReceived = true;
+                    if (! cancelled) {
+                        channel.countMessageReceived();
+                    }
                     if (!streamClosed) {
                         inputStream.pushEof();
                     }
@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with logarithmic buckets, in the manner of an HDR histogram.  Each power of two is
+ * divided into {@value #SUB_BUCKETS} linear buckets, so that every recorded value is reported to within about 6% of
+ * its actual value, at a fixed cost of a few kilobytes per histogram.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value.
+     *
+     * @param nanos the value, in nanoseconds (negative values are recorded as zero)
+     */
+    void record(final long nanos) {
+        final long value = Math.max(0L, nanos);
+        counts.incrementAndGet(index(value));
+        long oldMax;
+        do {
+            oldMax = max.get();
+            if (value <= oldMax) {
+                return;
+            }
+        } while (! max.compareAndSet(oldMax, value));
+    }
+
+    static int index(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowestValue(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int exponent = (index >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS | (index & (SUB_BUCKETS - 1))) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long highestValue(final int index) {
+        return index == BUCKETS - 1 ? Long.MAX_VALUE : lowestValue(index + 1) - 1;
+    }
+
+    /**
+     * Take a snapshot of the percentiles of the recorded values.  Values which are recorded concurrently may or may
+     * not be included.
+     *
+     * @return the snapshot
+     */
+    LatencyPercentiles getPercentiles() {
+        final long[] snapshot = new long[BUCKETS];
+        long count = 0L;
+        for (int i = 0; i < BUCKETS; i ++) {
+            count += snapshot[i] = counts.get(i);
+        }
+        final long max = this.max.get();
+        return new LatencyPercentiles(count,
+            toMicros(valueAt(snapshot, count, 0.5), max),
+            toMicros(valueAt(snapshot, count, 0.9), max),
+            toMicros(valueAt(snapshot, count, 0.99), max),
+            toMicros(valueAt(snapshot, count, 0.999), max),
+            TimeUnit.NANOSECONDS.toMicros(max));
+    }
+
+    private static long toMicros(final long nanos, final long max) {
+        return TimeUnit.NANOSECONDS.toMicros(Math.min(nanos, max));
+    }
+
+    /**
+     * Get the value at the given fraction of the recorded values.
+     *
+     * @param snapshot the bucket counts
+     * @param count the total of the bucket counts
+     * @param fraction the fraction, between 0 and 1
+     * @return the highest value of the bucket which holds the value, or 0 if there are no values
+     */
+    static long valueAt(final long[] snapshot, final long count, final double fraction) {
+        if (count == 0L) {
+            return 0L;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(fraction * count));
+        long seen = 0L;
+        for (int i = 0; i < snapshot.length; i ++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return highestValue(snapshot.length - 1);
+    }
+
+    /**
+     * Clear the recorded values.  Values which are recorded concurrently may or may not be kept.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i ++) {
+            counts.set(i, 0L);
+        }
+        max.set(0L);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.jboss.remoting3._private.Messages.log;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.spi.LatencyListener;
+import org.xnio.OptionMap;
+
+/**
+ * The latency histograms of a connection provider, which also pass each measurement to the registered
+ * {@link LatencyListener} instances.  A provider only has latency metrics if they are enabled, so that measuring
+ * sites skip reading the clock entirely otherwise.
+ */
+final class LatencyMetrics {
+    private static final LatencyListener[] LISTENERS;
+
+    static {
+        final List<LatencyListener> listeners = new ArrayList<>();
+        final Iterator<LatencyListener> iterator = ServiceLoader.load(LatencyListener.class, LatencyMetrics.class.getClassLoader()).iterator();
+        for (;;) try {
+            if (! iterator.hasNext()) break;
+            listeners.add(iterator.next());
+        } catch (ServiceConfigurationError e) {
+            log.trace("Failed to load a latency listener", e);
+        }
+        LISTENERS = listeners.toArray(new LatencyListener[listeners.size()]);
+    }
+
+    private final String providerName;
+    private final EnumMap<LatencyListener.Interval, LatencyHistogram> histograms = new EnumMap<>(LatencyListener.Interval.class);
+
+    private LatencyMetrics(final String providerName) {
+        this.providerName = providerName;
+        for (LatencyListener.Interval interval : LatencyListener.Interval.values()) {
+            histograms.put(interval, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Create the latency metrics of a provider.
+     *
+     * @param optionMap the provider options
+     * @param providerName the provider name to report to listeners
+     * @return the latency metrics, or {@code null} if latency measurement is disabled
+     */
+    static LatencyMetrics create(final OptionMap optionMap, final String providerName) {
+        if (LISTENERS.length == 0 && ! optionMap.get(RemotingOptions.LATENCY_HISTOGRAMS, RemotingOptions.DEFAULT_LATENCY_HISTOGRAMS)) {
+            return null;
+        }
+        return new LatencyMetrics(providerName);
+    }
+
+    /**
+     * Record the interval which started at the given time and ends now.
+     *
+     * @param interval the interval
+     * @param startTime the start time, from {@link System#nanoTime()}
+     */
+    void recordSince(final LatencyListener.Interval interval, final long startTime) {
+        record(interval, System.nanoTime() - startTime);
+    }
+
+    void record(final LatencyListener.Interval interval, final long nanos) {
+        histograms.get(interval).record(nanos);
+        for (LatencyListener listener : LISTENERS) try {
+            listener.latencyRecorded(providerName, interval, nanos);
+        } catch (Throwable t) {
+            log.trace("Latency listener failed", t);
+        }
+    }
+
+    LatencyPercentiles getPercentiles(final LatencyListener.Interval interval) {
+        return histograms.get(interval).getPercentiles();
+    }
+
+    void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+}
@@ -29,7 +29,6 @@ import java.util.Iterator;
 import org.xnio.Buffers;
 import org.xnio.ByteBufferPool;
 import org.xnio.ChannelListener;
-import org.xnio.Pooled;
 import org.xnio.conduits.ConduitStreamSourceChannel;
 
 /**
@@ -37,14 +36,29 @@ import org.xnio.conduits.ConduitStreamSourceChannel;
  */
 final class MessageReader {
 
+    private final RemoteConnection connection;
     private final ConduitStreamSourceChannel sourceChannel;
     private final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
     private final Object lock;
     private final ByteBuffer[] array = new ByteBuffer[16];
 
-    static final Pooled<ByteBuffer> EOF_MARKER = Buffers.emptyPooledByteBuffer();
+    static final Frame EOF_MARKER = Frame.sentinel();
 
-    MessageReader(final ConduitStreamSourceChannel sourceChannel, final Object lock) {
+    /** Reads are suspended because the endpoint buffer pool is exhausted. */
+    static final int SUSPEND_BUFFER_MEMORY = 1 << 0;
+    /** Reads are suspended because too much inbound data is waiting to be consumed by the application. */
+    static final int SUSPEND_INBOUND_LIMIT = 1 << 1;
+
+    /** The reasons for which reads are currently suspended for flow control; protected by {@code lock}. */
+    private volatile int suspendReasons;
+    /** Compact frames are accepted alongside regular frames; protected by {@code lock}. */
+    private boolean compactFrames;
+    /** A large frame which is copied out of the queue as it arrives, or {@code null} for none; protected by {@code lock}. */
+    private ByteBuffer partial;
+    private boolean partialCompact;
+
+    MessageReader(final RemoteConnection connection, final ConduitStreamSourceChannel sourceChannel, final Object lock) {
+        this.connection = connection;
         this.sourceChannel = sourceChannel;
         this.lock = lock;
     }
@@ -53,43 +67,89 @@ final class MessageReader {
         return sourceChannel;
     }
 
-    Pooled<ByteBuffer> getMessage() throws IOException {
+    Frame getMessage() throws IOException {
         synchronized (lock) {
             for (;;) {
                 ByteBuffer first = queue.peekFirst();
-                if (first != null) {
-                    if (first.remaining() >= 4) {
-                        int size = first.getInt(first.position());
-                        if (remaining(size + 4)) {
+                if (partial != null) {
+                    final ByteBuffer message = partial;
+                    while (message.hasRemaining() && first != null) {
+                        Buffers.copy(message, first);
+                        if (! first.hasRemaining()) {
+                            connection.getBufferPool().free(first);
+                            queue.pollFirst();
+                            first = queue.peekFirst();
+                        }
+                    }
+                    if (! message.hasRemaining()) {
+                        partial = null;
+                        message.flip();
+                        conn.tracef("Received large message %s", message);
+                        connection.getTraffic().frameReceived();
+                        final Frame frame = Frame.wrap(connection, message, false);
+                        if (partialCompact) {
+                            frame.setCompact();
+                        }
+                        return frame;
+                    }
+                    // otherwise read more
+                } else if (first != null) {
+                    final int size = first.hasRemaining() ? peekSize(first) : -1;
+                    if (size != -1) {
+                        final int maxSize = connection.getMaxInboundFrameSize();
+                        if (size > maxSize) {
+                            // reject before allocating anything for the frame
+                            throw new IOException("Received frame of " + size + " bytes, which exceeds the maximum frame size of " + maxSize + " bytes");
+                        }
+                        final boolean compact = isCompact(first);
+                        final int headerSize = compact ? ProtocolUtils.varIntLength(size) : 4;
+                        if (remaining(size + headerSize)) {
                             ByteBuffer message;
+                            boolean pooled = true;
+                            // the frame is copied to a heap buffer from the global pool, because the consumer may hold
+                            // it for a long time; the direct read buffers go straight back to the endpoint pool
                             if (ByteBufferPool.MEDIUM_SIZE >= size) {
                                 message = ByteBufferPool.MEDIUM_HEAP.allocate();
-                            } else if (ByteBufferPool.LARGE_SIZE >= size) {
-                                message = ByteBufferPool.LARGE_HEAP.allocate();
                             } else {
+                                // a jumbo or SASL wrapped frame gets a buffer of its own size
                                 message = ByteBuffer.allocate(size);
+                                pooled = false;
                             }
-                            first.getInt();
+                            first.position(first.position() + headerSize);
                             int cnt = 0;
                             while (cnt < size) {
                                 cnt += Buffers.copy(size - cnt, message, first);
                                 if (! first.hasRemaining()) {
-                                    ByteBufferPool.free(first);
+                                    connection.getBufferPool().free(first);
                                     queue.pollFirst();
                                     first = queue.peekFirst();
                                 }
                             }
                             message.flip();
-                            if (first != null && first.position() + 4 > first.limit()) {
+                            if (first != null && first.position() + maxHeaderSize() > first.limit()) {
                                 // compact & reflip just to make sure there's space for next time
                                 first.compact();
                                 first.flip();
                             }
                             conn.tracef("Received message %s", message);
-                            return Buffers.globalPooledWrapper(message);
+                            connection.getTraffic().frameReceived();
+                            final Frame frame = Frame.wrap(connection, message, pooled);
+                            if (compact) {
+                                frame.setCompact();
+                            }
+                            return frame;
+                        } else if (size > ByteBufferPool.MEDIUM_SIZE) {
+                            // copy the frame as it arrives rather than holding (possibly) many pool buffers
+                            if (conn.isTraceEnabled()) {
+                                conn.tracef("Receiving large message of size %d+%d (%s)", Integer.valueOf(size), Integer.valueOf(headerSize), first);
+                            }
+                            partial = ByteBuffer.allocate(size);
+                            partialCompact = compact;
+                            first.position(first.position() + headerSize);
+                            continue;
                         } else {
                             if (conn.isTraceEnabled()) {
-                                conn.tracef("Not enough buffered bytes for message of size %d+4 (%s)", Integer.valueOf(size), first);
+                                conn.tracef("Not enough buffered bytes for message of size %d+%d (%s)", Integer.valueOf(size), Integer.valueOf(headerSize), first);
                             }
                         }
                     } else {
@@ -98,6 +158,7 @@ final class MessageReader {
                             first.compact().flip();
                         } else {
                             // first can never be full enough; we have to copy a few bytes out of the next one
+                            final int maxHeaderSize = maxHeaderSize();
                             first.compact();
                             try {
                                 final Iterator<ByteBuffer> iterator = queue.iterator();
@@ -105,17 +166,17 @@ final class MessageReader {
                                 assert iterator.hasNext(); // at least one more buffer is present because last != first
                                 do {
                                     final ByteBuffer next = iterator.next();
-                                    if (next.remaining() > 4) {
-                                        first.putInt(next.getInt());
-                                    } else {
-                                        Buffers.copy(first, next);
+                                    while (first.position() < maxHeaderSize && next.hasRemaining()) {
+                                        first.put(next.get());
+                                    }
+                                    if (! next.hasRemaining()) {
                                         iterator.remove(); //we have emptied the buffer so we remove it
+                                        connection.getBufferPool().free(next);
                                     }
-                                } while (first.position() < 4 && iterator.hasNext());
-                                if(first.position() >= 4) {
-                                    //we have enough to read the size, retry rather than attempting to read from the channel
-                                    continue;
-                                }
+                                } while (first.position() < maxHeaderSize && iterator.hasNext());
+                                // either we have enough to read the size, or first is now the last buffer; a compact
+                                // header may be complete in fewer bytes, so retry rather than attempting to read from the channel
+                                continue;
                             } finally {
                                 first.flip();
                             }
@@ -124,19 +185,32 @@ final class MessageReader {
                 } else {
                     conn.trace("No buffers in queue for message header");
                 }
+                final EndpointBufferPool bufferPool = connection.getBufferPool();
                 ByteBuffer[] b = array;
                 ByteBuffer last = queue.pollLast();
+                int cnt;
                 if (last != null) {
                     last.compact();
                     b[0] = last;
-                    ByteBufferPool.MEDIUM_DIRECT.allocate(b, 1);
+                    final int fresh = bufferPool.allocateDirect(b, 1);
+                    if (fresh == 0 && ! last.hasRemaining()) {
+                        // the last buffer is full, and buffer memory is exhausted
+                        b[0] = null;
+                        last.flip();
+                        queue.addLast(last);
+                        return suspendForMemory(bufferPool);
+                    }
+                    cnt = 1 + fresh;
                     conn.tracef("Compacted existing buffer %s", last);
                 } else {
-                    ByteBufferPool.MEDIUM_DIRECT.allocate(b, 0);
+                    cnt = bufferPool.allocateDirect(b, 0);
+                    if (cnt == 0) {
+                        return suspendForMemory(bufferPool);
+                    }
                     conn.tracef("Allocated fresh buffers");
                 }
                 try {
-                    long res = sourceChannel.read(b);
+                    long res = sourceChannel.read(b, 0, cnt);
                     if (res == -1) {
                         conn.trace("Received EOF");
                         return EOF_MARKER;
@@ -145,17 +219,18 @@ final class MessageReader {
                         conn.trace("No read bytes available");
                         return null;
                     }
+                    connection.getTraffic().received(res);
                     if (conn.isTraceEnabled()) {
                         conn.tracef("Received %d bytes", Long.valueOf(res));
                     }
                 } finally {
-                    for (int i = 0; i < b.length; i++) {
+                    for (int i = 0; i < cnt; i++) {
                         final ByteBuffer buffer = b[i];
                         if (buffer.position() > 0) {
                             buffer.flip();
                             queue.addLast(buffer);
                         } else {
-                            ByteBufferPool.free(buffer);
+                            bufferPool.free(buffer);
                         }
                         b[i] = null;
                     }
@@ -164,6 +239,72 @@ final class MessageReader {
         }
     }
 
+    /**
+     * Stop reading until buffer memory is released, because there is no room left to read into.
+     *
+     * @param bufferPool the buffer pool to wait on
+     * @return {@code null}, so that the caller waits for the next read event
+     */
+    private Frame suspendForMemory(final EndpointBufferPool bufferPool) {
+        conn.tracef("No buffer memory available, suspending reads on %s", sourceChannel);
+        suspendReads(SUSPEND_BUFFER_MEMORY);
+        bufferPool.awaitMemory(() -> resumeReads(SUSPEND_BUFFER_MEMORY));
+        return null;
+    }
+
+    /**
+     * Get the size of the frame which starts at the position of the given buffer.
+     *
+     * @param buffer the buffer, which must not be empty
+     * @return the frame size, or -1 if the buffer does not hold the complete frame header
+     * @throws IOException if the frame header is invalid
+     */
+    private int peekSize(final ByteBuffer buffer) throws IOException {
+        final int position = buffer.position();
+        if (! isCompact(buffer)) {
+            if (buffer.remaining() < 4) {
+                return -1;
+            }
+            final int size = buffer.getInt(position);
+            if (size < 0) {
+                throw new IOException("Invalid frame header");
+            }
+            return size;
+        }
+        int size = 0;
+        for (int i = 0; i < 5; i ++) {
+            if (i == buffer.remaining()) {
+                return -1;
+            }
+            final int b = buffer.get(position + i);
+            size |= (b & 0x7f) << 7 * i;
+            if ((b & 0x80) == 0) {
+                if (size < 0) break;
+                return size;
+            }
+        }
+        throw new IOException("Invalid compact frame header");
+    }
+
+    private boolean isCompact(final ByteBuffer buffer) {
+        // the length of a regular frame always starts with a zero byte
+        return compactFrames && buffer.get(buffer.position()) != 0;
+    }
+
+    private int maxHeaderSize() {
+        return compactFrames ? 5 : 4;
+    }
+
+    private int minFrameSize() {
+        return compactFrames ? 2 : 4;
+    }
+
+    void setCompactFrames(final boolean compactFrames) {
+        synchronized (lock) {
+            this.compactFrames = compactFrames;
+        }
+    }
+
     private boolean remaining(int cnt) {
         int rem = 0;
         for (ByteBuffer buffer : queue) {
@@ -176,9 +317,10 @@ final class MessageReader {
     public void close() {
         synchronized (lock) {
             safeClose(sourceChannel);
+            partial = null;
             ByteBuffer buffer;
             while ((buffer = queue.pollFirst()) != null) {
-                ByteBufferPool.free(buffer);
+                connection.getBufferPool().free(buffer);
             }
         }
     }
@@ -197,13 +339,77 @@ final class MessageReader {
 
     public void resumeReads() {
         synchronized (lock) {
-            getSourceChannel().resumeReads();
+            if (suspendReasons == 0) {
+                if (remaining(minFrameSize())) {
+                    // a pipelined frame may already be buffered, so do not wait for more data to arrive
+                    getSourceChannel().wakeupReads();
+                } else {
+                    getSourceChannel().resumeReads();
+                }
+            }
+        }
+    }
+
+    /**
+     * Suspend reads for flow control.  Reads stay suspended until every reason for suspension has been cleared.
+     *
+     * @param reason the suspension reason flag
+     */
+    void suspendReads(final int reason) {
+        synchronized (lock) {
+            final int oldReasons = suspendReasons;
+            if (oldReasons == 0) {
+                getSourceChannel().suspendReads();
+            }
+            suspendReasons = oldReasons | reason;
+        }
+    }
+
+    /**
+     * Clear a flow control suspension reason, resuming reads if no other reason remains.
+     *
+     * @param reason the suspension reason flag
+     */
+    void resumeReads(final int reason) {
+        synchronized (lock) {
+            final int oldReasons = suspendReasons;
+            if ((oldReasons & reason) == 0) {
+                return;
+            }
+            final int newReasons = oldReasons & ~reason;
+            suspendReasons = newReasons;
+            if (newReasons == 0) {
+                // complete frames may already be buffered, so make sure the listener runs
+                getSourceChannel().wakeupReads();
+            }
+        }
+    }
+
+    boolean isReadSuspended(final int reason) {
+        return (suspendReasons & reason) != 0;
+    }
+
+    boolean isReadSuspended() {
+        return suspendReasons != 0;
+    }
+
+    /**
+     * Wake up the read listener if data which may hold complete frames has already been read.  A listener which handles
+     * one frame per event must call this before returning if the peer may have sent further frames in the same flight.
+     */
+    void wakeupBufferedReads() {
+        synchronized (lock) {
+            if (suspendReasons == 0 && remaining(minFrameSize())) {
+                getSourceChannel().wakeupReads();
+            }
         }
     }
 
     public void wakeupReads() {
         synchronized (lock) {
-            getSourceChannel().wakeupReads();
+            if (suspendReasons == 0) {
+                getSourceChannel().wakeupReads();
+            }
         }
     }
 
@@ -30,6 +30,7 @@ import java.util.function.ToIntFunction;
 import org.jboss.remoting3.MessageCancelledException;
 import org.jboss.remoting3.MessageOutputStream;
 import org.jboss.remoting3.NotOpenException;
+import org.jboss.remoting3.spi.LatencyListener;
 import org.xnio.BrokenPipeException;
 import org.xnio.Connection;
 import org.xnio.IoUtils;
@@ -46,6 +47,7 @@ final class OutboundMessage extends MessageOutputStream {
     private final BufferPipeOutputStream pipeOutputStream;
     private final int maximumWindow;
     private final long ackTimeout;
+    private final LatencyMetrics latency;
     private int window;
     private boolean closeCalled;
     private boolean closeReceived;
@@ -54,10 +56,12 @@ final class OutboundMessage extends MessageOutputStream {
     private boolean eofSent;
     private boolean released;
     private long remaining;
+    private boolean awaitingFirstAck;
+    private long firstSendTime;
 
     private final BufferPipeOutputStream.BufferWriter bufferWriter = new BufferPipeOutputStream.BufferWriter() {
-        public Pooled<ByteBuffer> getBuffer(boolean firstBuffer) throws IOException {
-            Pooled<ByteBuffer> pooled = allocate(Protocol.MESSAGE_DATA);
+        public Frame getBuffer(boolean firstBuffer) throws IOException {
+            Frame pooled = allocateForWrite(Protocol.MESSAGE_DATA);
             boolean ok = false;
             try {
                 ByteBuffer buffer = pooled.getResource();
@@ -106,15 +110,27 @@ final class OutboundMessage extends MessageOutputStream {
                 boolean timeoutExpired = false;
                 if (msgSize > 0 && ! sendCancel) {
                     // empty messages and cancellation both bypass the transmit window check
+                    boolean stalled = false;
+                    long stallTime = 0L;
                     for (;;) {
                         final int currentWindow = window;
                         if (window >= msgSize) {
                             window -= msgSize;
+                            if (stalled && latency != null) {
+                                latency.recordSince(LatencyListener.Interval.WINDOW_WAIT, stallTime);
+                            }
                             if (log.isTraceEnabled()) {
                                 log.tracef("Outbound message ID %04x: message window is open (%d-%d=%d remaining), proceeding with send", getActualId(), window + msgSize, msgSize, window);
                             }
                             break;
                         }
+                        if (! stalled) {
+                            stalled = true;
+                            channel.countWindowStall();
+                            if (latency != null) {
+                                stallTime = System.nanoTime();
+                            }
+                        }
                         try {
                             log.tracef("Outbound message ID %04x: message window is closed, waiting", getActualId());
                             pipeOutputStream.wait(ackTimeout, 0);
@@ -161,8 +177,20 @@ final class OutboundMessage extends MessageOutputStream {
                 }
                 if (timeoutExpired) {
                     remoteClosed();
+                } else if (! sendCancel && ! intr) {
+                    if (msgSize > 0) {
+                        channel.countDataSent(msgSize);
+                        if (latency != null && firstSendTime == 0L && ! awaitingFirstAck) {
+                            awaitingFirstAck = true;
+                            firstSendTime = System.nanoTime();
+                        }
+                    }
+                    if (eof) {
+                        channel.countMessageSent();
+                    }
                 }
-                channel.getRemoteConnection().send(pooledBuffer);
+                // all buffers in the pipe come from getBuffer
+                channel.getRemoteConnection().send((Frame) pooledBuffer);
                 ok = true;
                 if (intr) {
                     Thread.currentThread().interrupt();
@@ -190,6 +218,7 @@ final class OutboundMessage extends MessageOutputStream {
         this.window = maximumWindow = window;
         this.ackTimeout = ackTimeout;
         this.remaining = maxOutboundMessageSize;
+        latency = channel.getRemoteConnection().getRemoteConnectionProvider().getLatency();
         try {
             pipeOutputStream = new BufferPipeOutputStream(bufferWriter);
         } catch (IOException e) {
@@ -202,8 +231,15 @@ final class OutboundMessage extends MessageOutputStream {
         return messageId & 0xffff;
     }
 
-    Pooled<ByteBuffer> allocate(byte protoId) {
-        Pooled<ByteBuffer> pooled = channel.allocate(protoId);
+    Frame allocate(byte protoId) {
+        Frame pooled = channel.allocate(protoId);
+        ByteBuffer buffer = pooled.getResource();
+        buffer.putShort(messageId);
+        return pooled;
+    }
+
+    Frame allocateForWrite(byte protoId) throws InterruptedIOException {
+        Frame pooled = channel.allocateForWrite(protoId);
         ByteBuffer buffer = pooled.getResource();
         buffer.putShort(messageId);
         return pooled;
@@ -216,6 +252,10 @@ final class OutboundMessage extends MessageOutputStream {
                 log.tracef("%s: acknowledged %d bytes", this, Integer.valueOf(count));
             }
             window += count;
+            if (awaitingFirstAck) {
+                awaitingFirstAck = false;
+                latency.recordSince(LatencyListener.Interval.MESSAGE_ACK, firstSendTime);
+            }
             pipeOutputStream.notifyAll();
         }
     }
@@ -223,13 +263,13 @@ final class OutboundMessage extends MessageOutputStream {
     void remoteClosed() {
         synchronized (pipeOutputStream) {
             closeReceived = true;
-            Pooled<ByteBuffer> pooled = pipeOutputStream.breakPipe();
-            if (pooled != null) {
-                pooled.free();
+            final Pooled<ByteBuffer> broken = pipeOutputStream.breakPipe();
+            if (broken != null) {
+                broken.free();
             }
             if (! eofSent && channel.getConnectionHandler().isMessageClose()) {
                 eofSent = true;
-                pooled = allocate(Protocol.MESSAGE_DATA);
+                final Frame pooled = allocate(Protocol.MESSAGE_DATA);
                 boolean ok = false;
                 try {
                     final ByteBuffer buffer = pooled.getResource();
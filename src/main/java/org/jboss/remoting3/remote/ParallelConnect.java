@@ -0,0 +1,250 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.jboss.remoting3._private.Messages.conn;
+import static org.xnio.IoUtils.safeClose;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.xnio.Cancellable;
+import org.xnio.ChannelListener;
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.StreamConnection;
+import org.xnio.XnioExecutor;
+import org.xnio.XnioIoThread;
+
+/**
+ * A connection attempt to a host name which resolves to several addresses, in the manner of RFC 8305 ("Happy
+ * Eyeballs").  The addresses are tried in turn, alternating between address families, and each attempt is given a
+ * head start before the next one is started in parallel.  The first connection to be established is used, and the
+ * others are cancelled or closed.  The connection attempt fails only once every address has failed.
+ */
+final class ParallelConnect implements Cancellable {
+    /** The address which most recently connected, per host name; shared by the connection provider. */
+    private final ConcurrentMap<String, InetAddress> connectedAddresses;
+    private final String host;
+    private final InetSocketAddress[] addresses;
+    private final long delayMillis;
+    private final XnioIoThread ioThread;
+    private final BiFunction<InetSocketAddress, ChannelListener<StreamConnection>, IoFuture<? extends StreamConnection>> connector;
+    private final ChannelListener<StreamConnection> openListener;
+    private final FutureResult<StreamConnection> futureResult = new FutureResult<>();
+    private final List<IoFuture<? extends StreamConnection>> attempts = new ArrayList<>();
+
+    // all protected by this
+    private int started;
+    private int finished;
+    private int winner = -1;
+    private boolean cancelled;
+    private XnioExecutor.Key timerKey;
+    private IOException failure;
+
+    ParallelConnect(final ConcurrentMap<String, InetAddress> connectedAddresses, final String host, final InetSocketAddress[] addresses, final long delayMillis, final XnioIoThread ioThread, final BiFunction<InetSocketAddress, ChannelListener<StreamConnection>, IoFuture<? extends StreamConnection>> connector, final ChannelListener<StreamConnection> openListener) {
+        this.connectedAddresses = connectedAddresses;
+        this.host = host;
+        this.addresses = addresses;
+        this.delayMillis = delayMillis;
+        this.ioThread = ioThread;
+        this.connector = connector;
+        this.openListener = openListener;
+    }
+
+    /**
+     * Order resolved addresses for connection: the address which most recently succeeded first, and then the others,
+     * alternating between address families and otherwise keeping the order of the resolver.
+     *
+     * @param resolved the resolved addresses
+     * @param preferred the address which most recently succeeded, or {@code null} for none
+     * @param port the destination port
+     * @param bindAddress the local bind address, whose family the destination must match, or {@code null} for any
+     * @return the destination addresses in connection order
+     */
+    static InetSocketAddress[] order(final InetAddress[] resolved, final InetAddress preferred, final int port, final InetAddress bindAddress) {
+        final ArrayDeque<InetAddress> first = new ArrayDeque<>();
+        final ArrayDeque<InetAddress> second = new ArrayDeque<>();
+        final ArrayList<InetSocketAddress> list = new ArrayList<>(resolved.length);
+        Class<?> firstFamily = null;
+        for (InetAddress address : resolved) {
+            if (bindAddress != null && bindAddress.getClass() != address.getClass()) {
+                continue;
+            }
+            if (address.equals(preferred)) {
+                list.add(new InetSocketAddress(address, port));
+                continue;
+            }
+            if (firstFamily == null) {
+                firstFamily = address.getClass();
+            }
+            (address.getClass() == firstFamily ? first : second).add(address);
+        }
+        while (! first.isEmpty() || ! second.isEmpty()) {
+            if (! first.isEmpty()) list.add(new InetSocketAddress(first.poll(), port));
+            if (! second.isEmpty()) list.add(new InetSocketAddress(second.poll(), port));
+        }
+        return list.toArray(new InetSocketAddress[list.size()]);
+    }
+
+    IoFuture<StreamConnection> start() {
+        futureResult.addCancelHandler(this);
+        startNext(0);
+        return futureResult.getIoFuture();
+    }
+
+    void startNext(final int index) {
+        final IoFuture<? extends StreamConnection> attempt;
+        synchronized (this) {
+            if (winner != -1 || cancelled || started != index || index == addresses.length) {
+                // already connected, or the attempt was already started because an earlier one failed
+                return;
+            }
+            started = index + 1;
+            timerKey = null;
+            conn.tracef("Connecting to %s at %s (attempt %d of %d)", host, addresses[index], Integer.valueOf(index + 1), Integer.valueOf(addresses.length));
+            attempt = connector.apply(addresses[index], connection -> {
+                if (claim(index)) {
+                    openListener.handleEvent(connection);
+                } else {
+                    safeClose(connection);
+                }
+            });
+            attempts.add(attempt);
+            if (index + 1 < addresses.length) try {
+                timerKey = ioThread.executeAfter(() -> startNext(index + 1), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // the worker is shutting down; the attempt will fail on its own
+            }
+        }
+        attempt.addNotifier(new IoFuture.HandlingNotifier<StreamConnection, Void>() {
+            public void handleCancelled(final Void attachment) {
+                attemptFinished(index, null);
+            }
+
+            public void handleFailed(final IOException exception, final Void attachment) {
+                conn.tracef("Connection attempt to %s at %s failed: %s", host, addresses[index], exception);
+                connectedAddresses.remove(host, addresses[index].getAddress());
+                attemptFinished(index, exception);
+            }
+
+            public void handleDone(final StreamConnection connection, final Void attachment) {
+                if (claim(index)) {
+                    futureResult.setResult(connection);
+                } else {
+                    safeClose(connection);
+                }
+            }
+        }, null);
+    }
+
+    /**
+     * Claim the connection of the given attempt for use, cancelling all other attempts if it is the first.
+     *
+     * @param index the attempt index
+     * @return {@code true} if the attempt's connection should be used, {@code false} if it should be closed
+     */
+    boolean claim(final int index) {
+        final List<IoFuture<? extends StreamConnection>> losers;
+        synchronized (this) {
+            if (winner != -1 || cancelled) {
+                return winner == index;
+            }
+            winner = index;
+            if (timerKey != null) {
+                timerKey.remove();
+                timerKey = null;
+            }
+            losers = new ArrayList<>(attempts);
+            if (index < losers.size()) {
+                losers.remove(index);
+            }
+        }
+        conn.tracef("Connected to %s at %s", host, addresses[index]);
+        connectedAddresses.put(host, addresses[index].getAddress());
+        for (IoFuture<? extends StreamConnection> loser : losers) {
+            loser.cancel();
+        }
+        return true;
+    }
+
+    private void attemptFinished(final int index, final IOException exception) {
+        final int next;
+        final boolean allFinished;
+        final IOException failure;
+        synchronized (this) {
+            finished ++;
+            if (exception != null) {
+                if (this.failure == null) {
+                    this.failure = exception;
+                } else {
+                    this.failure.addSuppressed(exception);
+                }
+            }
+            if (winner != -1 || cancelled) {
+                return;
+            }
+            next = started;
+            allFinished = finished == addresses.length;
+            failure = this.failure;
+            if (next < addresses.length && timerKey != null) {
+                timerKey.remove();
+                timerKey = null;
+            }
+        }
+        if (next < addresses.length) {
+            // no need to wait for the head start to elapse
+            startNext(next);
+        } else if (allFinished) {
+            if (failure != null) {
+                futureResult.setException(failure);
+            } else {
+                futureResult.setCancelled();
+            }
+        }
+    }
+
+    public Cancellable cancel() {
+        final List<IoFuture<? extends StreamConnection>> attempts;
+        synchronized (this) {
+            if (winner != -1 || cancelled) {
+                return this;
+            }
+            cancelled = true;
+            if (timerKey != null) {
+                timerKey.remove();
+                timerKey = null;
+            }
+            attempts = new ArrayList<>(this.attempts);
+        }
+        for (IoFuture<? extends StreamConnection> attempt : attempts) {
+            attempt.cancel();
+        }
+        futureResult.setCancelled();
+        return this;
+    }
+}
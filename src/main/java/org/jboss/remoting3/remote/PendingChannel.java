@@ -36,8 +36,12 @@ final class PendingChannel {
     private final long inboundMessageSize;
     private final int messageAckTimeout;
     private final Result<Channel> result;
+    private final RemoteConnectionChannel channel;
+    private final int compressionThreshold;
+    private final int maxFrameSize;
+    private final long startTime;
 
-    PendingChannel(final int id, final int outboundWindowSize, final int inboundWindowSize, final int outboundMessageCount, final int inboundMessageCount, final long outboundMessageSize, final long inboundMessageSize, final int messageAckTimeout, final Result<Channel> result) {
+    PendingChannel(final int id, final int outboundWindowSize, final int inboundWindowSize, final int outboundMessageCount, final int inboundMessageCount, final long outboundMessageSize, final long inboundMessageSize, final int messageAckTimeout, final Result<Channel> result, final RemoteConnectionChannel channel, final int compressionThreshold, final int maxFrameSize, final long startTime) {
         this.id = id;
         this.outboundWindowSize = outboundWindowSize;
         this.inboundWindowSize = inboundWindowSize;
@@ -47,6 +51,10 @@ final class PendingChannel {
         this.inboundMessageSize = inboundMessageSize;
         this.messageAckTimeout = messageAckTimeout;
         this.result = result;
+        this.channel = channel;
+        this.compressionThreshold = compressionThreshold;
+        this.maxFrameSize = maxFrameSize;
+        this.startTime = startTime;
     }
 
     int getId() {
@@ -85,5 +93,31 @@ final class PendingChannel {
         return result;
     }
 
+    /**
+     * Get the channel which was opened optimistically, before the open request was acknowledged.
+     *
+     * @return the channel, or {@code null} if the open is not optimistic
+     */
+    RemoteConnectionChannel getChannel() {
+        return channel;
+    }
+
+    int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    /**
+     * Get the time at which the open request was sent, if latency is measured.
+     *
+     * @return the {@link System#nanoTime()} of the request, or 0 if latency is not measured
+     */
+    long getStartTime() {
+        return startTime;
+    }
+
     static final ToIntFunction<PendingChannel> INDEXER = PendingChannel::getId;
 }
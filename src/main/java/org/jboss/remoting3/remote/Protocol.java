@@ -18,6 +18,8 @@
 
 package org.jboss.remoting3.remote;
 
+import org.xnio.ByteBufferPool;
+
 /**
  * The "remote" protocol.  Use this class to create an instance of the connection provider for the "remote" protocol.
  */
@@ -50,7 +52,22 @@ final class Protocol {
     /**
      * The highest-supported version of the remote protocol supported by this implementation.
      */
-    static final byte VERSION = 1;
+    static final byte VERSION = 2;
+
+    /**
+     * The first version of the remote protocol which supports compact frames.  Once such a version is negotiated, each
+     * side may switch to compact frames as soon as it has completed authentication, and must accept both frame formats
+     * from then on.
+     * <p>
+     * A regular frame starts with a four-byte big-endian length, whose first byte is always zero.  A compact frame
+     * starts with its length as an unsigned variable-length integer (seven bits per byte, least significant group
+     * first, high bit set on all but the last byte), whose first byte is never zero because frames are never empty.
+     * In the compact {@link #MESSAGE_DATA}, {@link #MESSAGE_WINDOW_OPEN} and {@link #MESSAGE_CLOSE} frames, the
+     * four-byte channel ID is replaced by the connection-local channel index, which is the channel ID rotated left by
+     * one bit and encoded as a variable-length integer.  Connections which use compact frames allocate small channel
+     * IDs, so the index of a channel usually takes a single byte.
+     */
+    static final int VERSION_COMPACT_FRAMES = 2;
 
     // Message types
 
@@ -242,18 +259,46 @@ final class Protocol {
      */
     static final byte APP_AUTH_DELETE_ACK = 0x46;
 
+    // Messages for combining frames
+
+    /**
+     * byte 0: BUNDLE
+     * byte 1..n: one or more frames, each consisting of its length as an unsigned variable-length integer and its content
+     *
+     * The frames are handled in order as if each had been received on its own.  The bundled frames use the same frame
+     * format as the bundle itself.  Only sent to peers which sent {@link #CAP_BUNDLE}.
+     */
+    static final byte BUNDLE = 0x50;
+    /**
+     * The largest frame which is bundled with others.
+     */
+    static final int BUNDLE_MAX_FRAME_SIZE = 256;
+    /**
+     * The largest bundle content size.
+     */
+    static final int BUNDLE_MAX_SIZE = 4096;
+
     // Messages for handling connection status
 
     /**
      * byte 0: CONNECTION_ALIVE
      * byte 1..n: random padding (optional)
+     *
+     * If the padding begins with ALIVE_TIMESTAMP_MAGIC, the next eight bytes are a timestamp of the sender.
      */
     static final byte CONNECTION_ALIVE = (byte) 0xF0;
     /**
      * byte 0: CONNECTION_ALIVE
      * byte 1..n: random padding (optional)
+     *
+     * If the CONNECTION_ALIVE carried a timestamp, the padding begins with ALIVE_TIMESTAMP_MAGIC and the same timestamp.
      */
     static final byte CONNECTION_ALIVE_ACK = (byte) 0xF1;
+    /**
+     * The marker of a timestamp in the padding of a CONNECTION_ALIVE or CONNECTION_ALIVE_ACK message.  Peers which
+     * predate it send random padding, which is unlikely to begin with the marker.
+     */
+    static final int ALIVE_TIMESTAMP_MAGIC = 0x52545431;
     /**
      * byte 0: CONNECTION_CLOSE
      *
@@ -297,6 +342,26 @@ final class Protocol {
      * Max responder-bound message size; mandatory uint63 content.
      */
     static final int O_MAX_OUTBOUND_MSG_SIZE = 0x85;
+    /**
+     * Message compression codec; utf8 content.
+     * On channel open requests, the comma-separated codec names which the requester offers, in order of preference.
+     * On channel open replies, the name of the selected codec; if absent, messages are not compressed.
+     */
+    static final int O_COMPRESSION = 0x86;
+    /**
+     * Max message data frame size; uint31 content.
+     * On channel open requests, the largest frame which the requester is configured to use.
+     * On channel open replies, the agreed frame size; if absent, regular frames are used.
+     */
+    static final int O_MAX_FRAME_SIZE = 0x87;
+    /**
+     * The largest message data frame size which may be agreed upon.
+     */
+    static final int MAX_FRAME_SIZE = ByteBufferPool.LARGE_SIZE;
+    /**
+     * The room allowed for SASL wrapping on top of the largest frame size.
+     */
+    static final int SASL_WRAP_OVERHEAD = 1024;
 
     // Capabilities
 
@@ -309,6 +374,8 @@ final class Protocol {
     static final byte CAP_CHANNELS_IN = 6; // sent by client & server, if missing peer does not support it
     static final byte CAP_CHANNELS_OUT = 7; // sent by client & server, if missing peer does not support it
     static final byte CAP_AUTHENTICATION = 8; // sent by client & server, if missing peer does not support it
+    static final byte CAP_PIPELINE = 9; // sent by server - client may send its capabilities and auth request before the greeting
+    static final byte CAP_BUNDLE = 10; // sent by client & server - BUNDLE frames are accepted once authenticated
 
     // Greeting messages
 
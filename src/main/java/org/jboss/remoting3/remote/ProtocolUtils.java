@@ -130,4 +130,72 @@ final class ProtocolUtils {
         }
     }
 
+    static int varIntLength(final int value) {
+        if ((value & 0xffffff80) == 0) return 1;
+        if ((value & 0xffffc000) == 0) return 2;
+        if ((value & 0xffe00000) == 0) return 3;
+        if ((value & 0xf0000000) == 0) return 4;
+        return 5;
+    }
+
+    static void putVarInt(final ByteBuffer buffer, int value) {
+        while ((value & 0xffffff80) != 0) {
+            buffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static void putVarInt(final ByteBuffer buffer, int index, int value) {
+        while ((value & 0xffffff80) != 0) {
+            buffer.put(index ++, (byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put(index, (byte) value);
+    }
+
+    static int getVarInt(final ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid variable-length integer");
+    }
+
+    /**
+     * Convert a compact frame header in place.  The four-byte channel ID which follows the frame type is replaced by
+     * its variable-length channel index, and the buffer position is moved forward by the number of bytes saved.  A
+     * channel ID whose index does not fit in four bytes cannot be converted, and the buffer is left unchanged.
+     *
+     * @param buffer the frame buffer, positioned at the frame type
+     * @return {@code true} if the header was converted, or {@code false} if the frame must be sent as a regular frame
+     */
+    static boolean compactChannelId(final ByteBuffer buffer) {
+        final int p = buffer.position();
+        final byte type = buffer.get(p);
+        final int index = Integer.rotateLeft(buffer.getInt(p + 1), 1);
+        final int length = varIntLength(index);
+        if (length > 4) {
+            return false;
+        }
+        final int start = p + 4 - length;
+        buffer.put(start, type);
+        putVarInt(buffer, start + 1, index);
+        buffer.position(start);
+        return true;
+    }
+
+    /**
+     * Read the channel ID of a compact frame header.
+     *
+     * @param buffer the frame buffer, positioned after the frame type
+     * @return the channel ID
+     */
+    static int getCompactChannelId(final ByteBuffer buffer) {
+        return Integer.rotateRight(getVarInt(buffer), 1);
+    }
 }
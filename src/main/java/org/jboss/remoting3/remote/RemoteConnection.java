@@ -19,6 +19,7 @@
 package org.jboss.remoting3.remote;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
@@ -33,12 +34,10 @@ import org.jboss.remoting3.spi.ConnectionHandlerFactory;
 import org.wildfly.common.net.Inet;
 import org.wildfly.security.auth.server.SecurityIdentity;
 import org.xnio.Buffers;
-import org.xnio.ByteBufferPool;
 import org.xnio.ChannelListener;
 import org.xnio.Connection;
 import org.xnio.IoUtils;
 import org.xnio.OptionMap;
-import org.xnio.Pooled;
 import org.xnio.Result;
 import org.xnio.StreamConnection;
 import org.xnio.XnioExecutor;
@@ -47,14 +46,19 @@ import org.xnio.conduits.ConduitStreamSinkChannel;
 import org.xnio.conduits.ConduitStreamSourceChannel;
 import org.xnio.sasl.SaslWrapper;
 
+import static java.lang.Thread.holdsLock;
+
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class RemoteConnection {
 
-    static final Pooled<ByteBuffer> STARTTLS_SENTINEL = Buffers.emptyPooledByteBuffer();
+    static final Frame STARTTLS_SENTINEL = Frame.sentinel();
 
     private static final String FQCN = RemoteConnection.class.getName();
+    private static final long MAX_ROUND_TRIP_TIME = TimeUnit.MINUTES.toNanos(5L);
+    /** The interval over which the write rate is sampled. */
+    private static final long WRITE_RATE_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100L);
     private final StreamConnection connection;
     private final MessageReader messageReader;
     private final SslChannel sslChannel;
@@ -62,25 +66,47 @@ final class RemoteConnection {
     private final RemoteWriteListener writeListener = new RemoteWriteListener();
     private final Executor executor;
     private final int heartbeatInterval;
+    private final HeartbeatWheel heartbeatWheel;
     private volatile Result<ConnectionHandlerFactory> result;
     private volatile SaslWrapper saslWrapper;
     private volatile SecurityIdentity identity;
     private final RemoteConnectionProvider remoteConnectionProvider;
+    private final EndpointBufferPool bufferPool;
+    private final TrafficCounters traffic;
     private InetSocketAddress localAddress;
+    private volatile int protocolVersion = 1;
+    private volatile boolean bundleFrames;
+    /** The largest frame size negotiated by any channel of this connection, or 0 for none. */
+    private volatile int maxJumboFrameSize;
+    // round trip times in nanoseconds, only updated by the read thread
+    private volatile long smoothedRoundTripTime = -1L;
+    private volatile long minRoundTripTime = -1L;
+    private volatile long maxRoundTripTime = -1L;
 
     RemoteConnection(final StreamConnection connection, final SslChannel sslChannel, final OptionMap optionMap, final RemoteConnectionProvider remoteConnectionProvider) {
         this.connection = connection;
-        this.messageReader = new MessageReader(connection.getSourceChannel(), writeListener.queue);
+        this.messageReader = new MessageReader(this, connection.getSourceChannel(), writeListener.queue);
         this.sslChannel = sslChannel;
         this.optionMap = optionMap;
         heartbeatInterval = optionMap.get(RemotingOptions.HEARTBEAT_INTERVAL, RemotingOptions.DEFAULT_HEARTBEAT_INTERVAL);
         Messages.conn.tracef("Initialized connection from %s to %s with options %s", connection.getPeerAddress(), connection.getLocalAddress(), optionMap);
         this.executor = remoteConnectionProvider.getExecutor();
         this.remoteConnectionProvider = remoteConnectionProvider;
+        this.bufferPool = remoteConnectionProvider.getBufferPool();
+        traffic = new TrafficCounters(remoteConnectionProvider.getTraffic());
+        heartbeatWheel = heartbeatInterval == 0 ? null : remoteConnectionProvider.getHeartbeatWheel(connection.getIoThread());
+    }
+
+    Frame allocate() {
+        return Frame.allocate(this);
+    }
+
+    Frame allocateForWrite() throws InterruptedIOException {
+        return Frame.allocateForWrite(this);
     }
 
-    Pooled<ByteBuffer> allocate() {
-        return Buffers.globalPooledWrapper(ByteBufferPool.MEDIUM_DIRECT.allocate());
+    EndpointBufferPool getBufferPool() {
+        return bufferPool;
     }
 
     void setReadListener(ChannelListener<ConduitStreamSourceChannel> listener, final boolean resume) {
@@ -126,11 +152,11 @@ final class RemoteConnection {
         }
     }
 
-    void send(final Pooled<ByteBuffer> pooled) {
+    void send(final Frame pooled) {
         writeListener.send(pooled, false);
     }
 
-    void send(final Pooled<ByteBuffer> pooled, boolean close) {
+    void send(final Frame pooled, boolean close) {
         writeListener.send(pooled, close);
     }
 
@@ -150,6 +176,20 @@ final class RemoteConnection {
         return writeListener;
     }
 
+    long getQueuedBytes() {
+        return writeListener.queuedBytes;
+    }
+
+    int getQueuedFrames() {
+        synchronized (writeListener.queue) {
+            return writeListener.queue.size();
+        }
+    }
+
+    TrafficCounters getTraffic() {
+        return traffic;
+    }
+
     public Executor getExecutor() {
         return executor;
     }
@@ -166,6 +206,72 @@ final class RemoteConnection {
         this.saslWrapper = saslWrapper;
     }
 
+    /**
+     * Get the size of the largest frame which the peer may send on this connection.  Regular frames fit a pool buffer,
+     * plus the overhead of SASL wrapping once it is active; larger frames are only accepted once a channel has
+     * negotiated them.
+     *
+     * @return the largest inbound frame size
+     */
+    int getMaxInboundFrameSize() {
+        final int regular = saslWrapper == null ? EndpointBufferPool.BUFFER_SIZE : EndpointBufferPool.BUFFER_SIZE + Protocol.SASL_WRAP_OVERHEAD;
+        return Math.max(regular, maxJumboFrameSize);
+    }
+
+    /**
+     * Accept inbound frames of up to the given size, which a channel of this connection negotiated.  Channels are only
+     * opened once authentication is complete.
+     *
+     * @param maxFrameSize the negotiated frame size, at most {@link Protocol#MAX_FRAME_SIZE}
+     */
+    void acceptFrameSize(final int maxFrameSize) {
+        // only called by the read thread
+        if (maxFrameSize > maxJumboFrameSize) {
+            maxJumboFrameSize = Math.min(maxFrameSize, Protocol.MAX_FRAME_SIZE);
+        }
+    }
+
+    int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * Set the negotiated protocol version.  From now on, compact frames are accepted if the version supports them.
+     *
+     * @param protocolVersion the negotiated protocol version
+     */
+    void setProtocolVersion(final int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+        messageReader.setCompactFrames(protocolVersion >= Protocol.VERSION_COMPACT_FRAMES);
+    }
+
+    /**
+     * Set whether the peer accepts bundled frames once authentication is complete.
+     *
+     * @param bundleFrames {@code true} if the peer accepts bundled frames
+     */
+    void setBundleFrames(final boolean bundleFrames) {
+        this.bundleFrames = bundleFrames;
+    }
+
+    /**
+     * Start sending compact and bundled frames if the peer supports them.  This must not be called before
+     * authentication is complete, so that the peer is sure to have negotiated the same version and capabilities.
+     * Frames which were sent before this call keep the regular frame format.
+     */
+    void authenticationComplete() {
+        final boolean compactFrames = protocolVersion >= Protocol.VERSION_COMPACT_FRAMES;
+        final boolean bundleFrames = this.bundleFrames;
+        if (compactFrames || bundleFrames) {
+            // ordered after the send tasks of earlier frames
+            connection.getIoThread().execute(() -> {
+                Messages.conn.tracef("Using%s%s frames on %s", compactFrames ? " compact" : "", bundleFrames ? " bundled" : "", this);
+                writeListener.compactFrames = compactFrames;
+                writeListener.bundleFrames = bundleFrames;
+            });
+        }
+    }
+
     void handlePreAuthCloseRequest() {
         try {
             terminateHeartbeat();
@@ -179,11 +285,14 @@ final class RemoteConnection {
 
     void sendAlive() {
         Messages.conn.trace("Sending connection alive");
-        final Pooled<ByteBuffer> pooled = allocate();
+        final Frame pooled = allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
             buffer.put(Protocol.CONNECTION_ALIVE);
+            // the peer echoes the timestamp back, to measure the round trip time
+            buffer.putInt(Protocol.ALIVE_TIMESTAMP_MAGIC);
+            buffer.putLong(System.nanoTime());
             buffer.limit(80);
             Buffers.addRandom(buffer);
             buffer.flip();
@@ -196,12 +305,20 @@ final class RemoteConnection {
     }
 
     void sendAliveResponse() {
+        sendAliveResponse(null);
+    }
+
+    void sendAliveResponse(final ByteBuffer alive) {
         Messages.conn.trace("Sending connection alive ack");
-        final Pooled<ByteBuffer> pooled = allocate();
+        final Frame pooled = allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
             buffer.put(Protocol.CONNECTION_ALIVE_ACK);
+            if (alive != null && alive.remaining() >= 12 && alive.getInt(alive.position()) == Protocol.ALIVE_TIMESTAMP_MAGIC) {
+                buffer.putInt(Protocol.ALIVE_TIMESTAMP_MAGIC);
+                buffer.putLong(alive.getLong(alive.position() + 4));
+            }
             buffer.limit(80);
             Buffers.addRandom(buffer);
             buffer.flip();
@@ -212,6 +329,52 @@ final class RemoteConnection {
         }
     }
 
+    void receiveAliveResponse(final ByteBuffer buffer) {
+        if (buffer.remaining() < 12 || buffer.getInt(buffer.position()) != Protocol.ALIVE_TIMESTAMP_MAGIC) {
+            // the peer does not echo timestamps
+            return;
+        }
+        final long roundTripTime = System.nanoTime() - buffer.getLong(buffer.position() + 4);
+        if (roundTripTime < 0L || roundTripTime > MAX_ROUND_TRIP_TIME) {
+            // not a timestamp of ours
+            return;
+        }
+        final long smoothed = smoothedRoundTripTime;
+        // the same smoothing as the TCP round trip time estimate (RFC 6298)
+        smoothedRoundTripTime = smoothed == -1L ? roundTripTime : smoothed + (roundTripTime - smoothed >> 3);
+        if (minRoundTripTime == -1L || roundTripTime < minRoundTripTime) minRoundTripTime = roundTripTime;
+        if (roundTripTime > maxRoundTripTime) maxRoundTripTime = roundTripTime;
+        Messages.conn.tracef("Measured round trip time of %d ns", Long.valueOf(roundTripTime));
+    }
+
+    /**
+     * Get the smoothed round trip time of the connection, measured by heartbeats.
+     *
+     * @return the smoothed round trip time in nanoseconds, or -1 if none was measured yet
+     */
+    long getSmoothedRoundTripTime() {
+        return smoothedRoundTripTime;
+    }
+
+    long getMinRoundTripTime() {
+        return minRoundTripTime;
+    }
+
+    long getMaxRoundTripTime() {
+        return maxRoundTripTime;
+    }
+
+    /**
+     * Get an estimate of the number of bytes in flight on the connection, which is the recent write rate times the
+     * smoothed round trip time.
+     *
+     * @return the estimate in bytes, or 0 if no round trip time was measured or nothing was written recently
+     */
+    long getBytesInFlight() {
+        final long roundTripTime = smoothedRoundTripTime;
+        return roundTripTime <= 0L ? 0L : (long) ((double) writeListener.getWriteRate() * roundTripTime / TimeUnit.SECONDS.toNanos(1L));
+    }
+
     void terminateHeartbeat() {
         final XnioExecutor.Key key = writeListener.heartKey;
         if (key != null) {
@@ -260,17 +423,49 @@ final class RemoteConnection {
 
     final class RemoteWriteListener implements ChannelListener<ConduitStreamSinkChannel> {
 
-        private final Queue<Pooled<ByteBuffer>> queue = new ArrayDeque<Pooled<ByteBuffer>>();
+        private final ArrayDeque<Frame> queue = new ArrayDeque<Frame>();
         private volatile XnioExecutor.Key heartKey;
         private boolean closed;
         private boolean flushing;
-        private ByteBuffer headerBuffer = ByteBuffer.allocateDirect(4);
+        private ByteBuffer headerBuffer = ByteBuffer.allocateDirect(5);
         private final ByteBuffer[] cachedArray = new ByteBuffer[] { headerBuffer, null };
-        private volatile long expireTime = -1;
+        /** The time of the most recent write, according to the coarse clock of the heartbeat wheel. */
+        private volatile long lastActivity;
+        /** The number of frame bytes queued but not yet written; updated under the queue lock. */
+        private volatile long queuedBytes;
+        /** Frames which are sent from now on use the compact frame format. */
+        private volatile boolean compactFrames;
+        /** Small frames which are sent from now on are bundled while earlier frames are waiting to be written. */
+        private volatile boolean bundleFrames;
+        /** The bytes written since the start of the current write rate sample; updated under the queue lock. */
+        private long sampleBytes;
+        private volatile long sampleStart = System.nanoTime();
+        /** The smoothed write rate in bytes per second. */
+        private volatile long writeRate;
 
         RemoteWriteListener() {
         }
 
+        private void wrote(final long bytes) {
+            traffic.sent(bytes);
+            sampleBytes += bytes;
+            final long now = System.nanoTime();
+            final long elapsed = now - sampleStart;
+            if (elapsed >= WRITE_RATE_INTERVAL) {
+                final long rate = (long) ((double) sampleBytes * TimeUnit.SECONDS.toNanos(1L) / elapsed);
+                // a sample spanning idle time just lowers the rate
+                final long oldRate = writeRate;
+                writeRate = oldRate + (rate - oldRate >> 2);
+                sampleBytes = 0L;
+                sampleStart = now;
+            }
+        }
+
+        long getWriteRate() {
+            // without recent writes, the last sample is stale
+            return System.nanoTime() - sampleStart > WRITE_RATE_INTERVAL << 1 ? 0L : writeRate;
+        }
+
         public void handleEvent(final ConduitStreamSinkChannel channel) {
             final ByteBuffer[] cachedArray = this.cachedArray;
             synchronized (queue) {
@@ -278,31 +473,49 @@ final class RemoteConnection {
                     Messages.conn.trace("Skipping write event because write listener is in closed state and channel is not open");
                     return;
                 }
-                Pooled<ByteBuffer> pooled;
-                final Queue<Pooled<ByteBuffer>> queue = this.queue;
+                Frame pooled;
+                final Queue<Frame> queue = this.queue;
                 try {
                     ByteBuffer buffer = cachedArray[1];
                     if (buffer != null) {
-                        channel.write(cachedArray);
+                        final int before = buffer.remaining();
+                        wrote(channel.write(cachedArray));
+                        queuedBytes -= before - buffer.remaining();
                         if (buffer.hasRemaining()) {
                             return;
                         }
+                        // the finished frame is recycled below
+                        traffic.frameSent();
                     }
                     cachedArray[1] = null;
                     while ((pooled = queue.peek()) != null) {
+                        if (pooled.isOpenBundle()) {
+                            sealBundle(pooled);
+                        }
                         buffer = pooled.getResource();
                         if (buffer.hasRemaining()) { // no empty messages
-                            headerBuffer.putInt(0, buffer.remaining());
-                            headerBuffer.position(0);
+                            headerBuffer.clear();
+                            if (pooled.isCompact()) {
+                                ProtocolUtils.putVarInt(headerBuffer, buffer.remaining());
+                            } else {
+                                headerBuffer.putInt(buffer.remaining());
+                            }
+                            headerBuffer.flip();
                             cachedArray[1] = buffer;
+                            final int before = buffer.remaining();
                             final long res = channel.write(cachedArray);
-                            Messages.conn.tracef("Sent %d bytes", res);
+                            wrote(res);
+                            queuedBytes -= before - buffer.remaining();
+                            if (Messages.conn.isTraceEnabled()) {
+                                Messages.conn.tracef("Sent %d bytes of frame type %02x", Long.valueOf(res), Integer.valueOf(pooled.getType() & 0xff));
+                            }
                             if (buffer.hasRemaining()) {
                                 // try again later
                                 return;
                             } else {
                                 cachedArray[1] = null;
-                                queue.poll().free();
+                                queue.poll().recycle();
+                                traffic.frameSent();
                             }
                         } else {
                             if (pooled == STARTTLS_SENTINEL) {
@@ -318,7 +531,7 @@ final class RemoteConnection {
                                 }
                             }
                             // otherwise skip other empty message rather than try and write it
-                            queue.poll().free();
+                            queue.poll().recycle();
                         }
                     }
                     if (channel.flush()) {
@@ -336,12 +549,10 @@ final class RemoteConnection {
                             return;
                         } else {
                             if (heartbeatInterval != 0) {
-                                this.expireTime = System.currentTimeMillis() + heartbeatInterval;
-                                 if (this.heartKey == null) {
-                                     final XnioExecutor executor = channel.getWriteThread();
-                                     final Runnable heartBeat = new HeartBeat(executor);
-                                     this.heartKey = executor.executeAfter(heartBeat, heartbeatInterval, TimeUnit.MILLISECONDS);
-                                 }
+                                this.lastActivity = heartbeatWheel.getCurrentTime();
+                                if (this.heartKey == null) {
+                                    this.heartKey = heartbeatWheel.schedule(RemoteConnection.this, heartbeatInterval);
+                                }
                             }
                         }
                         channel.suspendWrites();
@@ -349,8 +560,9 @@ final class RemoteConnection {
                 } catch (IOException e) {
                     handleException(e, false);
                     while ((pooled = queue.poll()) != null) {
-                        pooled.free();
+                        pooled.recycle();
                     }
+                    queuedBytes = 0L;
                 }
                 // else try again later
             }
@@ -383,24 +595,47 @@ final class RemoteConnection {
                     Messages.conn.logf(FQCN, Logger.Level.TRACE, null, "Shut down writes on channel");
                 } catch (IOException e) {
                     handleException(e, false);
-                    Pooled<ByteBuffer> unqueued;
+                    Frame unqueued;
                     while ((unqueued = queue.poll()) != null) {
-                        unqueued.free();
+                        unqueued.recycle();
                     }
+                    queuedBytes = 0L;
                 }
             }
         }
 
-        public void send(final Pooled<ByteBuffer> pooled, final boolean close) {
+        public void send(final Frame pooled, final boolean close) {
             connection.getIoThread().execute(() -> {
                 synchronized (queue) {
-                    XnioExecutor.Key heartKey1 = heartKey;
-                    if (heartKey1 != null)
-                        this.expireTime = System.currentTimeMillis() + heartbeatInterval;
-                    if (closed) { pooled.free(); return; }
+                    if (heartKey != null)
+                        this.lastActivity = heartbeatWheel.getCurrentTime();
+                    if (closed) { pooled.recycle(); return; }
                     if (close) { closed = true; }
                     boolean free = true;
                     try {
+                        if (pooled.getType() == Frame.NO_TYPE && ! pooled.isSentinel()) {
+                            final ByteBuffer buffer = pooled.getResource();
+                            if (buffer.hasRemaining()) pooled.setType(buffer.get(buffer.position()));
+                        }
+                        if (compactFrames && ! pooled.isSentinel() && pooled.getResource().hasRemaining()) {
+                            boolean compact = true;
+                            switch (pooled.getType()) {
+                                case Protocol.MESSAGE_DATA:
+                                case Protocol.MESSAGE_WINDOW_OPEN:
+                                case Protocol.MESSAGE_CLOSE: {
+                                    // an ID which cannot be compacted keeps the regular header
+                                    compact = ProtocolUtils.compactChannelId(pooled.getResource());
+                                    break;
+                                }
+                            }
+                            if (compact) {
+                                pooled.setCompact();
+                            }
+                        }
+                        if (bundleFrames && ! pooled.isSentinel() && bundle(pooled)) {
+                            // the frame was copied into a bundle
+                            return;
+                        }
                         final SaslWrapper wrapper = saslWrapper;
                         if (wrapper != null) {
                             final ByteBuffer buffer = pooled.getResource();
@@ -412,6 +647,7 @@ final class RemoteConnection {
                         final boolean empty = queue.isEmpty();
                         queue.add(pooled);
                         free = false;
+                        queuedBytes += pooled.getResource().remaining();
                         if (empty) {
                             //if there was no data previously queued we add a task to attempt to write the
                             //data, and resume writes if it fails. This means that if we have multiple messages
@@ -432,41 +668,90 @@ final class RemoteConnection {
                         }
                     } catch (IOException e) {
                         handleException(e, false);
-                        Pooled<ByteBuffer> unqueued;
+                        Frame unqueued;
                         while ((unqueued = queue.poll()) != null) {
-                            unqueued.free();
+                            unqueued.recycle();
                         }
+                        queuedBytes = 0L;
                     } finally {
                         if (free) {
-                            pooled.free();
+                            pooled.recycle();
                         }
                     }
                 }
             });
         }
 
-        private class HeartBeat implements Runnable {
-
-            private final XnioExecutor executor;
-
-            public HeartBeat(XnioExecutor executor) {
-                this.executor = executor;
+        /**
+         * Copy a small frame into the bundle at the end of the queue, starting a new bundle if needed.  Frames are only
+         * bundled while earlier frames are waiting to be written, so bundling never holds a frame back.
+         *
+         * @param pooled the frame to bundle
+         * @return {@code true} if the frame was bundled and may be freed, {@code false} if it must be queued on its own
+         */
+        private boolean bundle(final Frame pooled) {
+            assert holdsLock(queue);
+            final ByteBuffer source = pooled.getResource();
+            final int size = source.remaining();
+            if (size == 0 || size > Protocol.BUNDLE_MAX_FRAME_SIZE || queue.isEmpty()) {
+                return false;
             }
-
-            public void run() {
-                long currentTime = System.currentTimeMillis();
-                if (currentTime >= expireTime) {
-                    sendAlive();
-                    heartKey = executor.executeAfter(this, heartbeatInterval, TimeUnit.MILLISECONDS);
-                } else {
-                    final long nextBeatInterval = expireTime - System.currentTimeMillis();
-                    // prevent negative intervals by scheduling to run immediately if nextBeatInterval happens to be negative
-                    heartKey = executor.executeAfter(this, nextBeatInterval < 0? 0: nextBeatInterval, TimeUnit.MILLISECONDS);
+            final int required = ProtocolUtils.varIntLength(size) + size;
+            Frame bundle = queue.peekLast();
+            // the frames of a bundle share its header format, so a frame which kept its regular header starts a new one
+            if (! bundle.isOpenBundle() || bundle.isCompact() != pooled.isCompact() || bundle.getResource().position() + required > getBundleLimit(bundle)) {
+                bundle = Frame.allocate(RemoteConnection.this);
+                final ByteBuffer buffer = bundle.getResource();
+                if (1 + required > getBundleLimit(bundle)) {
+                    bundle.recycle();
+                    return false;
+                }
+                buffer.put(Protocol.BUNDLE);
+                bundle.setType(Protocol.BUNDLE);
+                bundle.setOpenBundle(true);
+                if (pooled.isCompact()) {
+                    bundle.setCompact();
                 }
+                queue.add(bundle);
+                queuedBytes ++;
+            }
+            final ByteBuffer buffer = bundle.getResource();
+            ProtocolUtils.putVarInt(buffer, size);
+            buffer.put(source);
+            queuedBytes += required;
+            return true;
+        }
 
+        private int getBundleLimit(final Frame bundle) {
+            // leave room for the SASL wrapping overhead
+            return Math.min(Protocol.BUNDLE_MAX_SIZE + 1, bundle.getResource().capacity() >> 1);
+        }
+
+        /**
+         * Close a bundle for writing, wrapping it if SASL wrapping is active.
+         *
+         * @param bundle the bundle
+         * @throws IOException if wrapping fails
+         */
+        private void sealBundle(final Frame bundle) throws IOException {
+            bundle.setOpenBundle(false);
+            final ByteBuffer buffer = bundle.getResource();
+            buffer.flip();
+            final SaslWrapper wrapper = saslWrapper;
+            if (wrapper != null) {
+                final int before = buffer.remaining();
+                final ByteBuffer source = buffer.duplicate();
+                buffer.clear();
+                wrapper.wrap(buffer, source);
+                buffer.flip();
+                queuedBytes += buffer.remaining() - before;
             }
         }
 
+        long getLastActivity() {
+            return lastActivity;
+        }
+
         private final Runnable flushTask = new Runnable() {
             @Override
             public void run() {
@@ -21,6 +21,7 @@ package org.jboss.remoting3.remote;
 import static org.jboss.remoting3._private.Messages.log;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -38,11 +39,13 @@ import org.jboss.remoting3.Channel;
 import org.jboss.remoting3.ChannelBusyException;
 import org.jboss.remoting3.Connection;
 import org.jboss.remoting3.MessageCancelledException;
+import org.jboss.remoting3.MessageInputStream;
 import org.jboss.remoting3.MessageOutputStream;
 import org.jboss.remoting3.NotOpenException;
 import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.ServiceOpenException;
+import org.jboss.remoting3._private.CompactIntIndexMap;
 import org.jboss.remoting3._private.Equaller;
-import org.jboss.remoting3._private.IntIndexHashMap;
 import org.jboss.remoting3._private.IntIndexMap;
 import org.jboss.remoting3.spi.AbstractHandleableCloseable;
 import org.jboss.remoting3.spi.ConnectionHandlerContext;
@@ -61,18 +64,23 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
     private final ConnectionHandlerContext connectionHandlerContext;
     private final RemoteConnection connection;
     private final int channelId;
-    private final IntIndexMap<OutboundMessage> outboundMessages = new IntIndexHashMap<OutboundMessage>(OutboundMessage.INDEXER, Equaller.IDENTITY, 512, 0.5f);
-    private final IntIndexMap<InboundMessage> inboundMessages = new IntIndexHashMap<InboundMessage>(InboundMessage.INDEXER, Equaller.IDENTITY, 512, 0.5f);
-    private final int outboundWindow;
-    private final int inboundWindow;
+    private final IntIndexMap<OutboundMessage> outboundMessages = new CompactIntIndexMap<OutboundMessage>(OutboundMessage.INDEXER, Equaller.IDENTITY);
+    private final IntIndexMap<InboundMessage> inboundMessages = new CompactIntIndexMap<InboundMessage>(InboundMessage.INDEXER, Equaller.IDENTITY);
+    private volatile int outboundWindow;
+    private volatile int inboundWindow;
     private final Attachments attachments = new Attachments();
     private final Queue<InboundMessage> inboundMessageQueue = new ArrayDeque<InboundMessage>();
-    private final int maxOutboundMessages;
-    private final int maxInboundMessages;
-    private final long maxOutboundMessageSize;
-    private final long maxInboundMessageSize;
+    // message payload only; the connection counts the bytes on the wire
+    private final TrafficCounters traffic = new TrafficCounters(null);
+    private volatile int maxOutboundMessages;
+    private volatile int maxInboundMessages;
+    private volatile long maxOutboundMessageSize;
+    private volatile long maxInboundMessageSize;
     private final int messageAckTimeout;
     private volatile int channelState = 0;
+    private volatile ServiceOpenException refusal;
+    private volatile ChannelCompression compression;
+    private volatile int maxFrameSize;
 
     private static final AtomicIntegerFieldUpdater<RemoteConnectionChannel> channelStateUpdater = AtomicIntegerFieldUpdater.newUpdater(RemoteConnectionChannel.class, "channelState");
 
@@ -100,6 +108,30 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         this.messageAckTimeout = messageAckTimeout;
     }
 
+    /**
+     * Replace the provisional limits of an optimistically opened channel with those agreed by the peer.  Messages which
+     * are already open keep their provisional window.
+     */
+    void updateLimits(final int outboundWindow, final int inboundWindow, final int maxOutboundMessages, final int maxInboundMessages, final long maxOutboundMessageSize, final long maxInboundMessageSize) {
+        this.outboundWindow = outboundWindow;
+        this.inboundWindow = inboundWindow;
+        this.maxOutboundMessages = maxOutboundMessages;
+        this.maxInboundMessages = maxInboundMessages;
+        this.maxOutboundMessageSize = maxOutboundMessageSize;
+        this.maxInboundMessageSize = maxInboundMessageSize;
+        log.tracef("Updated limits of optimistically opened %s", this);
+    }
+
+    /**
+     * Close an optimistically opened channel whose service was refused by the peer, cancelling its messages.
+     *
+     * @param refusal the reason for the refusal
+     */
+    void handleRefused(final ServiceOpenException refusal) {
+        this.refusal = refusal;
+        closeAsync();
+    }
+
     void openOutboundMessage() throws IOException {
         int oldState, newState;
         do {
@@ -108,7 +140,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
                 throw new NotOpenException("Writes closed");
             }
             final int outboundCount = oldState & OUTBOUND_MESSAGES_MASK;
-            if (outboundCount == maxOutboundMessages) {
+            if (outboundCount >= maxOutboundMessages) {
                 throw new ChannelBusyException("Too many open outbound writes");
             }
             newState = oldState + ONE_OUTBOUND_MESSAGE;
@@ -241,7 +273,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         } while (!casState(oldState, newState));
         if ((oldState & WRITE_CLOSED) == 0) {
             // we're sending the write close request asynchronously
-            Pooled<ByteBuffer> pooled = connection.allocate();
+            Frame pooled = connection.allocate();
             boolean ok = false;
             try {
                 ByteBuffer byteBuffer = pooled.getResource();
@@ -287,6 +319,10 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         connectionHandler.handleChannelClosed(this);
     }
 
+    public int getOutboundMessageCount() {
+        return channelState & OUTBOUND_MESSAGES_MASK;
+    }
+
     public MessageOutputStream writeMessage() throws IOException {
         int tries = 50;
         IntIndexMap<OutboundMessage> outboundMessages = this.outboundMessages;
@@ -301,7 +337,8 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
                     OutboundMessage existing = outboundMessages.putIfAbsent(message);
                     if (existing == null) {
                         ok = true;
-                        return message;
+                        final ChannelCompression compression = this.compression;
+                        return compression == null ? message : compression.wrap(message);
                     }
                 }
                 tries --;
@@ -324,7 +361,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
 
     public void writeShutdown() throws IOException {
         if (closeWrites()) {
-            Pooled<ByteBuffer> pooled = connection.allocate();
+            Frame pooled = connection.allocate();
             boolean ok = false;
             try {
                 ByteBuffer byteBuffer = pooled.getResource();
@@ -360,7 +397,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
             } else {
                 final InboundMessage message = inboundMessageQueue.remove();
                 try {
-                    getExecutor().execute(() -> handler.handleMessage(RemoteConnectionChannel.this, message.messageInputStream));
+                    getExecutor().execute(() -> handler.handleMessage(RemoteConnectionChannel.this, getMessageInputStream(message)));
                 } catch (Throwable t) {
                     connection.handleException(new IOException("Fatal connection error", t));
                     return;
@@ -377,6 +414,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
             .add(RemotingOptions.RECEIVE_WINDOW_SIZE)
             .add(RemotingOptions.MAX_INBOUND_MESSAGE_SIZE)
             .add(RemotingOptions.MAX_OUTBOUND_MESSAGE_SIZE)
+            .add(RemotingOptions.MAX_FRAME_SIZE)
             .create();
 
     public boolean supportsOption(final Option<?> option) {
@@ -396,6 +434,8 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
             return option.cast(maxInboundMessageSize);
         } else if (option == RemotingOptions.MAX_OUTBOUND_MESSAGE_SIZE) {
             return option.cast(maxOutboundMessageSize);
+        } else if (option == RemotingOptions.MAX_FRAME_SIZE) {
+            return option.cast(Integer.valueOf(maxFrameSize));
         } else {
             return null;
         }
@@ -429,7 +469,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
                             final Receiver receiver = nextReceiver;
                             nextReceiver = null;
                             try {
-                                getExecutor().execute(() -> receiver.handleMessage(RemoteConnectionChannel.this, inboundMessage.messageInputStream));
+                                getExecutor().execute(() -> receiver.handleMessage(RemoteConnectionChannel.this, getMessageInputStream(inboundMessage)));
                                 ok2 = true;
                             } catch (Throwable t) {
                                 connection.handleException(new IOException("Fatal connection error", t));
@@ -458,7 +498,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
     }
 
     private void asyncCloseMessage(final int id) {
-        Pooled<ByteBuffer> pooled = connection.allocate();
+        Frame pooled = connection.allocate();
         boolean ok = false;
         try {
             ByteBuffer byteBuffer = pooled.getResource();
@@ -507,7 +547,16 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
     protected void closeAction() throws IOException {
         closeReadsAndWrites();
         closeMessages();
-        closeComplete();
+        final ChannelCompression compression = this.compression;
+        if (compression != null) {
+            compression.close();
+        }
+        final ServiceOpenException refusal = this.refusal;
+        if (refusal != null) {
+            closeFailed(refusal);
+        } else {
+            closeComplete();
+        }
     }
 
     private void closeMessages() {
@@ -549,14 +598,77 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         }
     }
 
-    Pooled<ByteBuffer> allocate(final byte protoId) {
-        final Pooled<ByteBuffer> pooled = connection.allocate();
+    Frame allocate(final byte protoId) {
+        return prepare(connection.allocate(), protoId);
+    }
+
+    Frame allocateForWrite(final byte protoId) throws InterruptedIOException {
+        final int maxFrameSize = this.maxFrameSize;
+        if (maxFrameSize > EndpointBufferPool.BUFFER_SIZE && connection.getSaslWrapper() == null) {
+            // a jumbo buffer of the agreed size, or a regular one if the endpoint pool does not have the memory for it
+            final Frame pooled = Frame.allocateLarge(connection, maxFrameSize);
+            if (pooled != null) {
+                return prepare(pooled, protoId);
+            }
+        }
+        return prepare(connection.allocateForWrite(), protoId);
+    }
+
+    private Frame prepare(final Frame pooled, final byte protoId) {
+        pooled.setType(protoId);
         final ByteBuffer buffer = pooled.getResource();
         buffer.put(protoId);
         buffer.putInt(channelId);
         return pooled;
     }
 
+    void setCompression(final ChannelCompression compression) {
+        this.compression = compression;
+    }
+
+    void setMaxFrameSize(final int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+        connection.acceptFrameSize(maxFrameSize);
+    }
+
+    int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    TrafficCounters getTraffic() {
+        return traffic;
+    }
+
+    void countDataSent(final int bytes) {
+        traffic.sent(bytes);
+        traffic.frameSent();
+    }
+
+    void countDataReceived(final int bytes) {
+        traffic.received(bytes);
+        traffic.frameReceived();
+    }
+
+    void countMessageSent() {
+        traffic.messageSent();
+        connection.getTraffic().messageSent();
+    }
+
+    void countMessageReceived() {
+        traffic.messageReceived();
+        connection.getTraffic().messageReceived();
+    }
+
+    void countWindowStall() {
+        traffic.windowStalled();
+        connection.getTraffic().windowStalled();
+    }
+
+    private MessageInputStream getMessageInputStream(final InboundMessage message) {
+        final ChannelCompression compression = this.compression;
+        return compression == null ? message.messageInputStream : compression.wrap(message.messageInputStream, maxInboundMessageSize);
+    }
+
     public String toString() {
         return String.format("Channel ID %08x (%s) of %s", Integer.valueOf(channelId), (channelId & 0x80000000) == 0 ? "inbound" : "outbound", connection);
     }
@@ -570,6 +682,13 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         if (Bits.allAreSet(state, READ_CLOSED)) b.append("read-closed ");
         if (Bits.allAreSet(state, WRITE_CLOSED)) b.append("write-closed ");
         b.append('\n');
+        final ChannelCompression compression = this.compression;
+        if (compression != null) {
+            b.append("        ").append("* Compression: ").append(compression.getName()).append('\n');
+        }
+        if (maxFrameSize > 0) {
+            b.append("        ").append("* Max frame size: ").append(maxFrameSize).append('\n');
+        }
         b.append("        ").append("* ").append(inboundMessageQueue.size()).append(" pending inbound messages\n");
         b.append("        ").append("* ").append(inboundMessageCnt).append(" (max ").append(maxInboundMessages).append(") inbound messages\n");
         b.append("        ").append("* ").append(outboundMessageCnt).append(" (max ").append(maxOutboundMessages).append(") outbound messages\n");
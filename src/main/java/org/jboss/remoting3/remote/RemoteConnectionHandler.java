@@ -30,8 +30,10 @@ import java.util.ArrayList;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
+import javax.management.ObjectName;
 import javax.net.ssl.SSLSession;
 
 import org.jboss.remoting3.Channel;
@@ -39,8 +41,8 @@ import org.jboss.remoting3.NotOpenException;
 import org.jboss.remoting3.ProtocolException;
 import org.jboss.remoting3.RemotingOptions;
 import org.jboss.remoting3.ServiceOpenException;
+import org.jboss.remoting3._private.CompactIntIndexMap;
 import org.jboss.remoting3._private.Equaller;
-import org.jboss.remoting3._private.IntIndexHashMap;
 import org.jboss.remoting3._private.IntIndexMap;
 import org.jboss.remoting3.spi.AbstractHandleableCloseable;
 import org.jboss.remoting3.spi.ConnectionHandler;
@@ -52,13 +54,21 @@ import org.xnio.Cancellable;
 import org.xnio.Connection;
 import org.xnio.IoUtils;
 import org.xnio.OptionMap;
-import org.xnio.Pooled;
 import org.xnio.Result;
 import org.xnio.channels.SslChannel;
 
 @SuppressWarnings("deprecation")
 final class RemoteConnectionHandler extends AbstractHandleableCloseable<ConnectionHandler> implements ConnectionHandler {
 
+    /**
+     * The transmit window used by an optimistically opened channel until the peer acknowledges the open request.
+     */
+    private static final int PROVISIONAL_WINDOW_SIZE = 0x8000;
+    /**
+     * The number of concurrent outbound messages allowed on an optimistically opened channel until the peer
+     * acknowledges the open request.
+     */
+    private static final int PROVISIONAL_MESSAGE_COUNT = 8;
     // TODO JBEAP-20756 temporarily using a system property as a solution to ACK TIMEOUT issue until an RFE is properly submitted
     private static final int MESSAGE_ACK_TIMEOUT = Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged("org.jboss.remoting3.remote.message.ack.timeout", String.valueOf(RemotingOptions.DEFAULT_MESSAGE_ACK_TIMEOUT)));
 
@@ -70,11 +80,11 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
      * Local channel IDs are read with a "0" MSB and written with a "1" MSB.  Channel IDs here
      * are stored from the "write" perspective.  Remote channels "0", Local channels "1" MSB.
      */
-    private final IntIndexMap<RemoteConnectionChannel> channels = new IntIndexHashMap<RemoteConnectionChannel>(RemoteConnectionChannel.INDEXER, Equaller.IDENTITY);
+    private final IntIndexMap<RemoteConnectionChannel> channels = new CompactIntIndexMap<RemoteConnectionChannel>(RemoteConnectionChannel.INDEXER, Equaller.IDENTITY);
     /**
      * Pending channels.  All have a "1" MSB.  Replies are read with a "0" MSB.
      */
-    private final IntIndexMap<PendingChannel> pendingChannels = new IntIndexHashMap<PendingChannel>(PendingChannel.INDEXER, Equaller.IDENTITY);
+    private final IntIndexMap<PendingChannel> pendingChannels = new CompactIntIndexMap<PendingChannel>(PendingChannel.INDEXER, Equaller.IDENTITY);
 
     private final int maxInboundChannels;
     private final int maxOutboundChannels;
@@ -87,6 +97,12 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
 
     private volatile int channelState = 0;
 
+    /**
+     * The small channel index to try first for the next outbound channel on a connection which uses compact frames.
+     * Updates may race, which only affects the order in which indexes are tried.
+     */
+    private volatile int nextChannelIndex;
+
     private static final AtomicIntegerFieldUpdater<RemoteConnectionHandler> channelStateUpdater = AtomicIntegerFieldUpdater.newUpdater(RemoteConnectionHandler.class, "channelState");
 
     /** Sending close request, now shutting down the write side of all channels and refusing new channels. Once send, received = true and count == 0, shut down writes on the socket. */
@@ -100,6 +116,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
     private final Principal principal;
     private final String peerSaslServerName;
     private final String localSaslServerName;
+    private volatile ObjectName objectName;
 
     RemoteConnectionHandler(final ConnectionHandlerContext connectionContext, final RemoteConnection remoteConnection, final int maxInboundChannels, final int maxOutboundChannels, final Principal principal, final String remoteEndpointName, final int behavior, final boolean supportsRemoteAuth, final Set<String> offeredMechanisms, final String peerSaslServerName, final String localSaslServerName) {
         super(remoteConnection.getExecutor());
@@ -289,7 +306,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
     }
 
     static void sendCloseRequestBody(RemoteConnection remoteConnection) {
-        final Pooled<ByteBuffer> pooled = remoteConnection.allocate();
+        final Frame pooled = remoteConnection.allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
@@ -333,8 +350,14 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
         final int inboundMessageCount = optionMap.get(RemotingOptions.MAX_INBOUND_MESSAGES, inboundMessageCountOptionValue);
         final long outboundMessageSize = optionMap.get(RemotingOptions.MAX_OUTBOUND_MESSAGE_SIZE, outboundMessageSizeOptionValue);
         final long inboundMessageSize = optionMap.get(RemotingOptions.MAX_INBOUND_MESSAGE_SIZE, inboundMessageSizeOptionValue);
+        final boolean optimistic = optionMap.get(RemotingOptions.OPTIMISTIC_CHANNEL_OPEN, RemotingOptions.DEFAULT_OPTIMISTIC_CHANNEL_OPEN);
+        // the messages of an optimistic channel are sent before the codec could be agreed
+        final String compressionOffer = optimistic ? null : CompressionCodecs.getOffer(optionMap.get(RemotingOptions.COMPRESSION_CODECS));
+        final int compressionThreshold = optionMap.get(RemotingOptions.COMPRESSION_THRESHOLD, RemotingOptions.DEFAULT_COMPRESSION_THRESHOLD);
+        final int maxFrameSize = optimistic ? 0 : Math.min(optionMap.get(RemotingOptions.MAX_FRAME_SIZE, 0), Protocol.MAX_FRAME_SIZE);
 
         final IntIndexMap<PendingChannel> pendingChannels = this.pendingChannels;
+        final long startTime = remoteConnection.getRemoteConnectionProvider().getLatency() == null ? 0L : System.nanoTime();
         try {
             handleOutboundChannelOpen();
         } catch (IOException e) {
@@ -344,11 +367,19 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
         boolean ok = false;
         try {
             final Random random = ThreadLocalRandom.current();
+            final boolean compact = remoteConnection.getProtocolVersion() >= Protocol.VERSION_COMPACT_FRAMES;
+            final int next = nextChannelIndex;
+            int tries = 0;
             for (;;) {
-                id = random.nextInt() | 0x80000000;
-                if (! pendingChannels.containsKey(id)) {
-                    PendingChannel pendingChannel = new PendingChannel(id, outboundWindowSize, inboundWindowSize, outboundMessageCount, inboundMessageCount, outboundMessageSize, inboundMessageSize, MESSAGE_ACK_TIMEOUT, result);
+                id = (compact ? getCompactChannelId(next, tries ++, random) : random.nextInt()) | 0x80000000;
+                if (! pendingChannels.containsKey(id) && ! (compact && channels.containsKey(id))) {
+                    // an optimistic channel starts with limits low enough for any peer to grant
+                    final RemoteConnectionChannel optimisticChannel = optimistic ? new RemoteConnectionChannel(this, remoteConnection, id, Math.min(outboundWindowSize, PROVISIONAL_WINDOW_SIZE), inboundWindowSize, Math.min(outboundMessageCount, PROVISIONAL_MESSAGE_COUNT), inboundMessageCount, outboundMessageSize, inboundMessageSize, MESSAGE_ACK_TIMEOUT) : null;
+                    PendingChannel pendingChannel = new PendingChannel(id, outboundWindowSize, inboundWindowSize, outboundMessageCount, inboundMessageCount, outboundMessageSize, inboundMessageSize, MESSAGE_ACK_TIMEOUT, result, optimisticChannel, compressionThreshold, maxFrameSize, startTime);
                     if (pendingChannels.putIfAbsent(pendingChannel) == null) {
+                        if (compact && (id & 0x7fffffff) < getChannelIdRange(0)) {
+                            nextChannelIndex = (id & 0x7fffffff) + 1;
+                        }
                         if (log.isTraceEnabled()) {
                             log.tracef("Outbound service request for channel %08x is configured as follows:\n" +
                                     "  outbound window:  option %10d, req %10d\n" +
@@ -373,7 +404,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
                             return IoUtils.nullCancellable();
                         }
 
-                        Pooled<ByteBuffer> pooled = remoteConnection.allocate();
+                        Frame pooled = remoteConnection.allocate();
                         try {
                             ByteBuffer buffer = pooled.getResource();
                             buffer.put(Protocol.CHANNEL_OPEN_REQUEST);
@@ -389,15 +420,33 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
                             if (outboundMessageSize != Long.MAX_VALUE) {
                                 ProtocolUtils.writeLong(buffer, Protocol.O_MAX_OUTBOUND_MSG_SIZE, outboundMessageSize);
                             }
+                            if (compressionOffer != null) {
+                                ProtocolUtils.writeBytes(buffer, Protocol.O_COMPRESSION, compressionOffer.getBytes(StandardCharsets.UTF_8));
+                            }
+                            if (maxFrameSize > 0) {
+                                ProtocolUtils.writeInt(buffer, Protocol.O_MAX_FRAME_SIZE, maxFrameSize);
+                            }
                             buffer.put((byte) 0);
                             buffer.flip();
+                            if (optimisticChannel != null) {
+                                // register the channel before any of its messages can be sent
+                                channels.put(optimisticChannel);
+                            }
                             remoteConnection.send(pooled);
                             ok = true;
                             log.tracef("Completed initiation of service open of type %s on %s", serviceType, this);
+                            if (optimisticChannel != null) {
+                                // messages sent now follow the open request, so the channel can be used right away
+                                log.tracef("Optimistically opened %s", optimisticChannel);
+                                result.setResult(optimisticChannel);
+                            }
                             // TODO: allow cancel
                             return IoUtils.nullCancellable();
                         } finally {
-                            if (! ok) pooled.free();
+                            if (! ok) {
+                                pooled.free();
+                                if (optimisticChannel != null) channels.remove(optimisticChannel);
+                            }
                         }
                     }
                 }
@@ -407,6 +456,34 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
         }
     }
 
+    /**
+     * Get the range of channel IDs to pick from on a connection which uses compact frames.  Small IDs are tried first,
+     * so that the channel index in compact frames usually takes a single byte; the largest range keeps the index
+     * within four bytes.
+     *
+     * @param tries the number of IDs which were already tried
+     * @return the ID range
+     */
+    static int getChannelIdRange(final int tries) {
+        return tries < 1 << 6 ? 1 << 6 : tries < (1 << 6) + 16 ? 1 << 13 : 1 << 27;
+    }
+
+    /**
+     * Get a candidate channel ID on a connection which uses compact frames.  Each of the small IDs is tried in turn,
+     * starting from the one after the most recently allocated, so that the ID of a channel which was just closed is not
+     * reused while the peer may still be sending frames for it.  Once all of them are taken, the larger ranges are
+     * tried at random.
+     *
+     * @param next the small ID to start from
+     * @param tries the number of IDs which were already tried
+     * @param random the random source for the larger ranges
+     * @return the candidate channel ID, without the high bit
+     */
+    static int getCompactChannelId(final int next, final int tries, final Random random) {
+        final int range = getChannelIdRange(tries);
+        return range == getChannelIdRange(0) ? (next + tries) & (range - 1) : random.nextInt(range);
+    }
+
     public void sendAuthRequest(final int id, final String mechName, final byte[] initialResponse) throws IOException {
         log.tracef("Sending authentication request for ID %08x, mech %s", id, mechName);
         final byte[] mechNameBytes = mechName.getBytes(StandardCharsets.UTF_8);
@@ -415,7 +492,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
             throw log.mechanismNameTooLong(mechName);
         }
         int requiredSize = 6 + length + ((initialResponse != null) ? initialResponse.length : 0);
-        final Pooled<ByteBuffer> pooled = remoteConnection.allocate();
+        final Frame pooled = remoteConnection.allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
@@ -440,7 +517,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
     public void sendAuthChallenge(final int id, final byte[] challenge) throws IOException {
         log.tracef("Sending authentication challenge for ID %08x", id);
         int requiredSize = 5 + challenge.length;
-        final Pooled<ByteBuffer> pooled = remoteConnection.allocate();
+        final Frame pooled = remoteConnection.allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
@@ -461,7 +538,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
     public void sendAuthResponse(final int id, final byte[] response) throws IOException {
         log.tracef("Sending authentication response for ID %08x", id);
         int requiredSize = 5 + response.length;
-        final Pooled<ByteBuffer> pooled = remoteConnection.allocate();
+        final Frame pooled = remoteConnection.allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
@@ -482,7 +559,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
     public void sendAuthSuccess(final int id, final byte[] challenge) throws IOException {
         log.tracef("Sending authentication success for ID %08x", id);
         int requiredSize = 5 + ((challenge != null) ? challenge.length : 0);
-        final Pooled<ByteBuffer> pooled = remoteConnection.allocate();
+        final Frame pooled = remoteConnection.allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
@@ -505,7 +582,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
     public void sendAuthReject(final int id) throws IOException {
         log.tracef("Sending authentication reject for ID %08x", id);
         // todo: allocate small buffer
-        final Pooled<ByteBuffer> pooled = remoteConnection.allocate();
+        final Frame pooled = remoteConnection.allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
@@ -522,7 +599,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
     public void sendAuthDelete(final int id) throws IOException {
         log.tracef("Sending authentication delete for ID %08x", id);
         // todo: allocate small buffer
-        final Pooled<ByteBuffer> pooled = remoteConnection.allocate();
+        final Frame pooled = remoteConnection.allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
@@ -539,7 +616,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
     public void sendAuthDeleteAck(final int id) throws IOException {
         log.tracef("Sending authentication delete ack for ID %08x", id);
         // todo: allocate small buffer
-        final Pooled<ByteBuffer> pooled = remoteConnection.allocate();
+        final Frame pooled = remoteConnection.allocate();
         boolean ok = false;
         try {
             final ByteBuffer buffer = pooled.getResource();
@@ -586,6 +663,99 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
         return supportsRemoteAuth;
     }
 
+    RemoteConnection getRemoteConnection() {
+        return remoteConnection;
+    }
+
+    public long getLoad() {
+        // the data waiting to be written and the data in flight (the write rate times the round trip time) are the real
+        // load, so that a slower path counts as more loaded; each open channel adds a byte so that idle connections still
+        // prefer the one with fewer channels
+        return remoteConnection.getQueuedBytes() + remoteConnection.getBytesInFlight() + channels.size();
+    }
+
+    ChannelTraffic[] getChannelTraffic() {
+        final ArrayList<RemoteConnectionChannel> list;
+        synchronized (remoteConnection.getLock()) {
+            list = new ArrayList<RemoteConnectionChannel>(channels);
+        }
+        final ChannelTraffic[] traffic = new ChannelTraffic[list.size()];
+        for (int i = 0; i < traffic.length; i ++) {
+            final RemoteConnectionChannel channel = list.get(i);
+            traffic[i] = new ChannelTraffic(channel.getChannelId(), channel.getOutboundMessageCount(), channel.getTraffic());
+        }
+        return traffic;
+    }
+
+    ObjectName getObjectName() {
+        return objectName;
+    }
+
+    void setObjectName(final ObjectName objectName) {
+        this.objectName = objectName;
+    }
+
+    RemoteConnectionMXBean createMXBean() {
+        return new RemoteConnectionMXBean() {
+            public String getPeerAddress() {
+                return String.valueOf(RemoteConnectionHandler.this.getPeerAddress());
+            }
+
+            public String getRemoteEndpointName() {
+                return remoteEndpointName;
+            }
+
+            public boolean isOpen() {
+                return RemoteConnectionHandler.this.isOpen();
+            }
+
+            public long getBytesReceived() {
+                return remoteConnection.getTraffic().getBytesReceived();
+            }
+
+            public long getBytesSent() {
+                return remoteConnection.getTraffic().getBytesSent();
+            }
+
+            public long getFramesReceived() {
+                return remoteConnection.getTraffic().getFramesReceived();
+            }
+
+            public long getFramesSent() {
+                return remoteConnection.getTraffic().getFramesSent();
+            }
+
+            public long getMessagesReceived() {
+                return remoteConnection.getTraffic().getMessagesReceived();
+            }
+
+            public long getMessagesSent() {
+                return remoteConnection.getTraffic().getMessagesSent();
+            }
+
+            public long getWindowStallCount() {
+                return remoteConnection.getTraffic().getWindowStallCount();
+            }
+
+            public int getWriteQueueDepth() {
+                return remoteConnection.getQueuedFrames();
+            }
+
+            public long getWriteQueueBytes() {
+                return remoteConnection.getQueuedBytes();
+            }
+
+            public long getRoundTripTimeMicros() {
+                final long roundTripTime = remoteConnection.getSmoothedRoundTripTime();
+                return roundTripTime == -1L ? -1L : TimeUnit.NANOSECONDS.toMicros(roundTripTime);
+            }
+
+            public ChannelTraffic[] getChannelTraffic() {
+                return RemoteConnectionHandler.this.getChannelTraffic();
+            }
+        };
+    }
+
     public Set<String> getOfferedMechanisms() {
         return offeredMechanisms;
     }
@@ -677,6 +847,10 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
             b.append('\n');
             b.append("    ").append("* ").append(inboundChannels).append(" (max ").append(maxInboundChannels).append(") inbound channels\n");
             b.append("    ").append("* ").append(outboundChannels).append(" (max ").append(maxOutboundChannels).append(") outbound channels\n");
+            final long roundTripTime = remoteConnection.getSmoothedRoundTripTime();
+            if (roundTripTime != -1L) {
+                b.append("    ").append("* Round trip time ").append(TimeUnit.NANOSECONDS.toMicros(roundTripTime)).append(" us (min ").append(TimeUnit.NANOSECONDS.toMicros(remoteConnection.getMinRoundTripTime())).append(" us, max ").append(TimeUnit.NANOSECONDS.toMicros(remoteConnection.getMaxRoundTripTime())).append(" us)\n");
+            }
             b.append("    ").append("* Channels:\n");
             for (RemoteConnectionChannel connectionChannel : channels) {
                 connectionChannel.dumpState(b);
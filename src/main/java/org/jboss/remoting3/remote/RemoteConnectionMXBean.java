@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+/**
+ * An MBean for examining the traffic of a single connection.  Connection MBeans are only registered for connections
+ * which enable {@link org.jboss.remoting3.RemotingOptions#CONNECTION_MBEANS}.
+ */
+public interface RemoteConnectionMXBean {
+    String getPeerAddress();
+
+    String getRemoteEndpointName();
+
+    boolean isOpen();
+
+    long getBytesReceived();
+
+    long getBytesSent();
+
+    long getFramesReceived();
+
+    long getFramesSent();
+
+    long getMessagesReceived();
+
+    long getMessagesSent();
+
+    long getWindowStallCount();
+
+    int getWriteQueueDepth();
+
+    long getWriteQueueBytes();
+
+    long getRoundTripTimeMicros();
+
+    ChannelTraffic[] getChannelTraffic();
+}
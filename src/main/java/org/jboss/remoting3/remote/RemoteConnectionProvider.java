@@ -27,12 +27,15 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.URI;
+import java.net.UnknownHostException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.UnaryOperator;
 
 import javax.management.MBeanServer;
@@ -41,10 +44,12 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.security.sasl.SaslClientFactory;
 
+import org.jboss.remoting3.RemotingOptions;
 import org.jboss.remoting3.spi.AbstractHandleableCloseable;
 import org.jboss.remoting3.spi.ConnectionHandlerFactory;
 import org.jboss.remoting3.spi.ConnectionProvider;
 import org.jboss.remoting3.spi.ConnectionProviderContext;
+import org.jboss.remoting3.spi.LatencyListener;
 import org.jboss.remoting3.spi.NetworkServerProvider;
 import org.wildfly.common.Assert;
 import org.wildfly.security.auth.client.AuthenticationConfiguration;
@@ -59,6 +64,7 @@ import org.xnio.OptionMap;
 import org.xnio.Options;
 import org.xnio.Result;
 import org.xnio.StreamConnection;
+import org.xnio.XnioIoThread;
 import org.xnio.XnioWorker;
 import org.xnio.channels.AcceptingChannel;
 import org.xnio.channels.SslChannel;
@@ -95,23 +101,41 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
     private final MBeanServer server;
     private final ObjectName objectName;
     private final ConcurrentHashMap<InetAddress, InetAddress> cachedAddresses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, InetAddress> connectedAddresses = new ConcurrentHashMap<>();
+    private final EndpointBufferPool bufferPool;
+    private final LongAdder readBudgetExhausted = new LongAdder();
+    private final LongAdder compressionInputBytes = new LongAdder();
+    private final LongAdder compressionOutputBytes = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+    private final LongAdder decompressionNanos = new LongAdder();
+    private final TlsSessionCache tlsSessionCache;
+    private final HandshakeCache handshakeCache = new HandshakeCache(256);
+    private final TrafficCounters traffic = new TrafficCounters(null);
+    private final LatencyMetrics latency;
+    private final ConcurrentHashMap<XnioIoThread, HeartbeatWheel> heartbeatWheels = new ConcurrentHashMap<>();
 
     RemoteConnectionProvider(final OptionMap optionMap, final ConnectionProviderContext connectionProviderContext, final String protocolName) throws IOException {
         super(connectionProviderContext.getExecutor());
         sslRequired = optionMap.get(Options.SECURE, false);
         xnioWorker = connectionProviderContext.getXnioWorker();
         this.connectionProviderContext = connectionProviderContext;
+        bufferPool = EndpointBufferPool.forEndpoint(connectionProviderContext.getEndpoint(), optionMap);
+        tlsSessionCache = new TlsSessionCache(
+            Math.max(0, optionMap.get(RemotingOptions.TLS_SESSION_CACHE_SIZE, RemotingOptions.DEFAULT_TLS_SESSION_CACHE_SIZE)),
+            Math.max(0, optionMap.get(RemotingOptions.TLS_SESSION_CACHE_TIMEOUT, RemotingOptions.DEFAULT_TLS_SESSION_CACHE_TIMEOUT))
+        );
+        final String endpointName = connectionProviderContext.getEndpoint().getName();
+        final String name;
+        if (endpointName == null) {
+            name = "Remoting (anonymous) " + protocolName;
+        } else {
+            name = "Remoting-" + endpointName + "-" + protocolName;
+        }
+        latency = LatencyMetrics.create(optionMap, name);
         MBeanServer server = null;
         ObjectName objectName = null;
         try {
             server = ManagementFactory.getPlatformMBeanServer();
-            final String endpointName = connectionProviderContext.getEndpoint().getName();
-            String name;
-            if (endpointName == null) {
-                name = "Remoting (anonymous) " + protocolName;
-            } else {
-                name = "Remoting-" + endpointName + "-" + protocolName;
-            }
             objectName = new ObjectName("jboss.remoting.handler", "name", name + "-" + hashCode());
             server.registerMBean(new RemoteConnectionProviderMXBean() {
                 public void dumpConnectionState() {
@@ -125,6 +149,121 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
                 public boolean isOpen() {
                     return RemoteConnectionProvider.super.isOpen();
                 }
+
+                public long getReadBudgetExhaustedCount() {
+                    return readBudgetExhausted.sum();
+                }
+
+                public long getTlsSessionResumedCount() {
+                    return tlsSessionCache.getHitCount();
+                }
+
+                public long getTlsFullHandshakeCount() {
+                    return tlsSessionCache.getMissCount();
+                }
+
+                public int getTlsSessionCacheSize() {
+                    return tlsSessionCache.size();
+                }
+
+                public long getAverageRoundTripTimeMicros() {
+                    long sum = 0L;
+                    int count = 0;
+                    synchronized (handlers) {
+                        for (RemoteConnectionHandler handler : handlers) {
+                            final long roundTripTime = handler.getRemoteConnection().getSmoothedRoundTripTime();
+                            if (roundTripTime != -1L) {
+                                sum += roundTripTime;
+                                count ++;
+                            }
+                        }
+                    }
+                    return count == 0 ? -1L : TimeUnit.NANOSECONDS.toMicros(sum / count);
+                }
+
+                public long getMaxRoundTripTimeMicros() {
+                    long max = -1L;
+                    synchronized (handlers) {
+                        for (RemoteConnectionHandler handler : handlers) {
+                            max = Math.max(max, handler.getRemoteConnection().getSmoothedRoundTripTime());
+                        }
+                    }
+                    return max == -1L ? -1L : TimeUnit.NANOSECONDS.toMicros(max);
+                }
+
+                public long getCompressionInputBytes() {
+                    return compressionInputBytes.sum();
+                }
+
+                public long getCompressionOutputBytes() {
+                    return compressionOutputBytes.sum();
+                }
+
+                public long getCompressionTimeMicros() {
+                    return TimeUnit.NANOSECONDS.toMicros(compressionNanos.sum());
+                }
+
+                public long getDecompressionTimeMicros() {
+                    return TimeUnit.NANOSECONDS.toMicros(decompressionNanos.sum());
+                }
+
+                public long getBytesReceived() {
+                    return traffic.getBytesReceived();
+                }
+
+                public long getBytesSent() {
+                    return traffic.getBytesSent();
+                }
+
+                public long getFramesReceived() {
+                    return traffic.getFramesReceived();
+                }
+
+                public long getFramesSent() {
+                    return traffic.getFramesSent();
+                }
+
+                public long getMessagesReceived() {
+                    return traffic.getMessagesReceived();
+                }
+
+                public long getMessagesSent() {
+                    return traffic.getMessagesSent();
+                }
+
+                public long getWindowStallCount() {
+                    return traffic.getWindowStallCount();
+                }
+
+                public int getWriteQueueDepth() {
+                    int depth = 0;
+                    synchronized (handlers) {
+                        for (RemoteConnectionHandler handler : handlers) {
+                            depth += handler.getRemoteConnection().getQueuedFrames();
+                        }
+                    }
+                    return depth;
+                }
+
+                public LatencyPercentiles getChannelOpenLatency() {
+                    return latency == null ? null : latency.getPercentiles(LatencyListener.Interval.CHANNEL_OPEN);
+                }
+
+                public LatencyPercentiles getConnectLatency() {
+                    return latency == null ? null : latency.getPercentiles(LatencyListener.Interval.CONNECT);
+                }
+
+                public LatencyPercentiles getWindowWaitLatency() {
+                    return latency == null ? null : latency.getPercentiles(LatencyListener.Interval.WINDOW_WAIT);
+                }
+
+                public LatencyPercentiles getMessageAckLatency() {
+                    return latency == null ? null : latency.getPercentiles(LatencyListener.Interval.MESSAGE_ACK);
+                }
+
+                public void resetLatencyHistograms() {
+                    if (latency != null) latency.reset();
+                }
             }, objectName);
         } catch (Exception e) {
             // ignore
@@ -177,6 +316,7 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
         final IoFuture<ConnectionHandlerFactory> returnedFuture = cancellableResult.getIoFuture();
         returnedFuture.addNotifier(IoUtils.<ConnectionHandlerFactory>resultNotifier(), result);
         final boolean useSsl = sslRequired || connectOptions.get(Options.SSL_ENABLED, true);
+        final long startTime = latency == null ? 0L : System.nanoTime();
         final ChannelListener<StreamConnection> openListener = new ChannelListener<StreamConnection>() {
             public void handleEvent(final StreamConnection connection) {
                 try {
@@ -198,15 +338,22 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
                     remoteConnection.setResult(cancellableResult);
                     connection.getSinkChannel().setWriteListener(remoteConnection.getWriteListener());
                     connection.getSinkChannel().setCloseListener(channel -> remoteConnection.getWriteListener().shutdownWrites());
-                    final ClientConnectionOpenListener openListener = new ClientConnectionOpenListener(destination, remoteConnection, connectionProviderContext, authenticationConfiguration, saslClientFactoryOperator, serverMechs, connectOptions);
+                    final ClientConnectionOpenListener openListener = new ClientConnectionOpenListener(destination, remoteConnection, connectionProviderContext, authenticationConfiguration, saslClientFactoryOperator, serverMechs, connectOptions, startTime);
                     openListener.handleEvent(connection.getSourceChannel());
                 }
             }
         };
         final AuthenticationContextConfigurationClient configurationClient = ClientConnectionOpenListener.AUTH_CONFIGURATION_CLIENT;
         final InetSocketAddress address = configurationClient.getDestinationInetSocketAddress(destination, authenticationConfiguration, 0);
+        final String host = configurationClient.getRealHost(destination, authenticationConfiguration);
+        final InetSocketAddress[] addresses = getConnectAddresses(host, address, (InetSocketAddress) bindAddress, connectOptions);
         final IoFuture<? extends StreamConnection> future;
-        if (useSsl) {
+        if (addresses.length > 1) {
+            final long delay = connectOptions.get(RemotingOptions.CONNECTION_ATTEMPT_DELAY, RemotingOptions.DEFAULT_CONNECTION_ATTEMPT_DELAY);
+            future = new ParallelConnect(connectedAddresses, host, addresses, delay, xnioWorker.getIoThread(), (candidate, candidateOpenListener) -> useSsl ?
+                createSslConnection(destination, (InetSocketAddress) bindAddress, candidate, connectOptions, authenticationConfiguration, sslContext, candidateOpenListener) :
+                createConnection(destination, (InetSocketAddress) bindAddress, candidate, connectOptions, candidateOpenListener), openListener).start();
+        } else if (useSsl) {
             future = createSslConnection(destination, (InetSocketAddress) bindAddress, address, connectOptions, authenticationConfiguration, sslContext, openListener);
         } else {
             future = createConnection(destination, (InetSocketAddress) bindAddress, address, connectOptions, openListener);
@@ -276,6 +423,7 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
                 }
                 // Required in order for the SSLConnection to be properly closed.
                 streamConnection.getCloseSetter().set(channel -> safeClose(sslConnection));
+                tlsSessionCache.track(sslConnection, sslContext, realHost, realPort);
                 if (sslRequired) try {
                     sslConnection.startHandshake();
                 } catch (IOException e) {
@@ -315,12 +463,93 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
         }
     }
 
+    EndpointBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    HandshakeCache getHandshakeCache() {
+        return handshakeCache;
+    }
+
+    TrafficCounters getTraffic() {
+        return traffic;
+    }
+
+    /**
+     * Get the latency metrics of this provider.
+     *
+     * @return the latency metrics, or {@code null} if latency is not measured
+     */
+    LatencyMetrics getLatency() {
+        return latency;
+    }
+
+    HeartbeatWheel getHeartbeatWheel(final XnioIoThread ioThread) {
+        return heartbeatWheels.computeIfAbsent(ioThread, HeartbeatWheel::new);
+    }
+
+    void readBudgetExhausted() {
+        readBudgetExhausted.increment();
+    }
+
+    void compressed(final long inputBytes, final long nanos) {
+        compressionInputBytes.add(inputBytes);
+        compressionNanos.add(nanos);
+    }
+
+    void compressedOutput(final long bytes) {
+        compressionOutputBytes.add(bytes);
+    }
+
+    void decompressed(final long nanos) {
+        decompressionNanos.add(nanos);
+    }
+
     void addConnectionHandler(final RemoteConnectionHandler connectionHandler) {
         handlers.add(connectionHandler);
+        if (server != null && objectName != null && connectionHandler.getRemoteConnection().getOptionMap().get(RemotingOptions.CONNECTION_MBEANS, RemotingOptions.DEFAULT_CONNECTION_MBEANS)) {
+            try {
+                final ObjectName connectionName = new ObjectName(objectName.getDomain(), "name", objectName.getKeyProperty("name") + "-connection-" + connectionHandler.hashCode());
+                server.registerMBean(connectionHandler.createMXBean(), connectionName);
+                connectionHandler.setObjectName(connectionName);
+            } catch (Exception e) {
+                // ignore
+            }
+        }
     }
 
     void removeConnectionHandler(final RemoteConnectionHandler connectionHandler) {
         handlers.remove(connectionHandler);
+        final ObjectName connectionName = connectionHandler.getObjectName();
+        if (connectionName != null) {
+            connectionHandler.setObjectName(null);
+            try {
+                server.unregisterMBean(connectionName);
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+
+    /**
+     * Get the addresses to try when connecting to the given host.  If the host resolves to several addresses they are all
+     * returned, in connection order.
+     */
+    private InetSocketAddress[] getConnectAddresses(final String host, final InetSocketAddress address, final InetSocketAddress bindAddress, final OptionMap connectOptions) {
+        final InetSocketAddress[] single = new InetSocketAddress[] { address };
+        if (host == null || address.isUnresolved() || connectOptions.get(RemotingOptions.CONNECTION_ATTEMPT_DELAY, RemotingOptions.DEFAULT_CONNECTION_ATTEMPT_DELAY) <= 0) {
+            return single;
+        }
+        final InetAddress[] resolved;
+        try {
+            resolved = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            return single;
+        }
+        if (resolved.length <= 1) {
+            return single;
+        }
+        final InetSocketAddress[] addresses = ParallelConnect.order(resolved, connectedAddresses.get(host), address.getPort(), bindAddress == null || bindAddress.isUnresolved() ? null : bindAddress.getAddress());
+        return addresses.length == 0 ? single : addresses;
     }
 
     InetAddress getCachedLocalAddress(final InetAddress localAddress) {
@@ -27,4 +27,50 @@ public interface RemoteConnectionProviderMXBean {
     String dumpConnectionStateToString();
 
     boolean isOpen();
+
+    long getReadBudgetExhaustedCount();
+
+    long getTlsSessionResumedCount();
+
+    long getTlsFullHandshakeCount();
+
+    int getTlsSessionCacheSize();
+
+    long getAverageRoundTripTimeMicros();
+
+    long getMaxRoundTripTimeMicros();
+
+    long getCompressionInputBytes();
+
+    long getCompressionOutputBytes();
+
+    long getCompressionTimeMicros();
+
+    long getDecompressionTimeMicros();
+
+    long getBytesReceived();
+
+    long getBytesSent();
+
+    long getFramesReceived();
+
+    long getFramesSent();
+
+    long getMessagesReceived();
+
+    long getMessagesSent();
+
+    long getWindowStallCount();
+
+    int getWriteQueueDepth();
+
+    LatencyPercentiles getChannelOpenLatency();
+
+    LatencyPercentiles getConnectLatency();
+
+    LatencyPercentiles getWindowWaitLatency();
+
+    LatencyPercentiles getMessageAckLatency();
+
+    void resetLatencyHistograms();
 }
@@ -23,11 +23,16 @@ import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.remoting3.OpenListener;
 import org.jboss.remoting3.RemotingOptions;
 import org.jboss.remoting3.ServiceOpenException;
+import org.jboss.remoting3.spi.CompressionCodecFactory;
 import org.jboss.remoting3.spi.ConnectionHandlerContext;
+import org.jboss.remoting3.spi.LatencyListener;
 import org.jboss.remoting3.spi.RegisteredService;
 import org.jboss.remoting3.spi.SpiUtils;
 
@@ -38,7 +43,6 @@ import org.xnio.ChannelListeners;
 import org.xnio.Connection;
 import org.xnio.IoUtils;
 import org.xnio.OptionMap;
-import org.xnio.Pooled;
 import org.xnio.StreamConnection;
 import org.xnio.conduits.ConduitStreamSourceChannel;
 import org.xnio.sasl.SaslWrapper;
@@ -55,7 +59,14 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
     private static final byte[] NO_BYTES = new byte[0];
     private final RemoteConnectionHandler handler;
     private final RemoteConnection connection;
+    private final long maxInboundBytes;
+    private final long resumeInboundBytes;
+    private final AtomicLong inboundBytes = new AtomicLong();
+    private final int frameBudget;
+    private final int byteBudget;
     private ChannelListener previousCloseListener = null;
+    /** The frames of the most recent bundle which are still to be handled; only accessed by the read thread. */
+    private final ArrayDeque<Frame> bundledFrames = new ArrayDeque<>();
 
     RemoteReadListener(final RemoteConnectionHandler handler, final RemoteConnection connection) {
         Connection xnioConnection = connection.getConnection();
@@ -73,6 +84,51 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
         }
         this.handler = handler;
         this.connection = connection;
+        maxInboundBytes = connection.getOptionMap().get(RemotingOptions.MAX_INBOUND_MEMORY, RemotingOptions.DEFAULT_MAX_INBOUND_MEMORY);
+        resumeInboundBytes = maxInboundBytes >> 1;
+        final OptionMap optionMap = connection.getOptionMap();
+        frameBudget = Math.max(1, optionMap.get(RemotingOptions.READ_EVENT_FRAME_BUDGET, RemotingOptions.DEFAULT_READ_EVENT_FRAME_BUDGET));
+        byteBudget = Math.max(1, optionMap.get(RemotingOptions.READ_EVENT_BYTE_BUDGET, RemotingOptions.DEFAULT_READ_EVENT_BYTE_BUDGET));
+    }
+
+    /**
+     * Account for message data which has been handed to a channel but not yet consumed, suspending reads if the
+     * connection's inbound memory limit is exceeded.
+     *
+     * @param bytes the number of bytes received
+     */
+    void inboundReceived(final int bytes) {
+        if (inboundBytes.addAndGet(bytes) > maxInboundBytes) {
+            final MessageReader messageReader = connection.getMessageReader();
+            synchronized (connection.getLock()) {
+                // decide on the current total so that a concurrent release cannot leave reads suspended
+                if (inboundBytes.get() > maxInboundBytes && ! messageReader.isReadSuspended(MessageReader.SUSPEND_INBOUND_LIMIT)) {
+                    log.tracef("Inbound memory limit of %d bytes exceeded on %s; suspending reads", Long.valueOf(maxInboundBytes), connection);
+                    messageReader.suspendReads(MessageReader.SUSPEND_INBOUND_LIMIT);
+                }
+            }
+        }
+    }
+
+    /**
+     * Account for message data which has been consumed or discarded, resuming reads once enough data has drained.
+     *
+     * @param bytes the number of bytes released
+     */
+    void inboundReleased(final int bytes) {
+        final MessageReader messageReader = connection.getMessageReader();
+        if (inboundBytes.addAndGet(- bytes) <= resumeInboundBytes && messageReader.isReadSuspended(MessageReader.SUSPEND_INBOUND_LIMIT)) {
+            synchronized (connection.getLock()) {
+                if (inboundBytes.get() <= resumeInboundBytes) {
+                    log.tracef("Inbound data drained on %s; resuming reads", connection);
+                    messageReader.resumeReads(MessageReader.SUSPEND_INBOUND_LIMIT);
+                }
+            }
+        }
+    }
+
+    long getInboundBytes() {
+        return inboundBytes.get();
     }
 
     public void handleEvent(final ConduitStreamSourceChannel channel) {
@@ -80,40 +136,71 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
         final Object lock = connection.getLock();
         final MessageReader messageReader = connection.getMessageReader();
         try {
-            Pooled<ByteBuffer> message = null;
+            Frame message = null;
             ByteBuffer buffer = null;
+            int frames = 0;
+            long bytes = 0L;
             for (;;) try {
-                boolean exit = false;
-                message = messageReader.getMessage();
-                if (message == MessageReader.EOF_MARKER) {
-                    log.trace("Received connection end-of-stream");
-                    exit = true;
-                } else if (message == null) {
-                    log.trace("No message ready; returning");
-                    return;
-                }
-                if (exit) {
-                    messageReader.shutdownReads();
-                    handler.receiveCloseRequest();
-                    return;
-                }
-                buffer = message.getResource();
-                if (saslWrapper != null) {
-                    final ByteBuffer source = buffer.duplicate();
-                    buffer.clear();
-                    saslWrapper.unwrap(buffer, source);
-                    buffer.flip();
+                // the frames of a bundle are handled in the same dispatch, regardless of flow control and budget
+                message = bundledFrames.poll();
+                if (message != null) {
+                    buffer = message.getResource();
+                } else {
+                    boolean exit = false;
+                    if (messageReader.isReadSuspended()) {
+                        log.trace("Reads suspended for flow control; returning");
+                        return;
+                    }
+                    if (frames >= frameBudget || bytes >= byteBudget) {
+                        // let the other connections on this thread have a turn
+                        log.trace("Read budget exhausted; yielding");
+                        connection.getRemoteConnectionProvider().readBudgetExhausted();
+                        messageReader.wakeupReads();
+                        return;
+                    }
+                    message = messageReader.getMessage();
+                    if (message == MessageReader.EOF_MARKER) {
+                        log.trace("Received connection end-of-stream");
+                        exit = true;
+                    } else if (message == null) {
+                        log.trace("No message ready; returning");
+                        return;
+                    }
+                    if (exit) {
+                        messageReader.shutdownReads();
+                        handler.receiveCloseRequest();
+                        return;
+                    }
+                    buffer = message.getResource();
+                    frames ++;
+                    bytes += buffer.remaining();
+                    if (saslWrapper != null) {
+                        final ByteBuffer source = buffer.duplicate();
+                        buffer.clear();
+                        saslWrapper.unwrap(buffer, source);
+                        buffer.flip();
+                    }
+                    if (buffer.hasRemaining() && buffer.get(buffer.position()) == Protocol.BUNDLE) {
+                        log.trace("Received frame bundle");
+                        buffer.get();
+                        unbundle(message, buffer, bundledFrames);
+                        // the bundled frames now own the bundle
+                        message = null;
+                        continue;
+                    }
                 }
                 final byte protoId = buffer.get();
+                message.setType(protoId);
                 try {
                     switch (protoId) {
                         case Protocol.CONNECTION_ALIVE: {
                             log.trace("Received connection alive");
-                            connection.sendAliveResponse();
+                            connection.sendAliveResponse(buffer);
                             break;
                         }
                         case Protocol.CONNECTION_ALIVE_ACK: {
                             log.trace("Received connection alive ack");
+                            connection.receiveAliveResponse(buffer);
                             break;
                         }
                         case Protocol.CONNECTION_CLOSE: {
@@ -133,6 +220,8 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                             int requestedOutboundMessages = 0xffff;
                             long requestedInboundMessageSize = Long.MAX_VALUE;
                             long requestedOutboundMessageSize = Long.MAX_VALUE;
+                            String compressionOffer = null;
+                            int requestedFrameSize = 0;
                             // parse out request
                             int b;
                             String serviceType = null;
@@ -168,6 +257,14 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                         requestedInboundMessageSize = Math.min(requestedInboundMessageSize, ProtocolUtils.readLong(buffer));
                                         break;
                                     }
+                                    case Protocol.O_COMPRESSION: {
+                                        compressionOffer = ProtocolUtils.readString(buffer);
+                                        break;
+                                    }
+                                    case Protocol.O_MAX_FRAME_SIZE: {
+                                        requestedFrameSize = ProtocolUtils.readInt(buffer);
+                                        break;
+                                    }
                                     default: {
                                         Buffers.skip(buffer, buffer.get() & 0xff);
                                         break;
@@ -179,6 +276,11 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                 refuseService(channelId, "Invalid channel ID");
                                 break;
                             }
+                            if (connection.getProtocolVersion() >= Protocol.VERSION_COMPACT_FRAMES && channelId >= RemoteConnectionHandler.getChannelIdRange(Integer.MAX_VALUE)) {
+                                // the peer must choose IDs whose index fits in a compact frame header
+                                refuseService(channelId, "Invalid channel ID");
+                                break;
+                            }
 
                             if (serviceType == null) {
                                 // invalid service reply
@@ -210,6 +312,8 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                             final int inboundMessages = Math.min(requestedInboundMessages, inboundMessagesOptionValue);
                             final long outboundMessageSize = Math.min(requestedOutboundMessageSize, outboundMessageSizeOptionValue);
                             final long inboundMessageSize = Math.min(requestedInboundMessageSize, inboundMessageSizeOptionValue);
+                            final int maxFrameSize = Math.min(requestedFrameSize, Math.min(serviceOptionMap.get(RemotingOptions.MAX_FRAME_SIZE, 0), Protocol.MAX_FRAME_SIZE));
+                            final String compressionName = CompressionCodecs.select(compressionOffer, serviceOptionMap.get(RemotingOptions.COMPRESSION_CODECS));
 
                             if (log.isTraceEnabled()) {
                                 log.tracef(
@@ -240,6 +344,13 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                             try {
                                 // construct the channel
                                 RemoteConnectionChannel connectionChannel = new RemoteConnectionChannel(handler, connection, channelId, outboundWindow, inboundWindow, outboundMessages, inboundMessages, outboundMessageSize, inboundMessageSize, MESSAGE_ACK_TIMEOUT);
+                                if (compressionName != null) {
+                                    final int compressionThreshold = serviceOptionMap.get(RemotingOptions.COMPRESSION_THRESHOLD, RemotingOptions.DEFAULT_COMPRESSION_THRESHOLD);
+                                    connectionChannel.setCompression(new ChannelCompression(compressionName, CompressionCodecs.getFactory(compressionName).createCodec(), compressionThreshold, connection.getRemoteConnectionProvider()));
+                                }
+                                if (maxFrameSize > 0) {
+                                    connectionChannel.setMaxFrameSize(maxFrameSize);
+                                }
                                 RemoteConnectionChannel existing = handler.addChannel(connectionChannel);
                                 if (existing != null) {
                                     log.tracef("Encountered open request for duplicate %s", existing);
@@ -254,7 +365,7 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                 }
 
                                 // construct reply
-                                Pooled<ByteBuffer> pooledReply = connection.allocate();
+                                Frame pooledReply = connection.allocate();
                                 boolean ok2 = false;
                                 try {
                                     ByteBuffer replyBuffer = pooledReply.getResource();
@@ -271,6 +382,12 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                     if (outboundMessageSize != Long.MAX_VALUE) {
                                         ProtocolUtils.writeLong(replyBuffer, Protocol.O_MAX_OUTBOUND_MSG_SIZE, outboundMessageSize);
                                     }
+                                    if (compressionName != null) {
+                                        ProtocolUtils.writeBytes(replyBuffer, Protocol.O_COMPRESSION, compressionName.getBytes(StandardCharsets.UTF_8));
+                                    }
+                                    if (maxFrameSize > 0) {
+                                        ProtocolUtils.writeInt(replyBuffer, Protocol.O_MAX_FRAME_SIZE, maxFrameSize);
+                                    }
                                     replyBuffer.put((byte) 0);
                                     replyBuffer.flip();
                                     ok2 = true;
@@ -292,7 +409,7 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                         }
                         case Protocol.MESSAGE_DATA: {
                             log.trace("Received message data");
-                            int channelId = buffer.getInt() ^ 0x80000000;
+                            int channelId = (message.isCompact() ? ProtocolUtils.getCompactChannelId(buffer) : buffer.getInt()) ^ 0x80000000;
                             RemoteConnectionChannel connectionChannel = handler.getChannel(channelId);
                             if (connectionChannel == null) {
                                 // ignore the data
@@ -300,15 +417,18 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                 break;
                             }
                             // protect against double-free if the method fails
-                            Pooled<ByteBuffer> messageCopy = message;
+                            Frame messageCopy = message;
                             message = null;
                             buffer = null;
+                            if (maxInboundBytes != Long.MAX_VALUE) {
+                                messageCopy.chargeInbound(this);
+                            }
                             connectionChannel.handleMessageData(messageCopy);
                             break;
                         }
                         case Protocol.MESSAGE_WINDOW_OPEN: {
                             log.trace("Received message window open");
-                            int channelId = buffer.getInt() ^ 0x80000000;
+                            int channelId = (message.isCompact() ? ProtocolUtils.getCompactChannelId(buffer) : buffer.getInt()) ^ 0x80000000;
                             RemoteConnectionChannel connectionChannel = handler.getChannel(channelId);
                             if (connectionChannel == null) {
                                 // ignore
@@ -320,7 +440,7 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                         }
                         case Protocol.MESSAGE_CLOSE: {
                             log.trace("Received message async close");
-                            int channelId = buffer.getInt() ^ 0x80000000;
+                            int channelId = (message.isCompact() ? ProtocolUtils.getCompactChannelId(buffer) : buffer.getInt()) ^ 0x80000000;
                             RemoteConnectionChannel connectionChannel = handler.getChannel(channelId);
                             if (connectionChannel == null) {
                                 break;
@@ -360,6 +480,10 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                 // invalid
                                 break;
                             }
+                            final LatencyMetrics latency = connection.getRemoteConnectionProvider().getLatency();
+                            if (latency != null) {
+                                latency.recordSince(LatencyListener.Interval.CHANNEL_OPEN, pendingChannel.getStartTime());
+                            }
                             int requestedOutboundWindow = pendingChannel.getOutboundWindowSize();
                             int requestedInboundWindow = pendingChannel.getInboundWindowSize();
                             int requestedOutboundMessageCount = pendingChannel.getOutboundMessageCount();
@@ -374,6 +498,8 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                             int inboundMessageCount = requestedInboundMessageCount;
                             long outboundMessageSize = requestedOutboundMessageSize;
                             long inboundMessageSize = requestedInboundMessageSize;
+                            String compressionName = null;
+                            int maxFrameSize = 0;
 
                             OUT: for (;;) {
                                 switch (buffer.get() & 0xff) {
@@ -401,6 +527,14 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                         inboundMessageSize = Math.min(inboundMessageSize, ProtocolUtils.readLong(buffer));
                                         break;
                                     }
+                                    case Protocol.O_COMPRESSION: {
+                                        compressionName = ProtocolUtils.readString(buffer);
+                                        break;
+                                    }
+                                    case Protocol.O_MAX_FRAME_SIZE: {
+                                        maxFrameSize = ProtocolUtils.readInt(buffer);
+                                        break;
+                                    }
                                     case Protocol.O_END: {
                                         break OUT;
                                     }
@@ -431,7 +565,29 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                 );
                             }
 
+                            final RemoteConnectionChannel optimisticChannel = pendingChannel.getChannel();
+                            if (optimisticChannel != null) {
+                                // the channel is already in use; widen its provisional limits
+                                optimisticChannel.updateLimits(outboundWindow, inboundWindow, outboundMessageCount, inboundMessageCount, outboundMessageSize, inboundMessageSize);
+                                break;
+                            }
                             RemoteConnectionChannel newChannel = new RemoteConnectionChannel(handler, connection, channelId, outboundWindow, inboundWindow, outboundMessageCount, inboundMessageCount, outboundMessageSize, inboundMessageSize, requestedMessageAckTimeout);
+                            if (compressionName != null) {
+                                final CompressionCodecFactory factory = CompressionCodecs.getFactory(compressionName);
+                                if (factory == null) {
+                                    // we never offer a codec which we do not have
+                                    final IOException exception = new IOException("Peer selected unknown compression codec " + compressionName);
+                                    handler.handleOutboundChannelClosed();
+                                    pendingChannel.getResult().setException(exception);
+                                    throw exception;
+                                }
+                                newChannel.setCompression(new ChannelCompression(compressionName, factory.createCodec(), pendingChannel.getCompressionThreshold(), connection.getRemoteConnectionProvider()));
+                            }
+                            // never use a larger frame than we asked for
+                            maxFrameSize = Math.min(maxFrameSize, pendingChannel.getMaxFrameSize());
+                            if (maxFrameSize > 0) {
+                                newChannel.setMaxFrameSize(maxFrameSize);
+                            }
                             handler.putChannel(newChannel);
                             pendingChannel.getResult().setResult(newChannel);
                             break;
@@ -439,14 +595,23 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                         case Protocol.SERVICE_ERROR: {
                             log.trace("Received service error");
                             int channelId = buffer.getInt() ^ 0x80000000;
-                            handler.handleOutboundChannelClosed();
                             PendingChannel pendingChannel = handler.removePendingChannel(channelId);
+                            final RemoteConnectionChannel optimisticChannel = pendingChannel == null ? null : pendingChannel.getChannel();
+                            if (optimisticChannel == null) {
+                                // an optimistic channel is accounted for when it closes
+                                handler.handleOutboundChannelClosed();
+                            }
                             if (pendingChannel == null) {
                                 // invalid
                                 break;
                             }
                             String reason = new String(Buffers.take(buffer), StandardCharsets.UTF_8);
-                            pendingChannel.getResult().setException(new ServiceOpenException(reason));
+                            if (optimisticChannel != null) {
+                                // fail the messages which were sent behind the open request
+                                optimisticChannel.handleRefused(new ServiceOpenException(reason));
+                            } else {
+                                pendingChannel.getResult().setException(new ServiceOpenException(reason));
+                            }
                             break;
                         }
                         case Protocol.APP_AUTH_REQUEST: {
@@ -538,21 +703,72 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
             } catch (BufferUnderflowException e) {
                 log.bufferUnderflowRaw();
             } finally {
-                if (message != null) message.free();
+                // the frame did not escape, so it can be reused
+                if (message != null) {
+                    message.recycle();
+                    message = null;
+                }
             }
         } catch (IOException e) {
             connection.handleException(e);
             synchronized (lock) {
                 IoUtils.safeClose(channel);
             }
+            // the remaining frames of a bundle hold its buffer
+            Frame bundled;
+            while ((bundled = bundledFrames.poll()) != null) {
+                bundled.free();
+            }
+        }
+    }
+
+    /**
+     * Split the content of a bundle into its frames.  The frames are slices of the bundle buffer, and since frames such
+     * as message data may outlive the bundle, the bundle is owned by its frames once this method returns, and is freed
+     * when the last of them is freed.  The whole bundle is checked before any frame is added, so that a malformed
+     * bundle is rejected without dispatching any part of it.
+     *
+     * @param bundle the bundle frame
+     * @param buffer the bundle content
+     * @param frames the queue to add the frames to
+     * @throws BufferUnderflowException if the bundle is malformed, in which case the caller still owns the bundle
+     */
+    static void unbundle(final Frame bundle, final ByteBuffer buffer, final Queue<Frame> frames) {
+        final ByteBuffer check = buffer.duplicate();
+        while (check.hasRemaining()) {
+            final int size = getBundledFrameSize(check);
+            check.position(check.position() + size);
+        }
+        bundle.retain();
+        try {
+            while (buffer.hasRemaining()) {
+                final int size = getBundledFrameSize(buffer);
+                frames.add(Frame.slice(bundle, buffer.position(), size));
+                buffer.position(buffer.position() + size);
+            }
+        } finally {
+            bundle.release();
+        }
+    }
+
+    private static int getBundledFrameSize(final ByteBuffer buffer) {
+        final int size;
+        try {
+            size = ProtocolUtils.getVarInt(buffer);
+        } catch (IllegalArgumentException e) {
+            throw new BufferUnderflowException();
+        }
+        if (size <= 0 || size > buffer.remaining()) {
+            throw new BufferUnderflowException();
         }
+        return size;
     }
 
     private void refuseService(final int channelId, final String reason) {
         if (log.isTraceEnabled()) {
             log.tracef("Refusing service on channel %08x: %s", Integer.valueOf(channelId), reason);
         }
-        Pooled<ByteBuffer> pooledReply = connection.allocate();
+        Frame pooledReply = connection.allocate();
         boolean ok = false;
         try {
             ByteBuffer replyBuffer = pooledReply.getResource();
@@ -94,7 +94,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
     public void handleEvent(final ConduitStreamSourceChannel channel) {
         if (!connection.getConnection().isOpen())
             return;
-        final Pooled<ByteBuffer> pooled = connection.allocate();
+        final Frame pooled = connection.allocate();
         boolean ok = false;
         try {
             ByteBuffer sendBuffer = pooled.getResource();
@@ -200,7 +200,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
 
 
         public void handleEvent(final ConduitStreamSourceChannel channel) {
-            final Pooled<ByteBuffer> message;
+            final Frame message;
             try {
                 message = connection.getMessageReader().getMessage();
             } catch (IOException e) {
@@ -239,11 +239,13 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                         server.trace("Server received capabilities request");
                         handleClientCapabilities(receiveBuffer);
                         sendCapabilities();
+                        // the client may have pipelined its authentication request
+                        connection.getMessageReader().wakeupBufferedReads();
                         return;
                     }
                     case Protocol.STARTTLS: {
                         server.tracef("Server received STARTTLS request");
-                        final Pooled<ByteBuffer> pooled = connection.allocate();
+                        final Frame pooled = connection.allocate();
                         boolean ok = false;
                         try {
                             ByteBuffer sendBuffer = pooled.getResource();
@@ -331,7 +333,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
         void rejectAuthentication(String mechName) {
             // reject
             log.rejectedInvalidMechanism(mechName);
-            final Pooled<ByteBuffer> pooled = connection.allocate();
+            final Frame pooled = connection.allocate();
             boolean ok = false;
             try {
                 final ByteBuffer sendBuffer = pooled.getResource();
@@ -356,6 +358,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                         final byte version = data.get();
                         server.tracef("Server received capability: version %d", Integer.valueOf(version & 0xff));
                         this.version = min(Protocol.VERSION, version & 0xff);
+                        connection.setProtocolVersion(this.version);
                         break;
                     }
                     case Protocol.CAP_ENDPOINT_NAME: {
@@ -399,6 +402,11 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                         server.trace("Server received capability: authentication service");
                         break;
                     }
+                    case Protocol.CAP_BUNDLE: {
+                        connection.setBundleFrames(true);
+                        server.trace("Server received capability: frame bundling");
+                        break;
+                    }
                     default: {
                         server.tracef("Server received unknown capability %02x", Integer.valueOf(type & 0xff));
                         // unknown, skip it for forward compatibility.
@@ -415,7 +423,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                 initialiseCapabilities();
             }
 
-            final Pooled<ByteBuffer> pooled = connection.allocate();
+            final Frame pooled = connection.allocate();
             boolean ok = false;
             try {
                 ByteBuffer sendBuffer = pooled.getResource();
@@ -437,6 +445,10 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                 ProtocolUtils.writeInt(sendBuffer, Protocol.CAP_CHANNELS_IN, optionMap.get(RemotingOptions.MAX_INBOUND_CHANNELS, RemotingOptions.DEFAULT_MAX_INBOUND_CHANNELS));
                 ProtocolUtils.writeInt(sendBuffer, Protocol.CAP_CHANNELS_OUT, optionMap.get(RemotingOptions.MAX_OUTBOUND_CHANNELS, RemotingOptions.DEFAULT_MAX_OUTBOUND_CHANNELS));
                 ProtocolUtils.writeEmpty(sendBuffer, Protocol.CAP_AUTHENTICATION);
+                if (optionMap.get(RemotingOptions.HANDSHAKE_PIPELINING, RemotingOptions.DEFAULT_HANDSHAKE_PIPELINING)) {
+                    ProtocolUtils.writeEmpty(sendBuffer, Protocol.CAP_PIPELINE);
+                }
+                ProtocolUtils.writeEmpty(sendBuffer, Protocol.CAP_BUNDLE);
                 sendBuffer.flip();
                 connection.send(pooled);
                 ok = true;
@@ -477,7 +489,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
             boolean close = false;
             try {
 
-                final Pooled<ByteBuffer> pooled = connection.allocate();
+                final Frame pooled = connection.allocate();
                 try {
                     final ByteBuffer sendBuffer = pooled.getResource();
                     int p = sendBuffer.position();
@@ -494,6 +506,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                                 final RemoteConnectionHandler connectionHandler = new RemoteConnectionHandler(
                                     connectionContext, connection, maxInboundChannels, maxOutboundChannels, AnonymousPrincipal.getInstance(), remoteEndpointName, behavior, authCap, offeredMechanisms, peerName, serverName);
                                 connection.getRemoteConnectionProvider().addConnectionHandler(connectionHandler);
+                                connection.authenticationComplete();
                                 final SecurityIdentity identity = (SecurityIdentity) saslServer.getNegotiatedProperty(WildFlySasl.SECURITY_IDENTITY);
                                 connection.setIdentity(identity == null ? saslAuthenticationFactory.getSecurityDomain().getAnonymousSecurityIdentity() : identity);
                                 connection.setReadListener(new RemoteReadListener(connectionHandler, connection), false);
@@ -554,7 +567,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
         }
 
         public void handleEvent(final ConduitStreamSourceChannel channel) {
-            final Pooled<ByteBuffer> message;
+            final Frame message;
             try {
                 message = connection.getMessageReader().getMessage();
             } catch (IOException e) {
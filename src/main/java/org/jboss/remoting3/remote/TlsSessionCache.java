@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.jboss.remoting3._private.Messages.conn;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+
+import org.xnio.ChannelListener;
+import org.xnio.ssl.SslConnection;
+
+/**
+ * A cache of the TLS sessions most recently negotiated with each destination.  JSSE resumes a session when a new
+ * engine is created for the same peer host and port, but only as long as its own session cache still holds the session,
+ * which is cleared on memory pressure.  By holding the latest session for each destination (up to a maximum number
+ * of destinations, and for a limited time), reconnects and additional pooled connections can resume the session
+ * deterministically instead of performing a full handshake.  The cache also records how often sessions were resumed.
+ */
+final class TlsSessionCache {
+    private final int maxSize;
+    private final long timeoutNanos;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    TlsSessionCache(final int maxSize, final long timeoutSeconds) {
+        this.maxSize = maxSize;
+        timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return size() > TlsSessionCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Track the handshake of a new client connection, so that its session is cached once the handshake completes.
+     *
+     * @param sslConnection the new connection
+     * @param sslContext the SSL context of the connection
+     * @param host the peer host name used to create the engine
+     * @param port the peer port used to create the engine
+     */
+    void track(final SslConnection sslConnection, final SSLContext sslContext, final String host, final int port) {
+        if (maxSize == 0) {
+            return;
+        }
+        final Key key = new Key(sslContext, host, port);
+        final long start = System.currentTimeMillis();
+        final ChannelListener<SslConnection> listener = channel -> handshakeCompleted(key, channel.getSslSession(), start);
+        sslConnection.getHandshakeSetter().set(listener);
+    }
+
+    void handshakeCompleted(final Key key, final SSLSession session, final long start) {
+        if (session == null) {
+            return;
+        }
+        expire();
+        final Entry previous;
+        synchronized (entries) {
+            previous = entries.put(key, new Entry(session, System.nanoTime() + timeoutNanos));
+        }
+        // a resumed session keeps its identity and creation time
+        final boolean resumed = session.getCreationTime() < start || previous != null && Arrays.equals(previous.session.getId(), session.getId());
+        if (resumed) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        conn.tracef("TLS handshake with %s completed (%s)", key, resumed ? "resumed" : "full");
+    }
+
+    /**
+     * Remove expired and invalidated sessions.
+     */
+    void expire() {
+        final long now = System.nanoTime();
+        synchronized (entries) {
+            final Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (now - entry.expires > 0L || ! entry.session.isValid()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    int size() {
+        expire();
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    static final class Entry {
+        final SSLSession session;
+        final long expires;
+
+        Entry(final SSLSession session, final long expires) {
+            this.session = session;
+            this.expires = expires;
+        }
+    }
+
+    static final class Key {
+        private final SSLContext sslContext;
+        private final String host;
+        private final int port;
+        private final int hashCode;
+
+        Key(final SSLContext sslContext, final String host, final int port) {
+            this.sslContext = sslContext;
+            this.host = host;
+            this.port = port;
+            hashCode = Objects.hash(sslContext, host, Integer.valueOf(port));
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && equals((Key) obj);
+        }
+
+        boolean equals(final Key other) {
+            return this == other || other != null
+                && hashCode == other.hashCode
+                && port == other.port
+                && Objects.equals(host, other.host)
+                && sslContext == other.sslContext;
+        }
+
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Traffic counters of a connection, a channel or a connection provider.  Each count which is added is also added to
+ * the parent counters, if any, so that the counts of a provider are the totals of its connections.  The counters are
+ * striped, so that they may be updated from the I/O thread and from application threads without contention.
+ */
+final class TrafficCounters {
+    private final TrafficCounters parent;
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder framesIn = new LongAdder();
+    private final LongAdder framesOut = new LongAdder();
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private final LongAdder windowStalls = new LongAdder();
+
+    TrafficCounters(final TrafficCounters parent) {
+        this.parent = parent;
+    }
+
+    void received(final long bytes) {
+        bytesIn.add(bytes);
+        if (parent != null) parent.received(bytes);
+    }
+
+    void sent(final long bytes) {
+        bytesOut.add(bytes);
+        if (parent != null) parent.sent(bytes);
+    }
+
+    void frameReceived() {
+        framesIn.increment();
+        if (parent != null) parent.frameReceived();
+    }
+
+    void frameSent() {
+        framesOut.increment();
+        if (parent != null) parent.frameSent();
+    }
+
+    void messageReceived() {
+        messagesIn.increment();
+        if (parent != null) parent.messageReceived();
+    }
+
+    void messageSent() {
+        messagesOut.increment();
+        if (parent != null) parent.messageSent();
+    }
+
+    void windowStalled() {
+        windowStalls.increment();
+        if (parent != null) parent.windowStalled();
+    }
+
+    long getBytesReceived() {
+        return bytesIn.sum();
+    }
+
+    long getBytesSent() {
+        return bytesOut.sum();
+    }
+
+    long getFramesReceived() {
+        return framesIn.sum();
+    }
+
+    long getFramesSent() {
+        return framesOut.sum();
+    }
+
+    long getMessagesReceived() {
+        return messagesIn.sum();
+    }
+
+    long getMessagesSent() {
+        return messagesOut.sum();
+    }
+
+    long getWindowStallCount() {
+        return windowStalls.sum();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.remoting3.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A message compression codec instance of a channel.  All of the messages of the channel use the same instance, and
+ * they may be written and read concurrently, so implementations must be thread safe.  An instance may reuse costly
+ * state, such as compressors and their buffers, from one message of its channel to the next.
+ */
+public interface CompressionCodec {
+
+    /**
+     * Wrap the stream of an outbound message for compression.  Flushing the returned stream must write all of the data
+     * written so far to the target stream, and closing it must finish the compressed data and close the target stream.
+     *
+     * @param target the message stream to write compressed data to
+     * @return the stream to write uncompressed data to
+     * @throws IOException if the stream cannot be created
+     */
+    OutputStream compress(OutputStream target) throws IOException;
+
+    /**
+     * Wrap the stream of an inbound message for decompression.  Closing the returned stream must close the source
+     * stream.
+     *
+     * @param source the message stream to read compressed data from
+     * @return the stream to read uncompressed data from
+     * @throws IOException if the stream cannot be created
+     */
+    InputStream decompress(InputStream source) throws IOException;
+
+    /**
+     * Release the state which this instance keeps for reuse.  Called when the channel is closed; streams of messages
+     * which are still in progress remain usable, and release their own state when they are closed.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.remoting3.spi;
+
+/**
+ * A factory for a message compression codec.  Factories are located with {@link java.util.ServiceLoader}, and the
+ * {@code deflate} codec is always available.  A channel compresses its messages with a codec when both of its peers
+ * list the codec name in their {@link org.jboss.remoting3.RemotingOptions#COMPRESSION_CODECS} option.
+ */
+public interface CompressionCodecFactory {
+
+    /**
+     * Get the name of the codec, which identifies it to the peer.
+     *
+     * @return the codec name (must not be {@code null})
+     */
+    String getName();
+
+    /**
+     * Create a codec instance for a channel.
+     *
+     * @return the codec (must not be {@code null})
+     */
+    CompressionCodec createCodec();
+}
@@ -180,4 +180,15 @@ public interface ConnectionHandler extends HandleableCloseable<ConnectionHandler
      * @throws IOException if a transmission error occurs
      */
     void sendAuthDeleteAck(int id) throws IOException;
+
+    /**
+     * Get an estimate of the current load of this connection, used to choose among several connections to the same
+     * destination.  The estimate is roughly the number of bytes waiting to be written or in flight, so that it can be
+     * compared against the connection pool growth threshold; lower values denote less loaded connections.
+     *
+     * @return the load estimate
+     */
+    default long getLoad() {
+        return 0L;
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.spi;
+
+/**
+ * A listener for the latencies measured by the remote connection providers.  Listeners are located with
+ * {@link java.util.ServiceLoader}; when at least one listener is found, or when the
+ * {@link org.jboss.remoting3.RemotingOptions#LATENCY_HISTOGRAMS} option is set, each provider measures the latency
+ * of the intervals listed in {@link Interval} and reports every measurement to each listener.  Listeners are called
+ * from I/O threads and from application threads, and must return quickly without blocking.
+ */
+public interface LatencyListener {
+
+    /**
+     * Receive a latency measurement.
+     *
+     * @param providerName the name of the connection provider which measured the interval
+     * @param interval the measured interval
+     * @param nanos the length of the interval, in nanoseconds
+     */
+    void latencyRecorded(String providerName, Interval interval, long nanos);
+
+    /**
+     * The intervals which are measured.
+     */
+    enum Interval {
+        /**
+         * From sending a channel open request until receiving its acknowledgement.
+         */
+        CHANNEL_OPEN,
+        /**
+         * From starting to connect to a peer until the connection is authenticated.
+         */
+        CONNECT,
+        /**
+         * The time a message writer waits for the transmit window of the message to open.
+         */
+        WINDOW_WAIT,
+        /**
+         * From sending the first data of a message until its first acknowledgement.
+         */
+        MESSAGE_ACK,
+        ;
+    }
+}
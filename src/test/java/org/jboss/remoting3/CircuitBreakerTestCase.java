@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+
+import javax.security.sasl.SaslException;
+
+import org.junit.Test;
+import org.xnio.FailedIoFuture;
+import org.xnio.FutureResult;
+
+/**
+ * Tests for the per-destination connection circuit breaker.
+ */
+public final class CircuitBreakerTestCase {
+
+    private static CircuitBreaker newBreaker() {
+        return new CircuitBreaker(new ConnectionKey(URI.create("remote://localhost:4447"), null));
+    }
+
+    @Test
+    public void testFailFastAndProbe() throws Exception {
+        final CircuitBreaker breaker = newBreaker();
+        assertNull(breaker.checkAttempt());
+        breaker.track(new FailedIoFuture<String>(new ConnectException("Connection refused")));
+        assertTrue(breaker.isOpen());
+        final IOException unavailable = breaker.checkAttempt();
+        assertNotNull(unavailable);
+        assertTrue(unavailable.getCause() instanceof ConnectException);
+
+        Thread.sleep(CircuitBreaker.MIN_BACKOFF_MILLIS + 100L);
+        // exactly one probe is let through
+        assertNull(breaker.checkAttempt());
+        assertNotNull(breaker.checkAttempt());
+        final FutureResult<String> probe = new FutureResult<>();
+        breaker.track(probe.getIoFuture());
+        probe.setResult("connected");
+        assertFalse(breaker.isOpen());
+        assertNull(breaker.checkAttempt());
+    }
+
+    @Test
+    public void testAuthenticationFailureIgnored() {
+        final CircuitBreaker breaker = newBreaker();
+        breaker.track(new FailedIoFuture<String>(new SaslException("Authentication failed")));
+        assertFalse(breaker.isOpen());
+        assertNull(breaker.checkAttempt());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.wildfly.security.sasl.SaslMechanismSelector;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for the choice among the managed connections of a pooled destination.
+ */
+public final class ConnectionPoolTestCase extends RemoteTestBase {
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "connection-pool-test");
+    }
+
+    private static Endpoint createPooledEndpoint(final long growthThreshold) throws IOException {
+        final EndpointBuilder builder = Endpoint.builder().setEndpointName("connection-pool-client");
+        builder.addConnection(serverUri()).setPoolSize(2).setPoolGrowthThreshold(growthThreshold);
+        return builder.build();
+    }
+
+    private static Connection getConnection(final Endpoint endpoint) throws IOException {
+        final AuthenticationConfiguration configuration = AuthenticationConfiguration.empty()
+            .useName("bob")
+            .usePassword("pass")
+            .setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism(SASL_MECH));
+        final IoFuture<ConnectionPeerIdentity> future = endpoint.getConnectedIdentity(serverUri(), null, configuration);
+        if (future.await(10L, TimeUnit.SECONDS) == IoFuture.Status.WAITING) {
+            future.cancel();
+            throw new IOException("Timed out connecting to " + serverUri());
+        }
+        return future.get().getConnection();
+    }
+
+    private static Channel openChannel(final Connection connection) throws IOException {
+        return connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+    }
+
+    @Test
+    public void testNoGrowthBelowThreshold() throws Exception {
+        final Endpoint endpoint = createPooledEndpoint(RemotingOptions.DEFAULT_CONNECTION_POOL_GROWTH_THRESHOLD);
+        try {
+            final Connection connection = getConnection(endpoint);
+            final SocketAddress address = connection.getLocalAddress();
+            final Channel channel = openChannel(connection);
+            try {
+                assertEcho(channel, "hello");
+                // a few idle channels are nowhere near the threshold, so the pool keeps using its only connection
+                for (int i = 0; i < 10; i ++) {
+                    assertEquals(address, getConnection(endpoint).getLocalAddress());
+                    Thread.sleep(20L);
+                }
+            } finally {
+                IoUtils.safeClose(channel);
+            }
+        } finally {
+            IoUtils.safeClose(endpoint);
+        }
+    }
+
+    @Test
+    public void testLeastLoadedSelected() throws Exception {
+        final Endpoint endpoint = createPooledEndpoint(0L);
+        try {
+            final Connection first = getConnection(endpoint);
+            final SocketAddress firstAddress = first.getLocalAddress();
+            // an unused connection carries no load, so it is not worth growing the pool for
+            assertEquals(firstAddress, getConnection(endpoint).getLocalAddress());
+            final Channel firstChannel = openChannel(first);
+            try {
+                // the first connection is now loaded, so the pool connects its other member in the background
+                Connection second = getConnection(endpoint);
+                final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+                while (second.getLocalAddress().equals(firstAddress)) {
+                    if (System.nanoTime() - deadline > 0L) {
+                        throw new IOException("Connection pool did not grow");
+                    }
+                    Thread.sleep(20L);
+                    second = getConnection(endpoint);
+                }
+                final SocketAddress secondAddress = second.getLocalAddress();
+                assertNotEquals(firstAddress, secondAddress);
+                assertEquals(secondAddress, getConnection(endpoint).getLocalAddress());
+                final Channel secondChannel1 = openChannel(second);
+                final Channel secondChannel2 = openChannel(second);
+                try {
+                    // the second connection now has more channels than the first one
+                    assertEquals(firstAddress, getConnection(endpoint).getLocalAddress());
+                } finally {
+                    IoUtils.safeClose(secondChannel1);
+                    IoUtils.safeClose(secondChannel2);
+                }
+            } finally {
+                IoUtils.safeClose(firstChannel);
+            }
+        } finally {
+            IoUtils.safeClose(endpoint);
+        }
+    }
+}
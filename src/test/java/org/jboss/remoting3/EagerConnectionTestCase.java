@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.security.auth.client.AuthenticationContext;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for connections which are established when the endpoint is built, and re-established whenever they are lost.
+ */
+public final class EagerConnectionTestCase extends RemoteTestBase {
+
+    private static AuthenticationContext context;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "eager-connection-test");
+        context = authenticationContext();
+    }
+
+    private static Endpoint createEagerEndpoint(final URI destination) throws Exception {
+        final EndpointBuilder builder = Endpoint.builder().setEndpointName("eager-connection-client");
+        builder.addConnection(destination).setEagerConnect(true);
+        // the eager connections use the authentication context which is current while the endpoint is built
+        return context.run((PrivilegedExceptionAction<Endpoint>) builder::build);
+    }
+
+    /**
+     * Wait for the endpoint to have an established connection to the server, without starting one.
+     */
+    private static Connection awaitExistingConnection(final Endpoint endpoint) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        for (;;) {
+            final IoFuture<ConnectionPeerIdentity> future = endpoint.getConnectedIdentityIfExists(serverUri(), null, null, context);
+            if (future != null && future.await(100L, TimeUnit.MILLISECONDS) == IoFuture.Status.DONE) {
+                final Connection connection = future.get().getConnection();
+                if (connection.isOpen()) {
+                    return connection;
+                }
+            }
+            if (System.nanoTime() - deadline > 0L) {
+                throw new IOException("No connection was established to " + serverUri());
+            }
+            Thread.sleep(50L);
+        }
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        final Endpoint endpoint = createEagerEndpoint(serverUri());
+        try {
+            final Connection connection = awaitExistingConnection(endpoint);
+            // the first request joins the eager connection instead of opening another one
+            final IoFuture<ConnectionPeerIdentity> future = endpoint.getConnectedIdentity(serverUri(), null, null, context);
+            assertEquals(IoFuture.Status.DONE, future.await(10L, TimeUnit.SECONDS));
+            assertEquals(connection.getLocalAddress(), future.get().getConnection().getLocalAddress());
+            try (Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get()) {
+                assertEcho(channel, "warm");
+            }
+        } finally {
+            IoUtils.safeClose(endpoint);
+        }
+    }
+
+    @Test
+    public void testReconnect() throws Exception {
+        final Endpoint endpoint = createEagerEndpoint(serverUri());
+        try {
+            final Connection connection = awaitExistingConnection(endpoint);
+            final SocketAddress address = connection.getLocalAddress();
+            connection.close();
+            // the lost connection is re-established in the background
+            Connection replacement = awaitExistingConnection(endpoint);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while (address.equals(replacement.getLocalAddress())) {
+                if (System.nanoTime() - deadline > 0L) {
+                    throw new IOException("The connection was not re-established");
+                }
+                Thread.sleep(50L);
+                replacement = awaitExistingConnection(endpoint);
+            }
+            assertNotEquals(address, replacement.getLocalAddress());
+            try (Channel channel = replacement.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get()) {
+                assertEcho(channel, "again");
+            }
+        } finally {
+            IoUtils.safeClose(endpoint);
+        }
+    }
+
+    @Test
+    public void testUnreachableDestination() throws Exception {
+        // nothing listens there, so the eager connection keeps failing and being retried until the endpoint closes
+        final long start = System.nanoTime();
+        final Endpoint endpoint = createEagerEndpoint(new URI("remote://localhost:" + (PORT + 1)));
+        try {
+            assertNotNull(endpoint);
+            assertTrue("Building the endpoint waited for the connection", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5L));
+            Thread.sleep(1500L);
+        } finally {
+            endpoint.close();
+        }
+        assertFalse(endpoint.isOpen());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for the buffer handoff of local channel messages.
+ */
+public final class LocalChannelTestCase {
+
+    @Test
+    public void testBufferHandedOver() throws Exception {
+        final LocalChannel.In in = new LocalChannel.In(1024);
+        final MessageOutputStream out = new LocalChannel.Out(in, 16);
+        out.write(1);
+        final ByteBuffer buffer = ByteBuffer.allocate(4);
+        out.writeBuffer(buffer);
+        assertFalse(buffer.hasRemaining());
+        out.close();
+        assertEquals(1, in.read());
+        final ByteBuffer received = in.readBuffer();
+        assertEquals(4, received.remaining());
+        assertSame(buffer.array(), received.array());
+        assertNull(in.readBuffer());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testWriterWaitsForReader() throws Exception {
+        final byte[] data = new byte[100000];
+        new Random(17).nextBytes(data);
+        final LocalChannel.In in = new LocalChannel.In(256);
+        final LocalChannel.Out out = new LocalChannel.Out(in, 64);
+        final AtomicReference<Throwable> problem = new AtomicReference<>();
+        final Thread writer = new Thread(() -> {
+            try {
+                out.write(data, 0, data.length);
+                out.close();
+            } catch (Throwable t) {
+                problem.set(t);
+            }
+        });
+        writer.start();
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final byte[] b = new byte[100];
+        int res;
+        while ((res = in.read(b, 0, b.length)) != -1) {
+            received.write(b, 0, res);
+        }
+        writer.join();
+        assertNull(problem.get());
+        assertArrayEquals(data, received.toByteArray());
+    }
+
+    @Test
+    public void testLargeBufferSplit() throws Exception {
+        final LocalChannel.In in = new LocalChannel.In(256);
+        final LocalChannel.Out out = new LocalChannel.Out(in, 64);
+        final ByteBuffer buffer = ByteBuffer.allocate(600);
+        final Thread writer = new Thread(() -> {
+            try {
+                out.writeBuffer(buffer);
+                out.close();
+            } catch (Throwable ignored) {
+            }
+        });
+        writer.start();
+        int total = 0;
+        ByteBuffer received;
+        while ((received = in.readBuffer()) != null) {
+            assertTrue(received.remaining() <= 256);
+            total += received.remaining();
+        }
+        writer.join();
+        assertEquals(600, total);
+    }
+
+    @Test
+    public void testWindowEnforcedBeforeEnqueue() throws Exception {
+        final LocalChannel.In in = new LocalChannel.In(256);
+        final LocalChannel.Out out = new LocalChannel.Out(in, 64);
+        out.writeBuffer(ByteBuffer.allocate(200));
+        final Thread writer = new Thread(() -> {
+            try {
+                out.writeBuffer(ByteBuffer.allocate(100));
+                out.close();
+            } catch (Throwable ignored) {
+            }
+        });
+        writer.start();
+        // the second buffer does not fit the window until the first one is taken
+        while (writer.getState() != Thread.State.WAITING) {
+            Thread.sleep(10L);
+        }
+        assertEquals(0, in.available());
+        assertEquals(200, in.readBuffer().remaining());
+        assertEquals(100, in.readBuffer().remaining());
+        assertNull(in.readBuffer());
+        writer.join();
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final LocalChannel.In in = new LocalChannel.In(1024);
+        final LocalChannel.Out out = new LocalChannel.Out(in, 16);
+        out.write(new byte[20], 0, 20);
+        out.cancel();
+        try {
+            in.read();
+            fail("Expected exception");
+        } catch (MessageCancelledException expected) {
+        }
+    }
+
+    @Test
+    public void testEmptyWindowRejected() {
+        try {
+            new LocalChannel.In(0);
+            fail("A window of zero bytes must be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new LocalChannel.Out(new LocalChannel.In(256), 0);
+            fail("A buffer size of zero bytes must be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
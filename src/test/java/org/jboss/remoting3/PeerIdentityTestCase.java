@@ -0,0 +1,247 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.security.auth.callback.CallbackHandler;
+import javax.security.sasl.SaslException;
+import javax.security.sasl.SaslServer;
+import javax.security.sasl.SaslServerFactory;
+
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.security.auth.AuthenticationException;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.realm.SimpleRealmEntry;
+import org.wildfly.security.auth.server.MechanismConfiguration;
+import org.wildfly.security.auth.server.SaslAuthenticationFactory;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.credential.PasswordCredential;
+import org.wildfly.security.password.PasswordFactory;
+import org.wildfly.security.password.spec.ClearPasswordSpec;
+import org.wildfly.security.permission.PermissionVerifier;
+import org.wildfly.security.sasl.SaslMechanismSelector;
+import org.wildfly.security.sasl.util.SaslMechanismInformation;
+import org.wildfly.security.sasl.util.ServiceLoaderSaslServerFactory;
+import org.xnio.IoFuture;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for remote application authentication over a connection.  The server rejects every SCRAM exchange of user
+ * "carol", who can only authenticate over PLAIN.
+ */
+public final class PeerIdentityTestCase extends RemoteTestBase {
+
+    private static final String PLAIN = SaslMechanismInformation.Names.PLAIN;
+    private static final String FALLBACK_USER = "carol";
+    private static final int USERS = 16;
+
+    private static final AtomicInteger rejectedExchanges = new AtomicInteger();
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "peer-identity-test", null, createAuthenticationFactory());
+    }
+
+    private static SaslAuthenticationFactory createAuthenticationFactory() throws Exception {
+        final PasswordFactory passwordFactory = PasswordFactory.getInstance("clear");
+        final Map<String, SimpleRealmEntry> identities = new HashMap<>();
+        identities.put("bob", realmEntry(passwordFactory, "pass"));
+        identities.put(FALLBACK_USER, realmEntry(passwordFactory, "secret"));
+        for (int i = 0; i < USERS; i ++) {
+            identities.put("user" + i, realmEntry(passwordFactory, "secret"));
+        }
+        final SimpleMapBackedSecurityRealm mainRealm = new SimpleMapBackedSecurityRealm();
+        mainRealm.setIdentityMap(identities);
+        final SecurityDomain.Builder domainBuilder = SecurityDomain.builder();
+        domainBuilder.addRealm("mainRealm", mainRealm).build();
+        domainBuilder.setDefaultRealmName("mainRealm");
+        domainBuilder.setPermissionMapper((permissionMappable, roles) -> PermissionVerifier.ALL);
+        final SaslAuthenticationFactory.Builder builder = SaslAuthenticationFactory.builder();
+        builder.setSecurityDomain(domainBuilder.build());
+        builder.setFactory(new RejectingServerFactory(new ServiceLoaderSaslServerFactory(PeerIdentityTestCase.class.getClassLoader())));
+        builder.setMechanismConfigurationSelector(mechanismInformation -> {
+            final String mechanismName = mechanismInformation.getMechanismName();
+            return mechanismName.equals(SASL_MECH) || mechanismName.equals(PLAIN) ? MechanismConfiguration.EMPTY : null;
+        });
+        return builder.build();
+    }
+
+    private static SimpleRealmEntry realmEntry(final PasswordFactory passwordFactory, final String password) throws Exception {
+        return new SimpleRealmEntry(Collections.singletonList(new PasswordCredential(passwordFactory.generatePassword(new ClearPasswordSpec(password.toCharArray())))));
+    }
+
+    private static AuthenticationConfiguration configuration(final String name, final String password) {
+        return AuthenticationConfiguration.empty()
+            .useName(name)
+            .usePassword(password)
+            .setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism(SASL_MECH).addMechanism(PLAIN));
+    }
+
+    @Test
+    public void testConcurrentExchanges() throws Exception {
+        try (Connection connection = connect(OptionMap.EMPTY)) {
+            final ConnectionPeerIdentityContext context = connection.getPeerIdentityContext();
+            final List<IoFuture<ConnectionPeerIdentity>> futures = new ArrayList<>();
+            for (int i = 0; i < USERS; i ++) {
+                futures.add(context.authenticateAsync(configuration("user" + i, "secret")));
+            }
+            // a request for a configuration in progress joins its exchange
+            assertSame(futures.get(0), context.authenticateAsync(configuration("user0", "secret")));
+            final Set<Integer> ids = new HashSet<>();
+            for (int i = 0; i < USERS; i ++) {
+                final IoFuture<ConnectionPeerIdentity> future = futures.get(i);
+                assertEquals(IoFuture.Status.DONE, future.await(10L, TimeUnit.SECONDS));
+                final ConnectionPeerIdentity identity = future.get();
+                assertEquals("user" + i, identity.getPeerPrincipal().getName());
+                assertTrue(ids.add(Integer.valueOf(identity.getIndex())));
+            }
+            assertEquals(USERS, context.getAuthenticationCount());
+            // established identities are reused
+            assertSame(futures.get(0).get(), context.authenticate(configuration("user0", "secret")));
+        }
+    }
+
+    @Test
+    public void testMechanismFallback() throws Exception {
+        try (Connection connection = connect(OptionMap.EMPTY)) {
+            final int rejected = rejectedExchanges.get();
+            final ConnectionPeerIdentity identity = connection.getPeerIdentityContext().authenticate(configuration(FALLBACK_USER, "secret"));
+            assertEquals(FALLBACK_USER, identity.getPeerPrincipal().getName());
+            assertEquals(rejected + 1, rejectedExchanges.get());
+        }
+    }
+
+    @Test
+    public void testRejection() throws Exception {
+        try (Connection connection = connect(OptionMap.EMPTY)) {
+            final ConnectionPeerIdentityContext context = connection.getPeerIdentityContext();
+            try {
+                context.authenticate(configuration("user0", "wrong"));
+                fail("Expected authentication to fail");
+            } catch (AuthenticationException expected) {
+            }
+            assertEquals(0, context.getAuthenticationCount());
+            // the failed exchange leaves nothing behind which would prevent a later one
+            assertEquals("user0", context.authenticate(configuration("user0", "secret")).getPeerPrincipal().getName());
+        }
+    }
+
+    @Test
+    public void testUnreferencedIdentityDeleted() throws Exception {
+        try (Connection connection = connect(OptionMap.create(RemotingOptions.PEER_IDENTITY_CACHE_SIZE, Integer.valueOf(0)))) {
+            final ConnectionPeerIdentityContext context = connection.getPeerIdentityContext();
+            final AuthenticationConfiguration configuration = configuration("user1", "secret");
+            ConnectionPeerIdentity identity = context.authenticate(configuration);
+            final int id = identity.getIndex();
+            assertEquals(1, context.getAuthenticationCount());
+            // the identity is retained for as long as it is referenced
+            System.gc();
+            context.authenticateAsync(AuthenticationConfiguration.empty().useAnonymous());
+            assertEquals(1, context.getAuthenticationCount());
+            identity = null;
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while (context.getAuthenticationCount() > 0 && System.nanoTime() < deadline) {
+                System.gc();
+                Thread.sleep(10L);
+                // any request deletes the released IDs
+                context.authenticateAsync(AuthenticationConfiguration.empty().useAnonymous());
+            }
+            assertEquals(0, context.getAuthenticationCount());
+            // the configuration can authenticate again, under a new ID
+            identity = context.authenticate(configuration);
+            assertNotEquals(id, identity.getIndex());
+            assertEquals(1, context.getAuthenticationCount());
+        }
+    }
+
+    /**
+     * A server factory whose SCRAM exchanges fail for {@link #FALLBACK_USER} once the peer has been verified.
+     */
+    static final class RejectingServerFactory implements SaslServerFactory {
+        private final SaslServerFactory delegate;
+
+        RejectingServerFactory(final SaslServerFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        public SaslServer createSaslServer(final String mechanism, final String protocol, final String serverName, final Map<String, ?> props, final CallbackHandler cbh) throws SaslException {
+            final SaslServer saslServer = delegate.createSaslServer(mechanism, protocol, serverName, props, cbh);
+            return saslServer == null || ! mechanism.equals(SASL_MECH) ? saslServer : new SaslServer() {
+                public String getMechanismName() {
+                    return saslServer.getMechanismName();
+                }
+
+                public byte[] evaluateResponse(final byte[] response) throws SaslException {
+                    final byte[] challenge = saslServer.evaluateResponse(response);
+                    if (saslServer.isComplete() && FALLBACK_USER.equals(saslServer.getAuthorizationID())) {
+                        rejectedExchanges.incrementAndGet();
+                        throw new SaslException("Rejected " + FALLBACK_USER);
+                    }
+                    return challenge;
+                }
+
+                public boolean isComplete() {
+                    return saslServer.isComplete();
+                }
+
+                public String getAuthorizationID() {
+                    return saslServer.getAuthorizationID();
+                }
+
+                public byte[] unwrap(final byte[] incoming, final int offset, final int len) throws SaslException {
+                    return saslServer.unwrap(incoming, offset, len);
+                }
+
+                public byte[] wrap(final byte[] outgoing, final int offset, final int len) throws SaslException {
+                    return saslServer.wrap(outgoing, offset, len);
+                }
+
+                public Object getNegotiatedProperty(final String propName) {
+                    return saslServer.getNegotiatedProperty(propName);
+                }
+
+                public void dispose() throws SaslException {
+                    saslServer.dispose();
+                }
+            };
+        }
+
+        public String[] getMechanismNames(final Map<String, ?> props) {
+            return delegate.getMechanismNames(props);
+        }
+    }
+}
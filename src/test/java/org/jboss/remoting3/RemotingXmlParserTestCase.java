@@ -134,6 +134,7 @@ public class RemotingXmlParserTestCase {
         assertEquals("Wrong value for writetimeout", 11000, connectionOptionMap.get(Options.WRITE_TIMEOUT, 0));
         assertEquals("Wrong value for heartbeat", 60000, connectionOptionMap.get(RemotingOptions.HEARTBEAT_INTERVAL, 0));
         assertEquals("Wrong value for keep_alive", true, connectionOptionMap.get(Options.KEEP_ALIVE, false));
+        assertEquals("Wrong value for pool size", 4, connectionOptionMap.get(RemotingOptions.CONNECTION_POOL_SIZE, 0));
 
     }
 
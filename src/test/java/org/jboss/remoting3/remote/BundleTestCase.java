@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+import org.junit.Test;
+
+/**
+ * Tests for the splitting of received frame bundles.
+ */
+public final class BundleTestCase {
+
+    @Test
+    public void testRoundTrip() {
+        final byte[][] contents = { frameContent(1, 5), frameContent(2, 127), frameContent(3, 128), frameContent(4, Protocol.BUNDLE_MAX_FRAME_SIZE) };
+        final ByteBuffer buffer = ByteBuffer.allocate(Protocol.BUNDLE_MAX_SIZE);
+        buffer.put(Protocol.BUNDLE);
+        for (byte[] content : contents) {
+            ProtocolUtils.putVarInt(buffer, content.length);
+            buffer.put(content);
+        }
+        buffer.flip();
+        final Frame bundle = Frame.wrap(null, buffer, false);
+        bundle.setCompact();
+        assertEquals(Protocol.BUNDLE, buffer.get());
+        final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        RemoteReadListener.unbundle(bundle, buffer, frames);
+        assertEquals(contents.length, frames.size());
+        for (byte[] content : contents) {
+            final Frame frame = frames.poll();
+            final ByteBuffer received = frame.getResource();
+            assertTrue(frame.isCompact());
+            // the frame shares the bundle buffer rather than holding a copy
+            assertSame(buffer.array(), received.array());
+            assertEquals(0, received.position());
+            final byte[] bytes = new byte[received.remaining()];
+            received.get(bytes);
+            assertEquals(ByteBuffer.wrap(content), ByteBuffer.wrap(bytes));
+            if (frames.isEmpty()) {
+                // the bundle is held until its last frame is freed
+                bundle.getResource();
+                frame.free();
+                assertReleased(bundle);
+            } else {
+                frame.free();
+                bundle.getResource();
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyBundle() {
+        final ByteBuffer buffer = ByteBuffer.wrap(new byte[] { Protocol.BUNDLE });
+        final Frame bundle = Frame.wrap(null, buffer, false);
+        buffer.get();
+        final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        RemoteReadListener.unbundle(bundle, buffer, frames);
+        assertTrue(frames.isEmpty());
+        assertReleased(bundle);
+    }
+
+    @Test
+    public void testFrameOverrunsBundle() {
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        ProtocolUtils.putVarInt(buffer, 4);
+        buffer.put(frameContent(1, 4));
+        ProtocolUtils.putVarInt(buffer, 20);
+        buffer.put(frameContent(2, 19));
+        buffer.flip();
+        assertMalformed(buffer);
+    }
+
+    @Test
+    public void testEmptyFrame() {
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        ProtocolUtils.putVarInt(buffer, 4);
+        buffer.put(frameContent(1, 4));
+        ProtocolUtils.putVarInt(buffer, 0);
+        buffer.flip();
+        assertMalformed(buffer);
+    }
+
+    @Test
+    public void testTruncatedSize() {
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        ProtocolUtils.putVarInt(buffer, 4);
+        buffer.put(frameContent(1, 4));
+        // the continuation bit is set on the last byte
+        buffer.put((byte) 0x80);
+        buffer.flip();
+        assertMalformed(buffer);
+    }
+
+    @Test
+    public void testInvalidSize() {
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        for (int i = 0; i < 6; i ++) {
+            buffer.put((byte) 0xff);
+        }
+        buffer.flip();
+        assertMalformed(buffer);
+    }
+
+    private static void assertMalformed(final ByteBuffer buffer) {
+        final Frame bundle = Frame.wrap(null, buffer, false);
+        final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        try {
+            RemoteReadListener.unbundle(bundle, buffer, frames);
+            fail("Expected the bundle to be rejected");
+        } catch (BufferUnderflowException expected) {
+        }
+        // nothing is dispatched, and the caller still owns the bundle
+        assertTrue(frames.isEmpty());
+        assertSame(buffer, bundle.getResource());
+        bundle.free();
+        assertReleased(bundle);
+    }
+
+    private static void assertReleased(final Frame frame) {
+        try {
+            frame.getResource();
+            fail("Expected the frame to be freed");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static byte[] frameContent(final int type, final int length) {
+        final byte[] content = new byte[length];
+        content[0] = (byte) type;
+        for (int i = 1; i < length; i ++) {
+            content[i] = (byte) (i * 31 + type);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.MessageOutputStream;
+import org.jboss.remoting3.OpenListener;
+import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.jboss.remoting3.test.Utils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * End-to-end tests for channels which compress their messages.
+ */
+public final class ChannelCompressionTestCase extends RemoteTestBase {
+
+    private static final String COMPRESSED_ECHO_SERVICE = "org.jboss.test.compressed-echo";
+    private static final String LIMITED_SERVICE = "org.jboss.test.compressed-limited";
+    private static final long SIZE_LIMIT = 4096L;
+
+    private static Connection connection;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "channel-compression-test");
+        final OptionMap compressed = OptionMap.builder().setSequence(RemotingOptions.COMPRESSION_CODECS, "deflate").getMap();
+        registerEchoService(serverEndpoint, COMPRESSED_ECHO_SERVICE, compressed);
+        serverEndpoint.registerService(LIMITED_SERVICE, new OpenListener() {
+            public void channelOpened(final Channel channel) {
+                channel.receiveMessage(new Channel.Receiver() {
+                    public void handleError(final Channel channel, final IOException error) {
+                        IoUtils.safeClose(channel);
+                    }
+
+                    public void handleEnd(final Channel channel) {
+                        IoUtils.safeClose(channel);
+                    }
+
+                    public void handleMessage(final Channel channel, final MessageInputStream message) {
+                        channel.receiveMessage(this);
+                        // reply with the number of bytes read, or with the error which stopped the reading
+                        String reply;
+                        try (MessageInputStream in = message) {
+                            int count = 0;
+                            while (in.read() != -1) {
+                                count ++;
+                            }
+                            reply = Integer.toString(count);
+                        } catch (IOException e) {
+                            reply = e.getMessage();
+                        }
+                        try (MessageOutputStream out = channel.writeMessage()) {
+                            out.write(reply.getBytes(StandardCharsets.UTF_8));
+                        } catch (IOException e) {
+                            IoUtils.safeClose(channel);
+                        }
+                    }
+                });
+            }
+
+            public void registrationTerminated() {
+            }
+        }, OptionMap.builder().addAll(compressed).set(RemotingOptions.MAX_INBOUND_MESSAGE_SIZE, SIZE_LIMIT).getMap());
+        connection = connect(OptionMap.EMPTY);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        IoUtils.safeClose(connection);
+    }
+
+    private static Channel openCompressedChannel(final String serviceType) throws Exception {
+        final Channel channel = connection.openChannel(serviceType, OptionMap.builder().setSequence(RemotingOptions.COMPRESSION_CODECS, "deflate").getMap()).get();
+        assertNotNull(Utils.getInstanceValue(channel, "compression"));
+        return channel;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Channel channel = openCompressedChannel(COMPRESSED_ECHO_SERVICE);
+        try {
+            // below the threshold, so stored as is
+            assertEcho(channel, "hello");
+            final byte[] text = new byte[100000];
+            for (int i = 0; i < text.length; i ++) {
+                text[i] = (byte) ('a' + i % 7);
+            }
+            assertArrayEquals(text, echo(channel, text));
+            // incompressible content still arrives intact
+            final byte[] random = new byte[20000];
+            new Random(42).nextBytes(random);
+            assertArrayEquals(random, echo(channel, random));
+        } finally {
+            IoUtils.safeClose(channel);
+        }
+    }
+
+    @Test
+    public void testSizeLimitAfterDecompression() throws Exception {
+        final Channel channel = openCompressedChannel(LIMITED_SERVICE);
+        try {
+            final byte[] small = new byte[(int) SIZE_LIMIT];
+            Arrays.fill(small, (byte) 'x');
+            assertEquals(Long.toString(SIZE_LIMIT), new String(echo(channel, small), StandardCharsets.UTF_8));
+            // compresses to far below the limit on the wire, but not once inflated
+            final byte[] large = new byte[(int) SIZE_LIMIT * 16];
+            Arrays.fill(large, (byte) 'x');
+            assertEquals("Maximum inbound message size exceeded after decompression", new String(echo(channel, large), StandardCharsets.UTF_8));
+            // the channel is still usable afterwards
+            assertEquals("5", new String(echo(channel, "hello".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        } finally {
+            IoUtils.safeClose(channel);
+        }
+    }
+}
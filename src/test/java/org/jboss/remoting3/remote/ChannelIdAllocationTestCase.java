@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for the allocation of outbound channel IDs on connections which use compact frames.
+ */
+public final class ChannelIdAllocationTestCase extends RemoteTestBase {
+
+    private static final int SMALL_IDS = RemoteConnectionHandler.getChannelIdRange(0);
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "channel-id-test");
+    }
+
+    @AfterClass
+    public static void destroy() {
+        stopServer();
+    }
+
+    @Test
+    public void testSmallIdsInTurn() {
+        final Random random = new Random(17);
+        for (int tries = 0; tries < SMALL_IDS; tries ++) {
+            assertEquals((SMALL_IDS - 2 + tries) % SMALL_IDS, RemoteConnectionHandler.getCompactChannelId(SMALL_IDS - 2, tries, random));
+        }
+        // once every small ID was tried, a larger range is used
+        final int id = RemoteConnectionHandler.getCompactChannelId(SMALL_IDS - 2, SMALL_IDS, random);
+        assertTrue(id < RemoteConnectionHandler.getChannelIdRange(SMALL_IDS));
+    }
+
+    @Test
+    public void testCloseThenReopen() throws Exception {
+        try (Connection connection = connect(OptionMap.EMPTY)) {
+            final Set<Integer> ids = new HashSet<>();
+            for (int i = 0; i < SMALL_IDS; i ++) {
+                final Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+                final int id = ((RemoteConnectionChannel) channel).getChannelId() & 0x7fffffff;
+                assertTrue("Channel ID " + id + " is not a small ID", id < SMALL_IDS);
+                // the ID of a channel which was just closed is not handed out again
+                assertTrue("Channel ID " + id + " was reused", ids.add(Integer.valueOf(id)));
+                assertEcho(channel, "channel " + i);
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests for the compact frame encoding.
+ */
+public final class CompactFrameTestCase {
+
+    @Test
+    public void testVarInt() {
+        final int[] values = { 0, 1, 127, 128, 16383, 16384, (1 << 21) - 1, 1 << 21, (1 << 28) - 1, 1 << 28, Integer.MAX_VALUE, -1 };
+        final ByteBuffer buffer = ByteBuffer.allocate(5);
+        for (int value : values) {
+            buffer.clear();
+            ProtocolUtils.putVarInt(buffer, value);
+            assertEquals(ProtocolUtils.varIntLength(value), buffer.position());
+            buffer.flip();
+            assertEquals(value, ProtocolUtils.getVarInt(buffer));
+            assertEquals(0, buffer.remaining());
+        }
+    }
+
+    @Test
+    public void testChannelIdRoundTrip() {
+        final int[] channelIds = { 0, 5, 63, 0x80000000, 0x8000003f, 0x80001fff, 0x07ffffff, 0x87ffffff };
+        for (int channelId : channelIds) {
+            final ByteBuffer buffer = messageData(channelId, 100);
+            assertTrue(ProtocolUtils.compactChannelId(buffer));
+            assertEquals(Protocol.MESSAGE_DATA, buffer.get());
+            assertEquals(channelId, ProtocolUtils.getCompactChannelId(buffer));
+            assertEquals(0x1234, buffer.getShort());
+            assertEquals(Protocol.MSG_FLAG_NEW, buffer.get());
+            assertEquals(100, buffer.remaining());
+        }
+    }
+
+    @Test
+    public void testWireSize() {
+        // a small message on a channel whose ID was allocated in the first range
+        final int channelId = 0x80000000 | (RemoteConnectionHandler.getChannelIdRange(0) - 1);
+        final ByteBuffer buffer = messageData(channelId, 100);
+        final int regular = 4 + buffer.remaining();
+        ProtocolUtils.compactChannelId(buffer);
+        final int compact = ProtocolUtils.varIntLength(buffer.remaining()) + buffer.remaining();
+        // 12 bytes of overhead shrink to 6
+        assertEquals(112, regular);
+        assertEquals(106, compact);
+        // the largest range still fits the in-place conversion
+        assertTrue(ProtocolUtils.varIntLength(Integer.rotateLeft(0x80000000 | (RemoteConnectionHandler.getChannelIdRange(Integer.MAX_VALUE) - 1), 1)) <= 4);
+    }
+
+    @Test
+    public void testChannelIdOutOfRange() {
+        final int[] channelIds = { 0x08000000, 0x88000000, 0x7fffffff, 0xffffffff };
+        for (int channelId : channelIds) {
+            final ByteBuffer buffer = messageData(channelId, 100);
+            final ByteBuffer copy = ByteBuffer.allocate(buffer.remaining()).put(buffer.duplicate());
+            copy.flip();
+            // the frame keeps its regular header
+            assertFalse(ProtocolUtils.compactChannelId(buffer));
+            assertEquals(copy, buffer);
+        }
+    }
+
+    private static ByteBuffer messageData(final int channelId, final int size) {
+        final ByteBuffer buffer = ByteBuffer.allocate(8 + size);
+        buffer.put(Protocol.MESSAGE_DATA);
+        buffer.putInt(channelId);
+        buffer.putShort((short) 0x1234);
+        buffer.put(Protocol.MSG_FLAG_NEW);
+        buffer.position(buffer.limit());
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.jboss.remoting3.spi.CompressionCodec;
+import org.junit.Test;
+import org.xnio.Sequence;
+
+/**
+ * Tests for compression codec negotiation and the deflate codec.
+ */
+public final class CompressionCodecsTestCase {
+
+    @Test
+    public void testNegotiation() {
+        assertEquals("deflate", CompressionCodecs.getOffer(Sequence.of("unknown", "deflate")));
+        assertNull(CompressionCodecs.getOffer(Sequence.of("unknown")));
+        assertEquals("deflate", CompressionCodecs.select("unknown,deflate", Sequence.of("deflate")));
+        assertNull(CompressionCodecs.select("deflate", Sequence.of("unknown")));
+        assertNull(CompressionCodecs.select(null, Sequence.of("deflate")));
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws Exception {
+        final CompressionCodec codec = CompressionCodecs.getFactory("deflate").createCodec();
+        final byte[] data = new byte[65536];
+        Arrays.fill(data, (byte) 'x');
+        for (int i = 0; i < 2; i ++) {
+            // the second pass reuses the pooled deflater and inflater
+            final ByteArrayOutputStream target = new ByteArrayOutputStream();
+            try (OutputStream os = codec.compress(target)) {
+                os.write(data, 0, 1000);
+                os.flush();
+                os.write(data, 1000, data.length - 1000);
+            }
+            assertTrue(target.size() < data.length / 10);
+            final ByteArrayOutputStream result = new ByteArrayOutputStream();
+            try (InputStream is = codec.decompress(new ByteArrayInputStream(target.toByteArray()))) {
+                final byte[] buf = new byte[4096];
+                int res;
+                while ((res = is.read(buf)) != -1) {
+                    result.write(buf, 0, res);
+                }
+            }
+            assertArrayEquals(data, result.toByteArray());
+        }
+    }
+
+    @Test
+    public void testCloseEndsPooledState() throws Exception {
+        final DeflateCompressionCodec codec = (DeflateCompressionCodec) CompressionCodecs.getFactory("deflate").createCodec();
+        final byte[] data = new byte[1000];
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (OutputStream os = codec.compress(target)) {
+            os.write(data);
+        }
+        try (InputStream is = codec.decompress(new ByteArrayInputStream(target.toByteArray()))) {
+            while (is.read() != -1);
+        }
+        assertEquals(2, codec.getPooledCount());
+        // a message which is still being written when the channel closes
+        final OutputStream inProgress = codec.compress(new ByteArrayOutputStream());
+        codec.close();
+        assertEquals(0, codec.getPooledCount());
+        inProgress.write(data);
+        inProgress.close();
+        assertEquals("State released after the close must not be pooled", 0, codec.getPooledCount());
+    }
+}
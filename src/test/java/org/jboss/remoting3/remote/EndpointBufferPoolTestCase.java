@@ -0,0 +1,247 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+import org.xnio.Xnio;
+import org.xnio.XnioIoThread;
+import org.xnio.XnioWorker;
+
+/**
+ * Tests for the hit, miss and exhaustion behaviour of the endpoint buffer pool.
+ */
+public final class EndpointBufferPoolTestCase {
+
+    private static final int BUFFERS = 4;
+
+    private static XnioWorker worker;
+
+    @BeforeClass
+    public static void createWorker() throws Exception {
+        worker = Xnio.getInstance().createWorker(OptionMap.create(Options.WORKER_IO_THREADS, 2));
+    }
+
+    @AfterClass
+    public static void destroyWorker() {
+        worker.shutdownNow();
+    }
+
+    private static <T> T onThread(final XnioIoThread thread, final Supplier<T> task) throws Exception {
+        return CompletableFuture.supplyAsync(task, thread).get(5L, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        final EndpointBufferPool pool = new EndpointBufferPool(BUFFERS * EndpointBufferPool.BUFFER_SIZE);
+        final ByteBuffer buffer = pool.allocateDirect();
+        assertNotNull(buffer);
+        assertTrue(buffer.isDirect());
+        assertEquals(EndpointBufferPool.BUFFER_SIZE, buffer.capacity());
+        assertEquals(1L, pool.getMissCount());
+        assertEquals(0L, pool.getHitCount());
+        buffer.put((byte) 1);
+        pool.free(buffer);
+        final ByteBuffer again = pool.allocateDirect();
+        assertNotNull(again);
+        if (RemoteConnectionProvider.USE_POOLING) {
+            // the released buffer is cached and reused, cleared
+            assertEquals(1L, pool.getHitCount());
+            assertEquals(0, again.position());
+            assertEquals(EndpointBufferPool.BUFFER_SIZE, again.limit());
+        }
+        assertEquals(EndpointBufferPool.BUFFER_SIZE, pool.getDirectMemoryUsed());
+        pool.free(again);
+    }
+
+    @Test
+    public void testExhaustion() {
+        final EndpointBufferPool pool = new EndpointBufferPool(BUFFERS * EndpointBufferPool.BUFFER_SIZE);
+        final ByteBuffer[] array = new ByteBuffer[BUFFERS + 2];
+        assertEquals(BUFFERS, pool.allocateDirect(array, 0));
+        assertNull(array[BUFFERS]);
+        assertEquals(BUFFERS * EndpointBufferPool.BUFFER_SIZE, pool.getDirectMemoryUsed());
+        assertTrue(pool.getExhaustedCount() > 0L);
+        assertNull(pool.allocateDirect());
+        // the non-blocking allocation falls back to the heap
+        final ByteBuffer heap = pool.allocate();
+        assertFalse(heap.isDirect());
+        pool.free(heap);
+        assertEquals(BUFFERS * EndpointBufferPool.BUFFER_SIZE, pool.getDirectMemoryUsed());
+        for (int i = 0; i < BUFFERS; i ++) {
+            pool.free(array[i]);
+        }
+        assertEquals(BUFFERS, pool.allocateDirect(array, 0));
+        for (int i = 0; i < BUFFERS; i ++) {
+            pool.free(array[i]);
+        }
+    }
+
+    @Test
+    public void testMemoryWaiter() {
+        final EndpointBufferPool pool = new EndpointBufferPool(BUFFERS * EndpointBufferPool.BUFFER_SIZE);
+        final List<ByteBuffer> buffers = new ArrayList<>();
+        ByteBuffer buffer;
+        while ((buffer = pool.allocateDirect()) != null) {
+            buffers.add(buffer);
+        }
+        assertEquals(BUFFERS, buffers.size());
+        final AtomicInteger runs = new AtomicInteger();
+        pool.awaitMemory(runs::incrementAndGet);
+        assertEquals("Waiter must not run while the pool is exhausted", 0, runs.get());
+        pool.free(buffers.remove(0));
+        assertEquals(1, runs.get());
+        // a waiter registered while memory is available runs at once
+        pool.awaitMemory(runs::incrementAndGet);
+        assertEquals(2, runs.get());
+        for (ByteBuffer b : buffers) {
+            pool.free(b);
+        }
+    }
+
+    @Test
+    public void testParkedWriter() throws Exception {
+        final EndpointBufferPool pool = new EndpointBufferPool(BUFFERS * EndpointBufferPool.BUFFER_SIZE);
+        final List<ByteBuffer> buffers = new ArrayList<>();
+        ByteBuffer buffer;
+        while ((buffer = pool.allocateDirect()) != null) {
+            buffers.add(buffer);
+        }
+        final CompletableFuture<ByteBuffer> writer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.allocateForWrite();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100L);
+        pool.free(buffers.remove(0));
+        final ByteBuffer allocated = writer.get(5L, TimeUnit.SECONDS);
+        assertTrue("The parked writer should receive the released direct buffer", allocated.isDirect());
+        pool.free(allocated);
+        for (ByteBuffer b : buffers) {
+            pool.free(b);
+        }
+    }
+
+    @Test
+    public void testSuspendAndResume() throws Exception {
+        final EndpointBufferPool pool = new EndpointBufferPool(BUFFERS * EndpointBufferPool.BUFFER_SIZE);
+        final XnioIoThread holder = worker.getIoThread(0);
+        final XnioIoThread reader = worker.getIoThread(1);
+        final ByteBuffer[] held = onThread(holder, () -> {
+            final ByteBuffer[] array = new ByteBuffer[BUFFERS];
+            assertEquals(BUFFERS, pool.allocateDirect(array, 0));
+            return array;
+        });
+        // the reader finds the pool exhausted and waits for memory, as a suspended connection does
+        final CountDownLatch resumed = new CountDownLatch(1);
+        assertNull(onThread(reader, () -> {
+            final ByteBuffer buffer = pool.allocateDirect();
+            if (buffer == null) {
+                pool.awaitMemory(resumed::countDown);
+            }
+            return buffer;
+        }));
+        assertFalse(resumed.await(200L, TimeUnit.MILLISECONDS));
+        // a buffer released on an I/O thread must not stay in that thread's cache while the reader waits
+        onThread(holder, () -> {
+            pool.free(held[0]);
+            return null;
+        });
+        assertTrue("The waiting reader should be resumed", resumed.await(5L, TimeUnit.SECONDS));
+        final ByteBuffer buffer = onThread(reader, pool::allocateDirect);
+        assertNotNull(buffer);
+        pool.free(buffer);
+        for (int i = 1; i < BUFFERS; i ++) {
+            pool.free(held[i]);
+        }
+    }
+
+    @Test
+    public void testThreadCachedMemoryReleased() throws Exception {
+        final EndpointBufferPool pool = new EndpointBufferPool(BUFFERS * EndpointBufferPool.BUFFER_SIZE);
+        final XnioIoThread holder = worker.getIoThread(0);
+        final XnioIoThread reader = worker.getIoThread(1);
+        // all of the memory ends up cached by one thread, with nobody waiting for it at the time
+        onThread(holder, () -> {
+            final ByteBuffer[] array = new ByteBuffer[BUFFERS];
+            assertEquals(BUFFERS, pool.allocateDirect(array, 0));
+            for (ByteBuffer b : array) {
+                pool.free(b);
+            }
+            return null;
+        });
+        final CountDownLatch resumed = new CountDownLatch(1);
+        final ByteBuffer first = onThread(reader, () -> {
+            final ByteBuffer buffer = pool.allocateDirect();
+            if (buffer == null) {
+                pool.awaitMemory(resumed::countDown);
+            } else {
+                resumed.countDown();
+            }
+            return buffer;
+        });
+        assertTrue("The waiting reader should be resumed once the cache is flushed", resumed.await(5L, TimeUnit.SECONDS));
+        final ByteBuffer buffer = first != null ? first : onThread(reader, pool::allocateDirect);
+        assertNotNull(buffer);
+        pool.free(buffer);
+    }
+
+    @Test
+    public void testCloseReleasesCaches() throws Exception {
+        final EndpointBufferPool pool = new EndpointBufferPool(BUFFERS * EndpointBufferPool.BUFFER_SIZE);
+        final XnioIoThread holder = worker.getIoThread(0);
+        final ByteBuffer[] array = new ByteBuffer[BUFFERS];
+        onThread(holder, () -> {
+            assertEquals(BUFFERS, pool.allocateDirect(array, 0));
+            // half goes to the thread cache, half to the shared cache
+            pool.free(array[0]);
+            pool.free(array[1]);
+            return null;
+        });
+        pool.free(array[2]);
+        pool.close();
+        // the thread cache is emptied by its own thread, so wait for the tasks queued before this one
+        onThread(holder, () -> null);
+        assertEquals(0, pool.getThreadCachedCount());
+        assertEquals(EndpointBufferPool.BUFFER_SIZE, pool.getDirectMemoryUsed());
+        // buffers still in use are released when they are freed
+        pool.free(array[3]);
+        assertEquals(0L, pool.getDirectMemoryUsed());
+    }
+}
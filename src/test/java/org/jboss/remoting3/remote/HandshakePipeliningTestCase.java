@@ -0,0 +1,251 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.security.auth.callback.CallbackHandler;
+import javax.security.sasl.SaslException;
+import javax.security.sasl.SaslServer;
+import javax.security.sasl.SaslServerFactory;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.Endpoint;
+import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.realm.SimpleRealmEntry;
+import org.wildfly.security.auth.server.MechanismConfiguration;
+import org.wildfly.security.auth.server.SaslAuthenticationFactory;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.credential.PasswordCredential;
+import org.wildfly.security.password.PasswordFactory;
+import org.wildfly.security.password.spec.ClearPasswordSpec;
+import org.wildfly.security.permission.PermissionVerifier;
+import org.wildfly.security.sasl.SaslMechanismSelector;
+import org.wildfly.security.sasl.util.SaslMechanismInformation;
+import org.wildfly.security.sasl.util.ServiceLoaderSaslServerFactory;
+import org.wildfly.security.ssl.CipherSuiteSelector;
+import org.wildfly.security.ssl.Protocol;
+import org.wildfly.security.ssl.ProtocolSelector;
+import org.wildfly.security.ssl.SSLContextBuilder;
+import org.wildfly.security.ssl.test.util.CAGenerationTool;
+import org.wildfly.security.ssl.test.util.CAGenerationTool.Identity;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+
+/**
+ * Tests for pipelined connection handshakes.  The client endpoint registers its own {@code remote} provider, so that
+ * the test can see which handshakes the provider remembers.
+ */
+public final class HandshakePipeliningTestCase extends RemoteTestBase {
+
+    private static final String SCHEME = "remote+pipelining";
+    private static final String DIGEST_MECH = SaslMechanismInformation.Names.DIGEST_MD5;
+    private static final OptionMap NO_TLS = OptionMap.create(Options.SSL_ENABLED, Boolean.FALSE);
+    private static final String CA_LOCATION = "./target/test-classes/ca-pipelining";
+    private static final String CIPHER_SUITE = "TLS_AES_128_GCM_SHA256";
+
+    private static final AtomicInteger serverExchanges = new AtomicInteger();
+
+    private static Endpoint endpoint;
+    private static volatile RemoteConnectionProvider provider;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        endpoint = Endpoint.builder().setEndpointName("pipelining-client").build();
+        endpoint.addConnectionProvider(SCHEME, (context, optionMap, protocolName) -> provider = new RemoteConnectionProvider(optionMap, context, protocolName), OptionMap.create(Options.SSL_ENABLED, Boolean.TRUE, Options.SSL_STARTTLS, Boolean.TRUE));
+    }
+
+    @AfterClass
+    public static void destroy() {
+        IoUtils.safeClose(endpoint);
+        endpoint = null;
+    }
+
+    @After
+    public void stop() {
+        stopServer();
+    }
+
+    @Test
+    public void testPipelinedPeers() throws Exception {
+        startServer(OptionMap.create(RemotingOptions.SERVER_NAME, "alpha"), "pipelining-server", null, createAuthenticationFactory(SASL_MECH));
+        final AuthenticationConfiguration configuration = configuration(SASL_MECH);
+        connectAndEcho(configuration, null, NO_TLS);
+        final HandshakeCache.Hint hint = provider.getHandshakeCache().get(uri(), configuration);
+        assertNotNull(hint);
+        assertEquals("alpha", hint.getServerName());
+        assertEquals(SASL_MECH, hint.getMechanismName());
+        // the second connection sends its handshake without waiting for the server
+        final int exchanges = serverExchanges.get();
+        connectAndEcho(configuration, null, NO_TLS);
+        assertEquals(exchanges + 1, serverExchanges.get());
+        assertNotNull(provider.getHandshakeCache().get(uri(), configuration));
+    }
+
+    @Test
+    public void testServerWithoutPipelining() throws Exception {
+        startServer(OptionMap.create(RemotingOptions.HANDSHAKE_PIPELINING, Boolean.FALSE), "old-server", null, createAuthenticationFactory(SASL_MECH));
+        final AuthenticationConfiguration configuration = configuration(SASL_MECH);
+        connectAndEcho(configuration, null, NO_TLS);
+        // the server did not offer the capability, so nothing is remembered
+        assertNull(provider.getHandshakeCache().get(uri(), configuration));
+        connectAndEcho(configuration, null, NO_TLS);
+        assertNull(provider.getHandshakeCache().get(uri(), configuration));
+    }
+
+    @Test
+    public void testServerReplacedByOldPeer() throws Exception {
+        startServer(OptionMap.EMPTY, "pipelining-server", null, createAuthenticationFactory(SASL_MECH));
+        final AuthenticationConfiguration configuration = configuration(SASL_MECH);
+        connectAndEcho(configuration, null, NO_TLS);
+        assertNotNull(provider.getHandshakeCache().get(uri(), configuration));
+        stopServer();
+        startServer(OptionMap.create(RemotingOptions.HANDSHAKE_PIPELINING, Boolean.FALSE), "old-server", null, createAuthenticationFactory(SASL_MECH));
+        // the pipelined handshake is accepted, but is not used again since the capability is gone
+        connectAndEcho(configuration, null, NO_TLS);
+        assertNull(provider.getHandshakeCache().get(uri(), configuration));
+    }
+
+    @Test
+    public void testServerNameMismatch() throws Exception {
+        startServer(OptionMap.create(RemotingOptions.SERVER_NAME, "alpha"), "alpha-server", null, createAuthenticationFactory(DIGEST_MECH));
+        final AuthenticationConfiguration configuration = configuration(DIGEST_MECH);
+        connectAndEcho(configuration, null, NO_TLS);
+        assertEquals("alpha", provider.getHandshakeCache().get(uri(), configuration).getServerName());
+        stopServer();
+        startServer(OptionMap.create(RemotingOptions.SERVER_NAME, "beta"), "beta-server", null, createAuthenticationFactory(DIGEST_MECH));
+        // the digest of the pipelined request names the old server, so it is rejected and the handshake is restarted
+        final int exchanges = serverExchanges.get();
+        connectAndEcho(configuration, null, NO_TLS);
+        assertEquals(exchanges + 2, serverExchanges.get());
+        assertEquals("beta", provider.getHandshakeCache().get(uri(), configuration).getServerName());
+    }
+
+    @Test
+    public void testStartTls() throws Exception {
+        final CAGenerationTool caGenerationTool = CAGenerationTool.builder()
+            .setBaseDir(CA_LOCATION)
+            .setRequestIdentities(Identity.LADYBIRD)
+            .build();
+        try {
+            final SSLContext serverContext = new SSLContextBuilder()
+                .setCipherSuiteSelector(CipherSuiteSelector.fromNamesString(CIPHER_SUITE))
+                .setProtocolSelector(ProtocolSelector.empty().add(Protocol.TLSv1_3))
+                .setKeyManager(caGenerationTool.getDefinedIdentity(Identity.LADYBIRD).createKeyManager())
+                .build()
+                .create();
+            final SSLContext clientContext = new SSLContextBuilder()
+                .setCipherSuiteSelector(CipherSuiteSelector.fromNamesString(CIPHER_SUITE))
+                .setProtocolSelector(ProtocolSelector.empty().add(Protocol.TLSv1_3))
+                .setTrustManager(caGenerationTool.getDefinedCAIdentity(Identity.CA).createTrustManager())
+                .setClientMode(true)
+                .build()
+                .create();
+            final OptionMap tlsOptions = OptionMap.create(Options.SSL_ENABLED, Boolean.TRUE, Options.SSL_STARTTLS, Boolean.TRUE);
+            startServer(tlsOptions, "starttls-server", serverContext, createAuthenticationFactory(SASL_MECH));
+            final AuthenticationConfiguration configuration = configuration(SASL_MECH);
+            connectAndEcho(configuration, clientContext, tlsOptions);
+            // the STARTTLS exchange must complete first, so the remembered handshake is not pipelined
+            assertNotNull(provider.getHandshakeCache().get(uri(), configuration));
+            connectAndEcho(configuration, clientContext, tlsOptions);
+        } finally {
+            caGenerationTool.close();
+        }
+    }
+
+    private static URI uri() {
+        return URI.create(SCHEME + "://localhost:" + PORT);
+    }
+
+    private static AuthenticationConfiguration configuration(final String mechanism) {
+        return AuthenticationConfiguration.empty()
+            .useName("bob")
+            .usePassword("pass")
+            .setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism(mechanism));
+    }
+
+    private static void connectAndEcho(final AuthenticationConfiguration configuration, final SSLContext sslContext, final OptionMap options) throws IOException {
+        final IoFuture<Connection> futureConnection = endpoint.connect(uri(), null, options, sslContext, configuration);
+        if (futureConnection.await(10L, TimeUnit.SECONDS) == IoFuture.Status.WAITING) {
+            futureConnection.cancel();
+            throw new IOException("Timed out connecting to " + uri());
+        }
+        try (Connection connection = futureConnection.get()) {
+            if (sslContext != null) {
+                assertNotNull(connection.getSslSession());
+            }
+            final Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+            assertEcho(channel, "pipelined");
+            channel.close();
+        }
+    }
+
+    /**
+     * Create an authentication factory for the given mechanism, which counts the authentication exchanges it starts.
+     */
+    private static SaslAuthenticationFactory createAuthenticationFactory(final String mechanismName) throws Exception {
+        final PasswordFactory passwordFactory = PasswordFactory.getInstance("clear");
+        final SimpleMapBackedSecurityRealm mainRealm = new SimpleMapBackedSecurityRealm();
+        mainRealm.setIdentityMap(Collections.singletonMap("bob", new SimpleRealmEntry(
+            Collections.singletonList(new PasswordCredential(passwordFactory.generatePassword(new ClearPasswordSpec("pass".toCharArray())))))
+        ));
+        final SecurityDomain.Builder domainBuilder = SecurityDomain.builder();
+        domainBuilder.addRealm("mainRealm", mainRealm).build();
+        domainBuilder.setDefaultRealmName("mainRealm");
+        domainBuilder.setPermissionMapper((permissionMappable, roles) -> PermissionVerifier.ALL);
+        final SaslServerFactory delegate = new ServiceLoaderSaslServerFactory(HandshakePipeliningTestCase.class.getClassLoader());
+        final SaslAuthenticationFactory.Builder builder = SaslAuthenticationFactory.builder();
+        builder.setSecurityDomain(domainBuilder.build());
+        builder.setFactory(new SaslServerFactory() {
+            public SaslServer createSaslServer(final String mechanism, final String protocol, final String serverName, final Map<String, ?> props, final CallbackHandler cbh) throws SaslException {
+                final SaslServer saslServer = delegate.createSaslServer(mechanism, protocol, serverName, props, cbh);
+                if (saslServer != null) {
+                    serverExchanges.incrementAndGet();
+                }
+                return saslServer;
+            }
+
+            public String[] getMechanismNames(final Map<String, ?> props) {
+                return delegate.getMechanismNames(props);
+            }
+        });
+        builder.setMechanismConfigurationSelector(mechanismInformation -> mechanismInformation.getMechanismName().startsWith(mechanismName) ? MechanismConfiguration.EMPTY : null);
+        return builder.build();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.jboss.remoting3.test.Utils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for the heartbeats which the timer wheels of the I/O threads send on behalf of idle connections.
+ */
+public final class HeartbeatWheelTestCase extends RemoteTestBase {
+
+    private static final int INTERVAL = 200;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "heartbeat-wheel-test");
+    }
+
+    private static Connection connectWithHeartbeat(final int interval) throws Exception {
+        return connect(OptionMap.create(RemotingOptions.HEARTBEAT_INTERVAL, Integer.valueOf(interval)));
+    }
+
+    private static RemoteConnection getRemoteConnection(final Connection connection) throws Exception {
+        try (Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get()) {
+            return ((RemoteConnectionChannel) channel).getRemoteConnection();
+        }
+    }
+
+    private static HeartbeatWheel getWheel(final RemoteConnection remoteConnection) throws Exception {
+        return (HeartbeatWheel) Utils.getInstanceValue(remoteConnection, "heartbeatWheel");
+    }
+
+    /**
+     * Count the writes of an otherwise idle connection over the given time, each of which is a heartbeat.
+     */
+    private static int countWrites(final RemoteConnection remoteConnection, final long millis) throws Exception {
+        final RemoteConnection.RemoteWriteListener writeListener = remoteConnection.getWriteListener();
+        final long end = System.nanoTime() + millis * 1_000_000L;
+        long lastActivity = writeListener.getLastActivity();
+        int writes = 0;
+        while (System.nanoTime() - end < 0L) {
+            Thread.sleep(10L);
+            final long activity = writeListener.getLastActivity();
+            if (activity != lastActivity) {
+                lastActivity = activity;
+                writes ++;
+            }
+        }
+        return writes;
+    }
+
+    @Test
+    public void testIdleConnection() throws Exception {
+        final Connection connection = connectWithHeartbeat(INTERVAL);
+        try {
+            final RemoteConnection remoteConnection = getRemoteConnection(connection);
+            Thread.sleep(INTERVAL);
+            // nothing but heartbeats is sent, about one per interval
+            final int heartbeats = countWrites(remoteConnection, INTERVAL * 5 + INTERVAL / 2);
+            assertTrue("Too few heartbeats: " + heartbeats, heartbeats >= 3);
+            assertTrue("Too many heartbeats: " + heartbeats, heartbeats <= 7);
+            assertTrue(connection.isOpen());
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+
+    @Test
+    public void testNoHeartbeat() throws Exception {
+        final Connection connection = connectWithHeartbeat(0);
+        try {
+            final RemoteConnection remoteConnection = getRemoteConnection(connection);
+            assertNull(getWheel(remoteConnection));
+            Thread.sleep(INTERVAL);
+            assertEquals(0, countWrites(remoteConnection, INTERVAL * 3));
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+
+    @Test
+    public void testSharedWheel() throws Exception {
+        final List<Connection> connections = new ArrayList<>();
+        final List<RemoteConnection> remoteConnections = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i ++) {
+                final Connection connection = connectWithHeartbeat(INTERVAL);
+                connections.add(connection);
+                remoteConnections.add(getRemoteConnection(connection));
+            }
+            // connections on the same I/O thread share one wheel
+            for (RemoteConnection a : remoteConnections) {
+                final HeartbeatWheel wheel = getWheel(a);
+                for (RemoteConnection b : remoteConnections) {
+                    final HeartbeatWheel other = getWheel(b);
+                    if (Utils.getInstanceValue(wheel, "ioThread") == Utils.getInstanceValue(other, "ioThread")) {
+                        assertSame(wheel, other);
+                    }
+                }
+            }
+            Thread.sleep(INTERVAL);
+            final long[] lastActivity = new long[remoteConnections.size()];
+            for (int i = 0; i < lastActivity.length; i ++) {
+                lastActivity[i] = remoteConnections.get(i).getWriteListener().getLastActivity();
+            }
+            Thread.sleep(INTERVAL * 3);
+            // and every one of them gets its heartbeats
+            for (int i = 0; i < lastActivity.length; i ++) {
+                assertTrue(remoteConnections.get(i).getWriteListener().getLastActivity() > lastActivity[i]);
+            }
+        } finally {
+            for (Connection connection : connections) {
+                IoUtils.safeClose(connection);
+            }
+        }
+        for (Connection connection : connections) {
+            connection.awaitClosed();
+        }
+        // once its connections are gone, a wheel stops ticking
+        Thread.sleep(INTERVAL + HeartbeatWheel.TICK_MILLIS * 3);
+        for (RemoteConnection remoteConnection : remoteConnections) {
+            assertFalse(((Boolean) Utils.getInstanceValue(getWheel(remoteConnection), "running")).booleanValue());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.MessageOutputStream;
+import org.jboss.remoting3.OpenListener;
+import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for the inbound memory limit of a connection.  The server holds at most {@link #LIMIT} bytes of unconsumed
+ * message data per connection; beyond that it stops reading from the connection, so that even messages on other channels
+ * stay unread until the held data is consumed.
+ */
+public final class InboundMemoryLimitTestCase extends RemoteTestBase {
+
+    private static final String HOLD_SERVICE = "org.jboss.test.hold";
+    private static final long LIMIT = 0x8000L;
+
+    private static final BlockingQueue<MessageInputStream> heldMessages = new LinkedBlockingQueue<>();
+    private static Connection connection;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.create(RemotingOptions.MAX_INBOUND_MEMORY, Long.valueOf(LIMIT)), "inbound-memory-test");
+        serverEndpoint.registerService(HOLD_SERVICE, new OpenListener() {
+            public void channelOpened(final Channel channel) {
+                channel.receiveMessage(new Channel.Receiver() {
+                    public void handleError(final Channel channel, final IOException error) {
+                        IoUtils.safeClose(channel);
+                    }
+
+                    public void handleEnd(final Channel channel) {
+                        IoUtils.safeClose(channel);
+                    }
+
+                    public void handleMessage(final Channel channel, final MessageInputStream message) {
+                        channel.receiveMessage(this);
+                        // leave the message for the test to consume
+                        heldMessages.add(message);
+                    }
+                });
+            }
+
+            public void registrationTerminated() {
+            }
+        }, OptionMap.EMPTY);
+        connection = connect(OptionMap.EMPTY);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        IoUtils.safeClose(connection);
+    }
+
+    private static MessageInputStream sendHeld(final Channel channel, final byte[] bytes) throws Exception {
+        try (MessageOutputStream out = channel.writeMessage()) {
+            out.write(bytes);
+        }
+        final MessageInputStream message = heldMessages.poll(10L, TimeUnit.SECONDS);
+        assertNotNull(message);
+        return message;
+    }
+
+    private static void assertBlocked(final IoFuture<byte[]> reply) {
+        // the data held by the server exceeds the limit, so the echo request is not even read
+        assertEquals(IoFuture.Status.WAITING, reply.await(500L, TimeUnit.MILLISECONDS));
+    }
+
+    private static void assertUnblocked(final IoFuture<byte[]> reply, final byte[] expected) throws IOException {
+        assertEquals(IoFuture.Status.DONE, reply.await(10L, TimeUnit.SECONDS));
+        assertArrayEquals(expected, reply.get());
+    }
+
+    @Test
+    public void testReadsResumeWhenConsumed() throws Exception {
+        final Channel holdChannel = connection.openChannel(HOLD_SERVICE, OptionMap.EMPTY).get();
+        final Channel echoChannel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+        try {
+            final byte[] data = new byte[(int) LIMIT * 3];
+            new Random(29).nextBytes(data);
+            final MessageInputStream held = sendHeld(holdChannel, data);
+            final byte[] ping = "ping".getBytes("UTF-8");
+            final IoFuture<byte[]> reply = echoAsync(echoChannel, ping);
+            assertBlocked(reply);
+            try (MessageInputStream in = held) {
+                assertArrayEquals(data, readAll(in));
+            }
+            assertUnblocked(reply, ping);
+        } finally {
+            IoUtils.safeClose(holdChannel);
+            IoUtils.safeClose(echoChannel);
+        }
+    }
+
+    @Test
+    public void testReadsResumeWhenDiscarded() throws Exception {
+        final Channel holdChannel = connection.openChannel(HOLD_SERVICE, OptionMap.EMPTY).get();
+        final Channel echoChannel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+        try {
+            final MessageInputStream held = sendHeld(holdChannel, new byte[(int) LIMIT * 3]);
+            final byte[] ping = "ping".getBytes("UTF-8");
+            final IoFuture<byte[]> reply = echoAsync(echoChannel, ping);
+            assertBlocked(reply);
+            // closing the message unread discards its data, which releases it just the same
+            held.close();
+            assertUnblocked(reply, ping);
+        } finally {
+            IoUtils.safeClose(holdChannel);
+            IoUtils.safeClose(echoChannel);
+        }
+    }
+
+    @Test
+    public void testConsumedDataReleased() throws Exception {
+        final Channel echoChannel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+        try {
+            // many times the limit passes through, which only works if every consumed frame is released again
+            final byte[] data = new byte[(int) LIMIT / 2];
+            final Random random = new Random(30);
+            for (int i = 0; i < 32; i ++) {
+                random.nextBytes(data);
+                assertArrayEquals(data, echo(echoChannel, data));
+            }
+        } finally {
+            IoUtils.safeClose(echoChannel);
+        }
+    }
+}
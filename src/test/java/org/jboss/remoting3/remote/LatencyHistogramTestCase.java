@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the bucketing and percentiles of latency histograms.
+ */
+public final class LatencyHistogramTestCase {
+
+    @Test
+    public void testBucketBounds() {
+        long expected = 0L;
+        for (int i = 0; i < 64 * LatencyHistogram.SUB_BUCKETS && expected >= 0L; i ++) {
+            final long lowest = LatencyHistogram.lowestValue(LatencyHistogram.index(expected));
+            assertEquals(expected, lowest);
+            final long highest = LatencyHistogram.highestValue(LatencyHistogram.index(expected));
+            assertEquals(LatencyHistogram.index(expected), LatencyHistogram.index(highest));
+            expected = highest + 1;
+        }
+        assertEquals(LatencyHistogram.index(Long.MAX_VALUE), LatencyHistogram.index(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testPrecision() {
+        for (long value = 1L; value > 0L && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            final int index = LatencyHistogram.index(value);
+            final long width = LatencyHistogram.highestValue(index) - LatencyHistogram.lowestValue(index);
+            assertTrue(width <= value / LatencyHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i ++) {
+            histogram.record(i * 1000L);
+        }
+        final LatencyPercentiles percentiles = histogram.getPercentiles();
+        assertEquals(1000L, percentiles.getCount());
+        assertEquals(1000L, percentiles.getMaxMicros());
+        assertWithin(500L, percentiles.getMedianMicros());
+        assertWithin(900L, percentiles.getP90Micros());
+        assertWithin(990L, percentiles.getP99Micros());
+        assertWithin(999L, percentiles.getP999Micros());
+        histogram.reset();
+        assertEquals(0L, histogram.getPercentiles().getCount());
+        assertEquals(0L, histogram.getPercentiles().getMedianMicros());
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue("Expected about " + expected + " but got " + actual, actual >= expected && actual <= expected + expected / LatencyHistogram.SUB_BUCKETS);
+    }
+}
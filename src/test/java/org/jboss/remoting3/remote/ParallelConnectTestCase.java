@@ -0,0 +1,257 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.ChannelListener;
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+import org.xnio.StreamConnection;
+import org.xnio.Xnio;
+import org.xnio.XnioWorker;
+import org.xnio.channels.AcceptingChannel;
+
+/**
+ * Tests for the address ordering of parallel connection attempts, and for running the attempts against a stub
+ * connector whose attempts are completed by the tests.
+ */
+public final class ParallelConnectTestCase {
+
+    private static final String HOST = "multi.example.com";
+    private static final long DELAY = 200L;
+
+    private static XnioWorker worker;
+    private static AcceptingChannel<StreamConnection> server;
+
+    private final BlockingQueue<Attempt> attempts = new LinkedBlockingQueue<>();
+    private final BlockingQueue<StreamConnection> opened = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<String, InetAddress> connectedAddresses = new ConcurrentHashMap<>();
+
+    @BeforeClass
+    public static void createWorker() throws Exception {
+        worker = Xnio.getInstance().createWorker(OptionMap.EMPTY);
+        // the source of real connections for the attempts which succeed
+        server = worker.createStreamConnectionServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), channel -> {
+            try {
+                while (channel.accept() != null);
+            } catch (IOException ignored) {
+            }
+        }, OptionMap.EMPTY);
+        server.resumeAccepts();
+    }
+
+    @AfterClass
+    public static void destroyWorker() {
+        IoUtils.safeClose(server);
+        worker.shutdownNow();
+    }
+
+    @Before
+    public void clear() {
+        attempts.clear();
+        opened.clear();
+        connectedAddresses.clear();
+    }
+
+    /**
+     * A connection attempt of the stub connector.
+     */
+    static final class Attempt {
+        final InetSocketAddress address;
+        final ChannelListener<StreamConnection> openListener;
+        final long startTime = System.nanoTime();
+        final FutureResult<StreamConnection> result = new FutureResult<>();
+        volatile boolean cancelRequested;
+
+        Attempt(final InetSocketAddress address, final ChannelListener<StreamConnection> openListener, final boolean cancellable) {
+            this.address = address;
+            this.openListener = openListener;
+            result.addCancelHandler(() -> {
+                cancelRequested = true;
+                if (cancellable) {
+                    result.setCancelled();
+                }
+                return result.getIoFuture();
+            });
+        }
+
+        StreamConnection succeed() throws IOException {
+            final StreamConnection connection = worker.openStreamConnection(server.getLocalAddress(InetSocketAddress.class), null, OptionMap.EMPTY).get();
+            // as with a real connector, the open listener runs before the future completes
+            openListener.handleEvent(connection);
+            result.setResult(connection);
+            return connection;
+        }
+
+        void fail(final IOException exception) {
+            result.setException(exception);
+        }
+    }
+
+    private IoFuture<StreamConnection> start(final long delay, final boolean cancellable, final String... literals) throws Exception {
+        final InetSocketAddress[] addresses = new InetSocketAddress[literals.length];
+        for (int i = 0; i < literals.length; i ++) {
+            addresses[i] = new InetSocketAddress(address(literals[i]), 4447);
+        }
+        return new ParallelConnect(connectedAddresses, HOST, addresses, delay, worker.getIoThread(), (address, openListener) -> {
+            final Attempt attempt = new Attempt(address, openListener, cancellable);
+            attempts.add(attempt);
+            return attempt.result.getIoFuture();
+        }, opened::add).start();
+    }
+
+    private Attempt nextAttempt() throws InterruptedException {
+        final Attempt attempt = attempts.poll(5L, TimeUnit.SECONDS);
+        assertNotNull("No attempt was started", attempt);
+        return attempt;
+    }
+
+    private static InetAddress address(final String literal) throws Exception {
+        return InetAddress.getByName(literal);
+    }
+
+    @Test
+    public void testFamiliesInterleaved() throws Exception {
+        final InetAddress[] resolved = { address("::1"), address("::2"), address("10.0.0.1"), address("10.0.0.2") };
+        final InetSocketAddress[] ordered = ParallelConnect.order(resolved, null, 4447, null);
+        assertEquals(4, ordered.length);
+        assertEquals(address("::1"), ordered[0].getAddress());
+        assertEquals(address("10.0.0.1"), ordered[1].getAddress());
+        assertEquals(address("::2"), ordered[2].getAddress());
+        assertEquals(address("10.0.0.2"), ordered[3].getAddress());
+        assertEquals(4447, ordered[3].getPort());
+    }
+
+    @Test
+    public void testPreferredFirst() throws Exception {
+        final InetAddress[] resolved = { address("10.0.0.1"), address("10.0.0.2"), address("10.0.0.3") };
+        final InetSocketAddress[] ordered = ParallelConnect.order(resolved, address("10.0.0.3"), 4447, null);
+        assertEquals(address("10.0.0.3"), ordered[0].getAddress());
+        assertEquals(address("10.0.0.1"), ordered[1].getAddress());
+        assertEquals(address("10.0.0.2"), ordered[2].getAddress());
+    }
+
+    @Test
+    public void testBindAddressFamily() throws Exception {
+        final InetAddress[] resolved = { address("::1"), address("10.0.0.1") };
+        final InetSocketAddress[] ordered = ParallelConnect.order(resolved, null, 4447, address("0.0.0.0"));
+        assertEquals(1, ordered.length);
+        assertEquals(address("10.0.0.1"), ordered[0].getAddress());
+    }
+
+    @Test
+    public void testStaggeredStart() throws Exception {
+        final IoFuture<StreamConnection> future = start(DELAY, true, "10.0.0.1", "10.0.0.2", "10.0.0.3");
+        final Attempt first = nextAttempt();
+        assertEquals(address("10.0.0.1"), first.address.getAddress());
+        // the first attempt gets a head start
+        assertNull(attempts.poll(DELAY / 2, TimeUnit.MILLISECONDS));
+        final Attempt second = nextAttempt();
+        assertEquals(address("10.0.0.2"), second.address.getAddress());
+        assertTrue(second.startTime - first.startTime >= TimeUnit.MILLISECONDS.toNanos(DELAY) * 3 / 4);
+        final Attempt third = nextAttempt();
+        assertEquals(address("10.0.0.3"), third.address.getAddress());
+        assertTrue(third.startTime - second.startTime >= TimeUnit.MILLISECONDS.toNanos(DELAY) * 3 / 4);
+        // all three keep running in parallel until one of them connects
+        assertFalse(first.cancelRequested || second.cancelRequested || third.cancelRequested);
+        final StreamConnection connection = third.succeed();
+        assertSame(connection, future.get());
+        IoUtils.safeClose(connection);
+    }
+
+    @Test
+    public void testFailureStartsNextAttempt() throws Exception {
+        // a head start far longer than the test
+        final IoFuture<StreamConnection> future = start(TimeUnit.MINUTES.toMillis(1L), true, "10.0.0.1", "10.0.0.2");
+        final Attempt first = nextAttempt();
+        assertNull(attempts.poll(DELAY, TimeUnit.MILLISECONDS));
+        first.fail(new IOException("Connection refused"));
+        // the next attempt starts without waiting for the head start to elapse
+        final Attempt second = nextAttempt();
+        assertEquals(address("10.0.0.2"), second.address.getAddress());
+        final StreamConnection connection = second.succeed();
+        assertSame(connection, future.get());
+        assertEquals(address("10.0.0.2"), connectedAddresses.get(HOST));
+        IoUtils.safeClose(connection);
+    }
+
+    @Test
+    public void testClaimCancelsAndClosesLosers() throws Exception {
+        // attempts which cannot be cancelled, so a loser may still connect
+        final IoFuture<StreamConnection> future = start(DELAY / 4, false, "10.0.0.1", "10.0.0.2", "10.0.0.3");
+        final Attempt first = nextAttempt();
+        final Attempt second = nextAttempt();
+        final Attempt third = nextAttempt();
+        final StreamConnection winner = second.succeed();
+        assertSame(winner, future.get());
+        assertSame(winner, opened.poll());
+        assertEquals(address("10.0.0.2"), connectedAddresses.get(HOST));
+        // every other attempt was asked to cancel
+        assertTrue(first.cancelRequested);
+        assertTrue(third.cancelRequested);
+        assertFalse(second.cancelRequested);
+        // and a loser which connects anyway is closed instead of being used
+        final StreamConnection loser = first.succeed();
+        assertFalse(loser.isOpen());
+        assertNull(opened.poll());
+        assertSame(winner, future.get());
+        assertTrue(winner.isOpen());
+        IoUtils.safeClose(winner);
+    }
+
+    @Test
+    public void testAllAttemptsFail() throws Exception {
+        connectedAddresses.put(HOST, address("10.0.0.1"));
+        final IoFuture<StreamConnection> future = start(DELAY, true, "10.0.0.1", "10.0.0.2", "10.0.0.3");
+        final IOException[] exceptions = { new IOException("First"), new IOException("Second"), new IOException("Third") };
+        for (IOException exception : exceptions) {
+            nextAttempt().fail(exception);
+        }
+        assertEquals(IoFuture.Status.FAILED, future.await(5L, TimeUnit.SECONDS));
+        // the first failure is reported, with the others as suppressed causes
+        final IOException failure = future.getException();
+        assertSame(exceptions[0], failure);
+        assertEquals(2, failure.getSuppressed().length);
+        assertSame(exceptions[1], failure.getSuppressed()[0]);
+        assertSame(exceptions[2], failure.getSuppressed()[1]);
+        // an address which failed is no longer preferred
+        assertNull(connectedAddresses.get(HOST));
+        assertTrue(attempts.isEmpty());
+    }
+}
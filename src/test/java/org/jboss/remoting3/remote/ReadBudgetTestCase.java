@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for the per read event budget of a connection.  The server processes only a couple of frames per read event,
+ * so every exchange of more than that has to continue over several read events.
+ */
+public final class ReadBudgetTestCase extends RemoteTestBase {
+
+    private static final String SERVER_NAME = "read-budget-test";
+
+    private static Connection connection;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.builder()
+            .set(RemotingOptions.READ_EVENT_FRAME_BUDGET, 2)
+            .set(RemotingOptions.READ_EVENT_BYTE_BUDGET, 0x4000)
+            .getMap(), SERVER_NAME);
+        connection = connect(OptionMap.EMPTY);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        IoUtils.safeClose(connection);
+    }
+
+    @Test
+    public void testLargeMessage() throws Exception {
+        final RemoteConnectionProviderMXBean provider = getProviderMXBean(serverEndpoint, "remote");
+        final long exhausted = provider.getReadBudgetExhaustedCount();
+        final Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+        try {
+            final byte[] data = new byte[0x100000];
+            new Random(30).nextBytes(data);
+            assertArrayEquals(data, echo(channel, data));
+        } finally {
+            IoUtils.safeClose(channel);
+        }
+        assertTrue(provider.getReadBudgetExhaustedCount() > exhausted);
+    }
+
+    @Test
+    public void testConcurrentMessages() throws Exception {
+        final List<Channel> channels = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i ++) {
+                channels.add(connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get());
+            }
+            // many small frames arrive at once, and none of them may be left behind when the server yields
+            final List<IoFuture<byte[]>> replies = new ArrayList<>();
+            final List<byte[]> requests = new ArrayList<>();
+            final Random random = new Random(31);
+            for (Channel channel : channels) {
+                final byte[] data = new byte[100];
+                random.nextBytes(data);
+                requests.add(data);
+                replies.add(echoAsync(channel, data));
+            }
+            for (int i = 0; i < requests.size(); i ++) {
+                assertEquals(IoFuture.Status.DONE, replies.get(i).await(10L, TimeUnit.SECONDS));
+                assertArrayEquals(requests.get(i), replies.get(i).get());
+            }
+        } finally {
+            for (Channel channel : channels) {
+                IoUtils.safeClose(channel);
+            }
+        }
+    }
+}
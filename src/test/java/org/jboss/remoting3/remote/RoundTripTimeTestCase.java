@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for the round trip times measured by heartbeats.
+ */
+public final class RoundTripTimeTestCase extends RemoteTestBase {
+
+    private static final int INTERVAL = 100;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "round-trip-time-test");
+    }
+
+    private static ByteBuffer aliveResponse(final int magic, final long timestamp) {
+        final ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putInt(magic);
+        buffer.putLong(timestamp);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Test
+    public void testMeasured() throws Exception {
+        final Connection connection = connect(OptionMap.create(RemotingOptions.HEARTBEAT_INTERVAL, Integer.valueOf(INTERVAL)));
+        try {
+            final Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+            try {
+                final RemoteConnection remoteConnection = ((RemoteConnectionChannel) channel).getRemoteConnection();
+                // a few heartbeats of the idle connection
+                Thread.sleep(INTERVAL * 6);
+                final long min = remoteConnection.getMinRoundTripTime();
+                final long smoothed = remoteConnection.getSmoothedRoundTripTime();
+                final long max = remoteConnection.getMaxRoundTripTime();
+                assertTrue("Not measured", min > 0L);
+                assertTrue(min <= smoothed);
+                assertTrue(smoothed <= max);
+
+                final RemoteConnectionProviderMXBean provider = getProviderMXBean(clientEndpoint, "remote");
+                assertTrue(provider.getAverageRoundTripTimeMicros() >= 0L);
+                assertTrue(provider.getMaxRoundTripTimeMicros() >= TimeUnit.NANOSECONDS.toMicros(min));
+            } finally {
+                IoUtils.safeClose(channel);
+            }
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+
+    @Test
+    public void testActivityDefersMeasurement() throws Exception {
+        final Connection connection = connect(OptionMap.create(RemotingOptions.HEARTBEAT_INTERVAL, Integer.valueOf(INTERVAL * 3)));
+        try {
+            final Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+            try {
+                final RemoteConnection remoteConnection = ((RemoteConnectionChannel) channel).getRemoteConnection();
+                // only heartbeats are timed, and traffic keeps moving the next one back
+                final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(INTERVAL * 10);
+                while (System.nanoTime() - end < 0L) {
+                    assertEcho(channel, "busy");
+                    Thread.sleep(INTERVAL / 2);
+                }
+                assertEquals(-1L, remoteConnection.getSmoothedRoundTripTime());
+                // once the connection goes idle, the heartbeats start
+                Thread.sleep(INTERVAL * 8);
+                assertNotEquals(-1L, remoteConnection.getSmoothedRoundTripTime());
+            } finally {
+                IoUtils.safeClose(channel);
+            }
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+
+    @Test
+    public void testForeignResponsesIgnored() throws Exception {
+        // no heartbeats, so only the responses given here are seen
+        final Connection connection = connect(OptionMap.create(RemotingOptions.HEARTBEAT_INTERVAL, Integer.valueOf(0)));
+        try {
+            final RemoteConnection remoteConnection;
+            try (Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get()) {
+                remoteConnection = ((RemoteConnectionChannel) channel).getRemoteConnection();
+            }
+            // plain padding from a peer which does not echo timestamps
+            remoteConnection.receiveAliveResponse(ByteBuffer.allocate(12));
+            remoteConnection.receiveAliveResponse(ByteBuffer.allocate(4).putInt(0, Protocol.ALIVE_TIMESTAMP_MAGIC));
+            assertEquals(-1L, remoteConnection.getSmoothedRoundTripTime());
+            // timestamps which cannot be ours
+            remoteConnection.receiveAliveResponse(aliveResponse(Protocol.ALIVE_TIMESTAMP_MAGIC, System.nanoTime() + TimeUnit.MINUTES.toNanos(1L)));
+            remoteConnection.receiveAliveResponse(aliveResponse(Protocol.ALIVE_TIMESTAMP_MAGIC, System.nanoTime() - TimeUnit.MINUTES.toNanos(10L)));
+            assertEquals(-1L, remoteConnection.getSmoothedRoundTripTime());
+            assertEquals(-1L, remoteConnection.getMinRoundTripTime());
+            assertEquals(-1L, remoteConnection.getMaxRoundTripTime());
+            // and one which is
+            final long sent = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5L);
+            remoteConnection.receiveAliveResponse(aliveResponse(Protocol.ALIVE_TIMESTAMP_MAGIC, sent));
+            final long roundTripTime = remoteConnection.getSmoothedRoundTripTime();
+            assertTrue(roundTripTime >= TimeUnit.MILLISECONDS.toNanos(5L));
+            assertEquals(roundTripTime, remoteConnection.getMinRoundTripTime());
+            assertEquals(roundTripTime, remoteConnection.getMaxRoundTripTime());
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+
+    @Test
+    public void testBytesInFlight() throws Exception {
+        final Connection connection = connect(OptionMap.create(RemotingOptions.HEARTBEAT_INTERVAL, Integer.valueOf(0)));
+        try {
+            final Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+            try {
+                final RemoteConnectionHandler handler = ((RemoteConnectionChannel) channel).getConnectionHandler();
+                final RemoteConnection remoteConnection = handler.getRemoteConnection();
+                // without a round trip time, nothing is counted as in flight
+                final byte[] data = new byte[0x4000];
+                echo(channel, data);
+                assertEquals(0L, remoteConnection.getBytesInFlight());
+                remoteConnection.receiveAliveResponse(aliveResponse(Protocol.ALIVE_TIMESTAMP_MAGIC, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50L)));
+                // keep writing for a few rate samples
+                final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(INTERVAL * 3);
+                while (System.nanoTime() - end < 0L) {
+                    echo(channel, data);
+                }
+                final long inFlight = remoteConnection.getBytesInFlight();
+                assertTrue("Nothing in flight", inFlight > 0L);
+                assertTrue(handler.getLoad() >= inFlight);
+                // once writes stop, the write rate is stale and the load drops back
+                Thread.sleep(INTERVAL * 3);
+                assertEquals(0L, remoteConnection.getBytesInFlight());
+                assertTrue(handler.getLoad() < inFlight);
+            } finally {
+                IoUtils.safeClose(channel);
+            }
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+}
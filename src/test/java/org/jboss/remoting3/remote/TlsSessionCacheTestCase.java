@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.wildfly.security.sasl.SaslMechanismSelector;
+import org.wildfly.security.ssl.Protocol;
+import org.wildfly.security.ssl.ProtocolSelector;
+import org.wildfly.security.ssl.SSLContextBuilder;
+import org.wildfly.security.ssl.test.util.CAGenerationTool;
+import org.wildfly.security.ssl.test.util.CAGenerationTool.Identity;
+import org.xnio.IoFuture;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+
+/**
+ * Tests for the resumption of TLS sessions by new connections to the same destination.  The connections use TLS 1.2,
+ * which resumes a session under its original identity.
+ */
+public final class TlsSessionCacheTestCase extends RemoteTestBase {
+
+    private static final String CA_LOCATION = "./target/test-classes/ca-tls-session-cache";
+    private static final OptionMap TLS_OPTIONS = OptionMap.create(Options.SSL_ENABLED, Boolean.TRUE, Options.SSL_STARTTLS, Boolean.TRUE);
+
+    private static CAGenerationTool caGenerationTool;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        caGenerationTool = CAGenerationTool.builder()
+            .setBaseDir(CA_LOCATION)
+            .setRequestIdentities(Identity.LADYBIRD)
+            .build();
+        final SSLContext serverContext = new SSLContextBuilder()
+            .setProtocolSelector(ProtocolSelector.empty().add(Protocol.TLSv1_2))
+            .setKeyManager(caGenerationTool.getDefinedIdentity(Identity.LADYBIRD).createKeyManager())
+            .build()
+            .create();
+        startServer(TLS_OPTIONS, "tls-session-cache-test", serverContext);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        if (caGenerationTool != null) {
+            caGenerationTool.close();
+        }
+    }
+
+    private static SSLContext createClientContext() throws Exception {
+        return new SSLContextBuilder()
+            .setProtocolSelector(ProtocolSelector.empty().add(Protocol.TLSv1_2))
+            .setTrustManager(caGenerationTool.getDefinedCAIdentity(Identity.CA).createTrustManager())
+            .setClientMode(true)
+            .build()
+            .create();
+    }
+
+    private static SSLSession connectAndEcho(final SSLContext sslContext) throws IOException {
+        final AuthenticationConfiguration configuration = AuthenticationConfiguration.empty()
+            .useName("bob")
+            .usePassword("pass")
+            .setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism(SASL_MECH));
+        final IoFuture<Connection> futureConnection = clientEndpoint.connect(serverUri(), null, TLS_OPTIONS, sslContext, configuration);
+        if (futureConnection.await(10L, TimeUnit.SECONDS) == IoFuture.Status.WAITING) {
+            futureConnection.cancel();
+            throw new IOException("Timed out connecting to " + serverUri());
+        }
+        try (Connection connection = futureConnection.get()) {
+            final SSLSession session = connection.getSslSession();
+            assertNotNull(session);
+            try (Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get()) {
+                assertEcho(channel, "tls");
+            }
+            return session;
+        }
+    }
+
+    @Test
+    public void testSessionResumed() throws Exception {
+        final RemoteConnectionProviderMXBean provider = getProviderMXBean(clientEndpoint, "remote");
+        final long resumed = provider.getTlsSessionResumedCount();
+        final long full = provider.getTlsFullHandshakeCount();
+        final SSLContext sslContext = createClientContext();
+        final SSLSession first = connectAndEcho(sslContext);
+        assertEquals(full + 1, provider.getTlsFullHandshakeCount());
+        assertTrue(provider.getTlsSessionCacheSize() >= 1);
+        // the reconnect resumes the cached session instead of negotiating a new one
+        for (int i = 0; i < 3; i ++) {
+            final SSLSession session = connectAndEcho(sslContext);
+            assertEquals(first, session);
+        }
+        assertEquals(resumed + 3, provider.getTlsSessionResumedCount());
+        assertEquals(full + 1, provider.getTlsFullHandshakeCount());
+    }
+
+    @Test
+    public void testSessionNotSharedBetweenContexts() throws Exception {
+        final RemoteConnectionProviderMXBean provider = getProviderMXBean(clientEndpoint, "remote");
+        final long full = provider.getTlsFullHandshakeCount();
+        // sessions belong to the SSL context which negotiated them
+        connectAndEcho(createClientContext());
+        connectAndEcho(createClientContext());
+        assertEquals(full + 2, provider.getTlsFullHandshakeCount());
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.test.RemoteTestBase;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for the traffic counters of channels, connections and providers, and the connection MBeans exposing them.
+ */
+public final class TrafficCountersTestCase extends RemoteTestBase {
+
+    private static final int MESSAGES = 10;
+    private static final int SIZE = 1000;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "traffic-counters-test");
+    }
+
+    private static Connection connect(final boolean connectionMBeans) throws Exception {
+        return connect(OptionMap.builder()
+            .set(RemotingOptions.HEARTBEAT_INTERVAL, 0)
+            .set(RemotingOptions.CONNECTION_MBEANS, connectionMBeans)
+            .getMap());
+    }
+
+    private static void echoMessages(final Channel channel) throws Exception {
+        for (int i = 0; i < MESSAGES; i ++) {
+            assertEquals(SIZE, echo(channel, new byte[SIZE]).length);
+        }
+    }
+
+    @Test
+    public void testCounters() throws Exception {
+        final RemoteConnectionProviderMXBean provider = getProviderMXBean(clientEndpoint, "remote");
+        final long providerBytesSent = provider.getBytesSent();
+        final long providerMessagesSent = provider.getMessagesSent();
+        final long providerMessagesReceived = provider.getMessagesReceived();
+        final Connection connection = connect(false);
+        try {
+            final Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+            try {
+                final RemoteConnectionChannel remoteChannel = (RemoteConnectionChannel) channel;
+                echoMessages(channel);
+
+                final TrafficCounters channelTraffic = remoteChannel.getTraffic();
+                assertEquals(MESSAGES, channelTraffic.getMessagesSent());
+                assertEquals(MESSAGES, channelTraffic.getMessagesReceived());
+                assertTrue(channelTraffic.getBytesSent() >= MESSAGES * SIZE);
+                assertTrue(channelTraffic.getBytesReceived() >= MESSAGES * SIZE);
+                assertTrue(channelTraffic.getFramesSent() >= MESSAGES);
+                assertTrue(channelTraffic.getFramesReceived() >= MESSAGES);
+
+                // the connection counts the channel's traffic along with its own
+                final TrafficCounters connectionTraffic = remoteChannel.getRemoteConnection().getTraffic();
+                assertEquals(MESSAGES, connectionTraffic.getMessagesSent());
+                assertEquals(MESSAGES, connectionTraffic.getMessagesReceived());
+                assertTrue(connectionTraffic.getBytesSent() >= channelTraffic.getBytesSent());
+                assertTrue(connectionTraffic.getBytesReceived() >= channelTraffic.getBytesReceived());
+                assertTrue(connectionTraffic.getFramesSent() >= channelTraffic.getFramesSent());
+                assertTrue(connectionTraffic.getFramesReceived() >= channelTraffic.getFramesReceived());
+
+                // and the provider counts that of all of its connections
+                assertTrue(provider.getBytesSent() - providerBytesSent >= connectionTraffic.getBytesSent());
+                assertTrue(provider.getMessagesSent() - providerMessagesSent >= MESSAGES);
+                assertTrue(provider.getMessagesReceived() - providerMessagesReceived >= MESSAGES);
+
+                // no connection bean unless asked for
+                assertNull(remoteChannel.getConnectionHandler().getObjectName());
+            } finally {
+                IoUtils.safeClose(channel);
+            }
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+
+    @Test
+    public void testConnectionMBean() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName;
+        final Connection connection = connect(true);
+        try {
+            final Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+            try {
+                final RemoteConnectionChannel remoteChannel = (RemoteConnectionChannel) channel;
+                echoMessages(channel);
+
+                objectName = remoteChannel.getConnectionHandler().getObjectName();
+                assertNotNull(objectName);
+                assertEquals("jboss.remoting.handler", objectName.getDomain());
+                assertTrue(objectName.getKeyProperty("name").contains("-connection-"));
+                assertTrue(server.isRegistered(objectName));
+
+                final RemoteConnectionMXBean bean = JMX.newMXBeanProxy(server, objectName, RemoteConnectionMXBean.class);
+                final TrafficCounters connectionTraffic = remoteChannel.getRemoteConnection().getTraffic();
+                assertTrue(bean.isOpen());
+                // there is no heartbeat to measure the round trip time with
+                assertEquals(-1L, bean.getRoundTripTimeMicros());
+                assertEquals(MESSAGES, bean.getMessagesSent());
+                assertEquals(MESSAGES, bean.getMessagesReceived());
+                assertTrue(bean.getBytesSent() >= MESSAGES * SIZE);
+                assertTrue(bean.getBytesSent() <= connectionTraffic.getBytesSent());
+
+                ChannelTraffic found = null;
+                for (ChannelTraffic traffic : bean.getChannelTraffic()) {
+                    if (traffic.getChannelId() == remoteChannel.getChannelId()) {
+                        found = traffic;
+                    }
+                }
+                assertNotNull("Channel not listed", found);
+                assertEquals(MESSAGES, found.getMessagesSent());
+                assertEquals(MESSAGES, found.getMessagesReceived());
+                assertEquals(remoteChannel.getTraffic().getBytesSent(), found.getBytesSent());
+            } finally {
+                IoUtils.safeClose(channel);
+            }
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+        connection.awaitClosed();
+        // the bean goes away with the connection
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (server.isRegistered(objectName) && System.nanoTime() - end < 0L) {
+            Thread.sleep(50L);
+        }
+        assertFalse(server.isRegistered(objectName));
+    }
+
+    @Test
+    public void testHeartbeats() throws Exception {
+        final int interval = 200;
+        final Connection connection = connect(OptionMap.builder()
+            .set(RemotingOptions.HEARTBEAT_INTERVAL, interval)
+            .set(RemotingOptions.CONNECTION_MBEANS, true)
+            .getMap());
+        try {
+            final Channel channel = connection.openChannel(ECHO_SERVICE, OptionMap.EMPTY).get();
+            try {
+                final RemoteConnectionHandler handler = ((RemoteConnectionChannel) channel).getConnectionHandler();
+                final RemoteConnection remoteConnection = handler.getRemoteConnection();
+                Thread.sleep(interval);
+                final long framesSent = remoteConnection.getTraffic().getFramesSent();
+                final long framesReceived = remoteConnection.getTraffic().getFramesReceived();
+                Thread.sleep(interval * 5 + interval / 2);
+                // each heartbeat is a frame, and so is its acknowledgement
+                final long heartbeats = remoteConnection.getTraffic().getFramesSent() - framesSent;
+                assertTrue("Too few heartbeats: " + heartbeats, heartbeats >= 3);
+                assertTrue("Too many heartbeats: " + heartbeats, heartbeats <= 7);
+                assertTrue(remoteConnection.getTraffic().getFramesReceived() - framesReceived >= heartbeats - 1);
+
+                // the acknowledgements give the round trip time
+                final RemoteConnectionMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), handler.getObjectName(), RemoteConnectionMXBean.class);
+                final long micros = bean.getRoundTripTimeMicros();
+                assertTrue(micros >= TimeUnit.NANOSECONDS.toMicros(remoteConnection.getMinRoundTripTime()));
+                assertTrue(micros <= TimeUnit.NANOSECONDS.toMicros(remoteConnection.getMaxRoundTripTime()));
+            } finally {
+                IoUtils.safeClose(channel);
+            }
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+}
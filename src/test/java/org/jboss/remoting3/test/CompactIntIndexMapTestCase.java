@@ -0,0 +1,183 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jboss.logging.Logger;
+import org.jboss.remoting3._private.CompactIntIndexMap;
+import org.jboss.remoting3._private.Equaller;
+import org.jboss.remoting3._private.IntIndexHashMap;
+import org.jboss.remoting3._private.IntIndexMap;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests for the compact integer-indexed map used for per-channel message tracking.
+ */
+public final class CompactIntIndexMapTestCase {
+    private static final Logger log = Logger.getLogger("test");
+
+    private static final int IDLE_CHANNELS = 10000;
+
+    @Test
+    public void testGrowAndShrink() {
+        final CompactIntIndexMap<Item> map = new CompactIntIndexMap<>(Item::getKey, Equaller.IDENTITY);
+        assertEquals(0, map.capacity());
+        final Item first = new Item(1);
+        assertNull(map.putIfAbsent(first));
+        assertEquals(0, map.capacity());
+        assertSame(first, map.get(1));
+        assertSame(first, map.putIfAbsent(new Item(1)));
+        for (int i = 2; i <= 1000; i ++) {
+            assertNull(map.putIfAbsent(new Item(i)));
+        }
+        assertEquals(1000, map.size());
+        final int burstCapacity = map.capacity();
+        assertTrue(burstCapacity >= 1000);
+        for (int i = 1; i <= 1000; i ++) {
+            assertNotNull(map.get(i));
+        }
+        for (int i = 1000; i > 1; i --) {
+            assertNotNull(map.removeKey(i));
+            assertNull(map.get(i));
+        }
+        assertEquals(1, map.size());
+        assertEquals(0, map.capacity());
+        assertSame(first, map.get(1));
+        assertTrue(map.remove(first));
+        assertFalse(map.remove(first));
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testIteration() {
+        final CompactIntIndexMap<Item> map = new CompactIntIndexMap<>(Item::getKey, Equaller.IDENTITY);
+        for (int i = 0; i < 50; i ++) {
+            map.put(new Item(i * 7));
+        }
+        final Set<Integer> seen = new HashSet<>();
+        for (Item item : map) {
+            assertTrue(seen.add(Integer.valueOf(item.getKey())));
+        }
+        assertEquals(50, seen.size());
+        final Iterator<Item> iterator = map.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.capacity());
+        assertEquals(0, new ArrayList<>(map).size());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final int threads = 16;
+        final int perThread = 2000;
+        final CompactIntIndexMap<Item> map = new CompactIntIndexMap<>(Item::getKey, Equaller.IDENTITY);
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t ++) {
+                final int base = t * perThread;
+                futures.add(executorService.submit(() -> {
+                    for (int i = base; i < base + perThread; i ++) {
+                        final Item item = new Item(i);
+                        assertNull(map.putIfAbsent(item));
+                        assertSame(item, map.get(i));
+                    }
+                    for (int i = base; i < base + perThread; i ++) {
+                        assertNotNull(map.removeKey(i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(0, map.size());
+        assertEquals(0, map.capacity());
+    }
+
+    @Test
+    public void testIdleChannelFootprint() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(allocMXBean.isThreadAllocatedMemorySupported() && allocMXBean.isThreadAllocatedMemoryEnabled());
+
+        // each channel holds an inbound and an outbound message map
+        final long compact = measure(allocMXBean, () -> new CompactIntIndexMap<Item>(Item::getKey, Equaller.IDENTITY));
+        final long eager = measure(allocMXBean, () -> new IntIndexHashMap<Item>(Item::getKey, Equaller.IDENTITY, 512, 0.5f));
+        log.infof("Idle channel message map footprint: %d bytes compact, %d bytes eager", Long.valueOf(compact), Long.valueOf(eager));
+        assertTrue("Idle channel footprint too large: " + compact, compact <= 128);
+        assertTrue(compact * 10 < eager);
+    }
+
+    private static long measure(final com.sun.management.ThreadMXBean allocMXBean, final MapFactory factory) {
+        final long threadId = Thread.currentThread().getId();
+        final Object[] channels = new Object[IDLE_CHANNELS];
+        final long start = allocMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < IDLE_CHANNELS; i ++) {
+            channels[i] = new Object[] { factory.create(), factory.create() };
+        }
+        final long end = allocMXBean.getThreadAllocatedBytes(threadId);
+        // subtract the holder arrays (header plus two references, rounded up)
+        final long holder = 24;
+        assertEquals(IDLE_CHANNELS, channels.length);
+        return (end - start) / IDLE_CHANNELS - holder;
+    }
+
+    interface MapFactory {
+        IntIndexMap<Item> create();
+    }
+
+    static final class Item {
+        private final int key;
+
+        Item(final int key) {
+            this.key = key;
+        }
+
+        int getKey() {
+            return key;
+        }
+    }
+}
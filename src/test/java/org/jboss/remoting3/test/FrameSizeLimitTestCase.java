@@ -0,0 +1,84 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.test;
+
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.OptionMap;
+
+/**
+ * Tests that a frame header announcing an impossible frame size fails the connection before anything is allocated
+ * for the frame.
+ */
+public final class FrameSizeLimitTestCase extends RemoteTestBase {
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "frame-size-test");
+    }
+
+    @Test
+    public void testHugeFrame() throws Exception {
+        assertRejected(0x7fffffff);
+    }
+
+    @Test
+    public void testJustOverMaximumFrame() throws Exception {
+        assertRejected((1 << 20) + 1);
+    }
+
+    @Test
+    public void testLargeFrameBeforeAuthentication() throws Exception {
+        // larger than a connection buffer, and no channel has negotiated jumbo frames yet
+        assertRejected(8192 + 1);
+    }
+
+    @Test
+    public void testNegativeFrame() throws Exception {
+        assertRejected(0x80000000);
+    }
+
+    private static void assertRejected(final int size) throws IOException {
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.setSoTimeout(10000);
+            final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(size);
+            out.flush();
+            final InputStream in = socket.getInputStream();
+            final byte[] buffer = new byte[1024];
+            try {
+                // the server greeting may arrive first, but then the server must close the connection
+                while (in.read(buffer) != -1);
+            } catch (SocketTimeoutException e) {
+                fail("Connection was not closed after a frame header of size " + size);
+            } catch (SocketException expected) {
+                // reset by the server
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.Endpoint;
+import org.jboss.remoting3.LocalConnectionProviderFactory;
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.MessageOutputStream;
+import org.jboss.remoting3.OpenListener;
+import org.jboss.remoting3.ServiceOpenException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.FutureResult;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Test for connections between endpoints in the same JVM.
+ */
+public final class LocalConnectionTestCase {
+
+    private static Endpoint serverEndpoint;
+    private static Endpoint clientEndpoint;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        serverEndpoint = Endpoint.builder().setEndpointName("local-server").build();
+        serverEndpoint.addConnectionProvider("local", new LocalConnectionProviderFactory(), OptionMap.EMPTY);
+        clientEndpoint = Endpoint.builder().setEndpointName("local-client").build();
+        clientEndpoint.addConnectionProvider("local", new LocalConnectionProviderFactory(), OptionMap.EMPTY);
+        serverEndpoint.registerService("org.jboss.test.echo", new OpenListener() {
+            public void channelOpened(final Channel channel) {
+                channel.receiveMessage(new Channel.Receiver() {
+                    public void handleError(final Channel channel, final IOException error) {
+                        IoUtils.safeClose(channel);
+                    }
+
+                    public void handleEnd(final Channel channel) {
+                        IoUtils.safeClose(channel);
+                    }
+
+                    public void handleMessage(final Channel channel, final MessageInputStream message) {
+                        try (MessageInputStream in = message) {
+                            try (MessageOutputStream out = channel.writeMessage()) {
+                                int b;
+                                while ((b = in.read()) != -1) {
+                                    out.write(b);
+                                }
+                            }
+                            channel.receiveMessage(this);
+                        } catch (IOException e) {
+                            IoUtils.safeClose(channel);
+                        }
+                    }
+                });
+            }
+
+            public void registrationTerminated() {
+            }
+        }, OptionMap.EMPTY);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        IoUtils.safeClose(clientEndpoint);
+        IoUtils.safeClose(serverEndpoint);
+    }
+
+    @Test
+    public void testEcho() throws Exception {
+        final Connection connection = clientEndpoint.connect(new URI("local:local-server"), OptionMap.EMPTY).get();
+        try {
+            assertEquals("local-server", connection.getRemoteEndpointName());
+            final Channel channel = connection.openChannel("org.jboss.test.echo", OptionMap.EMPTY).get();
+            final FutureResult<String> reply = new FutureResult<>();
+            channel.receiveMessage(new Channel.Receiver() {
+                public void handleError(final Channel channel, final IOException error) {
+                    reply.setException(error);
+                }
+
+                public void handleEnd(final Channel channel) {
+                    reply.setCancelled();
+                }
+
+                public void handleMessage(final Channel channel, final MessageInputStream message) {
+                    try (MessageInputStream in = message) {
+                        reply.setResult(in.readUTF());
+                    } catch (IOException e) {
+                        reply.setException(e);
+                    }
+                }
+            });
+            try (MessageOutputStream out = channel.writeMessage()) {
+                out.writeUTF("hello");
+            }
+            reply.getIoFuture().await(5L, TimeUnit.SECONDS);
+            assertEquals("hello", reply.getIoFuture().get());
+            channel.close();
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+
+    @Test
+    public void testUnknownService() throws Exception {
+        final Connection connection = clientEndpoint.connect(new URI("local:local-server"), OptionMap.EMPTY).get();
+        try {
+            connection.openChannel("org.jboss.test.missing", OptionMap.EMPTY).get();
+            fail("Expected exception");
+        } catch (ServiceOpenException expected) {
+        } finally {
+            IoUtils.safeClose(connection);
+        }
+    }
+
+    @Test
+    public void testUnknownEndpoint() throws Exception {
+        try {
+            clientEndpoint.connect(new URI("local:nobody"), OptionMap.EMPTY).get();
+            fail("Expected exception");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.MessageOutputStream;
+import org.jboss.remoting3.MultiChannelClientServiceHandle;
+import org.jboss.remoting3.RemotingOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.FinishedIoFuture;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for spreading the requests of a service over several channels of a connection.  Each channel allows four
+ * outbound messages, so a channel with two open messages is busy.
+ */
+public final class MultiChannelClientServiceHandleTestCase extends RemoteTestBase {
+
+    private static final OptionMap CHANNEL_OPTIONS = OptionMap.create(RemotingOptions.MAX_OUTBOUND_MESSAGES, Integer.valueOf(4));
+
+    private Connection connection;
+    private MultiChannelClientServiceHandle<Channel> handle;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "multi-channel-test");
+    }
+
+    @Before
+    public void connect() throws Exception {
+        connection = connect(OptionMap.EMPTY);
+        handle = new MultiChannelClientServiceHandle<>(ECHO_SERVICE, FinishedIoFuture::new, 2, 200L, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void disconnect() {
+        handle.closeChannels(connection);
+        IoUtils.safeClose(connection);
+    }
+
+    private Channel getChannel() throws IOException {
+        final IoFuture<Channel> future = handle.getClientService(connection, CHANNEL_OPTIONS);
+        if (future.await(10L, TimeUnit.SECONDS) == IoFuture.Status.WAITING) {
+            throw new IOException("Timed out opening a channel");
+        }
+        return future.get();
+    }
+
+    private static void await(final BooleanSupplier condition, final String description) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (! condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0L) {
+                throw new IOException("Timed out waiting until " + description);
+            }
+            Thread.sleep(20L);
+        }
+    }
+
+    private Channel awaitOtherChannel(final Channel channel) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        for (;;) {
+            final Channel other = getChannel();
+            if (other != channel) {
+                return other;
+            }
+            if (System.nanoTime() - deadline > 0L) {
+                throw new IOException("No additional channel was opened");
+            }
+            Thread.sleep(20L);
+        }
+    }
+
+    private static List<MessageOutputStream> openMessages(final Channel channel, final int count) throws IOException {
+        final List<MessageOutputStream> messages = new ArrayList<>();
+        for (int i = 0; i < count; i ++) {
+            messages.add(channel.writeMessage());
+        }
+        return messages;
+    }
+
+    private static void closeMessages(final List<MessageOutputStream> messages) throws IOException {
+        for (MessageOutputStream message : messages) {
+            message.close();
+        }
+    }
+
+    @Test
+    public void testSpreading() throws Exception {
+        final Channel first = getChannel();
+        // an idle channel is not busy, so no other channel is opened for it
+        assertSame(first, getChannel());
+        final List<MessageOutputStream> firstMessages = openMessages(first, 2);
+        // the first channel is busy now, so the next request opens another channel in the background
+        final Channel second = awaitOtherChannel(first);
+        assertSame(second, getChannel());
+        final List<MessageOutputStream> secondMessages = openMessages(second, 3);
+        // both channels are busy and the maximum is reached, so the less loaded one is chosen
+        assertSame(first, getChannel());
+        closeMessages(firstMessages);
+        closeMessages(secondMessages);
+        await(() -> first.getOutboundMessageCount() == 0 && second.getOutboundMessageCount() == 0, "the messages are done");
+        // on equal load, the earlier channel wins
+        assertSame(first, getChannel());
+    }
+
+    @Test
+    public void testIdleChannelRetired() throws Exception {
+        final Channel first = getChannel();
+        final List<MessageOutputStream> messages = openMessages(first, 2);
+        final Channel second = awaitOtherChannel(first);
+        closeMessages(messages);
+        await(() -> first.getOutboundMessageCount() == 0, "the messages are done");
+        // lookups notice that the additional channel stays idle, and close it once it has been idle long enough
+        await(() -> {
+            try {
+                assertSame(first, getChannel());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return ! second.isOpen();
+        }, "the idle channel is closed");
+        // the first channel is never retired
+        Thread.sleep(400L);
+        assertSame(first, getChannel());
+        assertTrue(first.isOpen());
+        assertFalse(second.isOpen());
+    }
+
+    @Test
+    public void testHandedOutChannelKept() throws Exception {
+        final Channel first = getChannel();
+        final List<MessageOutputStream> messages = openMessages(first, 3);
+        final Channel second = awaitOtherChannel(first);
+        // the additional channel never has a message open, but it is handed out well within every idle period
+        for (int i = 0; i < 8; i ++) {
+            assertSame(second, getChannel());
+            Thread.sleep(100L);
+        }
+        assertTrue(second.isOpen());
+        closeMessages(messages);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.MessageOutputStream;
+import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.ServiceOpenException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+
+/**
+ * Tests for channels which are opened optimistically, and used before the peer acknowledges them.
+ */
+public final class OptimisticChannelOpenTestCase extends RemoteTestBase {
+
+    private static final OptionMap OPTIMISTIC = OptionMap.create(RemotingOptions.OPTIMISTIC_CHANNEL_OPEN, Boolean.TRUE);
+
+    private static Connection connection;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        startServer(OptionMap.EMPTY, "optimistic-open-test");
+        connection = connect(OptionMap.EMPTY);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        IoUtils.safeClose(connection);
+    }
+
+    @Test
+    public void testMessagesBeforeAcknowledgement() throws Exception {
+        final Channel channel = connection.openChannel(ECHO_SERVICE, OPTIMISTIC).get();
+        try {
+            // concurrent messages which together exceed the provisional transmit window
+            final List<byte[]> requests = new ArrayList<>();
+            final List<IoFuture<byte[]>> replies = new ArrayList<>();
+            final Random random = new Random(36);
+            for (int i = 0; i < 4; i ++) {
+                final byte[] data = new byte[0x4000];
+                random.nextBytes(data);
+                requests.add(data);
+                replies.add(echoAsync(channel, data));
+            }
+            for (int i = 0; i < requests.size(); i ++) {
+                assertEquals(IoFuture.Status.DONE, replies.get(i).await(10L, TimeUnit.SECONDS));
+                assertArrayEquals(requests.get(i), replies.get(i).get());
+            }
+            final byte[] large = new byte[0x40000];
+            random.nextBytes(large);
+            assertArrayEquals(large, echo(channel, large));
+            // the replies came after the acknowledgement, which replaced the provisional limits
+            assertTrue(channel.getOption(RemotingOptions.TRANSMIT_WINDOW_SIZE).intValue() > 0x8000);
+            assertTrue(channel.getOption(RemotingOptions.MAX_OUTBOUND_MESSAGES).intValue() > 8);
+        } finally {
+            IoUtils.safeClose(channel);
+        }
+    }
+
+    @Test
+    public void testRefusedService() throws Exception {
+        final Channel channel = connection.openChannel("org.jboss.test.missing", OPTIMISTIC).get();
+        final FutureResult<IOException> closeReason = new FutureResult<>();
+        channel.addCloseHandler((closed, exception) -> closeReason.setResult(exception));
+        // a message larger than the provisional window cannot be sent before the refusal arrives
+        final FutureResult<IOException> writeFailure = new FutureResult<>();
+        final Thread writer = new Thread(() -> {
+            try (MessageOutputStream out = channel.writeMessage()) {
+                out.write(new byte[0x40000]);
+                writeFailure.setResult(null);
+            } catch (IOException e) {
+                writeFailure.setResult(e);
+            }
+        });
+        writer.start();
+        final IoFuture<IOException> reason = closeReason.getIoFuture();
+        assertEquals(IoFuture.Status.DONE, reason.await(10L, TimeUnit.SECONDS));
+        assertTrue(String.valueOf(reason.get()), reason.get() instanceof ServiceOpenException);
+        // the queued message fails instead of waiting for a window which never opens
+        final IoFuture<IOException> failure = writeFailure.getIoFuture();
+        assertEquals(IoFuture.Status.DONE, failure.await(10L, TimeUnit.SECONDS));
+        assertNotNull(failure.get());
+        writer.join();
+        // the connection itself is unaffected
+        try (Channel echoChannel = connection.openChannel(ECHO_SERVICE, OPTIMISTIC).get()) {
+            assertEcho(echoChannel, "still here");
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.PrivilegedAction;
+import java.security.Security;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.net.ssl.SSLContext;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.Endpoint;
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.MessageOutputStream;
+import org.jboss.remoting3.OpenListener;
+import org.jboss.remoting3.Registration;
+import org.jboss.remoting3.remote.RemoteConnectionProviderMXBean;
+import org.jboss.remoting3.spi.NetworkServerProvider;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.wildfly.security.WildFlyElytronProvider;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.wildfly.security.auth.client.AuthenticationContext;
+import org.wildfly.security.auth.client.MatchRule;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.realm.SimpleRealmEntry;
+import org.wildfly.security.auth.server.MechanismConfiguration;
+import org.wildfly.security.auth.server.SaslAuthenticationFactory;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.credential.PasswordCredential;
+import org.wildfly.security.password.PasswordFactory;
+import org.wildfly.security.password.spec.ClearPasswordSpec;
+import org.wildfly.security.permission.PermissionVerifier;
+import org.wildfly.security.sasl.SaslMechanismSelector;
+import org.wildfly.security.sasl.util.SaslMechanismInformation;
+import org.wildfly.security.sasl.util.ServiceLoaderSaslServerFactory;
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+
+/**
+ * A base for tests which need a client endpoint and a server endpoint connected over the {@code remote} protocol.
+ * The server accepts user "bob" with password "pass" over SCRAM-SHA-256, and offers an echo service.
+ */
+public abstract class RemoteTestBase {
+
+    protected static final int PORT = 30124;
+    protected static final String ECHO_SERVICE = "org.jboss.test.echo";
+    protected static final String SASL_MECH = SaslMechanismInformation.Names.SCRAM_SHA_256;
+
+    private static String providerName;
+
+    protected static Endpoint serverEndpoint;
+    protected static Endpoint clientEndpoint;
+    private static Closeable server;
+    private static Registration echoRegistration;
+
+    @BeforeClass
+    public static void doBeforeClass() throws Exception {
+        final WildFlyElytronProvider provider = new WildFlyElytronProvider();
+        Security.addProvider(provider);
+        providerName = provider.getName();
+    }
+
+    @AfterClass
+    public static void doAfterClass() {
+        stopServer();
+        IoUtils.safeClose(clientEndpoint);
+        clientEndpoint = null;
+        Security.removeProvider(providerName);
+    }
+
+    /**
+     * Create the endpoints, and start the server with the given options.
+     *
+     * @param serverOptions the server options
+     * @param serverEndpointName the server endpoint name
+     * @throws Exception if the server cannot be started
+     */
+    protected static void startServer(final OptionMap serverOptions, final String serverEndpointName) throws Exception {
+        startServer(serverOptions, serverEndpointName, null);
+    }
+
+    protected static void startServer(final OptionMap serverOptions, final String serverEndpointName, final SSLContext sslContext) throws Exception {
+        startServer(serverOptions, serverEndpointName, sslContext, createSaslAuthenticationFactory());
+    }
+
+    protected static void startServer(final OptionMap serverOptions, final String serverEndpointName, final SSLContext sslContext, final SaslAuthenticationFactory saslAuthenticationFactory) throws Exception {
+        if (clientEndpoint == null) {
+            clientEndpoint = Endpoint.builder().setEndpointName("test-client").build();
+        }
+        serverEndpoint = Endpoint.builder().setEndpointName(serverEndpointName).build();
+        final NetworkServerProvider networkServerProvider = serverEndpoint.getConnectionProviderInterface("remote", NetworkServerProvider.class);
+        final OptionMap options = sslContext == null ? OptionMap.builder().addAll(serverOptions).set(Options.SSL_ENABLED, false).getMap() : serverOptions;
+        server = networkServerProvider.createServer(new InetSocketAddress("localhost", PORT), options, saslAuthenticationFactory, sslContext == null ? SSLContext.getDefault() : sslContext);
+        echoRegistration = registerEchoService(serverEndpoint);
+    }
+
+    /**
+     * Create the authentication factory of the server, which accepts user "bob" with password "pass".
+     *
+     * @return the authentication factory
+     * @throws Exception if the factory cannot be created
+     */
+    protected static SaslAuthenticationFactory createSaslAuthenticationFactory() throws Exception {
+        final SecurityDomain.Builder domainBuilder = SecurityDomain.builder();
+        final SimpleMapBackedSecurityRealm mainRealm = new SimpleMapBackedSecurityRealm();
+        domainBuilder.addRealm("mainRealm", mainRealm).build();
+        domainBuilder.setDefaultRealmName("mainRealm");
+        domainBuilder.setPermissionMapper((permissionMappable, roles) -> PermissionVerifier.ALL);
+        final PasswordFactory passwordFactory = PasswordFactory.getInstance("clear");
+        mainRealm.setIdentityMap(Collections.singletonMap("bob", new SimpleRealmEntry(
+            Collections.singletonList(new PasswordCredential(passwordFactory.generatePassword(new ClearPasswordSpec("pass".toCharArray())))))
+        ));
+        final SaslAuthenticationFactory.Builder builder = SaslAuthenticationFactory.builder();
+        builder.setSecurityDomain(domainBuilder.build());
+        builder.setFactory(new ServiceLoaderSaslServerFactory(RemoteTestBase.class.getClassLoader()));
+        builder.setMechanismConfigurationSelector(mechanismInformation -> mechanismInformation.getMechanismName().startsWith(SASL_MECH) ? MechanismConfiguration.EMPTY : null);
+        return builder.build();
+    }
+
+    /**
+     * Register the echo service, which replies to each message with a message of the same content.
+     *
+     * @param endpoint the endpoint to register the service with
+     * @return the service registration
+     * @throws IOException if the registration fails
+     */
+    protected static Registration registerEchoService(final Endpoint endpoint) throws IOException {
+        return registerEchoService(endpoint, ECHO_SERVICE, OptionMap.EMPTY);
+    }
+
+    /**
+     * Register an echo service under the given name and with the given service options.
+     *
+     * @param endpoint the endpoint to register the service with
+     * @param serviceType the service type
+     * @param optionMap the service options
+     * @return the service registration
+     * @throws IOException if the registration fails
+     */
+    protected static Registration registerEchoService(final Endpoint endpoint, final String serviceType, final OptionMap optionMap) throws IOException {
+        return endpoint.registerService(serviceType, new OpenListener() {
+            public void channelOpened(final Channel channel) {
+                channel.receiveMessage(new Channel.Receiver() {
+                    public void handleError(final Channel channel, final IOException error) {
+                        IoUtils.safeClose(channel);
+                    }
+
+                    public void handleEnd(final Channel channel) {
+                        IoUtils.safeClose(channel);
+                    }
+
+                    public void handleMessage(final Channel channel, final MessageInputStream message) {
+                        channel.receiveMessage(this);
+                        try (MessageInputStream in = message) {
+                            final byte[] bytes = readAll(in);
+                            try (MessageOutputStream out = channel.writeMessage()) {
+                                out.write(bytes);
+                            }
+                        } catch (IOException e) {
+                            IoUtils.safeClose(channel);
+                        }
+                    }
+                });
+            }
+
+            public void registrationTerminated() {
+            }
+        }, optionMap);
+    }
+
+    /**
+     * Stop the server and close the server endpoint.
+     */
+    protected static void stopServer() {
+        if (echoRegistration != null) {
+            echoRegistration.close();
+            echoRegistration = null;
+        }
+        IoUtils.safeClose(server);
+        server = null;
+        IoUtils.safeClose(serverEndpoint);
+        serverEndpoint = null;
+    }
+
+    protected static AuthenticationContext authenticationContext() {
+        return AuthenticationContext.empty().with(MatchRule.ALL, AuthenticationConfiguration.empty()
+            .useName("bob")
+            .usePassword("pass")
+            .setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism(SASL_MECH)));
+    }
+
+    protected static URI serverUri() {
+        try {
+            return new URI("remote://localhost:" + PORT);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Connect the client endpoint to the server.
+     *
+     * @param options the connection options
+     * @return the connection
+     * @throws IOException if the connection fails
+     */
+    protected static Connection connect(final OptionMap options) throws IOException {
+        final IoFuture<Connection> futureConnection = authenticationContext().run((PrivilegedAction<IoFuture<Connection>>) () -> clientEndpoint.connect(serverUri(), options));
+        if (futureConnection.await(10L, TimeUnit.SECONDS) == IoFuture.Status.WAITING) {
+            futureConnection.cancel();
+            throw new IOException("Timed out connecting to " + serverUri());
+        }
+        return futureConnection.get();
+    }
+
+    /**
+     * Send a message to the echo service over the given channel, and wait for the reply.
+     *
+     * @param channel the channel
+     * @param bytes the message content
+     * @return the reply content
+     * @throws IOException if the exchange fails
+     */
+    protected static byte[] echo(final Channel channel, final byte[] bytes) throws IOException {
+        final IoFuture<byte[]> future = echoAsync(channel, bytes);
+        if (future.await(10L, TimeUnit.SECONDS) == IoFuture.Status.WAITING) {
+            throw new IOException("Timed out waiting for the echo reply");
+        }
+        return future.get();
+    }
+
+    /**
+     * Send a message to the echo service over the given channel without waiting for the reply.
+     *
+     * @param channel the channel
+     * @param bytes the message content
+     * @return the future reply content
+     * @throws IOException if the message cannot be sent
+     */
+    protected static IoFuture<byte[]> echoAsync(final Channel channel, final byte[] bytes) throws IOException {
+        final FutureResult<byte[]> reply = new FutureResult<>();
+        channel.receiveMessage(new Channel.Receiver() {
+            public void handleError(final Channel channel, final IOException error) {
+                reply.setException(error);
+            }
+
+            public void handleEnd(final Channel channel) {
+                reply.setCancelled();
+            }
+
+            public void handleMessage(final Channel channel, final MessageInputStream message) {
+                try (MessageInputStream in = message) {
+                    reply.setResult(readAll(in));
+                } catch (IOException e) {
+                    reply.setException(e);
+                }
+            }
+        });
+        try (MessageOutputStream out = channel.writeMessage()) {
+            out.write(bytes);
+        }
+        return reply.getIoFuture();
+    }
+
+    /**
+     * Get the management bean of a connection provider of an endpoint.
+     *
+     * @param endpoint the endpoint
+     * @param protocol the protocol name of the provider
+     * @return the management bean proxy
+     * @throws Exception if no such bean is registered
+     */
+    protected static RemoteConnectionProviderMXBean getProviderMXBean(final Endpoint endpoint, final String protocol) throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final String prefix = "Remoting-" + endpoint.getName() + "-" + protocol + "-";
+        for (ObjectName objectName : server.queryNames(new ObjectName("jboss.remoting.handler:*"), null)) {
+            final String name = objectName.getKeyProperty("name");
+            // the beans of the provider's connections share its prefix
+            if (name != null && name.startsWith(prefix) && name.indexOf("-connection-", prefix.length()) == -1) {
+                return JMX.newMXBeanProxy(server, objectName, RemoteConnectionProviderMXBean.class);
+            }
+        }
+        throw new IllegalStateException("No provider bean registered for " + prefix);
+    }
+
+    protected static void assertEcho(final Channel channel, final String text) throws IOException {
+        assertEquals(text, new String(echo(channel, text.getBytes("UTF-8")), "UTF-8"));
+    }
+
+    protected static byte[] readAll(final MessageInputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int res;
+        while ((res = in.read(buffer)) != -1) {
+            out.write(buffer, 0, res);
+        }
+        return out.toByteArray();
+    }
+}